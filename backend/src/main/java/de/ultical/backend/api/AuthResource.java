@@ -1,20 +1,25 @@
 package de.ultical.backend.api;
 
 import javax.inject.Inject;
+import javax.validation.constraints.NotNull;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response.Status;
 
-import org.mindrot.jbcrypt.BCrypt;
+import org.apache.ibatis.exceptions.PersistenceException;
 
 import de.ultical.backend.api.transferClasses.AuthResponse;
 import de.ultical.backend.api.transferClasses.AuthResponse.AuthResponseStatus;
+import de.ultical.backend.app.PasswordHasher;
+import de.ultical.backend.app.TokenService;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.data.DataStore.DataStoreCloseable;
 import de.ultical.backend.model.User;
+import io.dropwizard.auth.Auth;
 
 /**
  * Handle new user registration
@@ -28,6 +33,12 @@ public class AuthResource {
     @Inject
     DataStore dataStore;
 
+    @Inject
+    TokenService tokenService;
+
+    @Inject
+    PasswordHasher passwordHasher;
+
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
@@ -47,7 +58,7 @@ public class AuthResource {
                 return new AuthResponse(AuthResponseStatus.WRONG_CREDENTIALS);
             }
 
-            if (!BCrypt.checkpw(requestedUser.getPassword(), foundUser.getPassword())) {
+            if (!this.passwordHasher.check(requestedUser.getPassword(), foundUser.getPassword())) {
                 return new AuthResponse(AuthResponseStatus.WRONG_CREDENTIALS);
             }
 
@@ -59,11 +70,57 @@ public class AuthResource {
                 return new AuthResponse(AuthResponseStatus.DFV_EMAIL_NOT_OPT_IN);
             }
 
-            AuthResponse successResponse = new AuthResponse(AuthResponseStatus.SUCCESS);
-            successResponse.setUser(foundUser);
+            return this.success(foundUser);
+        }
+    }
+
+    /**
+     * Issues a new session token, provided the user's tokens have not been
+     * revoked in the meantime.
+     */
+    @POST
+    @Path("refresh")
+    @Produces(MediaType.APPLICATION_JSON)
+    public AuthResponse refresh(@Auth @NotNull User currentUser) {
+        try (DataStoreCloseable c = this.dataStore.getClosable()) {
+            Integer version = this.dataStore.getTokenVersion(currentUser.getId());
+            if (version == null || version != currentUser.getTokenVersion()) {
+                throw new WebApplicationException("Session has been revoked", Status.UNAUTHORIZED);
+            }
+            AuthResponse response = this.success(currentUser);
+            // the user from a token only knows its id and email
+            response.setUser(null);
+            return response;
+        } catch (PersistenceException pe) {
+            throw new WebApplicationException("Accessing the database failed", Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Revokes all session tokens of the current user, e.g. to log out on all
+     * devices.
+     */
+    @POST
+    @Path("revoke")
+    public void revoke(@Auth @NotNull User currentUser) {
+        try (DataStoreCloseable c = this.dataStore.getClosable()) {
+            Integer version = this.dataStore.revokeTokens(currentUser.getId());
+            if (version != null) {
+                this.tokenService.revoke(currentUser.getId(), version);
+            }
+        } catch (PersistenceException pe) {
+            throw new WebApplicationException("Accessing the database failed", Status.INTERNAL_SERVER_ERROR);
+        }
+    }
 
-            return successResponse;
+    private AuthResponse success(User user) {
+        AuthResponse response = new AuthResponse(AuthResponseStatus.SUCCESS);
+        response.setUser(user);
+        if (this.tokenService != null) {
+            response.setToken(this.tokenService.issue(user));
+            response.setTokenValidSeconds(this.tokenService.getTimeToLive().getSeconds());
         }
+        return response;
     }
 
 }
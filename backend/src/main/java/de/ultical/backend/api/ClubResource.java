@@ -14,6 +14,7 @@ import org.apache.ibatis.exceptions.PersistenceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.ultical.backend.app.CachedResponse;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.data.DataStore.DataStoreCloseable;
 import de.ultical.backend.model.Club;
@@ -35,6 +36,8 @@ public class ClubResource {
     @GET
     @Path("all")
     @Produces(MediaType.APPLICATION_JSON)
+    @CachedResponse(tables = { "CLUB", "ASSOCIATION", "CONTACT", "ASSOCIATION_ULTICAL_USERS", "ULTICAL_USER",
+            "DFV_PLAYER" })
     public List<Club> getAllClubs() {
 
         try (DataStoreCloseable c = this.dataStore.getClosable()) {
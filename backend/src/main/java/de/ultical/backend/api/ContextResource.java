@@ -15,6 +15,7 @@ import org.apache.ibatis.exceptions.PersistenceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.ultical.backend.app.CachedResponse;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.data.DataStore.DataStoreCloseable;
 import de.ultical.backend.model.Context;
@@ -50,6 +51,7 @@ public class ContextResource {
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
+    @CachedResponse(tables = "CONTEXT")
     public List<Context> getAllContexts() {
         if (this.dataStore == null) {
             throw new WebApplicationException("Dependency Injectino for data store failed!",
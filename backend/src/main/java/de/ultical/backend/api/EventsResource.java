@@ -1,10 +1,14 @@
 package de.ultical.backend.api;
 
 import de.ultical.backend.app.Authenticator;
+import de.ultical.backend.app.CachedResponse;
+import de.ultical.backend.app.FlatJsonProvider;
+import de.ultical.backend.app.JsonStreamingOutput;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.data.DataStore.DataStoreCloseable;
 import de.ultical.backend.model.*;
 import io.dropwizard.auth.Auth;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.ibatis.exceptions.PersistenceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +18,7 @@ import javax.validation.constraints.NotNull;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import java.util.Date;
 import java.util.List;
 
@@ -21,9 +26,12 @@ import java.util.List;
 public class EventsResource {
 
     private static final String DB_ACCESS_FAILURE = "Accessing database failed";
+    private static final double MAX_RADIUS_KM = 500.0;
     private final static Logger LOG = LoggerFactory.getLogger(EventsResource.class);
     @Inject
     DataStore dataStore;
+    @Inject
+    ObjectMapper objectMapper;
 
     private void checkDatatStore() {
         if (this.dataStore == null) {
@@ -43,9 +51,29 @@ public class EventsResource {
         }
     }
 
+    /**
+     * Like {@link #getEvents(Date, Date)}, but writes each event as soon as it
+     * has been read, so the memory needed does not depend on the number of
+     * events.
+     */
     @GET
-    @Path("/basics")
+    @Path("/stream")
     @Produces(MediaType.APPLICATION_JSON)
+    public StreamingOutput streamEvents(@QueryParam("from") Date from, @QueryParam("to") Date to) {
+        this.checkDatatStore();
+        // the data store's session is released at the end of the request,
+        // after the response has been written
+        return new JsonStreamingOutput<>(this.objectMapper, Event.class,
+                action -> this.dataStore.forEachEvent(from, to, action));
+    }
+
+    @GET
+    @CachedResponse(tables = { "EVENT", "EVENT_LOCATION", "LOCATION", "TOURNAMENT_EDITION", "SEASON",
+            "TOURNAMENT_FORMAT", "TOURNAMENT_FORMAT_ULTICAL_USERS", "DIVISION_REGISTRATION", "DIVISION_CONFIRMATION",
+            "CONTEXT", "ASSOCIATION", "ASSOCIATION_ULTICAL_USERS", "CLUB", "CONTACT", "ULTICAL_USER", "PLAYER",
+            "DFV_PLAYER" })
+    @Path("/basics")
+    @Produces({ MediaType.APPLICATION_JSON, FlatJsonProvider.FLAT_JSON })
     public List<Event> getEventsBasics(@QueryParam("from") Date from, @QueryParam("to") Date to) throws Exception {
         this.checkDatatStore();
         try (AutoCloseable c = this.dataStore.getClosable()) {
@@ -56,6 +84,27 @@ public class EventsResource {
         }
     }
 
+    @GET
+    @Path("/near")
+    @Produces({ MediaType.APPLICATION_JSON, FlatJsonProvider.FLAT_JSON })
+    public List<Event> getEventsNear(@QueryParam("lat") Double latitude, @QueryParam("lon") Double longitude,
+                                     @QueryParam("radiusKm") @DefaultValue("50") double radiusKm,
+                                     @QueryParam("from") Date from, @QueryParam("to") Date to) throws Exception {
+        this.checkDatatStore();
+        if (latitude == null || longitude == null || Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+            throw new WebApplicationException("Valid lat and lon parameters are required", Status.BAD_REQUEST);
+        }
+        if (!(radiusKm > 0 && radiusKm <= MAX_RADIUS_KM)) {
+            throw new WebApplicationException("radiusKm must be between 0 and " + MAX_RADIUS_KM, Status.BAD_REQUEST);
+        }
+        try (AutoCloseable c = this.dataStore.getClosable()) {
+            return this.dataStore.getEventBasicsNear(latitude, longitude, radiusKm, from, to);
+        } catch (PersistenceException pe) {
+            LOG.error(DB_ACCESS_FAILURE, pe);
+            throw new WebApplicationException(DB_ACCESS_FAILURE, Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @GET
     @Path("/{eventId}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -82,8 +131,7 @@ public class EventsResource {
         assureCompleteEventInformation(event);
 
         try (DataStoreCloseable c = this.dataStore.getClosable()) {
-            TournamentFormat format = dataStore.getFormatByEdition(event.getTournamentEdition().getId());
-            Authenticator.assureFormatAdmin(format, currentUser);
+            Authenticator.assureEditionAdmin(this.dataStore, event.getTournamentEdition().getId(), currentUser);
 
             processPreSaveEventDependencies(event);
 
@@ -16,10 +16,11 @@ import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response.Status;
 
-import org.mindrot.jbcrypt.BCrypt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,6 +31,10 @@ import de.ultical.backend.app.EmailCodeService;
 import de.ultical.backend.app.MailClient;
 import de.ultical.backend.app.MailClient.UlticalMessage.Recipient;
 import de.ultical.backend.app.MailClient.UlticalMessage.UlticalRecipientType;
+import de.ultical.backend.app.CircuitBreaker;
+import de.ultical.backend.app.OutboundCallExecutor;
+import de.ultical.backend.app.PasswordHasher;
+import de.ultical.backend.app.TokenService;
 import de.ultical.backend.app.UltiCalConfig;
 import de.ultical.backend.app.mail.UserMessage;
 import de.ultical.backend.data.DataStore;
@@ -64,6 +69,18 @@ public class MailResource {
     @Inject
     Client client;
 
+    @Inject
+    TokenService tokenService;
+
+    @Inject
+    PasswordHasher passwordHasher;
+
+    @Inject
+    OutboundCallExecutor outboundCalls;
+
+    @Inject
+    CircuitBreaker dfvApiBreaker;
+
     @GET
     @Path("code/{code}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -117,10 +134,14 @@ public class MailResource {
             }
 
             // encode password
-            mailCode.getUser().setPassword(BCrypt.hashpw(user.getPassword(), BCrypt.gensalt(10)));
+            mailCode.getUser().setPassword(this.passwordHasher.hash(user.getPassword()));
 
-            // update user
+            // update user, this revokes the user's session tokens
             this.dataStore.update(mailCode.getUser());
+            Integer tokenVersion = this.dataStore.getTokenVersion(mailCode.getUser().getId());
+            if (tokenVersion != null && this.tokenService != null) {
+                this.tokenService.revoke(mailCode.getUser().getId(), tokenVersion);
+            }
 
             // delete mail code
             this.dataStore.deleteMailCode(code);
@@ -166,7 +187,7 @@ public class MailResource {
                     .queryParam("secret", this.config.getDfvApi().getSecret());
 
             Invocation.Builder invocationBuilder = target.request(MediaType.APPLICATION_JSON);
-            DfvMvPlayer player = invocationBuilder.get(DfvMvPlayer.class);
+            DfvMvPlayer player = this.dfvApiBreaker.call(() -> invocationBuilder.get(DfvMvPlayer.class));
 
             return new EmailCodeService(this.dataStore, this.config.getFrontendUrl())
                     .sendEmailDfvOptInMessage(this.mailClient, user, player.getEmail());
@@ -265,6 +286,7 @@ public class MailResource {
         if (currentUser == null && !CaptchaVerifier.getInstance().verifyCaptcha((String) emailInfo.get("captcha"))) {
             throw new CaptchaFailedException();
         }
+        OutboundCallExecutor.checkNotCancelled();
 
         UserMessage message = new UserMessage();
 
@@ -276,7 +298,13 @@ public class MailResource {
         if (currentUser == null) {
             currentUserRecipient = new Recipient((String) emailInfo.get("replyTo"), (String) emailInfo.get("name"));
         } else {
-            currentUserRecipient = new Recipient((String) emailInfo.get("replyTo"), currentUser.getFullName());
+            User author = currentUser;
+            if (author.getDfvPlayer() == null) {
+                // a user authenticated by a session token carries no player
+                User storedUser = this.dataStore.get(currentUser.getId(), User.class);
+                author = storedUser != null ? storedUser : currentUser;
+            }
+            currentUserRecipient = new Recipient((String) emailInfo.get("replyTo"), author.getFullName());
         }
         message.setAuthor(currentUserRecipient);
         message.addRecipient(UlticalRecipientType.TO, currentUserRecipient);
@@ -299,8 +327,9 @@ public class MailResource {
     @POST
     @Path("team/ano")
     @Consumes(MediaType.APPLICATION_JSON)
-    public boolean sendEmailToTeamAno(Map<String, Object> emailInfo)  {
-        return this.sendEmailToTeamHelper(emailInfo, null);
+    public void sendEmailToTeamAno(Map<String, Object> emailInfo, @Suspended AsyncResponse asyncResponse)  {
+        // anonymous senders wait for the captcha verification
+        this.outboundCalls.submit(asyncResponse, () -> this.sendEmailToTeamHelper(emailInfo, null));
     }
 
     private boolean sendEmailToTeamHelper(Map<String, Object> emailInfo, User currentUser)  {
@@ -347,8 +376,8 @@ public class MailResource {
     @POST
     @Path("event/ano")
     @Consumes(MediaType.APPLICATION_JSON)
-    public boolean sendEmailToEventAno(Map<String, Object> emailInfo)  {
-        return this.sendEmailToEventHelper(emailInfo, null);
+    public void sendEmailToEventAno(Map<String, Object> emailInfo, @Suspended AsyncResponse asyncResponse)  {
+        this.outboundCalls.submit(asyncResponse, () -> this.sendEmailToEventHelper(emailInfo, null));
     }
 
     private boolean sendEmailToEventHelper(Map<String, Object> emailInfo, User currentUser)  {
@@ -14,10 +14,10 @@ import javax.ws.rs.Path;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 
-import org.mindrot.jbcrypt.BCrypt;
-
 import de.ultical.backend.api.transferClasses.DfvMvName;
 import de.ultical.backend.api.transferClasses.DfvMvPlayer;
 import de.ultical.backend.api.transferClasses.RegisterRequest;
@@ -25,6 +25,9 @@ import de.ultical.backend.api.transferClasses.RegisterResponse;
 import de.ultical.backend.api.transferClasses.RegisterResponse.RegisterResponseStatus;
 import de.ultical.backend.app.EmailCodeService;
 import de.ultical.backend.app.MailClient;
+import de.ultical.backend.app.CircuitBreaker;
+import de.ultical.backend.app.OutboundCallExecutor;
+import de.ultical.backend.app.PasswordHasher;
 import de.ultical.backend.app.UltiCalConfig;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.data.DataStore.DataStoreCloseable;
@@ -53,8 +56,25 @@ public class RegisterResource {
     @Inject
     MailClient mailClient;
 
+    @Inject
+    PasswordHasher passwordHasher;
+
+    @Inject
+    OutboundCallExecutor outboundCalls;
+
+    @Inject
+    CircuitBreaker dfvApiBreaker;
+
+    /**
+     * Looks up the DFV profiles of all players with a matching name, so the
+     * request waits for the DFV API outside of the request threads.
+     */
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
+    public void registerRequest(RegisterRequest registerRequest, @Suspended AsyncResponse asyncResponse) {
+        this.outboundCalls.submit(asyncResponse, () -> this.registerRequest(registerRequest));
+    }
+
     public RegisterResponse registerRequest(RegisterRequest registerRequest) {
 
         // validate data
@@ -76,19 +96,23 @@ public class RegisterResource {
             String registerUserBirthdayString = df.format(registerRequest.getBirthDate());
 
             for (DfvMvName name : names) {
-                WebTarget target = this.client.target(this.config.getDfvApi().getUrl()).path("profil")
-                        .path(String.valueOf(name.getDfvNumber()))
-                        .queryParam("token", this.config.getDfvApi().getToken())
-                        .queryParam("secret", this.config.getDfvApi().getSecret());
+                // an open breaker rejects the call before the request is built
+                DfvMvPlayer player = this.dfvApiBreaker.call(() -> {
+                    WebTarget target = this.client.target(this.config.getDfvApi().getUrl()).path("profil")
+                            .path(String.valueOf(name.getDfvNumber()))
+                            .queryParam("token", this.config.getDfvApi().getToken())
+                            .queryParam("secret", this.config.getDfvApi().getSecret());
 
-                Invocation.Builder invocationBuilder = target.request(MediaType.APPLICATION_JSON);
-                DfvMvPlayer player = invocationBuilder.get(DfvMvPlayer.class);
+                    Invocation.Builder invocationBuilder = target.request(MediaType.APPLICATION_JSON);
+                    return invocationBuilder.get(DfvMvPlayer.class);
+                });
 
                 // find a matching birthday
                 if (player != null && registerUserBirthdayString.equals(player.getDobString())) {
                     foundPlayers.add(player);
                 }
             }
+            OutboundCallExecutor.checkNotCancelled();
 
             /*
              * we now have a set of players with matching names and birthdays
@@ -233,7 +257,7 @@ public class RegisterResource {
 
             User user = new User();
             user.setEmail(registerRequest.getEmail());
-            user.setPassword(BCrypt.hashpw(registerRequest.getPassword(), BCrypt.gensalt(10)));
+            user.setPassword(this.passwordHasher.hash(registerRequest.getPassword()));
             user.setDfvPlayer(dfvPlayer);
 
             // send Confirmation Mail to registerRequest.getEmail()
@@ -248,6 +272,8 @@ public class RegisterResource {
                 user.setDfvEmailOptIn(true);
             }
 
+            // once stored, the user is confirmed by mail even if the request times out
+            OutboundCallExecutor.checkNotCancelled();
             this.dataStore.storeUser(user, playerNewlyCreated);
             EmailCodeService emailCodeService = new EmailCodeService(this.dataStore, this.config.getFrontendUrl());
 
@@ -0,0 +1,80 @@
+package de.ultical.backend.api;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.ultical.backend.api.transferClasses.RegistrationExportRow;
+import de.ultical.backend.app.CsvWriter;
+
+/**
+ * Writes the rows of a registration export as CSV while they are read from
+ * the database.
+ */
+public class RegistrationCsvOutput implements StreamingOutput {
+
+    public static final String TEXT_CSV = "text/csv";
+
+    private static final Logger LOG = LoggerFactory.getLogger(RegistrationCsvOutput.class);
+
+    // lets spreadsheet applications detect the encoding
+    private static final byte[] UTF8_BYTE_ORDER_MARK = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+    private static final Object[] HEADER = { "edition", "division_registration", "division_type", "division_age",
+            "division_identifier", "team_registration", "sequence", "status", "paid", "not_qualified", "team",
+            "roster_name_addition", "player", "last_name", "first_name", "gender", "dfv_number", "eligible",
+            "eligible_until", "dfv_paid", "club" };
+
+    private final Consumer<Consumer<? super RegistrationExportRow>> source;
+
+    /**
+     * @param source
+     *            passes all rows to export to the given action, e.g. one of the
+     *            export methods of the
+     *            {@link de.ultical.backend.data.DataStore DataStore}.
+     */
+    public RegistrationCsvOutput(final Consumer<Consumer<? super RegistrationExportRow>> source) {
+        this.source = Objects.requireNonNull(source);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+        output.write(UTF8_BYTE_ORDER_MARK);
+        // not closed, the container closes the stream
+        CsvWriter csv = new CsvWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+        try {
+            csv.writeRow(HEADER);
+            this.source.accept(row -> {
+                try {
+                    csv.writeRow(row.getEditionName(), row.getDivisionRegistrationId(), row.getDivisionType(),
+                            row.getDivisionAge(), row.getDivisionIdentifier(), row.getTeamRegistrationId(),
+                            row.getSequence(), row.getStatus(), row.getPaid(), row.getNotQualified(), row.getTeamName(),
+                            row.getNameAddition(), row.getPlayerId(), row.getLastName(), row.getFirstName(),
+                            row.getGender(), row.getDfvNumber(), row.getEligible(), row.getEligibleUntil(),
+                            row.getDfvPaid(), row.getClubName());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            csv.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (PersistenceException e) {
+            LOG.error("Exporting registrations failed", e);
+            throw new WebApplicationException("Accessing database failed", e, Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
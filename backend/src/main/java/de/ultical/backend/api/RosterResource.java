@@ -1,8 +1,19 @@
 package de.ultical.backend.api;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.validation.constraints.NotNull;
@@ -18,6 +29,8 @@ import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response.Status;
 
@@ -25,18 +38,19 @@ import org.apache.ibatis.exceptions.PersistenceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.ultical.backend.api.transferClasses.AddPlayerResult;
 import de.ultical.backend.api.transferClasses.DfvMvName;
 import de.ultical.backend.api.transferClasses.DfvMvPlayer;
 import de.ultical.backend.app.Authenticator;
+import de.ultical.backend.app.CircuitBreaker;
+import de.ultical.backend.app.OutboundCallExecutor;
 import de.ultical.backend.app.UltiCalConfig;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.data.DataStore.DataStoreCloseable;
+import de.ultical.backend.data.policies.DivisionRules;
 import de.ultical.backend.data.policies.Policy;
-import de.ultical.backend.model.Club;
 import de.ultical.backend.model.DfvPlayer;
 import de.ultical.backend.model.DivisionAge;
-import de.ultical.backend.model.DivisionType;
-import de.ultical.backend.model.Gender;
 import de.ultical.backend.model.Player;
 import de.ultical.backend.model.Roster;
 import de.ultical.backend.model.RosterPlayer;
@@ -48,6 +62,11 @@ public class RosterResource {
 
     private static final String DB_ACCESS_FAILED = "Database access failed!";
 
+    private static final String NO_DSE_PRESENT = "User did not agree to publish his data on the web (no DSE present)";
+
+    // the number of players that can be added to a roster with one request
+    static final int MAX_PLAYERS_PER_REQUEST = 100;
+
     private final static Logger LOGGER = LoggerFactory.getLogger(RosterResource.class);
 
     @Inject
@@ -59,6 +78,12 @@ public class RosterResource {
     @Inject
     UltiCalConfig config;
 
+    @Inject
+    OutboundCallExecutor outboundCalls;
+
+    @Inject
+    CircuitBreaker dfvApiBreaker;
+
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
@@ -127,8 +152,13 @@ public class RosterResource {
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @Path("{rosterId}")
-    public Player addPlayerToRoster(@Auth @NotNull User currentUser, @PathParam("rosterId") Integer rosterId,
-            @NotNull DfvMvName dfvMvName) {
+    public void addPlayerToRoster(@Auth @NotNull User currentUser, @PathParam("rosterId") Integer rosterId,
+            @NotNull DfvMvName dfvMvName, @Suspended AsyncResponse asyncResponse) {
+        // a player not known yet is fetched from the DFV API
+        this.outboundCalls.submit(asyncResponse, () -> this.addPlayerToRoster(currentUser, rosterId, dfvMvName));
+    }
+
+    public Player addPlayerToRoster(User currentUser, Integer rosterId, DfvMvName dfvMvName) {
         if (this.dataStore == null) {
             throw new WebApplicationException("Dependency Injection for data store failed!",
                     Status.INTERNAL_SERVER_ERROR);
@@ -140,16 +170,10 @@ public class RosterResource {
              dfvMvName = this.dataStore.getDfvMvName(dfvMvName.getDfvNumber());
 
             if (!dfvMvName.isDse()) {
-                throw new WebApplicationException("User did not agree to publish his data on the web (no DSE present)",
-                        Status.FORBIDDEN);
+                throw new WebApplicationException(NO_DSE_PRESENT, Status.FORBIDDEN);
             }
 
-            Roster roster = this.dataStore.get(rosterId, Roster.class);
-            if (roster == null) {
-                throw new WebApplicationException(String.format("Roster with ID=%d does not exist!", rosterId),
-                        Status.NOT_FOUND);
-            }
-            Authenticator.assureTeamAdmin(this.dataStore, roster.getTeam().getId(), currentUser);
+            Roster roster = this.getRosterAsAdmin(rosterId, currentUser);
 
             // get player if exists
             DfvPlayer player = this.dataStore.getPlayerByDfvNumber(dfvMvName.getDfvNumber());
@@ -157,64 +181,26 @@ public class RosterResource {
             Policy policy = Policy.getPolicy(roster.getContext(), this.dataStore);
             Policy.Eligibility eligibility = null;
 
+            /*
+             * players known already are checked against the synced data only,
+             * so they can be added while the DFV API is down. A new player
+             * fails fast with 503 while its circuit breaker is open.
+             */
             if (player == null) {
                 // a new player
 
                 // get full player data from dfv-mv
-                WebTarget target = this.client.target(this.config.getDfvApi().getUrl()).path("profil")
-                        .path(String.valueOf(dfvMvName.getDfvNumber()))
-                        .queryParam("token", this.config.getDfvApi().getToken())
-                        .queryParam("secret", this.config.getDfvApi().getSecret());
-
-                Invocation.Builder invocationBuilder = target.request(MediaType.APPLICATION_JSON);
-                DfvMvPlayer dfvMvPlayer = invocationBuilder.get(DfvMvPlayer.class);
+                DfvMvPlayer dfvMvPlayer = this.fetchDfvMvPlayer(dfvMvName.getDfvNumber());
 
                 // create and persist player object
-                DfvPlayer dfvPlayer = new DfvPlayer(dfvMvPlayer);
-                dfvPlayer.setFirstName(dfvMvName.getFirstName());
-                dfvPlayer.setLastName(dfvMvName.getLastName());
-                dfvPlayer.setEmail(dfvMvPlayer.getEmail());
-                dfvPlayer.setLastModified(dfvMvName.getLastModified());
-                dfvPlayer.setPaid(dfvMvPlayer.isPaid());
                 eligibility = policy.getPlayerEligibility(dfvMvPlayer);
-                if (eligibility != Policy.Eligibility.ELIGIBLE) {
-                 	dfvPlayer.setEligibleUntil(dfvMvName.getLastModified());
-                }
-                dfvPlayer.setClub(dfvMvName.getClub());
+                player = this.createDfvPlayer(dfvMvName, dfvMvPlayer, eligibility);
 
-                player = dfvPlayer;
-
-                this.dataStore.storeDfvPlayer(dfvPlayer);
+                OutboundCallExecutor.checkNotCancelled();
+                this.dataStore.storeDfvPlayer(player);
             }
 
-            /*
-             * check if found player is an active or passive player. If the
-             * player is passive, an addition to an roster is not allowed.
-             */
-            if (!player.isEligible()) {
-                if (eligibility == null)
-                throw new WebApplicationException(
-                        "e104 - Player is not eligible to participate in tournaments. She is either registered as a passive player, doesn't have her DSE signed or the yearly fees for her have not been sent by her club.",
-                        Status.EXPECTATION_FAILED);
-                switch (eligibility) {
-                    case NOT_PAID:
-                        throw new WebApplicationException(
-                                "e105 - Player is not eligible to participate in tournaments. The yearly fees for her have not been paid by her club.",
-                                Status.EXPECTATION_FAILED);
-                    case NO_DSE:
-                        throw new WebApplicationException(
-                                "e106 - Player is not eligible to participate in tournaments. She doesn't have her DSE signed.",
-                                Status.EXPECTATION_FAILED);
-                    case NOT_ACTIVE:
-                        throw new WebApplicationException(
-                                "e107 - Player is not eligible to participate in tournaments. She is registered as a passive player.",
-                                Status.EXPECTATION_FAILED);
-                    case IDLE:
-                        throw new WebApplicationException(
-                                "e108 - Player is not eligible to participate in tournaments. She is registered as an idle player.",
-                                Status.EXPECTATION_FAILED);
-                }
-            }
+            this.assurePlayerIsEligible(player, eligibility);
 
             this.checkPlayerEligibility(roster, player);
 
@@ -226,20 +212,235 @@ public class RosterResource {
                     if (policy.getErrorParameters().containsKey("team_name")) {
                         differentTeamName = policy.getErrorParameters().get("team_name");
                     }
-                    throw new WebApplicationException(
-                            "e101-" + differentTeamName
-                                    + "- Player is already in a different roster of this season and division",
-                            Status.CONFLICT);
+                    throw new WebApplicationException(alreadyInDifferentRoster(differentTeamName), Status.CONFLICT);
                 }
             }
 
             // add player to roster
+            OutboundCallExecutor.checkNotCancelled();
             this.dataStore.addPlayerToRoster(roster, player);
 
             return player;
         }
     }
 
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("{rosterId}/players")
+    public void addPlayersToRoster(@Auth @NotNull User currentUser, @PathParam("rosterId") Integer rosterId,
+            @NotNull List<Integer> dfvNumbers, @Suspended AsyncResponse asyncResponse) {
+        // players not known yet are fetched from the DFV API
+        this.outboundCalls.submit(asyncResponse, () -> this.addPlayersToRoster(currentUser, rosterId, dfvNumbers));
+    }
+
+    /**
+     * Adds several players to a roster at once. Each player is checked the
+     * same way as by {@link #addPlayerToRoster(User, Integer, DfvMvName)}, but
+     * the roster and the permissions are checked only once, the players are
+     * loaded with one query each and the profiles of new players are fetched
+     * from the DFV API concurrently. A player failing a check does not keep
+     * the others from being added, all accepted players are added with one
+     * batched write.
+     *
+     * @return a result for each DFV number, in the order given.
+     */
+    public List<AddPlayerResult> addPlayersToRoster(User currentUser, Integer rosterId, List<Integer> dfvNumbers) {
+        if (this.dataStore == null) {
+            throw new WebApplicationException("Dependency Injection for data store failed!",
+                    Status.INTERNAL_SERVER_ERROR);
+        }
+        if (dfvNumbers.size() > MAX_PLAYERS_PER_REQUEST) {
+            throw new WebApplicationException(
+                    String.format("At most %d players can be added at once", MAX_PLAYERS_PER_REQUEST),
+                    Status.BAD_REQUEST);
+        }
+
+        try (DataStoreCloseable c = this.dataStore.getClosable()) {
+
+            Roster roster = this.getRosterAsAdmin(rosterId, currentUser);
+
+            // a player listed twice is added once
+            Map<Integer, AddPlayerResult> results = new LinkedHashMap<>();
+            for (Integer dfvNumber : dfvNumbers) {
+                if (dfvNumber != null) {
+                    results.putIfAbsent(dfvNumber, new AddPlayerResult(dfvNumber));
+                }
+            }
+
+            Map<Integer, DfvMvName> dfvMvNames = this.dataStore.getDfvMvNames(results.keySet());
+            Map<Integer, DfvPlayer> players = new HashMap<>(this.dataStore.getPlayersByDfvNumbers(results.keySet()));
+
+            Policy policy = Policy.getPolicy(roster.getContext(), this.dataStore);
+            Map<Integer, Policy.Eligibility> eligibilities = new HashMap<>();
+
+            List<DfvMvName> newPlayers = new ArrayList<>();
+            for (AddPlayerResult result : results.values()) {
+                DfvMvName dfvMvName = dfvMvNames.get(result.getDfvNumber());
+                if (dfvMvName == null) {
+                    result.setError("Player is not a member of the DFV");
+                } else if (!dfvMvName.isDse()) {
+                    result.setError(NO_DSE_PRESENT);
+                } else if (!players.containsKey(result.getDfvNumber())) {
+                    newPlayers.add(dfvMvName);
+                }
+            }
+
+            // get full player data of the new players from dfv-mv
+            List<Future<DfvMvPlayer>> dfvMvPlayers = this.outboundCalls.invokeAll(newPlayers.stream()
+                    .map(dfvMvName -> (Callable<DfvMvPlayer>) () -> this.fetchDfvMvPlayer(dfvMvName.getDfvNumber()))
+                    .collect(Collectors.toList()));
+            OutboundCallExecutor.checkNotCancelled();
+
+            for (int i = 0; i < newPlayers.size(); i++) {
+                DfvMvName dfvMvName = newPlayers.get(i);
+                DfvMvPlayer dfvMvPlayer;
+                try {
+                    dfvMvPlayer = dfvMvPlayers.get(i).get();
+                } catch (ExecutionException e) {
+                    LOGGER.warn("Fetching DFV profile {} failed", dfvMvName.getDfvNumber(), e.getCause());
+                    results.get(dfvMvName.getDfvNumber()).setError(e.getCause().getMessage());
+                    continue;
+                } catch (InterruptedException e) {
+                    // the calls are completed already
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("The request has timed out");
+                }
+
+                // create and persist player object
+                Policy.Eligibility eligibility = policy.getPlayerEligibility(dfvMvPlayer);
+                DfvPlayer player = this.createDfvPlayer(dfvMvName, dfvMvPlayer, eligibility);
+                OutboundCallExecutor.checkNotCancelled();
+                this.dataStore.storeDfvPlayer(player);
+                players.put(dfvMvName.getDfvNumber(), player);
+                eligibilities.put(dfvMvName.getDfvNumber(), eligibility);
+            }
+
+            Set<Integer> inRoster = new HashSet<>();
+            if (roster.getPlayers() != null) {
+                for (RosterPlayer rosterPlayer : roster.getPlayers()) {
+                    inRoster.add(rosterPlayer.getPlayer().getId());
+                }
+            }
+
+            // check the rules for all players together
+            List<AddPlayerResult> accepted = new ArrayList<>();
+            for (AddPlayerResult result : results.values()) {
+                DfvPlayer player = players.get(result.getDfvNumber());
+                if (result.getError() != null || player == null) {
+                    continue;
+                }
+                try {
+                    if (inRoster.contains(player.getId())) {
+                        throw new WebApplicationException("Player is already in this roster", Status.CONFLICT);
+                    }
+                    this.assurePlayerIsEligible(player, eligibilities.get(result.getDfvNumber()));
+                    this.checkPlayerEligibility(roster, player);
+                    result.setPlayer(player);
+                    accepted.add(result);
+                } catch (WebApplicationException e) {
+                    result.setError(e.getMessage());
+                }
+            }
+
+            // do policy check if context exists
+            if (roster.getContext() != null && !accepted.isEmpty()) {
+                Map<Integer, String> conflicts = policy.getRosterConflicts(
+                        accepted.stream().map(r -> (DfvPlayer) r.getPlayer()).collect(Collectors.toList()), roster);
+                accepted.removeIf(result -> {
+                    String differentTeamName = conflicts.get(result.getPlayer().getId());
+                    if (differentTeamName == null) {
+                        return false;
+                    }
+                    result.setPlayer(null);
+                    result.setError(alreadyInDifferentRoster(differentTeamName));
+                    return true;
+                });
+            }
+
+            // add players to roster
+            OutboundCallExecutor.checkNotCancelled();
+            this.dataStore.addPlayersToRoster(roster,
+                    accepted.stream().map(AddPlayerResult::getPlayer).collect(Collectors.toList()));
+            accepted.forEach(result -> result.setAdded(true));
+
+            return new ArrayList<>(results.values());
+        }
+    }
+
+    private Roster getRosterAsAdmin(Integer rosterId, User currentUser) {
+        Roster roster = this.dataStore.get(rosterId, Roster.class);
+        if (roster == null) {
+            throw new WebApplicationException(String.format("Roster with ID=%d does not exist!", rosterId),
+                    Status.NOT_FOUND);
+        }
+        Authenticator.assureTeamAdmin(this.dataStore, roster.getTeam().getId(), currentUser);
+        return roster;
+    }
+
+    private DfvMvPlayer fetchDfvMvPlayer(int dfvNumber) {
+        WebTarget target = this.client.target(this.config.getDfvApi().getUrl()).path("profil")
+                .path(String.valueOf(dfvNumber))
+                .queryParam("token", this.config.getDfvApi().getToken())
+                .queryParam("secret", this.config.getDfvApi().getSecret());
+
+        Invocation.Builder invocationBuilder = target.request(MediaType.APPLICATION_JSON);
+        return this.dfvApiBreaker.call(() -> invocationBuilder.get(DfvMvPlayer.class));
+    }
+
+    private DfvPlayer createDfvPlayer(DfvMvName dfvMvName, DfvMvPlayer dfvMvPlayer, Policy.Eligibility eligibility) {
+        DfvPlayer dfvPlayer = new DfvPlayer(dfvMvPlayer);
+        dfvPlayer.setFirstName(dfvMvName.getFirstName());
+        dfvPlayer.setLastName(dfvMvName.getLastName());
+        dfvPlayer.setEmail(dfvMvPlayer.getEmail());
+        dfvPlayer.setLastModified(dfvMvName.getLastModified());
+        dfvPlayer.setPaid(dfvMvPlayer.isPaid());
+        if (eligibility != Policy.Eligibility.ELIGIBLE) {
+            dfvPlayer.setEligibleUntil(dfvMvName.getLastModified());
+        }
+        dfvPlayer.setClub(dfvMvName.getClub());
+        return dfvPlayer;
+    }
+
+    private static String alreadyInDifferentRoster(String differentTeamName) {
+        return "e101-" + differentTeamName + "- Player is already in a different roster of this season and division";
+    }
+
+    /**
+     * check if found player is an active or passive player. If the player is
+     * passive, an addition to an roster is not allowed.
+     *
+     * @param eligibility
+     *            as determined from the DFV profile of a new player, null for
+     *            a player known already
+     */
+    private void assurePlayerIsEligible(DfvPlayer player, Policy.Eligibility eligibility) {
+        if (!player.isEligible()) {
+            if (eligibility == null)
+            throw new WebApplicationException(
+                    "e104 - Player is not eligible to participate in tournaments. She is either registered as a passive player, doesn't have her DSE signed or the yearly fees for her have not been sent by her club.",
+                    Status.EXPECTATION_FAILED);
+            switch (eligibility) {
+                case NOT_PAID:
+                    throw new WebApplicationException(
+                            "e105 - Player is not eligible to participate in tournaments. The yearly fees for her have not been paid by her club.",
+                            Status.EXPECTATION_FAILED);
+                case NO_DSE:
+                    throw new WebApplicationException(
+                            "e106 - Player is not eligible to participate in tournaments. She doesn't have her DSE signed.",
+                            Status.EXPECTATION_FAILED);
+                case NOT_ACTIVE:
+                    throw new WebApplicationException(
+                            "e107 - Player is not eligible to participate in tournaments. She is registered as a passive player.",
+                            Status.EXPECTATION_FAILED);
+                case IDLE:
+                    throw new WebApplicationException(
+                            "e108 - Player is not eligible to participate in tournaments. She is registered as an idle player.",
+                            Status.EXPECTATION_FAILED);
+            }
+        }
+    }
+
     /**
      * throws an exception if either the player's gender does not match with the
      * division's requirements or if the player is too old or too young for the
@@ -251,44 +452,17 @@ public class RosterResource {
      */
     private void checkPlayerEligibility(Roster roster, DfvPlayer player) {
         // check if gender matches with divison
-        boolean wrongGender = false;
-        if (Gender.MALE.equals(player.getGender())) {
-            if (DivisionType.WOMEN.equals(roster.getDivisionType())) {
-                wrongGender = true;
-            }
-        } else if (Gender.NA.equals(player.getGender())) {
-            if (DivisionType.WOMEN.equals(roster.getDivisionType())) {
-                wrongGender = true;
-            }
-        }
-        if (wrongGender) {
+        if (!DivisionRules.isGenderAllowed(player.getGender(), roster.getDivisionType())) {
             throw new WebApplicationException("e102-Player has wrong gender for this Division", Status.CONFLICT);
         }
 
         // check player's age
-        boolean wrongAge = false;
-        if (roster.getDivisionAge() != DivisionAge.REGULAR) {
-            final LocalDate birthDate = player.getBirthDate();
-            if (birthDate == null) {
-                throw new WebApplicationException("A player, registered at the dfv, should have a valid birthdate",
-                        Status.CONFLICT);
-            }
-            int age = roster.getSeason().getYear() - birthDate.getYear();
-
-            if (roster.getDivisionAge() == DivisionAge.MASTERS && player.getGender() == Gender.FEMALE) {
-                // women masters can be 3 years younger than their male
-                // counterparts
-                age += 3;
-            } else if (roster.getDivisionAge() == DivisionAge.U17 && player.getGender() == Gender.FEMALE) {
-                // women are allowed to play U17 one year longer then male
-                // players.
-                // i.e. 18yo women are allowed to play U17
-                age -= 1;
-            }
-            wrongAge = (roster.getDivisionAge().isHasToBeOlder() && age < roster.getDivisionAge().getAgeDifference())
-                    || (!roster.getDivisionAge().isHasToBeOlder() && age > roster.getDivisionAge().getAgeDifference());
+        if (roster.getDivisionAge() != DivisionAge.REGULAR && player.getBirthDate() == null) {
+            throw new WebApplicationException("A player, registered at the dfv, should have a valid birthdate",
+                    Status.CONFLICT);
         }
-        if (wrongAge) {
+        if (!DivisionRules.isAgeAllowed(player.getBirthDate(), player.getGender(), roster.getDivisionAge(),
+                roster.getSeason().getYear())) {
             throw new WebApplicationException("e103-Player's age does not match division's regulations",
                     Status.CONFLICT);
         }
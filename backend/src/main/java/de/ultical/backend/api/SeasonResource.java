@@ -25,6 +25,7 @@ import de.ultical.backend.data.DataStore.DataStoreCloseable;
 import de.ultical.backend.model.Season;
 import de.ultical.backend.model.User;
 import de.ultical.backend.app.Authenticator;
+import de.ultical.backend.app.CachedResponse;
 import de.ultical.backend.exception.AuthorizationException;
 
 @Path("/season")
@@ -58,6 +59,7 @@ public class SeasonResource {
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
+    @CachedResponse(tables = "SEASON")
     public List<Season> getAllSeasons() {
         if (this.dataStore == null) {
             throw new WebApplicationException("Dependency Injectino for data store failed!",
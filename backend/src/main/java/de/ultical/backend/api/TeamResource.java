@@ -1,12 +1,16 @@
 package de.ultical.backend.api;
 
 import de.ultical.backend.app.Authenticator;
+import de.ultical.backend.app.CachedResponse;
+import de.ultical.backend.app.FlatJsonProvider;
+import de.ultical.backend.app.JsonStreamingOutput;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.data.DataStore.DataStoreCloseable;
 import de.ultical.backend.model.Location;
 import de.ultical.backend.model.Team;
 import de.ultical.backend.model.User;
 import io.dropwizard.auth.Auth;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.ibatis.exceptions.PersistenceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +20,7 @@ import javax.validation.constraints.NotNull;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import java.util.List;
 
 @Path("/teams")
@@ -28,6 +33,9 @@ public class TeamResource {
     @Inject
     DataStore dataStore;
 
+    @Inject
+    ObjectMapper objectMapper;
+
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     public List<Team> getAll() {
@@ -38,8 +46,25 @@ public class TeamResource {
         return result;
     }
 
+    /**
+     * Like {@link #getAll()}, but writes each team as soon as it has been read,
+     * so the memory needed does not depend on the number of teams.
+     */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
+    @Path("stream")
+    public StreamingOutput streamAll() {
+        if (this.dataStore == null) {
+            throw new WebApplicationException(500);
+        }
+        return new JsonStreamingOutput<>(this.objectMapper, Team.class,
+                action -> this.dataStore.forEach(Team.class, action));
+    }
+
+    @GET
+    @Produces({ MediaType.APPLICATION_JSON, FlatJsonProvider.FLAT_JSON })
+    @CachedResponse(tables = { "TEAM", "LOCATION", "CLUB", "ASSOCIATION", "CONTACT", "ASSOCIATION_ULTICAL_USERS",
+            "ULTICAL_USER", "DFV_PLAYER" })
     @Path("basics")
     public List<Team> getBasics()  {
         if (this.dataStore == null) {
@@ -22,6 +22,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.ultical.backend.app.Authenticator;
+import de.ultical.backend.app.CachedResponse;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.data.DataStore.DataStoreCloseable;
 import de.ultical.backend.exception.AuthorizationException;
@@ -43,6 +44,11 @@ public class TournamentFormatResource {
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
+    @CachedResponse(tables = { "TOURNAMENT_FORMAT", "TOURNAMENT_EDITION", "SEASON", "EVENT", "EVENT_LOCATION",
+            "EVENT_ULTICAL_USERS", "LOCATION", "FEE", "RESOURCE", "CONTEXT", "DIVISION_REGISTRATION",
+            "DIVISION_CONFIRMATION", "DIVISION_CONFIRMATION_TEAMS", "TEAM_REGISTRATION", "ROSTER", "ROSTER_PLAYERS",
+            "TEAM", "TEAM_ULTICAL_USERS", "PLAYER", "DFV_PLAYER", "UNREGISTERED_PLAYER", "ASSOCIATION",
+            "ASSOCIATION_ULTICAL_USERS", "CLUB", "CONTACT", "ULTICAL_USER" })
     public List<TournamentFormat> getAll() {
         this.checkDataStore();
         List<TournamentFormat> result = this.dataStore.getAll(TournamentFormat.class);
@@ -13,11 +13,17 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.ibatis.exceptions.PersistenceException;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.ultical.backend.api.transferClasses.EligibilityAuditReport;
 import de.ultical.backend.app.Authenticator;
+import de.ultical.backend.app.JsonStreamingOutput;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.data.DataStore.DataStoreCloseable;
 import de.ultical.backend.exception.AuthorizationException;
@@ -39,6 +45,9 @@ public class TournamentResource {
     @Inject
     DataStore dataStore;
 
+    @Inject
+    ObjectMapper objectMapper;
+
     private void checkDataStore() {
         if (this.dataStore == null) {
             throw new WebApplicationException("Dependency injection for datastore failed!",
@@ -59,6 +68,20 @@ public class TournamentResource {
 
     }
 
+    /**
+     * Like {@link #getAllTournaments()}, but writes each edition as soon as it
+     * has been read, so the memory needed does not depend on the number of
+     * editions.
+     */
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.APPLICATION_JSON)
+    public StreamingOutput streamAllTournaments() {
+        this.checkDataStore();
+        return new JsonStreamingOutput<>(this.objectMapper, TournamentEdition.class,
+                action -> this.dataStore.forEach(TournamentEdition.class, action));
+    }
+
     @POST
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
@@ -103,6 +126,64 @@ public class TournamentResource {
         }
     }
 
+    /*
+     * EXPORT
+     */
+    @GET
+    @Path("/{editionId}/export")
+    @Produces(RegistrationCsvOutput.TEXT_CSV)
+    public Response exportEditionRegistrations(@PathParam("editionId") Integer editionId,
+            @Auth @NotNull User currentUser) {
+        this.checkDataStore();
+        Authenticator.assureEditionAdmin(this.dataStore, editionId, currentUser);
+        return this.csvAttachment(String.format("edition-%d-registrations.csv", editionId),
+                new RegistrationCsvOutput(action -> this.dataStore.exportEditionRegistrations(editionId, action)));
+    }
+
+    @GET
+    @Path("/division/{divisionRegistrationId}/export")
+    @Produces(RegistrationCsvOutput.TEXT_CSV)
+    public Response exportDivisionRegistrations(@PathParam("divisionRegistrationId") Integer divisionRegistrationId,
+            @Auth @NotNull User currentUser) {
+        this.checkDataStore();
+        TournamentFormat format;
+        try {
+            format = this.dataStore.getFormatByDivisionRegistration(divisionRegistrationId);
+        } catch (PersistenceException pe) {
+            LOG.error("Database access failed", pe);
+            throw new WebApplicationException("Accessing database failed", pe, Status.INTERNAL_SERVER_ERROR);
+        }
+        Authenticator.assureFormatAdmin(format, currentUser);
+        return this.csvAttachment(String.format("division-%d-registrations.csv", divisionRegistrationId),
+                new RegistrationCsvOutput(
+                        action -> this.dataStore.exportDivisionRegistrations(divisionRegistrationId, action)));
+    }
+
+    /*
+     * AUDIT
+     */
+    @GET
+    @Path("/{editionId}/audit")
+    @Produces(MediaType.APPLICATION_JSON)
+    public EligibilityAuditReport auditEdition(@PathParam("editionId") Integer editionId,
+            @Auth @NotNull User currentUser) {
+        this.checkDataStore();
+        try (DataStoreCloseable c = this.dataStore.getClosable()) {
+            Authenticator.assureEditionAdmin(this.dataStore, editionId, currentUser);
+            return this.dataStore.auditEdition(editionId);
+        } catch (PersistenceException pe) {
+            LOG.error("Database access failed", pe);
+            throw new WebApplicationException("Accessing database failed", pe, Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private Response csvAttachment(String fileName, StreamingOutput output) {
+        // the rows are read while the response is written, the data store's
+        // session is released at the end of the request
+        return Response.ok(output, RegistrationCsvOutput.TEXT_CSV + "; charset=UTF-8")
+                .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"").build();
+    }
+
     /*
      * REGISTRATION
      */
@@ -122,7 +203,6 @@ public class TournamentResource {
             teamRegistration.setStatus(DivisionRegistrationStatus.PENDING);
             teamRegistration.setNotQualified(false);
             teamRegistration.setSpiritScore(-1);
-            teamRegistration.setSequence(-1);
             teamRegistration.setStanding(-1);
 
             return this.dataStore.registerTeamForEdition(divisionRegistrationId, teamRegistration);
@@ -0,0 +1,24 @@
+package de.ultical.backend.api.transferClasses;
+
+import de.ultical.backend.model.Player;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of adding one of several players to a roster at once.
+ */
+@Data
+@NoArgsConstructor
+public class AddPlayerResult {
+
+    private int dfvNumber;
+    private boolean added;
+    // the player added to the roster
+    private Player player;
+    // why the player has not been added
+    private String error;
+
+    public AddPlayerResult(int dfvNumber) {
+        this.dfvNumber = dfvNumber;
+    }
+}
@@ -12,6 +12,11 @@ public class AuthResponse {
 
     private AuthResponseStatus status;
     private User user;
+    /*
+     * session token to use instead of basic auth, valid for tokenValidSeconds
+     */
+    private String token;
+    private long tokenValidSeconds;
 
     public AuthResponse(AuthResponseStatus status) {
         this.status = status;
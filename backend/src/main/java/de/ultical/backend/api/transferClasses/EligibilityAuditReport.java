@@ -0,0 +1,19 @@
+package de.ultical.backend.api.transferClasses;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * The players of the team registrations of an edition that are not eligible
+ * to play for the division they are registered for.
+ */
+@Data
+public class EligibilityAuditReport {
+    private int editionId;
+    private int teamRegistrations;
+    // players checked, a player registered with several teams is counted
+    // for each of them
+    private int players;
+    private List<EligibilityAuditRow> ineligible;
+}
@@ -0,0 +1,65 @@
+package de.ultical.backend.api.transferClasses;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import de.ultical.backend.app.LocalDateDeserializer;
+import de.ultical.backend.app.LocalDateSerializer;
+import de.ultical.backend.app.LocalDateTimeDeserializer;
+import de.ultical.backend.app.LocalDateTimeSerializer;
+import de.ultical.backend.model.DivisionAge;
+import de.ultical.backend.model.DivisionType;
+import de.ultical.backend.model.Gender;
+import lombok.Data;
+
+/**
+ * One player of a team registration, as read by the
+ * {@link de.ultical.backend.data.mapper.EligibilityAuditMapper
+ * EligibilityAuditMapper}, together with the reasons the player is not
+ * eligible to play for it.
+ */
+@Data
+public class EligibilityAuditRow {
+
+    public enum Reason {
+        WRONG_GENDER, WRONG_AGE, NO_BIRTH_DATE, NOT_ELIGIBLE, NOT_PAID, NO_DSE, NO_DFV_MEMBER, DUPLICATE_ROSTER
+    }
+
+    private int teamRegistrationId;
+    private String status;
+    private int divisionRegistrationId;
+    private DivisionType divisionType;
+    private DivisionAge divisionAge;
+    private String divisionIdentifier;
+    private int seasonYear;
+    private int rosterId;
+    private String teamName;
+    private String nameAddition;
+
+    private int playerId;
+    private String firstName;
+    private String lastName;
+    private Gender gender;
+    private Integer dfvNumber;
+    @JsonSerialize(using = LocalDateSerializer.class)
+    @JsonDeserialize(using = LocalDateDeserializer.class)
+    private LocalDate birthDate;
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+    private LocalDateTime eligibleUntil;
+    private Boolean dfvPaid;
+
+    private List<Reason> reasons = new ArrayList<>();
+    // the names of the other rosters of the season and division the player
+    // is in
+    private List<String> otherRosters = new ArrayList<>();
+
+    public boolean isEligible() {
+        return this.reasons.isEmpty();
+    }
+}
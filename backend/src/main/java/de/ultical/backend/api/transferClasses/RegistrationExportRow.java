@@ -0,0 +1,49 @@
+package de.ultical.backend.api.transferClasses;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+/**
+ * One player of a team registration, as read by the
+ * {@link de.ultical.backend.data.mapper.RegistrationExportMapper
+ * RegistrationExportMapper}. A team registration without players results in
+ * one row without player data.
+ */
+@Data
+public class RegistrationExportRow {
+    private String editionName;
+    private int divisionRegistrationId;
+    private String divisionType;
+    private String divisionAge;
+    private String divisionIdentifier;
+
+    private int teamRegistrationId;
+    private Integer sequence;
+    private String status;
+    private Boolean paid;
+    private Boolean notQualified;
+    private String teamName;
+    private String nameAddition;
+
+    private Integer playerId;
+    private String firstName;
+    private String lastName;
+    private String gender;
+    private String dfvNumber;
+    private LocalDateTime eligibleUntil;
+    private Boolean dfvPaid;
+    private String clubName;
+
+    /**
+     * @return whether the player is eligible for DFV tournaments, following
+     *         {@link de.ultical.backend.model.DfvPlayer#isEligible()}, or
+     *         <code>null</code> if the player is no DFV player at all.
+     */
+    public Boolean getEligible() {
+        if (this.dfvNumber == null) {
+            return null;
+        }
+        return this.eligibleUntil == null;
+    }
+}
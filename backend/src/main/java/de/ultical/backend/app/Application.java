@@ -1,6 +1,7 @@
 package de.ultical.backend.app;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Optional;
 
@@ -16,23 +17,35 @@ import org.eclipse.jetty.servlets.CrossOriginFilter;
 import org.glassfish.hk2.api.Factory;
 import org.glassfish.hk2.utilities.binding.AbstractBinder;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import de.spinscale.dropwizard.jobs.JobsBundle;
 import de.ultical.backend.app.logging.UlticalLoggingFilter;
+import de.ultical.backend.data.ChangeGenerations;
+import de.ultical.backend.data.ChangeLogPoller;
 import de.ultical.backend.data.DataStore;
+import de.ultical.backend.data.DfvMemberRegistry;
+import de.ultical.backend.data.GeoIndex;
 import de.ultical.backend.data.LocalDateMixIn;
+import de.ultical.backend.data.PermissionCache;
 import de.ultical.backend.data.mapper.UserMapper;
 import de.ultical.backend.jobs.DfvDataSync;
+import de.ultical.backend.jobs.DfvSyncTask;
+import de.ultical.backend.jobs.JobStatusServlet;
+import de.ultical.backend.jobs.LeaseManager;
 import de.ultical.backend.model.User;
 import io.dropwizard.auth.AuthDynamicFeature;
+import io.dropwizard.auth.AuthFilter;
 import io.dropwizard.auth.AuthValueFactoryProvider;
 import io.dropwizard.auth.AuthenticationException;
 import io.dropwizard.auth.Authenticator;
 import io.dropwizard.auth.CachingAuthenticator;
 import io.dropwizard.auth.basic.BasicCredentialAuthFilter;
 import io.dropwizard.auth.basic.BasicCredentials;
+import io.dropwizard.auth.chained.ChainedAuthFilter;
+import io.dropwizard.auth.oauth.OAuthCredentialAuthFilter;
 import io.dropwizard.client.JerseyClientBuilder;
 import io.dropwizard.client.JerseyClientConfiguration;
 import io.dropwizard.db.ManagedDataSource;
@@ -42,6 +55,8 @@ import io.dropwizard.util.Duration;
 
 public class Application extends io.dropwizard.Application<UltiCalConfig> {
 
+    private static final long RESPONSE_CACHE_SIZE = 256;
+
     public static void main(String[] args) throws Exception {
         Application ultiCal = new Application();
         ultiCal.run(args);
@@ -57,6 +72,8 @@ public class Application extends io.dropwizard.Application<UltiCalConfig> {
 
         // add Jobs bundle to provide schedules tasks
         bootstrap.addBundle(new JobsBundle(new DfvDataSync()));
+        bootstrap.addCommand(new BCryptCalibrationCommand());
+        bootstrap.addCommand(new GenerateDataCommand());
     }
 
     @Override
@@ -64,13 +81,68 @@ public class Application extends io.dropwizard.Application<UltiCalConfig> {
 
         ManagedDataSource mds = config.getDatabase().build(env.metrics(), "UltiCal DataSource");
         env.lifecycle().manage(mds);
+        ManagedDataSource readMds = null;
+        if (config.getReadDatabase() != null) {
+            readMds = config.getReadDatabase().build(env.metrics(), "UltiCal Read DataSource");
+            env.lifecycle().manage(readMds);
+        }
         /*
          * We create a MyBatisManager and register it with the
          * dropwizard-lifecylce system. This ensures that MYBatis is started,
          * when the dropwizard environment starts and stopped accordingly.
          */
-        final MyBatisManager mbm = new MyBatisManager(mds);
+        final MyBatisManager mbm = new MyBatisManager(mds, readMds, env.metrics());
         env.lifecycle().manage(mbm);
+        final ChangeGenerations changeGenerations = new ChangeGenerations();
+        mbm.setChangeGenerations(changeGenerations);
+        /*
+         * the geo index and the DFV member registry are built from the
+         * database on startup, so they have to be registered after the
+         * MyBatisManager.
+         */
+        final GeoIndex geoIndex = new GeoIndex(mbm);
+        env.lifecycle().manage(geoIndex);
+        final DfvMemberRegistry dfvMemberRegistry = new DfvMemberRegistry(mbm);
+        env.lifecycle().manage(dfvMemberRegistry);
+        final PermissionCache permissionCache = new PermissionCache(changeGenerations, config.getPermissionCache());
+        /*
+         * the leases keep the nodes of a cluster from running the same job at
+         * the same time, their state is shown on the admin port.
+         */
+        final UltiCalConfig.JobsConfig jobsConfig = config.getJobsConf() != null ? config.getJobsConf()
+                : new UltiCalConfig.JobsConfig();
+        final LeaseManager leaseManager = new LeaseManager(mbm::providePrimary,
+                java.time.Duration.ofMillis(jobsConfig.getLeaseDuration().toMilliseconds()), env.metrics());
+        env.lifecycle().manage(leaseManager);
+        env.admin().addServlet("jobs", new JobStatusServlet(leaseManager, env.getObjectMapper())).addMapping("/jobs");
+        env.admin().addTask(new DfvSyncTask(leaseManager, DfvDataSync.getInterval(config), env.metrics()));
+        /*
+         * with several nodes, each node learns about the changes of the others
+         * from the change log, the lease owner serves as the node's name.
+         */
+        ChangeLogPoller changeLogPoller = null;
+        if (config.getChangeLog() != null && config.getChangeLog().isEnabled()) {
+            mbm.setChangeLogOrigin(leaseManager.getOwner());
+            changeLogPoller = new ChangeLogPoller(mbm::provide, changeGenerations, leaseManager.getOwner(),
+                    java.time.Duration.ofMillis(config.getChangeLog().getPollInterval().toMilliseconds()),
+                    java.time.Duration.ofMillis(config.getChangeLog().getRetention().toMilliseconds()),
+                    env.metrics());
+            changeLogPoller.addListener(geoIndex::reloadIfChanged);
+            changeLogPoller.addListener(dfvMemberRegistry::reloadIfChanged);
+            env.lifecycle().manage(changeLogPoller);
+        }
+        final UltiCalConfig.TokenConfig tokenConfig = config.getSessionToken() != null ? config.getSessionToken()
+                : new UltiCalConfig.TokenConfig();
+        final TokenService tokenService = new TokenService(TokenService.secretOrRandom(tokenConfig.getSecret()),
+                java.time.Duration.ofMillis(tokenConfig.getTimeToLive().toMilliseconds()), env.metrics());
+        final PasswordHasher passwordHasher = new PasswordHasher(config.getPasswordHashing() != null
+                ? config.getPasswordHashing() : new UltiCalConfig.PasswordHashingConfig(), env.metrics());
+        env.lifecycle().manage(passwordHasher);
+        final OutboundCallExecutor outboundCalls = new OutboundCallExecutor(config.getOutboundCalls() != null
+                ? config.getOutboundCalls() : new UltiCalConfig.OutboundCallsConfig(), env.metrics());
+        env.lifecycle().manage(outboundCalls);
+        final CircuitBreaker dfvApiBreaker = new CircuitBreaker("dfvApi", config.getDfvApiCircuitBreaker() != null
+                ? config.getDfvApiCircuitBreaker() : new UltiCalConfig.CircuitBreakerConfig(), env.metrics());
         env.jersey().register(new AbstractBinder() {
 
             @Override
@@ -81,6 +153,17 @@ public class Application extends io.dropwizard.Application<UltiCalConfig> {
                  */
                 this.bindFactory(mbm).to(SqlSession.class);
                 this.bindFactory(DataStoreFactory.class).to(DataStore.class);
+                this.bind(geoIndex).to(GeoIndex.class);
+                this.bind(dfvMemberRegistry).to(DfvMemberRegistry.class);
+                this.bind(permissionCache).to(PermissionCache.class);
+                this.bind(leaseManager).to(LeaseManager.class);
+                this.bind(tokenService).to(TokenService.class);
+                this.bind(passwordHasher).to(PasswordHasher.class);
+                this.bind(outboundCalls).to(OutboundCallExecutor.class);
+                this.bind(dfvApiBreaker).to(CircuitBreaker.class);
+                this.bind(changeGenerations).to(ChangeGenerations.class);
+                this.bind(env.getObjectMapper()).to(ObjectMapper.class);
+                this.bind(env.metrics()).to(MetricRegistry.class);
 
                 // Create factory to inject Client
                 this.bindFactory(new Factory<Client>() {
@@ -130,7 +213,11 @@ public class Application extends io.dropwizard.Application<UltiCalConfig> {
 
         // add healthcheck
         env.healthChecks().register("Database healthcheck", new DatabaseHealthCheck(mds));
+        if (readMds != null) {
+            env.healthChecks().register("Read database healthcheck", new DatabaseHealthCheck(readMds));
+        }
         env.healthChecks().register("E-Mail health check", new MailHealthCheck());
+        env.healthChecks().register("DFV API circuit breaker", new CircuitBreakerHealthCheck(dfvApiBreaker));
 
         env.jersey().register(EventsResource.class);
         env.jersey().register(TournamentResource.class);
@@ -150,7 +237,15 @@ public class Application extends io.dropwizard.Application<UltiCalConfig> {
         env.jersey().register(SitemapResource.class);
         env.jersey().register(ContactResource.class);
 
-        env.jersey().register(UlticalLoggingFilter.class);
+        /*
+         * every request gets an id in the MDC, and every resource method its
+         * latency, size and error metrics.
+         */
+        env.servlets().addFilter("UlticalLoggingFilter", new UlticalLoggingFilter())
+                .addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, "/*");
+        env.jersey().register(new EndpointMetrics(env.metrics(), config.getSlowRequestThreshold().toMilliseconds()));
+        env.jersey().register(new FlatJsonProvider(env.getObjectMapper()));
+        env.jersey().register(new ResponseCache(changeGenerations, env.metrics(), RESPONSE_CACHE_SIZE));
 
         /*
          * Authentication stuff. Basically the authenticator looks up the
@@ -190,8 +285,24 @@ public class Application extends io.dropwizard.Application<UltiCalConfig> {
 
         CachingAuthenticator<BasicCredentials, User> cachingAuthenticator = new CachingAuthenticator<>(env.metrics(),
                 authenticator, config.getAuthenticationCache());
-        env.jersey().register(new AuthDynamicFeature(new BasicCredentialAuthFilter.Builder<User>()
-                .setAuthenticator(cachingAuthenticator).buildAuthFilter()));
+        /*
+         * session tokens issued by the AuthResource are checked first, they
+         * are verified without accessing the database.
+         */
+        AuthFilter<String, User> tokenFilter = new OAuthCredentialAuthFilter.Builder<User>()
+                .setAuthenticator(tokenService).setPrefix(TokenService.PREFIX).buildAuthFilter();
+        AuthFilter<BasicCredentials, User> basicFilter = new BasicCredentialAuthFilter.Builder<User>()
+                .setAuthenticator(cachingAuthenticator).buildAuthFilter();
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        ChainedAuthFilter chainedFilter = new ChainedAuthFilter(Arrays.asList(tokenFilter, basicFilter));
+        env.jersey().register(new AuthDynamicFeature(chainedFilter));
+        if (changeLogPoller != null) {
+            changeLogPoller.addListener(tables -> {
+                if (tables.contains("ULTICAL_USER")) {
+                    cachingAuthenticator.invalidateAll();
+                }
+            });
+        }
         env.jersey().register(new AuthValueFactoryProvider.Binder<>(User.class));
 
         env.jersey().register(ServiceLocatorFeature.class);
@@ -9,10 +9,9 @@ import edu.emory.mathcs.backport.java.util.Collections;
 import org.apache.ibatis.exceptions.PersistenceException;
 
 import de.ultical.backend.data.DataStore;
+import de.ultical.backend.data.PermissionCache.Scope;
 import de.ultical.backend.exception.AuthorizationException;
 import de.ultical.backend.model.Event;
-import de.ultical.backend.model.Roster;
-import de.ultical.backend.model.Team;
 import de.ultical.backend.model.TournamentFormat;
 import de.ultical.backend.model.User;
 
@@ -32,45 +31,38 @@ public class Authenticator {
     }
 
     public static void assureRosterAdmin(DataStore dataStore, Integer rosterId, User currentUser) {
-        Roster storedRoster = null;
-        try {
-            storedRoster = dataStore.get(rosterId, Roster.class);
-        } catch (PersistenceException pe) {
-            throw new WebApplicationException("Accessing the database failed!", pe, Status.INTERNAL_SERVER_ERROR);
-        }
-        if (storedRoster == null) {
-            throw new WebApplicationException(String.format("Roster with id %d does not exist!", rosterId),
-                    Status.NOT_FOUND);
-        }
-        checkTeamAdmin(storedRoster.getTeam(), currentUser);
+        assureAdmin(dataStore, Scope.ROSTER, rosterId, currentUser, "Roster with id %d does not exist!",
+                "You are not an admin for the team of roster %d");
     }
 
     public static void assureTeamAdmin(DataStore dataStore, Integer teamId, User currentUser) {
-        Team storedTeam = null;
-        try {
-            storedTeam = dataStore.get(teamId, Team.class);
-        } catch (PersistenceException pe) {
-            throw new WebApplicationException("Accessing the database failed!", pe, Status.INTERNAL_SERVER_ERROR);
-        }
-        if (storedTeam == null) {
-            throw new WebApplicationException(String.format("Team with id %d does not exist!", teamId),
-                    Status.NOT_FOUND);
-        }
-        checkTeamAdmin(storedTeam, currentUser);
+        assureAdmin(dataStore, Scope.TEAM, teamId, currentUser, "Team with id %d does not exist!",
+                "You are not an admin for team %d");
     }
 
-    public static void checkTeamAdmin(Team team, User currentUser) {
-        boolean isAdmin = false;
-        for (User admin : team.getAdmins()) {
-            if (admin.getId() == currentUser.getId()) {
-                isAdmin = true;
-                break;
+    /*
+     * asks the database whether the user is an admin instead of loading the
+     * entity with its admins. Whether the entity exists is only checked if the
+     * user is no admin, to answer with 404 instead of 403.
+     */
+    private static void assureAdmin(DataStore dataStore, Scope scope, Integer id, User currentUser,
+            String notFoundMessage, String forbiddenMessage) {
+        if (id == null) {
+            throw new WebApplicationException(String.format(notFoundMessage, id), Status.NOT_FOUND);
+        }
+        boolean exists;
+        try {
+            if (dataStore.isAdmin(scope, id, currentUser)) {
+                return;
             }
+            exists = dataStore.exists(scope, id);
+        } catch (PersistenceException pe) {
+            throw new WebApplicationException("Accessing the database failed!", pe, Status.INTERNAL_SERVER_ERROR);
         }
-        if (!isAdmin) {
-            throw new WebApplicationException(String.format("You are not an admin for team %s", team.getName()),
-                    Status.FORBIDDEN);
+        if (!exists) {
+            throw new WebApplicationException(String.format(notFoundMessage, id), Status.NOT_FOUND);
         }
+        throw new WebApplicationException(String.format(forbiddenMessage, id), Status.FORBIDDEN);
     }
 
     public static void assureEventDivisionAdmin(DataStore dataStore, Integer divisionId, User currentUser) {
@@ -84,13 +76,8 @@ public class Authenticator {
     }
 
     public static void assureEventAdmin(DataStore dataStore, Integer eventId, User currentUser) {
-        Event storedEvent = null;
-        try {
-            storedEvent = dataStore.get(eventId, Event.class);
-        } catch (PersistenceException pe) {
-            throw new WebApplicationException("Accessing the database failed!", pe, Status.INTERNAL_SERVER_ERROR);
-        }
-        assureEventAdmin(storedEvent, currentUser);
+        assureAdmin(dataStore, Scope.EVENT, eventId, currentUser, "Event with id %d does not exist!",
+                "You are not an admin for event %d");
     }
 
     public static void assureEventAdmin(Event storedEvent, User currentUser) {
@@ -119,29 +106,14 @@ public class Authenticator {
     }
 
     public static void assureEventOrFormatAdmin(DataStore dataStore, int eventId, User user) {
-        //TournamentFormat format = dataStore.getFormatByEvent(eventId);
-        Event event = dataStore.getEvent(eventId);
-
-        boolean isEventAdmin = isEventAdmin(event, user);
-
-        TournamentFormat format = event.getTournamentEdition().getTournamentFormat();
-        boolean isFormatAdmin = isFormatAdmin(format, user);
-
-        if (!isEventAdmin && !isFormatAdmin) {
-            throw new WebApplicationException(
-                    String.format("You are neither an admin for format %d, nor for event %d", format.getId(), event.getId()),
-                    Status.FORBIDDEN);
-        }
+        // the admins of the format are admins of the event, too
+        assureAdmin(dataStore, Scope.EVENT, eventId, user, "Event with id %d does not exist!",
+                "You are neither an admin for event %d, nor for its format");
     }
 
     public static void assureEditionAdmin(DataStore dataStore, Integer editionId, User currentUser) {
-        TournamentFormat storedFormat = null;
-        try {
-            storedFormat = dataStore.getFormatByEdition(editionId);
-        } catch (PersistenceException pe) {
-            throw new WebApplicationException("Accessing the database failed!", pe, Status.INTERNAL_SERVER_ERROR);
-        }
-        assureFormatAdmin(storedFormat, currentUser);
+        assureAdmin(dataStore, Scope.EDITION, editionId, currentUser, "Edition with id %d does not exist!",
+                "You are not an admin for the format of edition %d");
     }
 
     public static void assureFormatAdmin(TournamentFormat storedFormat, User currentUser) {
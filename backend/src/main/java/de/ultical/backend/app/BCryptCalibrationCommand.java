@@ -0,0 +1,51 @@
+package de.ultical.backend.app;
+
+import io.dropwizard.cli.Command;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+
+/**
+ * Measures BCrypt on this machine and recommends the highest cost whose hash
+ * takes at most the target time. Run it on the production hardware and set
+ * <code>passwordHashing.cost</code> accordingly.
+ *
+ * <pre>
+ * java -jar ultical.jar calibrate-bcrypt --target-ms 250
+ * </pre>
+ */
+public class BCryptCalibrationCommand extends Command {
+
+    private static final int MIN_COST = 4;
+    private static final int MAX_COST = 16;
+
+    public BCryptCalibrationCommand() {
+        super("calibrate-bcrypt", "Recommends a BCrypt cost for the password hashing of this machine");
+    }
+
+    @Override
+    public void configure(Subparser subparser) {
+        subparser.addArgument("--target-ms").dest("targetMs").type(Integer.class).setDefault(250)
+                .help("the longest a single hash may take");
+        subparser.addArgument("--samples").dest("samples").type(Integer.class).setDefault(5)
+                .help("hashes per cost, the median is used");
+    }
+
+    @Override
+    public void run(Bootstrap<?> bootstrap, Namespace namespace) throws Exception {
+        int targetMs = namespace.getInt("targetMs");
+        int samples = namespace.getInt("samples");
+        System.out.println(String.format("%-6s %10s", "cost", "median ms"));
+        int recommended = MIN_COST;
+        for (int cost = MIN_COST; cost <= MAX_COST; cost++) {
+            long millis = PasswordHasher.measure(cost, samples);
+            System.out.println(String.format("%-6d %10d", cost, millis));
+            if (millis > targetMs) {
+                // every further step doubles the time
+                break;
+            }
+            recommended = cost;
+        }
+        System.out.println(String.format("Recommended cost for %d ms: %d", targetMs, recommended));
+    }
+}
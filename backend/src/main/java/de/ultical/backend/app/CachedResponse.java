@@ -0,0 +1,27 @@
+package de.ultical.backend.app;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.ws.rs.NameBinding;
+
+/**
+ * Marks a resource method whose serialized response is cached by the
+ * {@link ResponseCache}. Only use it for anonymous GET requests, whose
+ * responses depend on nothing but the path, the query parameters and the
+ * requested media type.
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface CachedResponse {
+
+    /**
+     * @return the tables the response is read from. The cached response is
+     *         discarded as soon as one of them has been modified. If no table
+     *         is given, any modification discards the response.
+     */
+    String[] tables() default {};
+}
@@ -0,0 +1,239 @@
+package de.ultical.backend.app;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Keeps callers from waiting for an external service that is failing anyway.
+ * <p>
+ * The outcomes of the last calls are kept in a window. Once the share of
+ * failures in it reaches the threshold, the breaker opens and every call is
+ * rejected right away with a {@link OpenException}. After the open duration a
+ * few probe calls are let through; if they all succeed the breaker closes
+ * again, otherwise it opens for another period.
+ * </p>
+ * <p>
+ * Failures are errors of the connection, like timeouts, answers with a server
+ * error status and exceptions without an answer. Any other answer, <code>404</code> for example, shows
+ * that the service works.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Thrown instead of calling the service while the breaker is open.
+     */
+    public static class OpenException extends ServiceUnavailableException {
+
+        private static final long serialVersionUID = 1L;
+
+        OpenException(String name, long retryAfterSeconds) {
+            super(String.format("%s is not available at the moment", name), retryAfterSeconds);
+        }
+    }
+
+    private final String name;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final Duration openDuration;
+    private final int halfOpenProbes;
+    private final Clock clock;
+
+    // outcomes of the last calls, true for a failure
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private Instant openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    private final Meter successMeter;
+    private final Meter failureMeter;
+    private final Meter rejectedMeter;
+
+    public CircuitBreaker(String name, UltiCalConfig.CircuitBreakerConfig config, MetricRegistry metrics) {
+        this(name, config, metrics, Clock.systemUTC());
+    }
+
+    CircuitBreaker(String name, UltiCalConfig.CircuitBreakerConfig config, MetricRegistry metrics, Clock clock) {
+        this.name = Objects.requireNonNull(name);
+        this.window = new boolean[Math.max(1, config.getWindowSize())];
+        this.minimumCalls = Math.max(1, Math.min(config.getMinimumCalls(), this.window.length));
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.openDuration = Duration.ofMillis(config.getOpenDuration().toMilliseconds());
+        this.halfOpenProbes = Math.max(1, config.getHalfOpenProbes());
+        this.clock = Objects.requireNonNull(clock);
+
+        MetricRegistry registry = metrics != null ? metrics : new MetricRegistry();
+        this.successMeter = registry.meter(MetricRegistry.name(CircuitBreaker.class, name, "successes"));
+        this.failureMeter = registry.meter(MetricRegistry.name(CircuitBreaker.class, name, "failures"));
+        this.rejectedMeter = registry.meter(MetricRegistry.name(CircuitBreaker.class, name, "rejected"));
+        registry.register(MetricRegistry.name(CircuitBreaker.class, name, "state"),
+                (Gauge<String>) () -> this.getState().name());
+        registry.register(MetricRegistry.name(CircuitBreaker.class, name, "failure-rate"),
+                (Gauge<Integer>) this::getFailureRate);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return the result of the call.
+     * @throws OpenException
+     *             if the breaker is open, the call has not been made.
+     */
+    public <T> T call(Supplier<T> call) {
+        this.acquirePermission();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            if (isFailure(e)) {
+                this.onFailure();
+            } else {
+                this.onSuccess();
+            }
+            throw e;
+        }
+        this.onSuccess();
+        return result;
+    }
+
+    static boolean isFailure(RuntimeException e) {
+        if (e instanceof ProcessingException) {
+            return true;
+        }
+        if (e instanceof WebApplicationException) {
+            // without an answer nothing shows that the service works
+            Response response = ((WebApplicationException) e).getResponse();
+            return response == null || response.getStatus() >= 500;
+        }
+        return false;
+    }
+
+    /**
+     * @return the state, an open breaker whose open duration has passed is
+     *         reported as half open.
+     */
+    public synchronized State getState() {
+        if (this.state == State.OPEN && !this.clock.instant().isBefore(this.openedAt.plus(this.openDuration))) {
+            return State.HALF_OPEN;
+        }
+        return this.state;
+    }
+
+    /**
+     * @return the share of failures among the calls in the window in percent.
+     */
+    public synchronized int getFailureRate() {
+        return this.windowCount == 0 ? 0 : this.windowFailures * 100 / this.windowCount;
+    }
+
+    public synchronized Instant getOpenedAt() {
+        return this.openedAt;
+    }
+
+    private synchronized void acquirePermission() {
+        Instant now = this.clock.instant();
+        if (this.state == State.OPEN) {
+            Instant closesAt = this.openedAt.plus(this.openDuration);
+            if (now.isBefore(closesAt)) {
+                this.rejectedMeter.mark();
+                throw new OpenException(this.name, Math.max(1, Duration.between(now, closesAt).getSeconds()));
+            }
+            LOGGER.info("Circuit breaker {} is half open, probing", this.name);
+            this.state = State.HALF_OPEN;
+            this.probesStarted = 0;
+            this.probesSucceeded = 0;
+        }
+        if (this.state == State.HALF_OPEN) {
+            if (this.probesStarted >= this.halfOpenProbes) {
+                // wait for the probes under way
+                this.rejectedMeter.mark();
+                throw new OpenException(this.name, 1);
+            }
+            this.probesStarted++;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        this.successMeter.mark();
+        if (this.state == State.HALF_OPEN) {
+            this.probesSucceeded++;
+            if (this.probesSucceeded >= this.halfOpenProbes) {
+                LOGGER.info("Circuit breaker {} is closed again", this.name);
+                this.state = State.CLOSED;
+                this.openedAt = null;
+                this.resetWindow();
+            }
+        } else if (this.state == State.CLOSED) {
+            this.record(false);
+        }
+    }
+
+    private synchronized void onFailure() {
+        this.failureMeter.mark();
+        if (this.state == State.HALF_OPEN) {
+            this.open();
+        } else if (this.state == State.CLOSED) {
+            this.record(true);
+            if (this.windowCount >= this.minimumCalls
+                    && this.windowFailures * 100 >= this.failureRateThreshold * this.windowCount) {
+                this.open();
+            }
+        }
+    }
+
+    private void open() {
+        LOGGER.warn("Circuit breaker {} is open for {}, failure rate {}%", this.name, this.openDuration,
+                this.getFailureRate());
+        this.state = State.OPEN;
+        this.openedAt = this.clock.instant();
+    }
+
+    private void record(boolean failure) {
+        if (this.windowCount == this.window.length) {
+            if (this.window[this.windowIndex]) {
+                this.windowFailures--;
+            }
+        } else {
+            this.windowCount++;
+        }
+        this.window[this.windowIndex] = failure;
+        if (failure) {
+            this.windowFailures++;
+        }
+        this.windowIndex = (this.windowIndex + 1) % this.window.length;
+    }
+
+    private void resetWindow() {
+        this.windowIndex = 0;
+        this.windowCount = 0;
+        this.windowFailures = 0;
+    }
+}
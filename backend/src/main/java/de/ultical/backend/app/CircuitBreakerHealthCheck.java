@@ -0,0 +1,32 @@
+package de.ultical.backend.app;
+
+import java.util.Objects;
+
+import com.codahale.metrics.health.HealthCheck;
+
+/**
+ * Reports an open {@link CircuitBreaker} as unhealthy, while it is open the
+ * features depending on the service are not available.
+ */
+public class CircuitBreakerHealthCheck extends HealthCheck {
+
+    private final CircuitBreaker circuitBreaker;
+
+    public CircuitBreakerHealthCheck(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = Objects.requireNonNull(circuitBreaker);
+    }
+
+    @Override
+    protected Result check() throws Exception {
+        switch (this.circuitBreaker.getState()) {
+        case OPEN:
+            return Result.unhealthy("%s is failing, circuit breaker open since %s", this.circuitBreaker.getName(),
+                    this.circuitBreaker.getOpenedAt());
+        case HALF_OPEN:
+            return Result.healthy("%s is probed, circuit breaker half open", this.circuitBreaker.getName());
+        default:
+            return Result.healthy("%s failure rate %d%%", this.circuitBreaker.getName(),
+                    this.circuitBreaker.getFailureRate());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package de.ultical.backend.app;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Objects;
+
+/**
+ * Writes comma separated values as described in RFC 4180.
+ * <p>
+ * Text starting with a character that spreadsheet applications take for the
+ * start of a formula is prefixed by an apostrophe, so user provided values,
+ * e.g. team names, cannot inject formulas into an exported sheet.
+ * </p>
+ */
+public class CsvWriter implements Closeable, Flushable {
+
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    private final Writer writer;
+
+    public CsvWriter(final Writer writer) {
+        this.writer = Objects.requireNonNull(writer);
+    }
+
+    /**
+     * Writes one row. <code>null</code> values are written as empty fields,
+     * numbers and booleans as they are and anything else as text.
+     */
+    public void writeRow(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                this.writer.write(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value instanceof Number || value instanceof Boolean) {
+                this.writer.write(value.toString());
+            } else {
+                this.writer.write(escape(value.toString()));
+            }
+        }
+        this.writer.write(LINE_SEPARATOR);
+    }
+
+    static String escape(String text) {
+        String result = text;
+        if (!result.isEmpty() && "=+-@\t\r".indexOf(result.charAt(0)) >= 0) {
+            result = "'" + result;
+        }
+        if (result.indexOf(',') >= 0 || result.indexOf('"') >= 0 || result.indexOf('\n') >= 0
+                || result.indexOf('\r') >= 0) {
+            result = '"' + result.replace("\"", "\"\"") + '"';
+        }
+        return result;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+}
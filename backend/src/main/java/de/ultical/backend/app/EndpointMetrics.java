@@ -0,0 +1,174 @@
+package de.ultical.backend.app;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * Records the latency, the rate of requests, the size of the responses and
+ * the rate of failed requests of each resource method, named after the
+ * resource class and method like the metrics of <code>@Timed</code>:
+ * <ul>
+ * <li><code>&lt;class&gt;.&lt;method&gt;.requests</code>, the time until the
+ * response has been written</li>
+ * <li><code>&lt;class&gt;.&lt;method&gt;.response-size</code>, the bytes of
+ * the entity as sent, i.e. after compression</li>
+ * <li><code>&lt;class&gt;.&lt;method&gt;.4xx-responses</code> and
+ * <code>5xx-responses</code></li>
+ * </ul>
+ * <p>
+ * Requests rejected by the authentication or answered from the
+ * {@link ResponseCache} are included. The duration of each request is logged
+ * with <code>durationMs</code> in the MDC, on debug level, or as a warning if
+ * it has taken longer than the configured threshold.
+ * </p>
+ */
+public class EndpointMetrics implements DynamicFeature {
+
+    public static final String MDC_KEY_DURATION = "durationMs";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EndpointMetrics.class);
+
+    // before the authentication, so rejected requests are measured as well
+    static final int PRIORITY = Priorities.AUTHENTICATION - 100;
+
+    private final MetricRegistry metrics;
+    private final long slowRequestNanos;
+
+    public EndpointMetrics(final MetricRegistry metrics, final long slowRequestMillis) {
+        this.metrics = metrics;
+        this.slowRequestNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestMillis);
+    }
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+        Class<?> resourceClass = resourceInfo.getResourceClass();
+        Method resourceMethod = resourceInfo.getResourceMethod();
+        if (resourceClass == null || resourceMethod == null) {
+            return;
+        }
+        context.register(new Filter(this.metrics, MetricRegistry.name(resourceClass, resourceMethod.getName()),
+                this.slowRequestNanos), PRIORITY);
+    }
+
+    /**
+     * Measures the requests of one resource method. A response with an entity
+     * is complete once the entity has been written, which may take most of
+     * the time of a streamed response.
+     */
+    static class Filter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+        private static final String PROPERTY_START = Filter.class.getName() + ".start";
+        private static final String PROPERTY_STATUS = Filter.class.getName() + ".status";
+
+        private final String name;
+        private final long slowRequestNanos;
+        private final Timer requests;
+        private final Histogram responseSize;
+        private final Meter clientErrors;
+        private final Meter serverErrors;
+
+        Filter(final MetricRegistry metrics, final String name, final long slowRequestNanos) {
+            this.name = name;
+            this.slowRequestNanos = slowRequestNanos;
+            // methods of the same name share their metrics
+            this.requests = metrics.timer(MetricRegistry.name(name, "requests"));
+            this.responseSize = metrics.histogram(MetricRegistry.name(name, "response-size"));
+            this.clientErrors = metrics.meter(MetricRegistry.name(name, "4xx-responses"));
+            this.serverErrors = metrics.meter(MetricRegistry.name(name, "5xx-responses"));
+        }
+
+        @Override
+        public void filter(ContainerRequestContext requestContext) throws IOException {
+            requestContext.setProperty(PROPERTY_START, System.nanoTime());
+        }
+
+        @Override
+        public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+                throws IOException {
+            Long start = (Long) requestContext.getProperty(PROPERTY_START);
+            if (start == null) {
+                return;
+            }
+            if (responseContext.hasEntity()) {
+                requestContext.setProperty(PROPERTY_STATUS, responseContext.getStatus());
+            } else {
+                requestContext.removeProperty(PROPERTY_START);
+                this.complete(start, responseContext.getStatus(), 0);
+            }
+        }
+
+        @Override
+        public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+            Long start = (Long) context.getProperty(PROPERTY_START);
+            if (start == null) {
+                context.proceed();
+                return;
+            }
+            context.removeProperty(PROPERTY_START);
+            Integer status = (Integer) context.getProperty(PROPERTY_STATUS);
+            OutputStream entityStream = context.getOutputStream();
+            CountingOutputStream counter = new CountingOutputStream(entityStream);
+            context.setOutputStream(counter);
+            try {
+                context.proceed();
+            } finally {
+                context.setOutputStream(entityStream);
+                this.complete(start, status != null ? status : Response.Status.OK.getStatusCode(),
+                        counter.getCount());
+            }
+        }
+
+        private void complete(long start, int status, long size) {
+            long duration = System.nanoTime() - start;
+            this.requests.update(duration, TimeUnit.NANOSECONDS);
+            this.responseSize.update(size);
+            Response.Status.Family family = Response.Status.Family.familyOf(status);
+            if (family == Response.Status.Family.CLIENT_ERROR) {
+                this.clientErrors.mark();
+            } else if (family == Response.Status.Family.SERVER_ERROR) {
+                this.serverErrors.mark();
+            }
+
+            boolean slow = duration > this.slowRequestNanos;
+            if (!slow && !LOGGER.isDebugEnabled()) {
+                return;
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(duration);
+            MDC.put(MDC_KEY_DURATION, String.valueOf(millis));
+            try {
+                if (slow) {
+                    LOGGER.warn("Slow request to {} answered with {} after {} ms", this.name, status, millis);
+                } else {
+                    LOGGER.debug("Request to {} answered with {} after {} ms", this.name, status, millis);
+                }
+            } finally {
+                MDC.remove(MDC_KEY_DURATION);
+            }
+        }
+    }
+}
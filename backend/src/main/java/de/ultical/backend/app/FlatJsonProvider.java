@@ -0,0 +1,89 @@
+package de.ultical.backend.app;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Objects;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import de.ultical.backend.model.Identifiable;
+
+/**
+ * Writes entities as plain JSON without the JSOG identity information every
+ * {@link Identifiable} carries by default.
+ * <p>
+ * Without identity tracking Jackson neither keeps an identity map nor emits
+ * <code>@id</code> and <code>@ref</code> keys, objects referenced more than
+ * once are simply written again. This is only safe for acyclic views, such as
+ * the basics listings, which therefore offer this variant to clients sending
+ * <code>Accept: {@value #FLAT_JSON}</code>.
+ * </p>
+ */
+@Provider
+@Produces(FlatJsonProvider.FLAT_JSON)
+public class FlatJsonProvider implements MessageBodyWriter<Object> {
+
+    public static final String FLAT_JSON = "application/vnd.ultical.flat+json";
+    public static final MediaType FLAT_JSON_TYPE = MediaType.valueOf(FLAT_JSON);
+
+    /*
+     * overrides the JSOGGenerator declared on Identifiable
+     */
+    @JsonIdentityInfo(generator = ObjectIdGenerators.None.class)
+    interface NoIdentityMixIn {
+    }
+
+    private final ObjectMapper flatMapper;
+
+    /**
+     * @param objectMapper
+     *            the application's object mapper, the flat mapper is a copy of
+     *            it, so both write the same properties in the same format.
+     */
+    public FlatJsonProvider(final ObjectMapper objectMapper) {
+        this.flatMapper = createFlatMapper(objectMapper);
+    }
+
+    public static ObjectMapper createFlatMapper(final ObjectMapper objectMapper) {
+        ObjectMapper result = Objects.requireNonNull(objectMapper).copy();
+        result.addMixIn(Identifiable.class, NoIdentityMixIn.class);
+        return result;
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        // already serialized content, e.g. a cached response, is left to the
+        // built-in providers
+        return FLAT_JSON_TYPE.isCompatible(mediaType) && !byte[].class.equals(type);
+    }
+
+    @Override
+    public long getSize(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException, WebApplicationException {
+        ObjectWriter writer = this.flatMapper.writerFor(this.flatMapper.constructType(genericType));
+        // the container closes the stream
+        try (JsonGenerator generator = this.flatMapper.getFactory().createGenerator(entityStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writer.writeValue(generator, t);
+        }
+    }
+}
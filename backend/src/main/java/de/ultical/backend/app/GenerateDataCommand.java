@@ -0,0 +1,105 @@
+package de.ultical.backend.app;
+
+import java.util.Map;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import de.ultical.backend.data.SyntheticDataGenerator;
+import io.dropwizard.cli.ConfiguredCommand;
+import io.dropwizard.db.ManagedDataSource;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+
+/**
+ * Fills the configured database with synthetic data for load and capacity
+ * tests, see {@link SyntheticDataGenerator}. The schema has to be created by
+ * liquibase before and must not contain any data. All users share the given
+ * password and are named <code>player&lt;dfv number&gt;@example.org</code>.
+ *
+ * <pre>
+ * java -jar ultical.jar generate-data --scale 10 --seed 42 loadtest.yaml
+ * </pre>
+ */
+public class GenerateDataCommand extends ConfiguredCommand<UltiCalConfig> {
+
+    public GenerateDataCommand() {
+        super("generate-data", "Fills an empty database with synthetic data");
+    }
+
+    @Override
+    public void configure(Subparser subparser) {
+        super.configure(subparser);
+        subparser.addArgument("--scale").dest("scale").type(Double.class).setDefault(1.0)
+                .help("multiplies the number of members, teams and tournament formats");
+        subparser.addArgument("--seed").dest("seed").type(Long.class).setDefault(42L)
+                .help("the same seed generates the same data");
+        subparser.addArgument("--password").dest("password").setDefault("synthetic")
+                .help("the password of all generated users");
+        subparser.addArgument("--members").dest("members").type(Integer.class);
+        subparser.addArgument("--teams").dest("teams").type(Integer.class);
+        subparser.addArgument("--seasons").dest("seasons").type(Integer.class);
+        subparser.addArgument("--formats").dest("formats").type(Integer.class);
+        subparser.addArgument("--editions-per-format").dest("editionsPerFormat").type(Integer.class);
+        subparser.addArgument("--events-per-edition").dest("eventsPerEdition").type(Integer.class);
+        subparser.addArgument("--divisions-per-edition").dest("divisionsPerEdition").type(Integer.class);
+        subparser.addArgument("--registrations-per-division").dest("registrationsPerDivision").type(Integer.class);
+        subparser.addArgument("--players-per-roster").dest("playersPerRoster").type(Integer.class);
+    }
+
+    static SyntheticDataGenerator.Scale scale(Namespace namespace) {
+        SyntheticDataGenerator.Scale scale = SyntheticDataGenerator.Scale.of(namespace.getDouble("scale"));
+        if (namespace.getInt("members") != null) {
+            scale.setMembers(namespace.getInt("members"));
+        }
+        if (namespace.getInt("teams") != null) {
+            scale.setTeams(namespace.getInt("teams"));
+        }
+        if (namespace.getInt("seasons") != null) {
+            scale.setSeasons(namespace.getInt("seasons"));
+        }
+        if (namespace.getInt("formats") != null) {
+            scale.setFormats(namespace.getInt("formats"));
+        }
+        if (namespace.getInt("editionsPerFormat") != null) {
+            scale.setEditionsPerFormat(namespace.getInt("editionsPerFormat"));
+        }
+        if (namespace.getInt("eventsPerEdition") != null) {
+            scale.setEventsPerEdition(namespace.getInt("eventsPerEdition"));
+        }
+        if (namespace.getInt("divisionsPerEdition") != null) {
+            scale.setDivisionsPerEdition(namespace.getInt("divisionsPerEdition"));
+        }
+        if (namespace.getInt("registrationsPerDivision") != null) {
+            scale.setRegistrationsPerDivision(namespace.getInt("registrationsPerDivision"));
+        }
+        if (namespace.getInt("playersPerRoster") != null) {
+            scale.setPlayersPerRoster(namespace.getInt("playersPerRoster"));
+        }
+        return scale;
+    }
+
+    @Override
+    protected void run(Bootstrap<UltiCalConfig> bootstrap, Namespace namespace, UltiCalConfig config)
+            throws Exception {
+        SyntheticDataGenerator.Scale scale = scale(namespace);
+        int cost = config.getPasswordHashing() != null ? config.getPasswordHashing().getCost() : 10;
+        String passwordHash = BCrypt.hashpw(namespace.getString("password"), BCrypt.gensalt(cost));
+
+        ManagedDataSource dataSource = config.getDatabase().build(bootstrap.getMetricRegistry(),
+                "UltiCal DataSource");
+        dataSource.start();
+        try {
+            MyBatisManager mbm = new MyBatisManager(dataSource);
+            mbm.start();
+            System.out.println("Generating " + scale);
+            long start = System.currentTimeMillis();
+            Map<String, Integer> counts = new SyntheticDataGenerator(mbm::provide, scale, namespace.getLong("seed"),
+                    passwordHash).generate();
+            counts.forEach((kind, count) -> System.out.println(String.format("%-20s %10d", kind, count)));
+            System.out.println(String.format("Done in %d s", (System.currentTimeMillis() - start) / 1000));
+        } finally {
+            dataSource.stop();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package de.ultical.backend.app;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Writes a JSON array whose elements are serialized as soon as they are
+ * passed on by the source, e.g. one of the <code>forEach</code> methods of the
+ * {@link de.ultical.backend.data.DataStore DataStore}. Neither the elements
+ * nor the serialized array are held in memory as a whole.
+ * <p>
+ * Each element is serialized on its own, so JSOG references only point to
+ * objects within the same element and objects referenced by more than one
+ * element are written again. The JSOG ids are reused for every element, a
+ * reference always points to the closest preceding object with that id.
+ * </p>
+ */
+public class JsonStreamingOutput<T> implements StreamingOutput {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JsonStreamingOutput.class);
+
+    /**
+     * Passes all elements to the given action.
+     */
+    @FunctionalInterface
+    public interface Source<T> {
+        void forEach(Consumer<? super T> action);
+    }
+
+    private final ObjectWriter writer;
+    private final Source<T> source;
+
+    public JsonStreamingOutput(final ObjectMapper objectMapper, final Class<T> elementType, final Source<T> source) {
+        // flushing after every element would send tiny chunks
+        this.writer = Objects.requireNonNull(objectMapper).writerFor(elementType)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.source = Objects.requireNonNull(source);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+        try (JsonGenerator generator = this.writer.getFactory().createGenerator(output)) {
+            // the container closes the stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // a failed stream must not end with a complete array
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartArray();
+            this.source.forEach(element -> {
+                try {
+                    this.writer.writeValue(generator, element);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (RuntimeException e) {
+            // MyBatis wraps exceptions thrown by the action
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                }
+            }
+            if (e instanceof PersistenceException) {
+                LOG.error("Streaming from the database failed", e);
+                throw new WebApplicationException("Accessing database failed", e, Status.INTERNAL_SERVER_ERROR);
+            }
+            throw e;
+        }
+    }
+}
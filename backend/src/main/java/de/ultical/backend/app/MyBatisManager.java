@@ -16,12 +16,22 @@ import org.apache.ibatis.session.SqlSessionFactoryBuilder;
 import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
 import org.glassfish.hk2.api.Factory;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import de.ultical.backend.data.ChangeGenerations;
 import io.dropwizard.lifecycle.Managed;
 
 public class MyBatisManager implements Managed, Factory<SqlSession> {
 
     private SqlSessionFactory sessionFactory;
+    private SqlSessionFactory readSessionFactory;
     private final DataSource dataSource;
+    private final DataSource readDataSource;
+    private final Timer writeHoldTimer;
+    private final Timer readHoldTimer;
+    private ChangeGenerations changeGenerations;
+    private String changeLogOrigin;
 
     public static class MyBatisInitializationException extends RuntimeException {
 
@@ -31,32 +41,102 @@ public class MyBatisManager implements Managed, Factory<SqlSession> {
     }
     
     public MyBatisManager(final DataSource ds) {
+        this(ds, null, null);
+    }
+
+    /**
+     * @param ds
+     *            the primary database, all writes go here.
+     * @param readDs
+     *            an optional read replica of the primary. If present,
+     *            sessions provided by this manager send their selects to the
+     *            replica until they write something, see
+     *            {@link RoutingSqlSession}.
+     * @param metrics
+     *            optional registry for the timers that record how long the
+     *            provided sessions hold a connection.
+     */
+    public MyBatisManager(final DataSource ds, final DataSource readDs, final MetricRegistry metrics) {
         this.dataSource = Objects.requireNonNull(ds);
+        this.readDataSource = readDs;
+        if (metrics != null) {
+            this.writeHoldTimer = metrics.timer(MetricRegistry.name(MyBatisManager.class, "connection-hold", "write"));
+            this.readHoldTimer = readDs != null
+                    ? metrics.timer(MetricRegistry.name(MyBatisManager.class, "connection-hold", "read"))
+                    : null;
+        } else {
+            this.writeHoldTimer = null;
+            this.readHoldTimer = null;
+        }
     }
 
     @Override
     public void start() throws Exception {
+        this.sessionFactory = this.buildSessionFactory("production", this.dataSource);
+        if (this.readDataSource != null) {
+            this.readSessionFactory = this.buildSessionFactory("replica", this.readDataSource);
+        }
+    }
+
+    private SqlSessionFactory buildSessionFactory(final String envName, final DataSource ds) {
         try (Reader reader = Resources.getResourceAsReader("mybatis-config.xml")) {
-            Environment iBatisEnv = new Environment("production", new JdbcTransactionFactory(), this.dataSource);
-            XMLConfigBuilder builder = new XMLConfigBuilder(reader, "production");
+            Environment iBatisEnv = new Environment(envName, new JdbcTransactionFactory(), ds);
+            XMLConfigBuilder builder = new XMLConfigBuilder(reader, envName);
 
             Configuration iBatisConfig = builder.parse();
             iBatisConfig.setEnvironment(iBatisEnv);
 
-            this.sessionFactory = new SqlSessionFactoryBuilder().build(iBatisConfig);
+            return new SqlSessionFactoryBuilder().build(iBatisConfig);
         } catch (IOException e) {
             throw new MyBatisInitializationException(e.getMessage(), e);
         }
     }
 
+    /**
+     * @param generations
+     *            incremented by the provided sessions for every table they
+     *            modified and committed.
+     */
+    public void setChangeGenerations(final ChangeGenerations generations) {
+        this.changeGenerations = generations;
+    }
+
+    /**
+     * @param origin
+     *            the name of this node, if set the provided sessions append
+     *            the tables they modified to the change log.
+     */
+    public void setChangeLogOrigin(final String origin) {
+        this.changeLogOrigin = origin;
+    }
+
     @Override
     public void stop() throws Exception {
         // NOP we don't have to do anything here :)
     }
 
+    /**
+     * Provides a session that opens its connection not before the first
+     * statement is executed, see {@link RoutingSqlSession}.
+     */
     @Override
     public SqlSession provide() {
-        return this.sessionFactory.openSession();
+        RoutingSqlSession session = new RoutingSqlSession(this.sessionFactory, this.readSessionFactory,
+                this.writeHoldTimer, this.readHoldTimer);
+        session.setChangeGenerations(this.changeGenerations);
+        session.setChangeLogOrigin(this.changeLogOrigin);
+        return session;
+    }
+
+    /**
+     * Like {@link #provide()}, but the session reads from the primary as well,
+     * for callers deciding what to write from what they read, like the job
+     * leases.
+     */
+    public SqlSession providePrimary() {
+        RoutingSqlSession session = (RoutingSqlSession) this.provide();
+        session.readFromPrimary();
+        return session;
     }
 
     @Override
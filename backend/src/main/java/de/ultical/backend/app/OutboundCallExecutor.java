@@ -0,0 +1,215 @@
+package de.ultical.backend.app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response.Status;
+
+import org.slf4j.MDC;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import io.dropwizard.lifecycle.Managed;
+
+/**
+ * Runs request handlers that wait for external services, like the DFV API or
+ * reCAPTCHA, on a pool of their own.
+ * <p>
+ * The request is suspended, so the Jetty thread returns to the pool right away
+ * and slow external services cannot starve ordinary requests. The number of
+ * handlers waiting at the same time is bounded by the threads and the queue of
+ * the pool, a request beyond that is answered with
+ * <code>503 Service Unavailable</code>. A handler that does not finish within
+ * the timeout is interrupted and its request answered with
+ * <code>504 Gateway Timeout</code>, see {@link #checkNotCancelled()}.
+ * </p>
+ */
+public class OutboundCallExecutor implements Managed {
+
+    private final long timeoutMillis;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer queueTimer;
+    private final Meter rejectedMeter;
+    private final Meter timeoutMeter;
+
+    public OutboundCallExecutor(final UltiCalConfig.OutboundCallsConfig config, final MetricRegistry metrics) {
+        Objects.requireNonNull(config);
+        this.timeoutMillis = config.getTimeout().toMilliseconds();
+        this.retryAfterSeconds = Math.max(1, config.getRetryAfter().toSeconds());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(config.getThreads(), config.getThreads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueSize())), runnable -> {
+                    Thread thread = new Thread(runnable, "outbound-call-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        MetricRegistry registry = metrics != null ? metrics : new MetricRegistry();
+        this.queueTimer = registry.timer(MetricRegistry.name(OutboundCallExecutor.class, "queue"));
+        this.rejectedMeter = registry.meter(MetricRegistry.name(OutboundCallExecutor.class, "rejected"));
+        this.timeoutMeter = registry.meter(MetricRegistry.name(OutboundCallExecutor.class, "timeouts"));
+        registry.register(MetricRegistry.name(OutboundCallExecutor.class, "active"),
+                (Gauge<Integer>) () -> this.executor.getActiveCount());
+    }
+
+    /**
+     * Resumes the suspended request with the result of the handler, or with
+     * the exception it has thrown.
+     */
+    public void submit(AsyncResponse asyncResponse, Callable<?> handler) {
+        final AtomicReference<Future<?>> task = new AtomicReference<>();
+        asyncResponse.setTimeoutHandler(response -> {
+            this.timeoutMeter.mark();
+            Future<?> future = task.get();
+            if (future != null) {
+                future.cancel(true);
+            }
+            response.resume(new WebApplicationException("The external service did not answer in time",
+                    Status.GATEWAY_TIMEOUT));
+        });
+        asyncResponse.setTimeout(this.timeoutMillis, TimeUnit.MILLISECONDS);
+
+        final long submitted = System.nanoTime();
+        try {
+            task.set(this.executor.submit(withLogContext(() -> {
+                this.queueTimer.update(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                if (asyncResponse.isDone()) {
+                    // timed out while waiting in the queue
+                    return null;
+                }
+                try {
+                    asyncResponse.resume(handler.call());
+                } catch (Throwable t) {
+                    asyncResponse.resume(t);
+                }
+                return null;
+            })));
+        } catch (RejectedExecutionException e) {
+            this.rejectedMeter.mark();
+            asyncResponse.resume(new ServiceUnavailableException("Too many requests waiting for external services",
+                    this.retryAfterSeconds));
+        }
+    }
+
+    /**
+     * Runs the calls of a handler fetching several resources from an external
+     * service concurrently and waits for all of them. The calls are handed to
+     * the idle threads of the pool, the calls the pool has no room for are run
+     * by the handler's thread itself, so the handler cannot wait for a queue
+     * that is full of handlers waiting the same way.
+     *
+     * @return the completed calls, in the order given. A call failing does not
+     *         affect the others.
+     * @throws CancellationException
+     *             if the handler has been cancelled, the calls not completed
+     *             yet are cancelled as well.
+     */
+    public <T> List<Future<T>> invokeAll(List<? extends Callable<T>> calls) {
+        List<FutureTask<T>> tasks = new ArrayList<>(calls.size());
+        for (Callable<T> call : calls) {
+            tasks.add(new FutureTask<>(withLogContext(call)));
+        }
+        // the first call is left to the handler's thread
+        for (int i = 1; i < tasks.size(); i++) {
+            try {
+                this.executor.execute(tasks.get(i));
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        try {
+            for (FutureTask<T> task : tasks) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                // does nothing if the pool has started the task already
+                task.run();
+            }
+            for (FutureTask<T> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    // left to the handler
+                }
+            }
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CancellationException("The request has timed out");
+        }
+        return new ArrayList<>(tasks);
+    }
+
+    /**
+     * @return the call, run with the MDC of the calling thread, so the log
+     *         entries of a handler carry the id of its request.
+     */
+    static <T> Callable<T> withLogContext(Callable<T> call) {
+        final Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setLogContext(context);
+            try {
+                return call.call();
+            } finally {
+                setLogContext(previous);
+            }
+        };
+    }
+
+    private static void setLogContext(Map<String, String> context) {
+        if (context != null) {
+            MDC.setContextMap(context);
+        } else {
+            MDC.clear();
+        }
+    }
+
+    /**
+     * To be called by handlers right before each write following a call to an
+     * external service, so a request that has timed out does not change
+     * anything any more. This is a best effort only: each write commits on its
+     * own, a handler interrupted during a write or after its last check still
+     * completes it, although its request has been answered with
+     * <code>504 Gateway Timeout</code>.
+     *
+     * @throws CancellationException
+     *             if the handler has been cancelled.
+     */
+    public static void checkNotCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("The request has timed out");
+        }
+    }
+
+    @Override
+    public void start() throws Exception {
+        // NOP, the threads are started on demand
+    }
+
+    @Override
+    public void stop() throws Exception {
+        this.executor.shutdownNow();
+    }
+}
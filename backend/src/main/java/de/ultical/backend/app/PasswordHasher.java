@@ -0,0 +1,152 @@
+package de.ultical.backend.app;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import io.dropwizard.lifecycle.Managed;
+
+/**
+ * Hashes and checks passwords with BCrypt on a pool of its own.
+ * <p>
+ * BCrypt is deliberately expensive, a burst of logins or registrations would
+ * otherwise keep all request threads busy hashing. The pool has a fixed number
+ * of threads and a bounded queue, a request that does not fit into the queue
+ * is answered with <code>503 Service Unavailable</code> and a
+ * <code>Retry-After</code> header right away instead of waiting.
+ * </p>
+ */
+public class PasswordHasher implements Managed {
+
+    private final int cost;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer queueTimer;
+    private final Timer hashTimer;
+    private final Timer checkTimer;
+    private final Meter rejectedMeter;
+
+    public PasswordHasher(final UltiCalConfig.PasswordHashingConfig config, final MetricRegistry metrics) {
+        Objects.requireNonNull(config);
+        this.cost = config.getCost();
+        this.retryAfterSeconds = Math.max(1, config.getRetryAfter().toSeconds());
+        int threads = config.getThreads() > 0 ? config.getThreads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueSize())), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        MetricRegistry registry = metrics != null ? metrics : new MetricRegistry();
+        this.queueTimer = registry.timer(MetricRegistry.name(PasswordHasher.class, "queue"));
+        this.hashTimer = registry.timer(MetricRegistry.name(PasswordHasher.class, "hash"));
+        this.checkTimer = registry.timer(MetricRegistry.name(PasswordHasher.class, "check"));
+        this.rejectedMeter = registry.meter(MetricRegistry.name(PasswordHasher.class, "rejected"));
+        registry.register(MetricRegistry.name(PasswordHasher.class, "queue-size"),
+                (Gauge<Integer>) () -> this.executor.getQueue().size());
+    }
+
+    public int getCost() {
+        return this.cost;
+    }
+
+    ThreadPoolExecutor getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * @return the BCrypt hash of the password using the configured cost.
+     * @throws ServiceUnavailableException
+     *             if too many passwords are hashed or checked already.
+     */
+    public String hash(String password) {
+        return this.submit(this.hashTimer, () -> BCrypt.hashpw(password, BCrypt.gensalt(this.cost)));
+    }
+
+    /**
+     * @return <code>true</code> if the password matches the hash. The cost is
+     *         taken from the hash, not from the configuration.
+     * @throws ServiceUnavailableException
+     *             if too many passwords are hashed or checked already.
+     */
+    public boolean check(String password, String hash) {
+        return this.submit(this.checkTimer, () -> BCrypt.checkpw(password, hash));
+    }
+
+    private <T> T submit(Timer timer, Callable<T> task) {
+        final long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = this.executor.submit(() -> {
+                this.queueTimer.update(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                try (Timer.Context ctx = timer.time()) {
+                    return task.call();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.rejectedMeter.mark();
+            throw new ServiceUnavailableException("Too many logins at the moment, please try again",
+                    this.retryAfterSeconds);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new WebApplicationException("Interrupted while hashing", Status.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Measures how long hashing a password takes on this machine.
+     *
+     * @return the median duration of the given number of hashes in
+     *         milliseconds.
+     */
+    public static long measure(int cost, int samples) {
+        long[] millis = new long[Math.max(1, samples)];
+        for (int i = 0; i < millis.length; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration password", BCrypt.gensalt(cost));
+            millis[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        Arrays.sort(millis);
+        return millis[millis.length / 2];
+    }
+
+    @Override
+    public void start() throws Exception {
+        // NOP, the threads are started on demand
+    }
+
+    @Override
+    public void stop() throws Exception {
+        this.executor.shutdownNow();
+    }
+}
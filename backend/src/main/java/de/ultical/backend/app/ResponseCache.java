@@ -0,0 +1,219 @@
+package de.ultical.backend.app;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import de.ultical.backend.data.ChangeGenerations;
+
+/**
+ * Caches the gzip compressed, serialized responses of the resource methods
+ * annotated with {@link CachedResponse}.
+ * <p>
+ * Responses are cached per path, query parameters and requested media type.
+ * A cached response is only served as long as none of the tables it has been
+ * read from has been modified since, as tracked by the
+ * {@link ChangeGenerations}. The generation is taken before the resource
+ * method runs, so a modification committed while a response is built makes
+ * the response stale right away. Cached bytes are sent as they are to clients
+ * accepting gzip, other clients get a freshly built response.
+ * </p>
+ * <p>
+ * Modifications are only seen by this instance of the application, and a read
+ * replica may still return the old data shortly after a modification. Cached
+ * responses are therefore not more stale than uncached ones, but a cache
+ * filled from a lagging replica keeps its content until the next
+ * modification.
+ * </p>
+ */
+@CachedResponse
+public class ResponseCache implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    private static final String GZIP = "gzip";
+    private static final String PROPERTY_KEY = ResponseCache.class.getName() + ".key";
+    private static final String PROPERTY_GENERATION = ResponseCache.class.getName() + ".generation";
+    private static final String PROPERTY_GZIP = ResponseCache.class.getName() + ".gzip";
+
+    private static class Entry {
+        private final long generation;
+        private final MediaType mediaType;
+        private final byte[] compressed;
+        private final int length;
+
+        Entry(long generation, MediaType mediaType, byte[] compressed, int length) {
+            this.generation = generation;
+            this.mediaType = mediaType;
+            this.compressed = compressed;
+            this.length = length;
+        }
+    }
+
+    private final ChangeGenerations generations;
+    private final Cache<String, Entry> cache;
+
+    private final Meter hits;
+    private final Meter misses;
+    private final Counter serializedBytesSaved;
+    private final Counter transferredBytesSaved;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    public ResponseCache(final ChangeGenerations generations, final MetricRegistry metrics, final long maxEntries) {
+        this.generations = generations;
+        this.cache = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+        this.hits = metrics.meter(MetricRegistry.name(ResponseCache.class, "hits"));
+        this.misses = metrics.meter(MetricRegistry.name(ResponseCache.class, "misses"));
+        // bytes that have not been built again
+        this.serializedBytesSaved = metrics.counter(MetricRegistry.name(ResponseCache.class, "serialized-bytes-saved"));
+        // bytes that have not been sent due to compression
+        this.transferredBytesSaved = metrics
+                .counter(MetricRegistry.name(ResponseCache.class, "transferred-bytes-saved"));
+        metrics.register(MetricRegistry.name(ResponseCache.class, "hit-ratio"), new RatioGauge() {
+
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(ResponseCache.this.hits.getFiveMinuteRate(),
+                        ResponseCache.this.hits.getFiveMinuteRate() + ResponseCache.this.misses.getFiveMinuteRate());
+            }
+        });
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        if (!HttpMethod.GET.equals(requestContext.getMethod())) {
+            return;
+        }
+        CachedResponse annotation = this.resourceInfo.getResourceMethod().getAnnotation(CachedResponse.class);
+        if (annotation == null) {
+            annotation = this.resourceInfo.getResourceClass().getAnnotation(CachedResponse.class);
+        }
+        // the generation has to be taken before the response is built
+        long generation = this.generations.get(annotation.tables());
+        String key = buildKey(requestContext);
+        boolean acceptsGzip = acceptsGzip(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+
+        Entry entry = this.cache.getIfPresent(key);
+        if (entry != null && entry.generation == generation && acceptsGzip) {
+            this.hits.mark();
+            this.serializedBytesSaved.inc(entry.length);
+            this.transferredBytesSaved.inc(entry.length - entry.compressed.length);
+            requestContext.abortWith(Response.ok(entry.compressed, entry.mediaType)
+                    .header(HttpHeaders.CONTENT_ENCODING, GZIP).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build());
+            return;
+        }
+        this.misses.mark();
+        requestContext.setProperty(PROPERTY_KEY, key);
+        requestContext.setProperty(PROPERTY_GENERATION, generation);
+        requestContext.setProperty(PROPERTY_GZIP, acceptsGzip);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException {
+        // only successful responses are cached
+        if (responseContext.getStatus() != Status.OK.getStatusCode()) {
+            requestContext.removeProperty(PROPERTY_KEY);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        String key = (String) context.getProperty(PROPERTY_KEY);
+        if (key == null) {
+            context.proceed();
+            return;
+        }
+        OutputStream entityStream = context.getOutputStream();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        context.setOutputStream(buffer);
+        try {
+            context.proceed();
+        } finally {
+            context.setOutputStream(entityStream);
+        }
+        byte[] serialized = buffer.toByteArray();
+        byte[] compressed = compress(serialized);
+        this.cache.put(key, new Entry((Long) context.getProperty(PROPERTY_GENERATION), context.getMediaType(),
+                compressed, serialized.length));
+
+        context.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (Boolean.TRUE.equals(context.getProperty(PROPERTY_GZIP))) {
+            this.transferredBytesSaved.inc(serialized.length - compressed.length);
+            context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+            entityStream.write(compressed);
+        } else {
+            entityStream.write(serialized);
+        }
+    }
+
+    static String buildKey(ContainerRequestContext requestContext) {
+        StringBuilder key = new StringBuilder(requestContext.getUriInfo().getPath());
+        // the order of the query parameters does not matter
+        Map<String, List<String>> parameters = new TreeMap<>(requestContext.getUriInfo().getQueryParameters());
+        char separator = '?';
+        for (Map.Entry<String, List<String>> parameter : parameters.entrySet()) {
+            for (String value : parameter.getValue()) {
+                key.append(separator).append(parameter.getKey()).append('=').append(value);
+                separator = '&';
+            }
+        }
+        String accept = requestContext.getHeaderString(HttpHeaders.ACCEPT);
+        return key.append(' ').append(accept != null ? accept : MediaType.WILDCARD).toString();
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (GZIP.equalsIgnoreCase(name) || "*".equals(name)) {
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim().replace(" ", "");
+                    if (parameter.matches("q=0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] compress(byte[] serialized) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(serialized.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(result)) {
+            gzip.write(serialized);
+        }
+        return result.toByteArray();
+    }
+}
@@ -0,0 +1,435 @@
+package de.ultical.backend.app;
+
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import com.codahale.metrics.Timer;
+
+import de.ultical.backend.data.ChangeGenerations;
+import de.ultical.backend.data.mapper.ChangeLogMapper;
+
+/**
+ * A {@link SqlSession} that sends selects to a read replica and everything
+ * else to the primary database.
+ * <p>
+ * As soon as a statement has been written using this session, all following
+ * selects are sent to the primary as well. This way the caller always reads
+ * its own writes, even if they have not yet been replicated or are not yet
+ * committed. Because a session lives for (at most) one request, this
+ * read-your-writes mode lasts for the rest of the request. Without a replica
+ * all statements go to the primary.
+ * </p>
+ * <p>
+ * The underlying sessions, and with them the pooled connections, are opened
+ * when they are used for the first time and released by {@link #close()}.
+ * Closing does not end this session for good, a later statement simply opens
+ * a new underlying session. The time each underlying session was held is
+ * recorded by the optional {@link Timer}s.
+ * </p>
+ * <p>
+ * If a change log origin is set, the modified tables are appended to the
+ * database's change log as part of the same transaction, so other nodes learn
+ * about the change exactly when it becomes visible to them.
+ * </p>
+ */
+public class RoutingSqlSession implements SqlSession {
+
+    /*
+     * one lazily opened session to either the primary or the replica
+     */
+    private static class Delegate {
+        private final SqlSessionFactory factory;
+        private final Timer holdTimer;
+        private SqlSession session;
+        private ExecutorType executorType;
+        private long openedAt;
+
+        Delegate(SqlSessionFactory factory, Timer holdTimer) {
+            this.factory = factory;
+            this.holdTimer = holdTimer;
+        }
+
+        SqlSession get(ExecutorType type) {
+            if (this.session == null) {
+                this.session = this.factory.openSession(type);
+                this.executorType = type;
+                this.openedAt = System.nanoTime();
+            }
+            return this.session;
+        }
+
+        boolean isOpen() {
+            return this.session != null;
+        }
+
+        void close() {
+            if (this.session == null) {
+                return;
+            }
+            try {
+                this.session.close();
+            } finally {
+                this.session = null;
+                if (this.holdTimer != null) {
+                    this.holdTimer.update(System.nanoTime() - this.openedAt, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+    }
+
+    private final Delegate primary;
+    private final Delegate replica;
+
+    private ExecutorType executorType = ExecutorType.SIMPLE;
+    private boolean written = false;
+    private boolean uncommitted = false;
+
+    private ChangeGenerations changeGenerations;
+    private String changeLogOrigin;
+    private final Set<String> modifiedTables = new HashSet<>();
+
+    public RoutingSqlSession(final SqlSessionFactory writeFactory, final SqlSessionFactory readFactory) {
+        this(writeFactory, readFactory, null, null);
+    }
+
+    /**
+     * @param writeFactory
+     *            factory for sessions to the primary database.
+     * @param readFactory
+     *            factory for sessions to the replica, may be <code>null</code>.
+     * @param writeHoldTimer
+     *            records how long sessions to the primary have been held, may
+     *            be <code>null</code>.
+     * @param readHoldTimer
+     *            records how long sessions to the replica have been held, may
+     *            be <code>null</code>.
+     */
+    public RoutingSqlSession(final SqlSessionFactory writeFactory, final SqlSessionFactory readFactory,
+            final Timer writeHoldTimer, final Timer readHoldTimer) {
+        this.primary = new Delegate(Objects.requireNonNull(writeFactory), writeHoldTimer);
+        this.replica = readFactory != null ? new Delegate(readFactory, readHoldTimer) : null;
+    }
+
+    /**
+     * @return <code>true</code> if this session has written to the primary
+     *         and therefore sends all statements to the primary.
+     */
+    public boolean isReadingFromPrimary() {
+        return this.written || this.replica == null;
+    }
+
+    /**
+     * Sends all following selects to the primary database, even if nothing has
+     * been written yet.
+     */
+    public void readFromPrimary() {
+        this.written = true;
+    }
+
+    /**
+     * @param generations
+     *            if set, the generations of all tables modified by this
+     *            session are incremented once the changes are committed.
+     */
+    public void setChangeGenerations(final ChangeGenerations generations) {
+        this.changeGenerations = generations;
+    }
+
+    /**
+     * @param origin
+     *            if set, the tables modified by this session are appended to
+     *            the change log with this origin when the changes are
+     *            committed. Requires change generations to be set as well.
+     */
+    public void setChangeLogOrigin(final String origin) {
+        this.changeLogOrigin = origin;
+    }
+
+    public ExecutorType getExecutorType() {
+        return this.executorType;
+    }
+
+    /**
+     * Changes the executor type used for the following statements. If the
+     * primary session is already open with a different executor type, it is
+     * closed so the next statement opens a new one.
+     *
+     * @throws IllegalStateException
+     *             if the primary session has uncommitted changes, as switching
+     *             would break the current transaction apart.
+     */
+    public void setExecutorType(final ExecutorType type) {
+        Objects.requireNonNull(type);
+        if (type == this.executorType) {
+            return;
+        }
+        if (this.primary.isOpen() && this.primary.executorType != type) {
+            if (this.uncommitted) {
+                throw new IllegalStateException("Executor type cannot be changed within a transaction");
+            }
+            this.primary.close();
+        }
+        this.executorType = type;
+    }
+
+    private SqlSession reader() {
+        if (this.isReadingFromPrimary()) {
+            return this.writer();
+        }
+        // batching only makes sense for writes
+        return this.replica.get(ExecutorType.SIMPLE);
+    }
+
+    private SqlSession writer() {
+        return this.primary.get(this.executorType);
+    }
+
+    private SqlSession modifier(String statement, Object parameter) {
+        this.written = true;
+        this.uncommitted = true;
+        if (this.changeGenerations != null) {
+            String table = null;
+            try {
+                BoundSql boundSql = this.getConfiguration().getMappedStatement(statement).getBoundSql(parameter);
+                table = ChangeGenerations.modifiedTable(boundSql.getSql());
+            } catch (RuntimeException e) {
+                // the statement itself will fail as well
+            }
+            // an unknown table counts as a change to every table
+            if (!ChangeGenerations.isBookkeeping(table)) {
+                this.modifiedTables.add(table != null ? table : ChangeGenerations.UNKNOWN_TABLE);
+            }
+        }
+        return this.writer();
+    }
+
+    @Override
+    public <T> T selectOne(String statement) {
+        return this.reader().selectOne(statement);
+    }
+
+    @Override
+    public <T> T selectOne(String statement, Object parameter) {
+        return this.reader().selectOne(statement, parameter);
+    }
+
+    @Override
+    public <E> List<E> selectList(String statement) {
+        return this.reader().selectList(statement);
+    }
+
+    @Override
+    public <E> List<E> selectList(String statement, Object parameter) {
+        return this.reader().selectList(statement, parameter);
+    }
+
+    @Override
+    public <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds) {
+        return this.reader().selectList(statement, parameter, rowBounds);
+    }
+
+    @Override
+    public <K, V> Map<K, V> selectMap(String statement, String mapKey) {
+        return this.reader().selectMap(statement, mapKey);
+    }
+
+    @Override
+    public <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey) {
+        return this.reader().selectMap(statement, parameter, mapKey);
+    }
+
+    @Override
+    public <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey, RowBounds rowBounds) {
+        return this.reader().selectMap(statement, parameter, mapKey, rowBounds);
+    }
+
+    @Override
+    public <T> Cursor<T> selectCursor(String statement) {
+        return this.reader().selectCursor(statement);
+    }
+
+    @Override
+    public <T> Cursor<T> selectCursor(String statement, Object parameter) {
+        return this.reader().selectCursor(statement, parameter);
+    }
+
+    @Override
+    public <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds) {
+        return this.reader().selectCursor(statement, parameter, rowBounds);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void select(String statement, Object parameter, ResultHandler handler) {
+        this.reader().select(statement, parameter, handler);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void select(String statement, ResultHandler handler) {
+        this.reader().select(statement, handler);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void select(String statement, Object parameter, RowBounds rowBounds, ResultHandler handler) {
+        this.reader().select(statement, parameter, rowBounds, handler);
+    }
+
+    @Override
+    public int insert(String statement) {
+        return this.modifier(statement, null).insert(statement);
+    }
+
+    @Override
+    public int insert(String statement, Object parameter) {
+        return this.modifier(statement, parameter).insert(statement, parameter);
+    }
+
+    @Override
+    public int update(String statement) {
+        return this.modifier(statement, null).update(statement);
+    }
+
+    @Override
+    public int update(String statement, Object parameter) {
+        return this.modifier(statement, parameter).update(statement, parameter);
+    }
+
+    @Override
+    public int delete(String statement) {
+        return this.modifier(statement, null).delete(statement);
+    }
+
+    @Override
+    public int delete(String statement, Object parameter) {
+        return this.modifier(statement, parameter).delete(statement, parameter);
+    }
+
+    @Override
+    public void commit() {
+        this.commit(false);
+    }
+
+    @Override
+    public void commit(boolean force) {
+        if (this.primary.isOpen()) {
+            this.appendChangeLog();
+            this.primary.session.commit(force);
+        }
+        if (this.replica != null && this.replica.isOpen()) {
+            this.replica.session.commit(force);
+        }
+        this.uncommitted = false;
+        if (this.changeGenerations != null) {
+            this.changeGenerations.increment(this.modifiedTables);
+        }
+        this.modifiedTables.clear();
+    }
+
+    /*
+     * bypasses modifier(), the change log itself is not logged, nor are the
+     * other bookkeeping tables
+     */
+    private void appendChangeLog() {
+        if (this.changeLogOrigin == null || this.modifiedTables.isEmpty()) {
+            return;
+        }
+        ChangeLogMapper mapper = this.primary.session.getMapper(ChangeLogMapper.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (String table : this.modifiedTables) {
+            mapper.insert(this.changeLogOrigin, table, now);
+        }
+    }
+
+    @Override
+    public void rollback() {
+        this.rollback(false);
+    }
+
+    @Override
+    public void rollback(boolean force) {
+        if (this.primary.isOpen()) {
+            this.primary.session.rollback(force);
+        }
+        if (this.replica != null && this.replica.isOpen()) {
+            this.replica.session.rollback(force);
+        }
+        this.uncommitted = false;
+        this.modifiedTables.clear();
+    }
+
+    @Override
+    public List<BatchResult> flushStatements() {
+        if (!this.primary.isOpen()) {
+            return new ArrayList<>();
+        }
+        return this.primary.session.flushStatements();
+    }
+
+    /**
+     * Releases the underlying sessions. Uncommitted changes are rolled back by
+     * MyBatis.
+     */
+    @Override
+    public void close() {
+        try {
+            if (this.replica != null) {
+                this.replica.close();
+            }
+        } finally {
+            this.primary.close();
+            this.uncommitted = false;
+            this.modifiedTables.clear();
+        }
+    }
+
+    @Override
+    public void clearCache() {
+        if (this.primary.isOpen()) {
+            this.primary.session.clearCache();
+        }
+        if (this.replica != null && this.replica.isOpen()) {
+            this.replica.session.clearCache();
+        }
+    }
+
+    @Override
+    public Configuration getConfiguration() {
+        return this.primary.factory.getConfiguration();
+    }
+
+    /*
+     * the mapper has to be bound to this session instead of one of the
+     * delegates, otherwise its statements would bypass the routing.
+     */
+    @Override
+    public <T> T getMapper(Class<T> type) {
+        return this.getConfiguration().getMapper(type, this);
+    }
+
+    /**
+     * @return the connection to the primary database.
+     */
+    @Override
+    public Connection getConnection() {
+        return this.writer().getConnection();
+    }
+}
@@ -0,0 +1,197 @@
+package de.ultical.backend.app;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import de.ultical.backend.model.User;
+import lombok.Data;
+
+/**
+ * Issues and verifies signed session tokens.
+ * <p>
+ * A token carries the user's id and email address, the version of the user's
+ * tokens and its expiry, signed with HMAC-SHA256. Verifying a token therefore
+ * needs no database access, which makes this the cheap alternative to
+ * checking basic auth credentials on every request.
+ * </p>
+ * <p>
+ * Incrementing a user's token version, as done on a password change or an
+ * explicit revocation, invalidates all tokens issued before. Tokens are only
+ * renewed if their version is still current in the database, so on other
+ * nodes a revoked token stays valid until it expires at the latest. The node
+ * that revoked the tokens rejects them right away.
+ * </p>
+ */
+public class TokenService implements io.dropwizard.auth.Authenticator<String, User> {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(TokenService.class);
+
+    public static final String PREFIX = "Bearer";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String FORMAT_VERSION = "v1";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * The content of a valid token.
+     */
+    @Data
+    public static class Claims {
+        private final int userId;
+        private final String email;
+        private final int version;
+        private final long expiresAt;
+    }
+
+    private final SecretKeySpec key;
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final ThreadLocal<Mac> macs;
+    // tokens with a smaller version have been revoked on this node
+    private final ConcurrentMap<Integer, Integer> minVersions = new ConcurrentHashMap<>();
+    private final Timer verifyTimer;
+
+    public TokenService(final byte[] secret, final Duration timeToLive, final MetricRegistry metrics) {
+        this(secret, timeToLive, metrics, Clock.systemUTC());
+    }
+
+    TokenService(final byte[] secret, final Duration timeToLive, final MetricRegistry metrics, final Clock clock) {
+        if (secret == null || secret.length < 32) {
+            throw new IllegalArgumentException("The token secret must have at least 32 bytes");
+        }
+        this.key = new SecretKeySpec(secret.clone(), ALGORITHM);
+        this.timeToLive = Objects.requireNonNull(timeToLive);
+        this.clock = Objects.requireNonNull(clock);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(this.key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC is not available", e);
+            }
+        });
+        MetricRegistry registry = metrics != null ? metrics : new MetricRegistry();
+        this.verifyTimer = registry.timer(MetricRegistry.name(TokenService.class, "verify"));
+    }
+
+    /**
+     * @param secret
+     *            the configured secret, may be <code>null</code>.
+     * @return the UTF-8 bytes of the secret or, without a secret, random bytes.
+     *         Tokens signed with a random secret are only valid on this node
+     *         until it is restarted.
+     */
+    public static byte[] secretOrRandom(String secret) {
+        if (secret != null && !secret.isEmpty()) {
+            return secret.getBytes(StandardCharsets.UTF_8);
+        }
+        LOGGER.warn("No token secret configured, session tokens are only valid on this node until it is restarted");
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+
+    public Duration getTimeToLive() {
+        return this.timeToLive;
+    }
+
+    /**
+     * @param user
+     *            the user, its token version has to be the current one.
+     * @return a new token that is valid for the configured time to live.
+     */
+    public String issue(User user) {
+        long expiresAt = this.clock.instant().plus(this.timeToLive).getEpochSecond();
+        String payload = String.join(".", FORMAT_VERSION, Integer.toString(user.getId()),
+                Integer.toString(user.getTokenVersion()), Long.toString(expiresAt),
+                ENCODER.encodeToString(user.getEmail().getBytes(StandardCharsets.UTF_8)));
+        return payload + "." + ENCODER.encodeToString(this.sign(payload));
+    }
+
+    /**
+     * @return the claims of the token or <code>null</code> if it is malformed,
+     *         has not been signed by us, has expired or has been revoked.
+     */
+    public Claims verify(String token) {
+        try (Timer.Context ctx = this.verifyTimer.time()) {
+            if (token == null) {
+                return null;
+            }
+            int signatureStart = token.lastIndexOf('.');
+            if (signatureStart < 0) {
+                return null;
+            }
+            String payload = token.substring(0, signatureStart);
+            byte[] signature = DECODER.decode(token.substring(signatureStart + 1));
+            if (!MessageDigest.isEqual(this.sign(payload), signature)) {
+                return null;
+            }
+
+            String[] parts = payload.split("\\.");
+            if (parts.length != 5 || !FORMAT_VERSION.equals(parts[0])) {
+                return null;
+            }
+            Claims claims = new Claims(Integer.parseInt(parts[1]),
+                    new String(DECODER.decode(parts[4]), StandardCharsets.UTF_8), Integer.parseInt(parts[2]),
+                    Long.parseLong(parts[3]));
+            if (claims.getExpiresAt() <= this.clock.instant().getEpochSecond()) {
+                return null;
+            }
+            if (claims.getVersion() < this.minVersions.getOrDefault(claims.getUserId(), 0)) {
+                return null;
+            }
+            return claims;
+        } catch (IllegalArgumentException e) {
+            // invalid base64 or number
+            return null;
+        }
+    }
+
+    /**
+     * Rejects the user's tokens issued before the given version on this node.
+     */
+    public void revoke(int userId, int version) {
+        this.minVersions.merge(userId, version, Math::max);
+    }
+
+    /**
+     * Resolves a bearer token to a user that carries the id and email address
+     * only.
+     */
+    @Override
+    public Optional<User> authenticate(String token) {
+        Claims claims = this.verify(token);
+        if (claims == null) {
+            return Optional.empty();
+        }
+        User user = new User();
+        user.setId(claims.getUserId());
+        user.setEmail(claims.getEmail());
+        user.setTokenVersion(claims.getVersion());
+        return Optional.of(user);
+    }
+
+    private byte[] sign(String payload) {
+        return this.macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
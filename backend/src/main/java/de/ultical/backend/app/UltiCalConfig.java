@@ -9,6 +9,7 @@ import com.google.common.cache.CacheBuilderSpec;
 import de.spinscale.dropwizard.jobs.JobConfiguration;
 import io.dropwizard.Configuration;
 import io.dropwizard.db.DataSourceFactory;
+import io.dropwizard.util.Duration;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -36,6 +37,94 @@ public class UltiCalConfig extends Configuration implements JobConfiguration {
     @Data
     public static class JobsConfig {
         private boolean dfvMvSyncEnabled = false;
+        /**
+         * how long a node may hold a job's lease without a heartbeat, has to be
+         * well above the clock difference between the nodes
+         */
+        private Duration leaseDuration = Duration.minutes(10);
+        /**
+         * minimum time between two runs of a DFV sync phase in the cluster
+         */
+        private Duration dfvMvSyncInterval = Duration.minutes(55);
+    }
+
+    @Data
+    public static class ChangeLogConfig {
+        /**
+         * only needed if several nodes share the database
+         */
+        private boolean enabled = false;
+        private Duration pollInterval = Duration.seconds(2);
+        /**
+         * how long entries are kept in the change log
+         */
+        private Duration retention = Duration.hours(24);
+    }
+
+    @Data
+    public static class TokenConfig {
+        /**
+         * shared by all nodes, at least 32 characters. Without a secret,
+         * tokens are only valid on the issuing node until it restarts.
+         */
+        private String secret;
+        private Duration timeToLive = Duration.hours(1);
+    }
+
+    @Data
+    public static class PasswordHashingConfig {
+        /**
+         * threads hashing passwords, defaults to the number of processors
+         */
+        private int threads = 0;
+        /**
+         * requests waiting for a thread, further requests are rejected
+         */
+        private int queueSize = 32;
+        /**
+         * BCrypt cost of new hashes, see the calibrate-bcrypt command
+         */
+        private int cost = 10;
+        private Duration retryAfter = Duration.seconds(2);
+    }
+
+    @Data
+    public static class OutboundCallsConfig {
+        /**
+         * requests waiting for the DFV API or reCAPTCHA at the same time
+         */
+        private int threads = 16;
+        /**
+         * requests waiting for a thread, further requests are rejected
+         */
+        private int queueSize = 64;
+        /**
+         * longer than the timeout of the client, a request may call the DFV
+         * API more than once
+         */
+        private Duration timeout = Duration.seconds(45);
+        private Duration retryAfter = Duration.seconds(5);
+    }
+
+    @Data
+    public static class CircuitBreakerConfig {
+        /**
+         * number of the last calls the failure rate is computed of
+         */
+        private int windowSize = 20;
+        /**
+         * calls in the window before the breaker may open
+         */
+        private int minimumCalls = 10;
+        /**
+         * failure rate in percent opening the breaker
+         */
+        private int failureRateThreshold = 50;
+        private Duration openDuration = Duration.seconds(30);
+        /**
+         * successful calls needed to close the breaker again
+         */
+        private int halfOpenProbes = 3;
     }
 
     @Data
@@ -46,17 +135,43 @@ public class UltiCalConfig extends Configuration implements JobConfiguration {
 
     private DfvApiConfig dfvApi;
 
+    private CircuitBreakerConfig dfvApiCircuitBreaker;
+
     private DebugMode debugMode;
 
     private ReCaptcha reCaptcha;
 
     private JobsConfig jobsConf;
 
+    private ChangeLogConfig changeLog;
+
+    private TokenConfig sessionToken;
+
+    private PasswordHashingConfig passwordHashing;
+
+    private OutboundCallsConfig outboundCalls;
+
     @NotNull
     private DataSourceFactory database;
 
+    /**
+     * optional read replica of {@link #database}, used for selects
+     */
+    private DataSourceFactory readDatabase;
+
+    /**
+     * requests taking longer are logged as a warning, see EndpointMetrics
+     */
+    private Duration slowRequestThreshold = Duration.seconds(1);
+
     private CacheBuilderSpec authenticationCache = CacheBuilderSpec.parse("maximumSize = 1000");
 
+    /**
+     * the admin memberships per user, dropped on changes to the admin tables
+     * anyway
+     */
+    private CacheBuilderSpec permissionCache = CacheBuilderSpec.parse("maximumSize = 10000, expireAfterWrite = 60s");
+
     @NotNull
     private MailConfig mail;
 
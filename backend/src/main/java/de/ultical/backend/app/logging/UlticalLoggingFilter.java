@@ -1,33 +1,70 @@
 package de.ultical.backend.app.logging;
 
 import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
 
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
-import javax.ws.rs.container.ContainerRequestContext;
-import javax.ws.rs.container.ContainerRequestFilter;
-import javax.ws.rs.container.ContainerResponseContext;
-import javax.ws.rs.container.ContainerResponseFilter;
-import javax.ws.rs.core.Context;
+import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.MDC;
 
-public class UlticalLoggingFilter implements ContainerRequestFilter, ContainerResponseFilter {
+/**
+ * Puts the client's address and an id of the request into the MDC, so the
+ * log entries of a request can be told apart, e.g. with
+ * <code>%X{requestId}</code> in the log format.
+ * <p>
+ * The id is taken from the <code>X-Request-Id</code> header set by a proxy
+ * in front of the application, or generated. It is sent back in the same
+ * header. As a servlet filter the MDC is cleared after each request, also
+ * for suspended requests, which are resumed on other threads, see
+ * {@link de.ultical.backend.app.OutboundCallExecutor}.
+ * </p>
+ */
+public class UlticalLoggingFilter implements Filter {
 
-    private static final String MDC_KEY_REMOTE_IP = "remoteIp";
-    @Context
-    HttpServletRequest servletReq;
+    public static final String MDC_KEY_REMOTE_IP = "remoteIp";
+    public static final String MDC_KEY_REQUEST_ID = "requestId";
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
 
-    @Override
-    public void filter(ContainerRequestContext requestContext) throws IOException {
-        MDC.put(MDC_KEY_REMOTE_IP, this.servletReq.getRemoteAddr());
+    // ids of a proxy are only taken over if they cannot garble the log
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._:-]{1,64}");
 
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // NOP
     }
 
     @Override
-    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
-            throws IOException {
-        MDC.remove(MDC_KEY_REMOTE_IP);
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        String requestId = requestId(((HttpServletRequest) request).getHeader(REQUEST_ID_HEADER));
+        MDC.put(MDC_KEY_REMOTE_IP, request.getRemoteAddr());
+        MDC.put(MDC_KEY_REQUEST_ID, requestId);
+        ((HttpServletResponse) response).setHeader(REQUEST_ID_HEADER, requestId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_KEY_REMOTE_IP);
+            MDC.remove(MDC_KEY_REQUEST_ID);
+        }
+    }
 
+    static String requestId(String header) {
+        if (header != null && VALID_REQUEST_ID.matcher(header).matches()) {
+            return header;
+        }
+        return UUID.randomUUID().toString();
     }
 
+    @Override
+    public void destroy() {
+        // NOP
+    }
 }
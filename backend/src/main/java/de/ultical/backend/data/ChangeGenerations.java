@@ -0,0 +1,104 @@
+package de.ultical.backend.data;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Counts committed changes per database table.
+ * <p>
+ * Every commit that modified a table increments the table's generation, so
+ * anything derived from a table's content, e.g. a cached response, is still
+ * current as long as the generations of the tables it has been read from did
+ * not change. Besides the per table generations there is a global one, which
+ * is incremented on every change to any table.
+ * </p>
+ * <p>
+ * A change to an {@link #UNKNOWN_TABLE} may have modified any table, its
+ * generation is therefore added to the generations of all tables.
+ * </p>
+ * <p>
+ * The {@link #BOOKKEEPING_TABLES} the application writes to on its own, e.g.
+ * for the heartbeats of job leases, do not hold any content, changes to them
+ * are not counted.
+ * </p>
+ */
+public class ChangeGenerations {
+
+    private static final Pattern MODIFIED_TABLE = Pattern.compile(
+            "^\\s*(?:INSERT\\s+INTO|UPDATE|DELETE\\s+FROM)\\s+([A-Za-z_][A-Za-z0-9_]*)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Stands for the table of a statement that could not be determined.
+     */
+    public static final String UNKNOWN_TABLE = "?";
+
+    public static final Set<String> BOOKKEEPING_TABLES = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("JOB_LEASE", "JOB_RUN", "CHANGE_LOG", "DFV_SYNC_STATE")));
+
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final AtomicLong global = new AtomicLong();
+
+    /**
+     * @return the name of the table modified by the given statement in upper
+     *         case or <code>null</code> if it is not an insert, update or
+     *         delete statement.
+     */
+    public static String modifiedTable(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        Matcher matcher = MODIFIED_TABLE.matcher(sql);
+        return matcher.find() ? matcher.group(1).toUpperCase(Locale.ROOT) : null;
+    }
+
+    public static boolean isBookkeeping(String table) {
+        return table != null && BOOKKEEPING_TABLES.contains(table.toUpperCase(Locale.ROOT));
+    }
+
+    public void increment(Collection<String> tables) {
+        boolean changed = false;
+        for (String table : tables) {
+            if (!isBookkeeping(table)) {
+                this.generations.computeIfAbsent(table.toUpperCase(Locale.ROOT), t -> new AtomicLong())
+                        .incrementAndGet();
+                changed = true;
+            }
+        }
+        if (changed) {
+            this.global.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the sum of the generations of the given tables. As generations
+     *         only grow, the sum changes whenever one of the tables is
+     *         modified, including changes to an unknown table. Without any
+     *         tables the global generation is returned.
+     */
+    public long get(String... tables) {
+        if (tables.length == 0) {
+            return this.global.get();
+        }
+        long result = 0;
+        boolean unknownIncluded = false;
+        for (String table : tables) {
+            unknownIncluded |= UNKNOWN_TABLE.equals(table);
+            result += this.get(table);
+        }
+        return unknownIncluded ? result : result + this.get(UNKNOWN_TABLE);
+    }
+
+    private long get(String table) {
+        AtomicLong generation = this.generations.get(table.toUpperCase(Locale.ROOT));
+        return generation != null ? generation.get() : 0;
+    }
+}
@@ -0,0 +1,16 @@
+package de.ultical.backend.data;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+/**
+ * A table modified by a committed transaction on one of the nodes.
+ */
+@Data
+public class ChangeLogEntry {
+    private long id;
+    private String origin;
+    private String tableName;
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,218 @@
+package de.ultical.backend.data;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.session.SqlSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import de.ultical.backend.data.mapper.ChangeLogMapper;
+import io.dropwizard.lifecycle.Managed;
+
+/**
+ * Polls the change log for tables modified by other nodes and applies them to
+ * the local {@link ChangeGenerations}, so caches depending on the generations
+ * do not serve data another node has changed. Caches that have to be
+ * invalidated explicitly register a listener.
+ * <p>
+ * Entries are read by their increasing id. As ids are handed out when a
+ * statement is executed but become visible on commit, a smaller id may show up
+ * after a larger one. Missing ids are therefore looked for again until they
+ * show up or {@value #GAP_TIMEOUT_MILLIS} ms have passed, which also covers
+ * ids lost by rolled back transactions. Entries older than the retention are
+ * removed from time to time by any node.
+ * </p>
+ * <p>
+ * The log is read through the same sessions as everything else, i.e. from the
+ * replica if there is one. This way a change is applied only once it can be
+ * read on this node, otherwise a cache could be filled again with the old
+ * data right after it has been invalidated.
+ * </p>
+ */
+public class ChangeLogPoller implements Managed {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ChangeLogPoller.class);
+
+    static final long GAP_TIMEOUT_MILLIS = 5 * 60 * 1000;
+    /*
+     * identity columns may jump, e.g. by the preallocated values a database
+     * restart throws away, such jumps are not worth tracking
+     */
+    static final int MAX_GAPS = 1000;
+    private static final long PRUNE_INTERVAL_MILLIS = 60 * 1000;
+
+    private final Supplier<SqlSession> sessions;
+    private final ChangeGenerations generations;
+    private final String origin;
+    private final Duration pollInterval;
+    private final Duration retention;
+    private final List<Consumer<Set<String>>> listeners = new CopyOnWriteArrayList<>();
+
+    private final Timer lagTimer;
+    private final Meter appliedMeter;
+
+    private long lastId = 0;
+    // missing ids and until when they are looked for
+    private final Map<Long, Long> gaps = new HashMap<>();
+    private long lastPrune;
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param sessions
+     *            provides the sessions to read the log, e.g. the
+     *            {@link de.ultical.backend.app.MyBatisManager MyBatisManager}.
+     * @param generations
+     *            the generations of this node.
+     * @param origin
+     *            the name of this node, its own entries have been applied on
+     *            commit already.
+     * @param metrics
+     *            registry for the invalidation lag, may be <code>null</code>.
+     */
+    public ChangeLogPoller(final Supplier<SqlSession> sessions, final ChangeGenerations generations,
+            final String origin, final Duration pollInterval, final Duration retention,
+            final MetricRegistry metrics) {
+        this.sessions = Objects.requireNonNull(sessions);
+        this.generations = Objects.requireNonNull(generations);
+        this.origin = Objects.requireNonNull(origin);
+        this.pollInterval = Objects.requireNonNull(pollInterval);
+        this.retention = Objects.requireNonNull(retention);
+        MetricRegistry registry = metrics != null ? metrics : new MetricRegistry();
+        this.lagTimer = registry.timer(MetricRegistry.name(ChangeLogPoller.class, "invalidation-lag"));
+        this.appliedMeter = registry.meter(MetricRegistry.name(ChangeLogPoller.class, "applied"));
+    }
+
+    /**
+     * @param listener
+     *            called on the polling thread with the upper case names of the
+     *            tables other nodes have modified.
+     */
+    public void addListener(Consumer<Set<String>> listener) {
+        this.listeners.add(Objects.requireNonNull(listener));
+    }
+
+    @Override
+    public void start() throws Exception {
+        try (SqlSession session = this.sessions.get()) {
+            // the caches are empty on start, older changes do not matter
+            Long last = session.getMapper(ChangeLogMapper.class).getLastId();
+            this.lastId = last != null ? last : 0;
+        }
+        this.lastPrune = System.currentTimeMillis();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-log-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, this.pollInterval.toMillis());
+        this.executor.scheduleWithFixedDelay(() -> {
+            try {
+                this.poll();
+            } catch (RuntimeException e) {
+                // an exception would end the schedule
+                LOGGER.error("Polling the change log failed", e);
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the tables modified by other nodes since the last poll.
+     */
+    synchronized Set<String> poll() {
+        long now = System.currentTimeMillis();
+        List<ChangeLogEntry> entries;
+        try (SqlSession session = this.sessions.get()) {
+            ChangeLogMapper mapper = session.getMapper(ChangeLogMapper.class);
+            entries = mapper.getAfter(this.pollFrom());
+            if (now - this.lastPrune >= PRUNE_INTERVAL_MILLIS) {
+                mapper.deleteBefore(LocalDateTime.now().minus(this.retention));
+                session.commit();
+                this.lastPrune = now;
+            }
+        }
+        return this.apply(entries, now);
+    }
+
+    private long pollFrom() {
+        if (this.gaps.isEmpty()) {
+            return this.lastId;
+        }
+        return Math.min(this.lastId, Collections.min(this.gaps.keySet()) - 1);
+    }
+
+    synchronized Set<String> apply(List<ChangeLogEntry> entries, long now) {
+        Set<String> tables = new HashSet<>();
+        int applied = 0;
+        for (ChangeLogEntry entry : entries) {
+            long id = entry.getId();
+            if (id > this.lastId) {
+                if (id - this.lastId - 1 <= MAX_GAPS) {
+                    for (long missing = this.lastId + 1; missing < id; missing++) {
+                        this.gaps.put(missing, now + GAP_TIMEOUT_MILLIS);
+                    }
+                }
+                this.lastId = id;
+            } else if (this.gaps.remove(id) == null) {
+                // seen before
+                continue;
+            }
+            if (this.origin.equals(entry.getOrigin())) {
+                continue;
+            }
+            tables.add(entry.getTableName());
+            applied++;
+            if (entry.getChangedAt() != null) {
+                long changedAt = entry.getChangedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                this.lagTimer.update(Math.max(0, now - changedAt), TimeUnit.MILLISECONDS);
+            }
+        }
+        this.gaps.values().removeIf(until -> until < now);
+
+        if (!tables.isEmpty()) {
+            this.generations.increment(tables);
+            this.appliedMeter.mark(applied);
+            for (Consumer<Set<String>> listener : this.listeners) {
+                try {
+                    listener.accept(tables);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Invalidating a cache failed", e);
+                }
+            }
+        }
+        return tables;
+    }
+
+    synchronized long getLastId() {
+        return this.lastId;
+    }
+
+    synchronized Set<Long> getGaps() {
+        return new HashSet<>(this.gaps.keySet());
+    }
+}
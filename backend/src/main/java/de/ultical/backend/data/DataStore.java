@@ -1,6 +1,10 @@
 package de.ultical.backend.data;
 
 import de.ultical.backend.api.transferClasses.DfvMvName;
+import de.ultical.backend.api.transferClasses.EligibilityAuditReport;
+import de.ultical.backend.api.transferClasses.EligibilityAuditRow;
+import de.ultical.backend.api.transferClasses.RegistrationExportRow;
+import de.ultical.backend.app.RoutingSqlSession;
 import de.ultical.backend.data.mapper.AssociationMapper;
 import de.ultical.backend.data.mapper.BaseMapper;
 import de.ultical.backend.data.mapper.ClubMapper;
@@ -9,11 +13,14 @@ import de.ultical.backend.data.mapper.DfvMvNameMapper;
 import de.ultical.backend.data.mapper.DfvPlayerMapper;
 import de.ultical.backend.data.mapper.DivisionConfirmationMapper;
 import de.ultical.backend.data.mapper.DivisionRegistrationMapper;
+import de.ultical.backend.data.mapper.EligibilityAuditMapper;
 import de.ultical.backend.data.mapper.EventMapper;
 import de.ultical.backend.data.mapper.FeeMapper;
 import de.ultical.backend.data.mapper.LocationMapper;
 import de.ultical.backend.data.mapper.MailCodeMapper;
+import de.ultical.backend.data.mapper.PermissionMapper;
 import de.ultical.backend.data.mapper.PlayerMapper;
+import de.ultical.backend.data.mapper.RegistrationExportMapper;
 import de.ultical.backend.data.mapper.RosterMapper;
 import de.ultical.backend.data.mapper.RosterPlayerMapper;
 import de.ultical.backend.data.mapper.SeasonMapper;
@@ -43,24 +50,41 @@ import de.ultical.backend.model.TeamRegistration;
 import de.ultical.backend.model.TournamentEdition;
 import de.ultical.backend.model.TournamentFormat;
 import de.ultical.backend.model.User;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.glassfish.jersey.process.internal.RequestScoped;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.ws.rs.client.Client;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -82,12 +106,23 @@ public class DataStore {
 
     Logger logger = LoggerFactory.getLogger(DataStore.class);
 
+    static final int STREAM_CACHE_ROWS = 100;
+
     @Inject
     SqlSession sqlSession;
 
     @Inject
     Client client;
 
+    @Inject
+    GeoIndex geoIndex;
+
+    @Inject
+    DfvMemberRegistry dfvMemberRegistry;
+
+    @Inject
+    PermissionCache permissionCache;
+
     /**
      * set to <code>false</code> if you want to perform more then one dataStore
      * operation. However, if you do so, then you have to manually close the
@@ -160,6 +195,60 @@ public class DataStore {
         return result;
     }
 
+    /**
+     * Releases the {@link SqlSession} once the request this
+     * <code>DataStore</code> belongs to is finished. The session opens its
+     * connection lazily and may have been used again after a
+     * {@link #getClosable() closable} has been closed, hence we close it here
+     * for good.
+     */
+    @PreDestroy
+    public void release() {
+        if (this.sqlSession != null) {
+            this.sqlSession.close();
+        }
+    }
+
+    /**
+     * Runs the given operation with the given MyBatis executor type, e.g.
+     * {@link ExecutorType#BATCH} for operations inserting many rows. The
+     * previous executor type is restored afterwards.
+     * <p>
+     * The executor type can only be changed between transactions, the
+     * operation therefore has to commit its changes. If it fails, its changes
+     * are rolled back. If the session does not support different executor
+     * types the operation runs with the session's default.
+     * </p>
+     */
+    public <T> T withExecutorType(ExecutorType type, Supplier<T> operation) {
+        if (!(this.sqlSession instanceof RoutingSqlSession)) {
+            return operation.get();
+        }
+        final RoutingSqlSession session = (RoutingSqlSession) this.sqlSession;
+        final ExecutorType previousType = session.getExecutorType();
+        session.setExecutorType(type);
+        try {
+            return operation.get();
+        } catch (RuntimeException e) {
+            // otherwise the pending statements keep us from switching back
+            session.rollback();
+            throw e;
+        } finally {
+            session.setExecutorType(previousType);
+        }
+    }
+
+    /*
+     * sends the selects of a method that decides what to write from what it
+     * reads to the primary, the replica may lag behind. Methods that write
+     * first are sent there by their first write anyway.
+     */
+    private void readFromPrimary() {
+        if (this.sqlSession instanceof RoutingSqlSession) {
+            ((RoutingSqlSession) this.sqlSession).readFromPrimary();
+        }
+    }
+
     public <T extends Identifiable> List<T> getAll(Class<T> clazz) {
         try {
             T instance = clazz.newInstance();
@@ -174,11 +263,130 @@ public class DataStore {
         }
     }
 
+    /**
+     * Passes all instances of the given class one after the other to the
+     * given action, instead of loading all of them at once like
+     * {@link #getAll(Class)}.
+     * <p>
+     * While the rows are read, the nested objects loaded for them are kept in
+     * MyBatis' session cache. The cache is therefore cleared every
+     * {@value #STREAM_CACHE_ROWS} rows, so at most that many object graphs
+     * are held at a time, regardless of the size of the table.
+     * </p>
+     * <p>
+     * The statements read ahead by their fetch size. MySQL's Connector/J
+     * ignores it and reads the whole result first unless the JDBC URL sets
+     * <code>useCursorFetch=true</code>. Its other way of streaming, a fetch
+     * size of <code>Integer.MIN_VALUE</code>, cannot be used here, because the
+     * nested selects run on the same connection while the rows are read.
+     * </p>
+     */
+    public <T extends Identifiable> void forEach(Class<T> clazz, Consumer<? super T> action) {
+        final String statement;
+        try {
+            statement = clazz.newInstance().getMapper().getName() + ".getAll";
+        } catch (IllegalAccessException | InstantiationException iae) {
+            throw new PersistenceException(iae);
+        }
+        this.stream(statement, null, action);
+    }
+
+    /**
+     * Passes all events taking place between <code>from</code> and
+     * <code>to</code> one after the other to the given action, see
+     * {@link #forEach(Class, Consumer)}.
+     */
+    public void forEachEvent(Date from, Date to, Consumer<? super Event> action) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("from", formatDate(from, "1900-01-01"));
+        parameters.put("to", formatDate(to, "3000-01-01"));
+        this.stream(EventMapper.class.getName() + ".getFull", parameters, action);
+    }
+
+    /**
+     * Passes the players of all team registrations of the given edition, one
+     * row per player, to the given action while they are read from the
+     * database.
+     */
+    public void exportEditionRegistrations(int editionId, Consumer<? super RegistrationExportRow> action) {
+        this.exportRegistrations(mapper -> mapper.getForEdition(editionId), action);
+    }
+
+    /**
+     * Like {@link #exportEditionRegistrations(int, Consumer)} for a single
+     * division of an edition.
+     */
+    public void exportDivisionRegistrations(int divisionRegistrationId,
+            Consumer<? super RegistrationExportRow> action) {
+        this.exportRegistrations(mapper -> mapper.getForDivisionRegistration(divisionRegistrationId), action);
+    }
+
+    private void exportRegistrations(Function<RegistrationExportMapper, Cursor<RegistrationExportRow>> query,
+            Consumer<? super RegistrationExportRow> action) {
+        RegistrationExportMapper mapper = this.sqlSession.getMapper(RegistrationExportMapper.class);
+        try (Cursor<RegistrationExportRow> rows = query.apply(mapper)) {
+            rows.forEach(action);
+        } catch (IOException e) {
+            throw new PersistenceException(e);
+        } finally {
+            if (this.autoCloseSession) {
+                this.sqlSession.close();
+            }
+        }
+    }
+
+    /**
+     * Checks the players of all team registrations of the given edition with
+     * four queries, see {@link EligibilityAuditor}.
+     */
+    public EligibilityAuditReport auditEdition(int editionId) {
+        boolean orgCloseSession = this.autoCloseSession;
+        try {
+            // only close session at the end
+            this.setAutoCloseSession(false);
+
+            EligibilityAuditMapper mapper = this.sqlSession.getMapper(EligibilityAuditMapper.class);
+            List<EligibilityAuditRow> rows = mapper.getPlayers(editionId);
+            List<DuplicateRoster> duplicates = mapper.getDuplicateRosters(editionId);
+            Map<Integer, DfvMvName> members = this.getDfvMvNames(rows.stream().map(EligibilityAuditRow::getDfvNumber)
+                    .filter(Objects::nonNull).collect(Collectors.toSet()));
+            // the sync state is stored once the member list has been synced
+            boolean membersSynced = this.sqlSession.getMapper(DfvMvNameMapper.class)
+                    .hasSyncState(DFV_NAMES_SYNC) > 0;
+            return EligibilityAuditor.audit(editionId, rows, duplicates, members, membersSynced);
+        } finally {
+            // set autoclose to original value
+            this.setAutoCloseSession(orgCloseSession);
+
+            if (this.sqlSession != null && this.autoCloseSession) {
+                this.sqlSession.close();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void stream(String statement, Object parameter, Consumer<? super T> action) {
+        final int[] rows = { 0 };
+        try {
+            this.sqlSession.select(statement, parameter, context -> {
+                action.accept((T) context.getResultObject());
+                if (++rows[0] % STREAM_CACHE_ROWS == 0) {
+                    this.sqlSession.clearCache();
+                }
+            });
+        } finally {
+            if (this.autoCloseSession) {
+                this.sqlSession.close();
+            }
+        }
+    }
+
     public <T extends Identifiable> T addNew(T newInstance) {
         try {
             BaseMapper<T> mapper = (BaseMapper<T>) this.sqlSession.getMapper(newInstance.getMapper());
             mapper.insert(newInstance);
             this.sqlSession.commit();
+            this.updateGeoIndex(newInstance);
             return newInstance;
         } catch (PersistenceException pe) {
             this.sqlSession.rollback();
@@ -195,6 +403,9 @@ public class DataStore {
             BaseMapper<T> mapper = (BaseMapper<T>) this.sqlSession.getMapper(updatedInstance.getMapper());
             Integer updateCount = mapper.update(updatedInstance);
             this.sqlSession.commit();
+            if (updateCount == 1) {
+                this.updateGeoIndex(updatedInstance);
+            }
             return updateCount == 1;
         } catch (PersistenceException pe) {
             logger.error(pe.getCause().getMessage());
@@ -241,6 +452,7 @@ public class DataStore {
             BaseMapper<T> mapper = (BaseMapper<T>) this.sqlSession.getMapper(instance.getMapper());
             mapper.delete(id);
             this.sqlSession.commit();
+            this.removeFromGeoIndex(id, clazz);
         } catch (Exception e) {
             this.sqlSession.rollback();
             throw new PersistenceException(e);
@@ -344,21 +556,27 @@ public class DataStore {
         }
     }
 
-    public List<TeamRegistration> getTeamRegistrationsByRoster(Roster roster) {
-        try {
-            TeamRegistrationMapper trMapper = this.sqlSession.getMapper(TeamRegistrationMapper.class);
-            return trMapper.getByRoster(roster);
-        } finally {
-            if (this.sqlSession != null && this.autoCloseSession) {
-                this.sqlSession.close();
-            }
+    /**
+     * Finds the rosters of the same season, division and context as the given
+     * one the players are already in.
+     *
+     * @param qualifiedOnly
+     *            leave out rosters registered for a tournament they did not
+     *            qualify for
+     * @return by the id of the player the names of the teams of these rosters,
+     *         followed by the name addition of the roster if there is one.
+     *         Players without a conflict are left out.
+     */
+    public Map<Integer, List<String>> getConflictingRosterNames(Collection<Integer> playerIds, Roster roster,
+            boolean qualifiedOnly) {
+        if (playerIds.isEmpty()) {
+            return Collections.emptyMap();
         }
-    }
-
-    public List<Roster> getRosterByPlayerSeasonDivision(int playerId, Roster roster) {
         try {
             RosterMapper rosterMapper = this.sqlSession.getMapper(RosterMapper.class);
-            return rosterMapper.getByPlayerSeasonDivision(playerId, roster);
+            return rosterMapper.getConflicting(playerIds, roster, qualifiedOnly).stream()
+                    .collect(Collectors.groupingBy(RosterConflict::getPlayerId, LinkedHashMap::new,
+                            Collectors.mapping(RosterConflict::getRosterName, Collectors.toList())));
         } finally {
             if (this.sqlSession != null && this.autoCloseSession) {
                 this.sqlSession.close();
@@ -400,6 +618,49 @@ public class DataStore {
         }
     }
 
+    /**
+     * @return the registered players with one of the given DFV numbers by
+     *         their DFV number.
+     */
+    public Map<Integer, DfvPlayer> getPlayersByDfvNumbers(Collection<Integer> dfvNumbers) {
+        if (dfvNumbers.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            DfvPlayerMapper dfvPlayerMapper = this.sqlSession.getMapper(DfvPlayerMapper.class);
+            Map<Integer, DfvPlayer> players = new HashMap<>();
+            dfvPlayerMapper.getByDfvNumbers(dfvNumbers, true).forEach(player -> players.put(player.getDfvNumber(), player));
+            return players;
+        } finally {
+            if (this.sqlSession != null && this.autoCloseSession) {
+                this.sqlSession.close();
+            }
+        }
+    }
+
+    /*
+     * adds all players in one transaction, the inserts are sent as batch
+     */
+    public void addPlayersToRoster(Roster roster, Collection<? extends Player> players) {
+        if (players.isEmpty()) {
+            return;
+        }
+        this.withExecutorType(ExecutorType.BATCH, () -> {
+            try {
+                RosterMapper rosterMapper = this.sqlSession.getMapper(RosterMapper.class);
+                for (Player player : players) {
+                    rosterMapper.addPlayer(roster, player);
+                }
+                this.sqlSession.commit();
+            } finally {
+                if (this.sqlSession != null && this.autoCloseSession) {
+                    this.sqlSession.close();
+                }
+            }
+            return null;
+        });
+    }
+
     public void addPlayerToRoster(Roster roster, Player player) {
         try {
             RosterMapper rosterMapper = this.sqlSession.getMapper(RosterMapper.class);
@@ -424,6 +685,39 @@ public class DataStore {
         }
     }
 
+    /**
+     * @return the current version of the user's session tokens or
+     *         <code>null</code> if the user does not exist.
+     */
+    public Integer getTokenVersion(int userId) {
+        try {
+            return this.sqlSession.getMapper(UserMapper.class).getTokenVersion(userId);
+        } finally {
+            if (this.autoCloseSession) {
+                this.sqlSession.close();
+            }
+        }
+    }
+
+    /**
+     * Invalidates all session tokens issued to the user so far.
+     *
+     * @return the new version of the user's session tokens.
+     */
+    public Integer revokeTokens(int userId) {
+        try {
+            UserMapper userMapper = this.sqlSession.getMapper(UserMapper.class);
+            userMapper.incrementTokenVersion(userId);
+            Integer version = userMapper.getTokenVersion(userId);
+            this.sqlSession.commit();
+            return version;
+        } finally {
+            if (this.autoCloseSession) {
+                this.sqlSession.close();
+            }
+        }
+    }
+
     public Club getClub(int clubId) {
         try {
             ClubMapper clubMapper = this.sqlSession.getMapper(ClubMapper.class);
@@ -449,7 +743,11 @@ public class DataStore {
     /*
      * update the dfv association table
      */
-    public void refreshAssociations(List<Association> retrievedAssociations) {
+    /**
+     * @return the number of associations written.
+     */
+    public int refreshAssociations(List<Association> retrievedAssociations) {
+        this.readFromPrimary();
         try {
             AssociationMapper associationMapper = this.sqlSession.getMapper(AssociationMapper.class);
             Set<Integer> existingAssociations = associationMapper.getAllIds();
@@ -462,6 +760,7 @@ public class DataStore {
                 }
             }
             this.sqlSession.commit();
+            return retrievedAssociations.size();
         } finally {
             if (this.sqlSession != null && this.autoCloseSession) {
                 this.sqlSession.close();
@@ -469,41 +768,153 @@ public class DataStore {
         }
     }
 
+    /**
+     * The clubs are consumed one by one, the writes are sent as batch.
+     *
+     * @return the number of clubs written.
+     */
+    public int refreshClubs(Iterator<Club> retrievedClubs) {
+        this.readFromPrimary();
+        return this.withExecutorType(ExecutorType.BATCH, () -> {
+            try {
+                ClubMapper clubMapper = this.sqlSession.getMapper(ClubMapper.class);
+                Set<Integer> existingClubIds = clubMapper.getAllIds();
+
+                int writes = 0;
+                while (retrievedClubs.hasNext()) {
+                    Club club = retrievedClubs.next();
+                    if (existingClubIds.add(club.getId())) {
+                        clubMapper.insert(club);
+                    } else {
+                        clubMapper.update(club);
+                    }
+                    if (++writes % WRITE_BATCH_SIZE == 0) {
+                        this.sqlSession.flushStatements();
+                    }
+                }
+                this.sqlSession.commit();
+                return writes;
+            } finally {
+                if (this.sqlSession != null && this.autoCloseSession) {
+                    this.sqlSession.close();
+                }
+            }
+        });
+    }
+
     /*
-     * update the dfvMvName table
+     * name of the member list in DFV_SYNC_STATE
      */
-    public void refreshClubs(List<Club> retrievedClubs) {
-        try {
-            ClubMapper clubMapper = this.sqlSession.getMapper(ClubMapper.class);
-            Set<Integer> existingClubIds = clubMapper.getAllIds();
+    static final String DFV_NAMES_SYNC = "profiles";
 
-            for (Club club : retrievedClubs) {
-                if (existingClubIds.contains(club.getId())) {
-                    clubMapper.update(club);
-                } else {
-                    clubMapper.insert(club);
+    /*
+     * limits the number of parameters of the IN lists
+     */
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    /*
+     * the writes of a sync are sent in batches of this size
+     */
+    static final int WRITE_BATCH_SIZE = 500;
+
+    /**
+     * Applies the member list fetched from the DFV to the DfvMvName table.
+     * The members are consumed one by one, only new, changed and removed
+     * members are written, as batches of {@value #WRITE_BATCH_SIZE}, found by
+     * their content hashes. If the list is the same as the one synced last
+     * time, nothing is written at all.
+     * <p>
+     * The sync is marked as incomplete until
+     * {@link #completeDfvNameSync(String)} is called, so if the players could
+     * not be updated the next sync checks all of them.
+     * </p>
+     *
+     * @return which members have changed, members without a name are left
+     *         out.
+     */
+    public DfvSyncStatistics syncDfvNames(Iterator<DfvMvName> dfvNames) {
+        this.readFromPrimary();
+        return this.withExecutorType(ExecutorType.BATCH, () -> {
+            try {
+                final DfvMvNameMapper nameMapper = this.sqlSession.getMapper(DfvMvNameMapper.class);
+                final DfvSyncStatistics statistics = new DfvSyncStatistics();
+                final String previousHash = nameMapper.getPayloadHash(DFV_NAMES_SYNC);
+                // never synced before or the players have not been updated
+                statistics.setCheckAllPlayers(previousHash == null);
+
+                final StoredContentHashes stored = new StoredContentHashes();
+                nameMapper.getContentHashes(context -> stored.add(context.getResultObject()));
+                final DfvMvNameHash.PayloadHasher payload = new DfvMvNameHash.PayloadHasher();
+                final Set<Integer> inserted = new HashSet<>();
+                final int[] writes = { 0 };
+                while (dfvNames.hasNext()) {
+                    DfvMvName name = dfvNames.next();
+                    if (name.getFirstName() == null || name.getLastName() == null) {
+                        continue;
+                    }
+                    statistics.setFetched(statistics.getFetched() + 1);
+                    int dfvNumber = name.getDfvNumber();
+                    long contentHash = DfvMvNameHash.contentHash(name);
+                    payload.add(dfvNumber, contentHash);
+                    int index = stored.indexOf(dfvNumber);
+                    if (index >= 0) {
+                        if (!stored.see(index, contentHash)) {
+                            continue;
+                        }
+                        nameMapper.updateWithHash(name, contentHash);
+                        statistics.setUpdated(statistics.getUpdated() + 1);
+                    } else if (inserted.add(dfvNumber)) {
+                        nameMapper.insertWithHash(name, contentHash);
+                        statistics.setInserted(statistics.getInserted() + 1);
+                    } else {
+                        // sent twice, the last one wins
+                        nameMapper.updateWithHash(name, contentHash);
+                    }
+                    this.written(statistics, dfvNumber, writes);
+                }
+                stored.forEachUnseen(dfvNumber -> {
+                    nameMapper.delete(dfvNumber);
+                    statistics.setDeleted(statistics.getDeleted() + 1);
+                    this.written(statistics, dfvNumber, writes);
+                });
+
+                statistics.setPayloadHash(payload.hash());
+                if (writes[0] == 0 && statistics.getPayloadHash().equals(previousHash)) {
+                    statistics.setUnchanged(true);
+                    return statistics;
+                }
+                this.storeSyncState(nameMapper, null);
+                this.sqlSession.commit();
+                if (this.dfvMemberRegistry != null && writes[0] > 0) {
+                    this.dfvMemberRegistry.reload();
+                }
+                return statistics;
+            } finally {
+                if (this.sqlSession != null && this.autoCloseSession) {
+                    this.sqlSession.close();
                 }
             }
-            this.sqlSession.commit();
-        } finally {
-            if (this.sqlSession != null && this.autoCloseSession) {
-                this.sqlSession.close();
-            }
+        });
+    }
+
+    private void written(DfvSyncStatistics statistics, int dfvNumber, int[] writes) {
+        // after an incomplete sync all players are checked anyway
+        if (!statistics.isCheckAllPlayers()) {
+            statistics.getChangedDfvNumbers().add(dfvNumber);
+        }
+        if (++writes[0] % WRITE_BATCH_SIZE == 0) {
+            this.sqlSession.flushStatements();
         }
     }
 
-    /*
-     * clear and refill the DfvMvName table
+    /**
+     * Marks the sync of the member list with the given hash as complete, the
+     * next sync of the same list is skipped.
      */
-    public void refreshDfvNames(List<DfvMvName> dfvNames) {
+    public void completeDfvNameSync(String payloadHash) {
+        this.readFromPrimary();
         try {
-            DfvMvNameMapper nameMapper = this.sqlSession.getMapper(DfvMvNameMapper.class);
-            nameMapper.deleteAll();
-            for (DfvMvName name : dfvNames) {
-                if (name.getFirstName() != null && name.getLastName() != null) {
-                    nameMapper.insert(name);
-                }
-            }
+            this.storeSyncState(this.sqlSession.getMapper(DfvMvNameMapper.class), payloadHash);
             this.sqlSession.commit();
         } finally {
             if (this.sqlSession != null && this.autoCloseSession) {
@@ -512,8 +923,21 @@ public class DataStore {
         }
     }
 
+    private void storeSyncState(DfvMvNameMapper nameMapper, String payloadHash) {
+        // no update counts in batch mode, so look before writing
+        LocalDateTime now = LocalDateTime.now();
+        if (nameMapper.hasSyncState(DFV_NAMES_SYNC) == 0) {
+            nameMapper.insertSyncState(DFV_NAMES_SYNC, payloadHash, now);
+        } else {
+            nameMapper.updateSyncState(DFV_NAMES_SYNC, payloadHash, now);
+        }
+    }
+
     public DfvMvName getDfvMvName(final int dfvNumber) {
         try {
+            if (this.dfvMemberRegistry != null && this.dfvMemberRegistry.isLoaded()) {
+                return this.dfvMemberRegistry.get(dfvNumber);
+            }
             DfvMvNameMapper nameMapper = this.sqlSession.getMapper(DfvMvNameMapper.class);
             DfvMvName result = nameMapper.get(dfvNumber);
             return result;
@@ -524,6 +948,39 @@ public class DataStore {
         }
     }
 
+    /**
+     * @return the DFV members with one of the given numbers by their number,
+     *         numbers of no member are left out.
+     */
+    public Map<Integer, DfvMvName> getDfvMvNames(final Collection<Integer> dfvNumbers) {
+        if (dfvNumbers.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return this.findDfvMvNames(dfvNumbers);
+        } finally {
+            if (this.sqlSession != null && this.autoCloseSession) {
+                this.sqlSession.close();
+            }
+        }
+    }
+
+    private Map<Integer, DfvMvName> findDfvMvNames(final Collection<Integer> dfvNumbers) {
+        Map<Integer, DfvMvName> names = new HashMap<>();
+        if (this.dfvMemberRegistry != null && this.dfvMemberRegistry.isLoaded()) {
+            for (Integer dfvNumber : dfvNumbers) {
+                DfvMvName name = this.dfvMemberRegistry.get(dfvNumber);
+                if (name != null) {
+                    names.put(dfvNumber, name);
+                }
+            }
+            return names;
+        }
+        DfvMvNameMapper nameMapper = this.sqlSession.getMapper(DfvMvNameMapper.class);
+        nameMapper.getByNumbers(dfvNumbers).forEach(name -> names.put(name.getDfvNumber(), name));
+        return names;
+    }
+
     static class PlayerNeedsUpdatePredicate implements Predicate<PlayerMvNamePair> {
         /**
          * return <code>true</code> if the <code>DfvPlayer</code> and the
@@ -603,6 +1060,41 @@ public class DataStore {
         }
     }
 
+    /**
+     * Like {@link #getPlayersToUpdate()}, but only checks the players with one
+     * of the given DFV numbers, e.g. those of the members changed by a sync.
+     *
+     * @return the players with one of the numbers, which need an update.
+     */
+    public List<DfvPlayer> getPlayersToUpdate(final Collection<Integer> dfvNumbers) {
+        if (dfvNumbers.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            final DfvPlayerMapper playerMapper = this.sqlSession.getMapper(DfvPlayerMapper.class);
+            final List<Integer> numbers = new ArrayList<>(dfvNumbers);
+            final List<DfvPlayer> result = new ArrayList<>();
+            for (int from = 0; from < numbers.size(); from += IN_CHUNK_SIZE) {
+                List<Integer> chunk = numbers.subList(from, Math.min(numbers.size(), from + IN_CHUNK_SIZE));
+                List<DfvPlayer> players = playerMapper.getByDfvNumbers(chunk, false);
+                if (players.isEmpty()) {
+                    continue;
+                }
+                Map<Integer, DfvMvName> names = this.findDfvMvNames(chunk);
+                players.stream()
+                        .map(player -> new PlayerMvNamePair(player, names.get(player.getDfvNumber())))
+                        .filter(PlayerNeedsUpdatePredicate::needsUpdate)
+                        .map(pair -> pair.player)
+                        .forEach(result::add);
+            }
+            return result;
+        } finally {
+            if (this.sqlSession != null && this.autoCloseSession) {
+                this.sqlSession.close();
+            }
+        }
+    }
+
     public List<DfvMvName> getDfvNames(String firstname, String lastname) {
         try {
             DfvMvNameMapper nameMapper = this.sqlSession.getMapper(DfvMvNameMapper.class);
@@ -614,20 +1106,17 @@ public class DataStore {
         }
     }
 
-    public List<Event> getEvents(boolean basicDataOnly, Date from, Date to) {
-        String fromString, toString;
-        if (null == from) {
-            fromString = "1900-01-01";
-        } else {
-            DateFormat df = new SimpleDateFormat("yyyy-MM-dd");
-            fromString = df.format(from);
-        }
-        if (null == to) {
-            toString = "3000-01-01";
-        } else {
-            DateFormat df = new SimpleDateFormat("yyyy-MM-dd");
-            toString = df.format(to);
+    private static String formatDate(Date date, String defaultValue) {
+        if (null == date) {
+            return defaultValue;
         }
+        DateFormat df = new SimpleDateFormat("yyyy-MM-dd");
+        return df.format(date);
+    }
+
+    public List<Event> getEvents(boolean basicDataOnly, Date from, Date to) {
+        String fromString = formatDate(from, "1900-01-01");
+        String toString = formatDate(to, "3000-01-01");
 
         EventMapper eventMapper = this.sqlSession.getMapper(EventMapper.class);
 
@@ -638,6 +1127,34 @@ public class DataStore {
         }
     }
 
+    /**
+     * Returns the basic data of all events taking place between
+     * <code>from</code> and <code>to</code> that have a location within
+     * <code>radiusKm</code> of the given coordinates. Events are ordered by the
+     * distance of their closest location.
+     */
+    public List<Event> getEventBasicsNear(double latitude, double longitude, double radiusKm, Date from, Date to) {
+        if (this.geoIndex == null) {
+            return Collections.emptyList();
+        }
+        List<GeoIndex.Hit> hits = this.geoIndex.findNear(GeoIndex.Kind.EVENT, latitude, longitude, radiusKm);
+        if (hits.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Integer, Integer> rank = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(hits.size());
+        for (GeoIndex.Hit hit : hits) {
+            rank.put(hit.getOwnerId(), ids.size());
+            ids.add(hit.getOwnerId());
+        }
+
+        EventMapper eventMapper = this.sqlSession.getMapper(EventMapper.class);
+        List<Event> events = eventMapper.getBasicsByIds(ids, formatDate(from, "1900-01-01"),
+                formatDate(to, "3000-01-01"));
+        events.sort(Comparator.comparingInt(e -> rank.get(e.getId())));
+        return events;
+    }
+
     public List<Team> getTeamBasics() {
         TeamMapper teamMapper = this.sqlSession.getMapper(TeamMapper.class);
         return teamMapper.getBasics();
@@ -913,6 +1430,17 @@ public class DataStore {
         }
     }
 
+    public TournamentFormat getFormatByDivisionRegistration(int divisionRegistrationId) {
+        try {
+            TournamentFormatMapper tfMapper = this.sqlSession.getMapper(TournamentFormatMapper.class);
+            return tfMapper.getByDivisionRegistration(divisionRegistrationId);
+        } finally {
+            if (this.autoCloseSession) {
+                this.sqlSession.close();
+            }
+        }
+    }
+
     public TournamentFormat getFormatByEvent(int eventId) {
         try {
             TournamentFormatMapper tfMapper = this.sqlSession.getMapper(TournamentFormatMapper.class);
@@ -935,12 +1463,32 @@ public class DataStore {
         }
     }
 
+    /**
+     * Registers a team for a division. The registration's sequence is drawn
+     * from the division's registration counter within the same transaction as
+     * the insert, so concurrent registrations get unique, gap-free sequence
+     * numbers in the order in which they reached the database.
+     * <p>
+     * The counter row stays locked until the commit, callers should therefore
+     * do all checks before calling this method.
+     * </p>
+     */
     public TeamRegistration registerTeamForEdition(int divisionRegistrationId, TeamRegistration teamReg) {
         try {
+            final DivisionRegistrationMapper divisionMapper = this.sqlSession.getMapper(DivisionRegistrationMapper.class);
+            if (divisionMapper.incrementRegistrationCounter(divisionRegistrationId) != 1) {
+                throw new PersistenceException(
+                        String.format("Division registration with id %d does not exist", divisionRegistrationId));
+            }
+            teamReg.setSequence(divisionMapper.getRegistrationCounter(divisionRegistrationId));
+
             final TeamRegistrationMapper mapper = this.sqlSession.getMapper(TeamRegistrationMapper.class);
             mapper.insert(divisionRegistrationId, teamReg);
             this.sqlSession.commit();
             return teamReg;
+        } catch (PersistenceException pe) {
+            this.sqlSession.rollback();
+            throw pe;
         } finally {
             if (this.autoCloseSession) {
                 this.sqlSession.close();
@@ -963,6 +1511,10 @@ public class DataStore {
         try {
             final TeamRegistrationMapper mapper = this.sqlSession.getMapper(TeamRegistrationMapper.class);
             mapper.delete(div, roster);
+            this.sqlSession.commit();
+        } catch (PersistenceException pe) {
+            this.sqlSession.rollback();
+            throw pe;
         } finally {
             if (this.autoCloseSession) {
                 this.sqlSession.close();
@@ -1058,6 +1610,67 @@ public class DataStore {
         }
     }
 
+    /**
+     * Checks whether the user administrates the team, roster, event or edition
+     * with the given id. For rosters the admins of their team are asked, for
+     * events and editions the admins of the format are, too.
+     *
+     * @return <code>false</code> also if there is no such entity, see
+     *         {@link #exists(PermissionCache.Scope, int)}.
+     */
+    public boolean isAdmin(final PermissionCache.Scope scope, final int id, final User user) {
+        Objects.requireNonNull(user);
+        try {
+            if (this.permissionCache == null) {
+                return this.queryAdmin(scope, id, user.getId());
+            }
+            return this.permissionCache.isAdmin(user.getId(), scope, id,
+                    () -> this.queryAdmin(scope, id, user.getId()));
+        } finally {
+            if (this.autoCloseSession) {
+                this.sqlSession.close();
+            }
+        }
+    }
+
+    private boolean queryAdmin(PermissionCache.Scope scope, int id, int userId) {
+        PermissionMapper mapper = this.sqlSession.getMapper(PermissionMapper.class);
+        switch (scope) {
+        case TEAM:
+            return mapper.isTeamAdmin(id, userId) > 0;
+        case ROSTER:
+            return mapper.isRosterAdmin(id, userId) > 0;
+        case EVENT:
+            return mapper.isEventAdmin(id, userId) > 0;
+        case EDITION:
+            return mapper.isEditionAdmin(id, userId) > 0;
+        default:
+            throw new IllegalArgumentException(scope.name());
+        }
+    }
+
+    public boolean exists(final PermissionCache.Scope scope, final int id) {
+        try {
+            PermissionMapper mapper = this.sqlSession.getMapper(PermissionMapper.class);
+            switch (scope) {
+            case TEAM:
+                return mapper.teamExists(id) > 0;
+            case ROSTER:
+                return mapper.rosterExists(id) > 0;
+            case EVENT:
+                return mapper.eventExists(id) > 0;
+            case EDITION:
+                return mapper.editionExists(id) > 0;
+            default:
+                throw new IllegalArgumentException(scope.name());
+            }
+        } finally {
+            if (this.autoCloseSession) {
+                this.sqlSession.close();
+            }
+        }
+    }
+
     public List<Roster> getRosterForPlayer(final DfvPlayer player) {
         Objects.requireNonNull(player);
         try {
@@ -1089,6 +1702,9 @@ public class DataStore {
             LocationMapper mapper = this.sqlSession.getMapper(LocationMapper.class);
             mapper.addToEvent(event.getId(), location.getId());
             this.sqlSession.commit();
+            if (this.geoIndex != null) {
+                this.geoIndex.add(GeoIndex.Kind.EVENT, event.getId(), location);
+            }
         } finally {
             if (this.autoCloseSession) {
                 this.sqlSession.close();
@@ -1096,6 +1712,36 @@ public class DataStore {
         }
     }
 
+    /*
+     * keeps the geo index in sync with team and location changes, must be
+     * called after the changes have been committed
+     */
+    private void updateGeoIndex(Identifiable instance) {
+        if (this.geoIndex == null) {
+            return;
+        }
+        if (instance instanceof Team) {
+            Team team = (Team) instance;
+            this.geoIndex.removeOwner(GeoIndex.Kind.TEAM, team.getId());
+            this.geoIndex.add(GeoIndex.Kind.TEAM, team.getId(), team.getLocation());
+        } else if (instance instanceof Location) {
+            this.geoIndex.updateLocation((Location) instance);
+        }
+    }
+
+    private void removeFromGeoIndex(int id, Class<? extends Identifiable> clazz) {
+        if (this.geoIndex == null) {
+            return;
+        }
+        if (Location.class.equals(clazz)) {
+            this.geoIndex.removeLocation(id);
+        } else if (Event.class.equals(clazz)) {
+            this.geoIndex.removeOwner(GeoIndex.Kind.EVENT, id);
+        } else if (Team.class.equals(clazz)) {
+            this.geoIndex.removeOwner(GeoIndex.Kind.TEAM, id);
+        }
+    }
+
     public List<Contact> getContactsBy(ContactType type) {
         try {
             ContactMapper mapper = this.sqlSession.getMapper(ContactMapper.class);
@@ -0,0 +1,307 @@
+package de.ultical.backend.data;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.ultical.backend.api.transferClasses.DfvMvName;
+import de.ultical.backend.app.MyBatisManager;
+import de.ultical.backend.data.mapper.ClubMapper;
+import de.ultical.backend.data.mapper.DfvMvNameMapper;
+import de.ultical.backend.model.Club;
+import io.dropwizard.lifecycle.Managed;
+
+/**
+ * In-memory copy of the DFV member list (<code>DFV_MV_NAME</code>), answering
+ * lookups by DFV number without a database round trip.
+ * <p>
+ * The members are kept in columns, one primitive array per property, and the
+ * names of all members share a single <code>char[]</code>. An open addressing
+ * table of <code>int</code>s maps the DFV number to the row, so neither keys
+ * nor records are boxed. A lookup creates the {@link DfvMvName} on demand.
+ * </p>
+ * <p>
+ * The registry is replaced as a whole, by the {@link DataStore} after the list
+ * has been refreshed and from the database when another node has refreshed it,
+ * see {@link #reloadIfChanged(Collection)}. Lookups keep using the old snapshot
+ * until the new one is complete.
+ * </p>
+ */
+public class DfvMemberRegistry implements Managed {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(DfvMemberRegistry.class);
+
+    static final String TABLE = "DFV_MV_NAME";
+
+    private static final byte FLAG_DSE = 1;
+    private static final byte FLAG_CLUB = 2;
+    private static final byte FLAG_NO_FIRST_NAME = 4;
+    private static final byte FLAG_NO_LAST_NAME = 8;
+    private static final byte FLAG_NO_LAST_MODIFIED = 16;
+
+    /**
+     * An immutable state of the registry.
+     */
+    static final class Snapshot {
+        // slot -> row + 1, 0 marks an empty slot
+        private final int[] slots;
+        private final int mask;
+        private final int size;
+
+        private final int[] dfvNumbers;
+        private final int[] clubIds;
+        private final long[] lastModified;
+        private final byte[] flags;
+        // first and last name of row i are at nameOffsets[2i..2i+2]
+        private final int[] nameOffsets;
+        private final char[] names;
+
+        private final Map<Integer, Club> clubs;
+
+        private Snapshot(Builder builder, Map<Integer, Club> clubs) {
+            this.size = builder.size;
+            this.dfvNumbers = Arrays.copyOf(builder.dfvNumbers, this.size);
+            this.clubIds = Arrays.copyOf(builder.clubIds, this.size);
+            this.lastModified = Arrays.copyOf(builder.lastModified, this.size);
+            this.flags = Arrays.copyOf(builder.flags, this.size);
+            this.nameOffsets = Arrays.copyOf(builder.nameOffsets, 2 * this.size + 1);
+            this.names = Arrays.copyOf(builder.names, builder.nameLength);
+            this.clubs = clubs;
+
+            // at most half of the slots are used
+            int capacity = Integer.highestOneBit(Math.max(4, this.size * 2 - 1)) << 1;
+            this.slots = new int[capacity];
+            this.mask = capacity - 1;
+            for (int row = 0; row < this.size; row++) {
+                int slot = mix(this.dfvNumbers[row]) & this.mask;
+                while (this.slots[slot] != 0 && this.dfvNumbers[this.slots[slot] - 1] != this.dfvNumbers[row]) {
+                    slot = (slot + 1) & this.mask;
+                }
+                // a later row with the same number replaces the earlier one
+                this.slots[slot] = row + 1;
+            }
+        }
+
+        int rowOf(int dfvNumber) {
+            int slot = mix(dfvNumber) & this.mask;
+            int entry;
+            while ((entry = this.slots[slot]) != 0) {
+                if (this.dfvNumbers[entry - 1] == dfvNumber) {
+                    return entry - 1;
+                }
+                slot = (slot + 1) & this.mask;
+            }
+            return -1;
+        }
+
+        DfvMvName toName(int row) {
+            byte rowFlags = this.flags[row];
+            DfvMvName name = new DfvMvName();
+            name.setDfvNumber(this.dfvNumbers[row]);
+            name.setDse((rowFlags & FLAG_DSE) != 0);
+            if ((rowFlags & FLAG_NO_FIRST_NAME) == 0) {
+                name.setFirstName(this.name(2 * row));
+            }
+            if ((rowFlags & FLAG_NO_LAST_NAME) == 0) {
+                name.setLastName(this.name(2 * row + 1));
+            }
+            if ((rowFlags & FLAG_NO_LAST_MODIFIED) == 0) {
+                name.setLastModified(
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(this.lastModified[row]), ZoneOffset.UTC));
+            }
+            if ((rowFlags & FLAG_CLUB) != 0) {
+                // like the database, a club not known is left out
+                Club club = this.clubs.get(this.clubIds[row]);
+                if (club != null) {
+                    Club copy = new Club();
+                    copy.setId(club.getId());
+                    copy.setName(club.getName());
+                    copy.setAssociation(club.getAssociation());
+                    name.setClub(copy);
+                }
+            }
+            return name;
+        }
+
+        private String name(int index) {
+            int start = this.nameOffsets[index];
+            return new String(this.names, start, this.nameOffsets[index + 1] - start);
+        }
+    }
+
+    /**
+     * Collects the rows of a new snapshot.
+     */
+    static final class Builder {
+        private int size;
+        private int[] dfvNumbers = new int[1024];
+        private int[] clubIds = new int[1024];
+        private long[] lastModified = new long[1024];
+        private byte[] flags = new byte[1024];
+        private int[] nameOffsets = new int[2 * 1024 + 1];
+        private char[] names = new char[16 * 1024];
+        private int nameLength;
+
+        void add(DfvMvName member) {
+            if (this.size == this.dfvNumbers.length) {
+                int capacity = this.size * 2;
+                this.dfvNumbers = Arrays.copyOf(this.dfvNumbers, capacity);
+                this.clubIds = Arrays.copyOf(this.clubIds, capacity);
+                this.lastModified = Arrays.copyOf(this.lastModified, capacity);
+                this.flags = Arrays.copyOf(this.flags, capacity);
+                this.nameOffsets = Arrays.copyOf(this.nameOffsets, 2 * capacity + 1);
+            }
+            int row = this.size++;
+            byte rowFlags = 0;
+            this.dfvNumbers[row] = member.getDfvNumber();
+            if (member.isDse()) {
+                rowFlags |= FLAG_DSE;
+            }
+            if (member.getClub() != null) {
+                rowFlags |= FLAG_CLUB;
+                this.clubIds[row] = member.getClub().getId();
+            }
+            if (member.getLastModified() != null) {
+                this.lastModified[row] = member.getLastModified().toInstant(ZoneOffset.UTC).toEpochMilli();
+            } else {
+                rowFlags |= FLAG_NO_LAST_MODIFIED;
+            }
+            if (member.getFirstName() == null) {
+                rowFlags |= FLAG_NO_FIRST_NAME;
+            }
+            if (member.getLastName() == null) {
+                rowFlags |= FLAG_NO_LAST_NAME;
+            }
+            this.flags[row] = rowFlags;
+            this.appendName(2 * row, member.getFirstName());
+            this.appendName(2 * row + 1, member.getLastName());
+        }
+
+        private void appendName(int index, String name) {
+            this.nameOffsets[index] = this.nameLength;
+            if (name != null) {
+                if (this.nameLength + name.length() > this.names.length) {
+                    this.names = Arrays.copyOf(this.names,
+                            Math.max(this.names.length * 2, this.nameLength + name.length()));
+                }
+                name.getChars(0, name.length(), this.names, this.nameLength);
+                this.nameLength += name.length();
+            }
+            this.nameOffsets[index + 1] = this.nameLength;
+        }
+
+        Snapshot build(Collection<Club> clubs) {
+            Map<Integer, Club> clubsById = new HashMap<>();
+            if (clubs != null) {
+                clubs.forEach(club -> clubsById.put(club.getId(), club));
+            }
+            return new Snapshot(this, clubsById);
+        }
+    }
+
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private final MyBatisManager myBatisManager;
+
+    private volatile Snapshot snapshot;
+
+    public DfvMemberRegistry(final MyBatisManager mbm) {
+        this.myBatisManager = mbm;
+    }
+
+    @Override
+    public void start() throws Exception {
+        this.reload();
+    }
+
+    @Override
+    public void stop() throws Exception {
+        // NOP
+    }
+
+    /**
+     * @return <code>false</code> until the registry has been filled, lookups
+     *         have to go to the database until then.
+     */
+    public boolean isLoaded() {
+        return this.snapshot != null;
+    }
+
+    public int size() {
+        Snapshot current = this.snapshot;
+        return current != null ? current.size : 0;
+    }
+
+    public boolean contains(int dfvNumber) {
+        Snapshot current = this.snapshot;
+        return current != null && current.rowOf(dfvNumber) >= 0;
+    }
+
+    /**
+     * @return a new instance of the member with this number, its club
+     *         including the association, or <code>null</code> if there is no
+     *         such member.
+     */
+    public DfvMvName get(int dfvNumber) {
+        Snapshot current = this.snapshot;
+        if (current == null) {
+            return null;
+        }
+        int row = current.rowOf(dfvNumber);
+        return row >= 0 ? current.toName(row) : null;
+    }
+
+    /**
+     * Replaces the registry by the given members. Members without first or
+     * last name are left out, as they are not stored either.
+     */
+    public void rebuild(Iterable<DfvMvName> members, Collection<Club> clubs) {
+        Builder builder = new Builder();
+        for (DfvMvName member : members) {
+            if (member.getFirstName() != null && member.getLastName() != null) {
+                builder.add(member);
+            }
+        }
+        this.snapshot = builder.build(clubs);
+        LOGGER.info("DFV member registry built with {} members", this.snapshot.size);
+    }
+
+    /**
+     * Rebuilds the registry if the member list is among the given tables.
+     */
+    public void reloadIfChanged(Collection<String> tables) {
+        if (tables.contains(TABLE)) {
+            this.reload();
+        }
+    }
+
+    /**
+     * Rebuilds the registry from the database.
+     */
+    public void reload() {
+        if (this.myBatisManager == null) {
+            return;
+        }
+        try (SqlSession session = this.myBatisManager.provide()) {
+            Collection<Club> clubs = session.getMapper(ClubMapper.class).getAll();
+            try (Cursor<DfvMvName> members = session.getMapper(DfvMvNameMapper.class).getAllFlat()) {
+                this.rebuild(members, clubs);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Closing the cursor over the DFV members failed", e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package de.ultical.backend.data;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import de.ultical.backend.api.transferClasses.DfvMvName;
+import lombok.Data;
+
+/**
+ * The content hash stored with a DFV member, telling whether the member has
+ * changed since the last sync without comparing its columns.
+ */
+@Data
+public class DfvMvNameHash {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private int dfvNumber;
+    // null for members stored before the hashes have been introduced
+    private Long contentHash;
+
+    /**
+     * @return the hash of all the columns of the member that are stored.
+     */
+    public static long contentHash(DfvMvName name) {
+        Hasher hasher = HASH.newHasher().putInt(name.getDfvNumber());
+        putString(hasher, name.getFirstName());
+        putString(hasher, name.getLastName());
+        hasher.putBoolean(name.isDse());
+        hasher.putInt(name.getClub() != null ? name.getClub().getId() : -1);
+        putString(hasher, name.getLastModified() != null ? name.getLastModified().toString() : null);
+        return hasher.hash().asLong();
+    }
+
+    /**
+     * Builds the hash of the whole member list from the content hashes of
+     * its members, independent of the order the members are sent in, so the
+     * list does not have to be kept in memory.
+     */
+    public static class PayloadHasher {
+        private long sum;
+        private int count;
+
+        public void add(int dfvNumber, long contentHash) {
+            this.sum += HASH.newHasher().putInt(dfvNumber).putLong(contentHash).hash().asLong();
+            this.count++;
+        }
+
+        public String hash() {
+            return String.format("%016x%08x", this.sum, this.count);
+        }
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        // the length keeps "ab" + "c" apart from "a" + "bc"
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+        }
+    }
+}
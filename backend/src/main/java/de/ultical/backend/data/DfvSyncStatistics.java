@@ -0,0 +1,41 @@
+package de.ultical.backend.data;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import lombok.Data;
+
+/**
+ * The outcome of one sync of the DFV member list.
+ */
+@Data
+public class DfvSyncStatistics {
+    private String payloadHash;
+    // the member list is the same as the one synced last time
+    private boolean unchanged;
+    // the previous sync has not been completed, all players have to be checked
+    private boolean checkAllPlayers;
+
+    private int fetched;
+    private int inserted;
+    private int updated;
+    private int deleted;
+    private int playersUpdated;
+    private long durationMillis;
+
+    // inserted, updated and deleted members
+    private Set<Integer> changedDfvNumbers = new HashSet<>();
+
+    /**
+     * @return a one line summary for the log and the run history.
+     */
+    public String getSummary() {
+        if (this.unchanged) {
+            return String.format("%d members fetched, unchanged since the last sync, took %d ms", this.fetched,
+                    this.durationMillis);
+        }
+        return String.format("%d members fetched, %d inserted, %d updated, %d deleted, %d players updated%s, took %d ms",
+                this.fetched, this.inserted, this.updated, this.deleted, this.playersUpdated,
+                this.checkAllPlayers ? " (all players checked)" : "", this.durationMillis);
+    }
+}
@@ -0,0 +1,13 @@
+package de.ultical.backend.data;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * A roster conflicting with a roster registered for an edition.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class DuplicateRoster extends RosterConflict {
+    private int registeredRosterId;
+}
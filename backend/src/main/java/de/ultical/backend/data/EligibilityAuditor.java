@@ -0,0 +1,100 @@
+package de.ultical.backend.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import de.ultical.backend.api.transferClasses.DfvMvName;
+import de.ultical.backend.api.transferClasses.EligibilityAuditReport;
+import de.ultical.backend.api.transferClasses.EligibilityAuditRow;
+import de.ultical.backend.api.transferClasses.EligibilityAuditRow.Reason;
+import de.ultical.backend.data.policies.DivisionRules;
+import de.ultical.backend.model.DivisionAge;
+
+/**
+ * Checks the players of all team registrations of an edition against the
+ * rules applied when a player is added to a roster, and against the data of
+ * the DFV synced since.
+ * <p>
+ * Everything needed is passed in, so the players are checked in parallel
+ * without touching the database.
+ * </p>
+ */
+final class EligibilityAuditor {
+
+    private EligibilityAuditor() {
+    }
+
+    private static long key(int rosterId, int playerId) {
+        return ((long) rosterId << 32) | (playerId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param members
+     *            the DFV members among the players by their DFV number.
+     * @param membersSynced
+     *            whether the member list has been synced from the DFV, the
+     *            membership is not checked otherwise.
+     */
+    static EligibilityAuditReport audit(int editionId, List<EligibilityAuditRow> rows,
+            List<DuplicateRoster> duplicates, Map<Integer, DfvMvName> members, boolean membersSynced) {
+        Map<Long, List<String>> otherRosters = new HashMap<>();
+        for (DuplicateRoster duplicate : duplicates) {
+            otherRosters
+                    .computeIfAbsent(key(duplicate.getRegisteredRosterId(), duplicate.getPlayerId()),
+                            k -> new ArrayList<>())
+                    .add(duplicate.getRosterName());
+        }
+
+        rows.parallelStream().forEach(row -> check(row, otherRosters, membersSynced ? members : null));
+
+        EligibilityAuditReport report = new EligibilityAuditReport();
+        report.setEditionId(editionId);
+        report.setTeamRegistrations(
+                (int) rows.stream().mapToInt(EligibilityAuditRow::getTeamRegistrationId).distinct().count());
+        report.setPlayers(rows.size());
+        report.setIneligible(rows.stream().filter(row -> !row.isEligible()).collect(Collectors.toList()));
+        return report;
+    }
+
+    private static void check(EligibilityAuditRow row, Map<Long, List<String>> otherRosters,
+            Map<Integer, DfvMvName> members) {
+        List<Reason> reasons = row.getReasons();
+        if (!DivisionRules.isGenderAllowed(row.getGender(), row.getDivisionType())) {
+            reasons.add(Reason.WRONG_GENDER);
+        }
+        if (row.getDivisionAge() != DivisionAge.REGULAR && row.getBirthDate() == null) {
+            reasons.add(Reason.NO_BIRTH_DATE);
+        } else if (!DivisionRules.isAgeAllowed(row.getBirthDate(), row.getGender(), row.getDivisionAge(),
+                row.getSeasonYear())) {
+            reasons.add(Reason.WRONG_AGE);
+        }
+
+        if (row.getDfvNumber() == null) {
+            reasons.add(Reason.NO_DFV_MEMBER);
+        } else {
+            if (row.getEligibleUntil() != null) {
+                reasons.add(Reason.NOT_ELIGIBLE);
+            }
+            if (Boolean.FALSE.equals(row.getDfvPaid())) {
+                reasons.add(Reason.NOT_PAID);
+            }
+            if (members != null) {
+                DfvMvName member = members.get(row.getDfvNumber());
+                if (member == null) {
+                    reasons.add(Reason.NO_DFV_MEMBER);
+                } else if (!member.isDse()) {
+                    reasons.add(Reason.NO_DSE);
+                }
+            }
+        }
+
+        List<String> others = otherRosters.get(key(row.getRosterId(), row.getPlayerId()));
+        if (others != null) {
+            reasons.add(Reason.DUPLICATE_ROSTER);
+            row.setOtherRosters(others);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package de.ultical.backend.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import org.apache.ibatis.session.SqlSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.ultical.backend.app.MyBatisManager;
+import de.ultical.backend.data.mapper.LocationMapper;
+import de.ultical.backend.model.Location;
+import io.dropwizard.lifecycle.Managed;
+import lombok.Data;
+
+/**
+ * In-memory spatial index over the locations of events and teams.
+ * <p>
+ * Points are kept in a grid of {@value #CELL_SIZE_DEGREES}&deg; cells, so a
+ * radius query only has to look at the few cells covering the radius' bounding
+ * box instead of at every location in the database. Candidates are filtered
+ * and ranked by their haversine distance.
+ * </p>
+ * <p>
+ * The index is filled from the database when the application starts and kept
+ * current by the {@link DataStore} whenever locations of events or teams are
+ * written. Changes made by other nodes are picked up by rebuilding the index,
+ * see {@link #reloadIfChanged(Collection)}.
+ * </p>
+ */
+public class GeoIndex implements Managed {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(GeoIndex.class);
+
+    static final double CELL_SIZE_DEGREES = 0.5;
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180.0;
+    private static final int LON_CELLS = (int) Math.ceil(360.0 / CELL_SIZE_DEGREES);
+
+    /*
+     * the tables the index is built from
+     */
+    private static final Set<String> TABLES = new HashSet<>(
+            Arrays.asList("EVENT", "EVENT_LOCATION", "LOCATION", "TEAM"));
+
+    public enum Kind {
+        EVENT, TEAM
+    }
+
+    /**
+     * A single location of an event or a team. Used as result type for the
+     * mapper queries that fill the index on startup.
+     */
+    @Data
+    public static class Point {
+        private Kind kind;
+        private int ownerId;
+        private int locationId;
+        private double latitude;
+        private double longitude;
+    }
+
+    /**
+     * An owner (event or team) found by a radius query together with the
+     * distance of its closest location.
+     */
+    @Data
+    public static class Hit {
+        private final int ownerId;
+        private final double distanceKm;
+    }
+
+    private final MyBatisManager myBatisManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, List<Point>> cells = new HashMap<>();
+    private final Map<Integer, List<Point>> pointsByLocation = new HashMap<>();
+
+    public GeoIndex(final MyBatisManager mbm) {
+        this.myBatisManager = mbm;
+    }
+
+    @Override
+    public void start() throws Exception {
+        this.reload();
+    }
+
+    /**
+     * Rebuilds the index if one of the given tables is one the index is built
+     * from.
+     */
+    public void reloadIfChanged(Collection<String> tables) {
+        if (tables.stream().anyMatch(TABLES::contains)) {
+            this.reload();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the database. Queries are answered from the old
+     * index until the new one is complete.
+     */
+    public void reload() {
+        if (this.myBatisManager == null) {
+            return;
+        }
+        try (SqlSession session = this.myBatisManager.provide()) {
+            LocationMapper mapper = session.getMapper(LocationMapper.class);
+            List<Point> eventPoints = mapper.getEventPoints();
+            List<Point> teamPoints = mapper.getTeamPoints();
+            eventPoints.forEach(p -> p.setKind(Kind.EVENT));
+            teamPoints.forEach(p -> p.setKind(Kind.TEAM));
+
+            this.lock.writeLock().lock();
+            try {
+                this.cells.clear();
+                this.pointsByLocation.clear();
+                eventPoints.forEach(this::insert);
+                teamPoints.forEach(this::insert);
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+            LOGGER.info("Geo index built with {} event and {} team locations", eventPoints.size(),
+                    teamPoints.size());
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        // NOP
+    }
+
+    /**
+     * Adds the location to the owner's points. If the owner already has a point
+     * for this location, its coordinates are replaced.
+     */
+    public void add(Kind kind, int ownerId, Location location) {
+        if (location == null || location.getId() == 0) {
+            return;
+        }
+        Point point = new Point();
+        point.setKind(kind);
+        point.setOwnerId(ownerId);
+        point.setLocationId(location.getId());
+        point.setLatitude(location.getLatitude());
+        point.setLongitude(location.getLongitude());
+
+        this.lock.writeLock().lock();
+        try {
+            this.removeIf(location.getId(), p -> p.getKind() == kind && p.getOwnerId() == ownerId);
+            this.insert(point);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves all points that refer to the given location to its (possibly)
+     * new coordinates.
+     */
+    public void updateLocation(Location location) {
+        if (location == null) {
+            return;
+        }
+        this.lock.writeLock().lock();
+        try {
+            List<Point> points = this.pointsByLocation.get(location.getId());
+            if (points == null) {
+                return;
+            }
+            List<Point> moved = new ArrayList<>(points);
+            this.removeIf(location.getId(), p -> true);
+            for (Point point : moved) {
+                point.setLatitude(location.getLatitude());
+                point.setLongitude(location.getLongitude());
+                this.insert(point);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public void removeLocation(int locationId) {
+        this.lock.writeLock().lock();
+        try {
+            this.removeIf(locationId, p -> true);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    public void removeOwner(Kind kind, int ownerId) {
+        this.lock.writeLock().lock();
+        try {
+            List<Integer> locationIds = new ArrayList<>();
+            this.pointsByLocation.forEach((locationId, points) -> {
+                if (points.stream().anyMatch(p -> p.getKind() == kind && p.getOwnerId() == ownerId)) {
+                    locationIds.add(locationId);
+                }
+            });
+            for (Integer locationId : locationIds) {
+                this.removeIf(locationId, p -> p.getKind() == kind && p.getOwnerId() == ownerId);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns all owners of the given kind with at least one location within
+     * <code>radiusKm</code> of the given coordinates, closest first. Owners
+     * having more than one location are ranked by their closest one.
+     */
+    public List<Hit> findNear(Kind kind, double latitude, double longitude, double radiusKm) {
+        final Map<Integer, Double> distances = new HashMap<>();
+
+        final double latDelta = radiusKm / KM_PER_DEGREE;
+        final double minLat = Math.max(-90.0, latitude - latDelta);
+        final double maxLat = Math.min(90.0, latitude + latDelta);
+        final int minLatCell = latCell(minLat);
+        final int maxLatCell = latCell(maxLat);
+
+        // the longitude span grows towards the poles, if it covers the whole
+        // globe we simply look at every longitude cell
+        final double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        final double lonDelta = cosLat > 1e-6 ? radiusKm / (KM_PER_DEGREE * cosLat) : 180.0;
+        final int firstLonCell;
+        final int lonCellCount;
+        if (lonDelta >= 180.0) {
+            firstLonCell = 0;
+            lonCellCount = LON_CELLS;
+        } else {
+            firstLonCell = lonCell(longitude - lonDelta);
+            lonCellCount = Math.min(LON_CELLS,
+                    (int) Math.floor((longitude + lonDelta) / CELL_SIZE_DEGREES)
+                            - (int) Math.floor((longitude - lonDelta) / CELL_SIZE_DEGREES) + 1);
+        }
+
+        this.lock.readLock().lock();
+        try {
+            for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+                for (int i = 0; i < lonCellCount; i++) {
+                    List<Point> points = this.cells.get(cellKey(latCell, (firstLonCell + i) % LON_CELLS));
+                    if (points == null) {
+                        continue;
+                    }
+                    for (Point point : points) {
+                        if (point.getKind() != kind) {
+                            continue;
+                        }
+                        double distance = haversine(latitude, longitude, point.getLatitude(), point.getLongitude());
+                        if (distance <= radiusKm) {
+                            distances.merge(point.getOwnerId(), distance, Math::min);
+                        }
+                    }
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        List<Hit> result = new ArrayList<>(distances.size());
+        distances.forEach((ownerId, distance) -> result.add(new Hit(ownerId, distance)));
+        result.sort(Comparator.comparingDouble(Hit::getDistanceKm).thenComparingInt(Hit::getOwnerId));
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * great-circle distance between two coordinates in kilometers.
+     */
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(lat1))
+                * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /*
+     * callers have to hold the write lock
+     */
+    private void insert(Point point) {
+        this.pointsByLocation.computeIfAbsent(point.getLocationId(), k -> new ArrayList<>()).add(point);
+        if (point.getLatitude() == 0 && point.getLongitude() == 0) {
+            // location has not been geocoded (yet), we remember it in order to
+            // pick up the coordinates on a later update
+            return;
+        }
+        this.cells.computeIfAbsent(cellKey(latCell(point.getLatitude()), lonCell(point.getLongitude())),
+                k -> new ArrayList<>()).add(point);
+    }
+
+    /*
+     * callers have to hold the write lock
+     */
+    private void removeIf(int locationId, Predicate<Point> filter) {
+        List<Point> points = this.pointsByLocation.get(locationId);
+        if (points == null) {
+            return;
+        }
+        Iterator<Point> it = points.iterator();
+        while (it.hasNext()) {
+            Point point = it.next();
+            if (filter.test(point)) {
+                it.remove();
+                long key = cellKey(latCell(point.getLatitude()), lonCell(point.getLongitude()));
+                List<Point> cell = this.cells.get(key);
+                if (cell != null) {
+                    cell.remove(point);
+                    if (cell.isEmpty()) {
+                        this.cells.remove(key);
+                    }
+                }
+            }
+        }
+        if (points.isEmpty()) {
+            this.pointsByLocation.remove(locationId);
+        }
+    }
+
+    private static int latCell(double latitude) {
+        return (int) Math.floor((latitude + 90.0) / CELL_SIZE_DEGREES);
+    }
+
+    private static int lonCell(double longitude) {
+        int cell = (int) Math.floor((longitude + 180.0) / CELL_SIZE_DEGREES) % LON_CELLS;
+        return cell < 0 ? cell + LON_CELLS : cell;
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+}
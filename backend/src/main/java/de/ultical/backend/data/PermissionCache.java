@@ -0,0 +1,77 @@
+package de.ultical.backend.data;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BooleanSupplier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheBuilderSpec;
+
+/**
+ * Remembers for a short time which teams, rosters, events and editions a user
+ * administrates, so a user sending several write requests in a row is checked
+ * against the database only once.
+ * <p>
+ * The memberships are kept per user and are dropped as a whole as soon as one
+ * of the tables they are derived from has been modified, be it by this node or
+ * by another one, see {@link ChangeGenerations}. Adding or removing an admin
+ * hence takes effect with the next request, the expiry configured for the
+ * cache only limits how long the memberships of idle users are kept.
+ * </p>
+ */
+public class PermissionCache {
+
+    /*
+     * the tables the admin checks of the PermissionMapper read
+     */
+    static final String[] TABLES = { "TEAM_ULTICAL_USERS", "EVENT_ULTICAL_USERS", "TOURNAMENT_FORMAT_ULTICAL_USERS",
+            "ROSTER", "EVENT", "TOURNAMENT_EDITION" };
+
+    public enum Scope {
+        TEAM, ROSTER, EVENT, EDITION
+    }
+
+    private static class Memberships {
+        private final long generation;
+        // scope and id -> admin or not
+        private final ConcurrentMap<Long, Boolean> admin = new ConcurrentHashMap<>();
+
+        Memberships(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    private final ChangeGenerations generations;
+    private final Cache<Integer, Memberships> memberships;
+
+    public PermissionCache(final ChangeGenerations generations, final CacheBuilderSpec spec) {
+        this.generations = generations;
+        this.memberships = CacheBuilder.from(spec).build();
+    }
+
+    private static long key(Scope scope, int id) {
+        return ((long) scope.ordinal() << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return whether the user administrates the entity, as cached or as
+     *         answered by the lookup.
+     */
+    public boolean isAdmin(int userId, Scope scope, int id, BooleanSupplier lookup) {
+        // taken before the lookup, a concurrent write outdates the result
+        long generation = this.generations.get(TABLES);
+        Memberships current = this.memberships.getIfPresent(userId);
+        if (current == null || current.generation != generation) {
+            current = new Memberships(generation);
+            this.memberships.put(userId, current);
+        }
+        long key = key(scope, id);
+        Boolean admin = current.admin.get(key);
+        if (admin == null) {
+            admin = lookup.getAsBoolean();
+            current.admin.put(key, admin);
+        }
+        return admin;
+    }
+}
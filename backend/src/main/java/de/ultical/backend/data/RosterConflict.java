@@ -0,0 +1,26 @@
+package de.ultical.backend.data;
+
+import lombok.Data;
+
+/**
+ * A roster of the same season, division and context a player is already in,
+ * keeping her from being added to another one.
+ */
+@Data
+public class RosterConflict {
+    private int playerId;
+    private int rosterId;
+    private String teamName;
+    private String nameAddition;
+
+    /**
+     * @return the name of the team, followed by the name addition of the
+     *         roster if there is one.
+     */
+    public String getRosterName() {
+        if (this.nameAddition == null || this.nameAddition.isEmpty()) {
+            return this.teamName;
+        }
+        return this.teamName + " " + this.nameAddition;
+    }
+}
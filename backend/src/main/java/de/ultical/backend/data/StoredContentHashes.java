@@ -0,0 +1,76 @@
+package de.ultical.backend.data;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * The content hashes stored for the DFV members, held in arrays sorted by the
+ * DFV number, which take a few bytes per member instead of a map entry. While
+ * a member list is synced, the members found in it are marked as seen, the
+ * ones not seen have been removed.
+ */
+final class StoredContentHashes {
+
+    private int[] dfvNumbers = new int[1024];
+    private long[] hashes = new long[1024];
+    // members stored before the hashes have been introduced have none
+    private final BitSet known = new BitSet();
+    private final BitSet seen = new BitSet();
+    private int size;
+
+    /**
+     * Adds a stored member, the members have to be added in ascending order
+     * of their DFV numbers.
+     */
+    void add(DfvMvNameHash stored) {
+        if (this.size > 0 && stored.getDfvNumber() <= this.dfvNumbers[this.size - 1]) {
+            throw new IllegalStateException("content hashes are not ordered by DFV number");
+        }
+        if (this.size == this.dfvNumbers.length) {
+            this.dfvNumbers = Arrays.copyOf(this.dfvNumbers, this.size * 2);
+            this.hashes = Arrays.copyOf(this.hashes, this.size * 2);
+        }
+        this.dfvNumbers[this.size] = stored.getDfvNumber();
+        if (stored.getContentHash() != null) {
+            this.hashes[this.size] = stored.getContentHash();
+            this.known.set(this.size);
+        }
+        this.size++;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the index of the member, a negative value if it is not stored.
+     */
+    int indexOf(int dfvNumber) {
+        return Arrays.binarySearch(this.dfvNumbers, 0, this.size, dfvNumber);
+    }
+
+    /**
+     * Marks the member at the index as seen and stores its new content hash.
+     *
+     * @return <code>true</code> if the content hash has changed.
+     */
+    boolean see(int index, long contentHash) {
+        this.seen.set(index);
+        if (this.known.get(index) && this.hashes[index] == contentHash) {
+            return false;
+        }
+        this.hashes[index] = contentHash;
+        this.known.set(index);
+        return true;
+    }
+
+    /**
+     * Passes the DFV numbers of all members that have not been seen.
+     */
+    void forEachUnseen(IntConsumer action) {
+        for (int index = this.seen.nextClearBit(0); index < this.size; index = this.seen.nextClearBit(index + 1)) {
+            action.accept(this.dfvNumbers[index]);
+        }
+    }
+}
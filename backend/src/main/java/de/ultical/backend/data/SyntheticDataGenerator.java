@@ -0,0 +1,439 @@
+package de.ultical.backend.data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.session.SqlSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.ultical.backend.api.transferClasses.DfvMvName;
+import de.ultical.backend.data.mapper.AssociationMapper;
+import de.ultical.backend.data.mapper.ClubMapper;
+import de.ultical.backend.data.mapper.ContactMapper;
+import de.ultical.backend.data.mapper.DfvMvNameMapper;
+import de.ultical.backend.data.mapper.DfvPlayerMapper;
+import de.ultical.backend.data.mapper.DivisionRegistrationMapper;
+import de.ultical.backend.data.mapper.EventMapper;
+import de.ultical.backend.data.mapper.PlayerMapper;
+import de.ultical.backend.data.mapper.RosterMapper;
+import de.ultical.backend.data.mapper.SeasonMapper;
+import de.ultical.backend.data.mapper.TeamMapper;
+import de.ultical.backend.data.mapper.TeamRegistrationMapper;
+import de.ultical.backend.data.mapper.TournamentEditionMapper;
+import de.ultical.backend.data.mapper.TournamentFormatMapper;
+import de.ultical.backend.data.mapper.UserMapper;
+import de.ultical.backend.model.Association;
+import de.ultical.backend.model.Club;
+import de.ultical.backend.model.Contact;
+import de.ultical.backend.model.DfvPlayer;
+import de.ultical.backend.model.DivisionAge;
+import de.ultical.backend.model.DivisionRegistration.DivisionRegistrationStatus;
+import de.ultical.backend.model.DivisionRegistrationTeams;
+import de.ultical.backend.model.DivisionType;
+import de.ultical.backend.model.Event;
+import de.ultical.backend.model.Gender;
+import de.ultical.backend.model.Roster;
+import de.ultical.backend.model.Season;
+import de.ultical.backend.model.Surface;
+import de.ultical.backend.model.Team;
+import de.ultical.backend.model.TeamRegistration;
+import de.ultical.backend.model.TournamentEdition;
+import de.ultical.backend.model.TournamentFormat;
+import de.ultical.backend.model.User;
+import lombok.Data;
+
+/**
+ * Fills an empty database with synthetic DFV members, players, teams,
+ * rosters, tournaments and registrations, e.g. to reproduce slow pages at
+ * production scale without copying production data.
+ * <p>
+ * Everything is written through the mappers, so the generator works on every
+ * database the application supports. The data only depends on the
+ * {@link Scale} and the seed, on an empty database the generated ids are the
+ * same for every run, too. Only the salt of the password hash differs.
+ * </p>
+ */
+public class SyntheticDataGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    // rows written between two commits
+    static final int COMMIT_SIZE = 1000;
+
+    static final int FIRST_DFV_NUMBER = 100000;
+    static final String EMAIL_DOMAIN = "@example.org";
+
+    private static final int ASSOCIATIONS = 10;
+    private static final int CURRENT_YEAR = 2026;
+
+    private static final String[] FIRST_NAMES = { "Anna", "Ben", "Clara", "David", "Emma", "Felix", "Greta", "Hannes",
+            "Ida", "Jonas", "Klara", "Lukas", "Mia", "Noah", "Paula", "Quirin", "Rosa", "Simon", "Tilda", "Ulf",
+            "Vera", "Willi", "Yara", "Zoe" };
+    private static final String[] LAST_NAMES = { "Müller", "Schmidt", "Schneider", "Fischer", "Weber", "Meyer",
+            "Wagner", "Becker", "Schulz", "Hoffmann", "Koch", "Richter", "Klein", "Wolf", "Schröder", "Neumann",
+            "Schwarz", "Zimmermann", "Braun", "Krüger", "Hofmann", "Hartmann", "Lange", "Schmitt" };
+    private static final String[] CITIES = { "Berlin", "Hamburg", "München", "Köln", "Frankfurt", "Stuttgart",
+            "Düsseldorf", "Leipzig", "Dortmund", "Bremen", "Dresden", "Hannover", "Nürnberg", "Freiburg" };
+
+    // most teams play in the regular divisions
+    private static final DivisionAge[] TEAM_AGES = { DivisionAge.REGULAR, DivisionAge.REGULAR, DivisionAge.REGULAR,
+            DivisionAge.REGULAR, DivisionAge.REGULAR, DivisionAge.U20, DivisionAge.U17, DivisionAge.MASTERS };
+    private static final DivisionAge[] EDITION_AGES = { DivisionAge.REGULAR, DivisionAge.U20, DivisionAge.MASTERS,
+            DivisionAge.U17 };
+
+    /**
+     * How much data is generated. {@link #of(double)} scales the defaults,
+     * the sizes per parent, e.g. the events per edition, stay the same.
+     */
+    @Data
+    public static class Scale {
+        private int members = 5000;
+        // share of the members that have a player and a user
+        private double registeredShare = 0.4;
+        private int teams = 200;
+        // share of the teams that register for tournaments
+        private double competingShare = 0.75;
+        private int seasons = 4;
+        private int formats = 10;
+        private int editionsPerFormat = 4;
+        private int eventsPerEdition = 2;
+        private int divisionsPerEdition = 3;
+        private int registrationsPerDivision = 16;
+        private int playersPerRoster = 15;
+
+        public static Scale of(double factor) {
+            Scale scale = new Scale();
+            scale.setMembers(Math.max(1, (int) (scale.getMembers() * factor)));
+            scale.setTeams(Math.max(1, (int) (scale.getTeams() * factor)));
+            scale.setFormats(Math.max(1, (int) (scale.getFormats() * factor)));
+            return scale;
+        }
+    }
+
+    private final Supplier<SqlSession> sessions;
+    private final Scale scale;
+    private final String passwordHash;
+    private final Random random;
+
+    private final Map<String, Integer> counts = new LinkedHashMap<>();
+    private SqlSession session;
+    private int uncommitted;
+
+    private final List<Club> clubs = new ArrayList<>();
+    private final List<DfvPlayer> players = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+    private final List<Team> teams = new ArrayList<>();
+    private final List<Season> seasons = new ArrayList<>();
+    // season, division type and age -> rosters of the competing teams
+    private final Map<String, List<Roster>> rosters = new HashMap<>();
+
+    /**
+     * @param sessions
+     *            provides the session the data is written with.
+     * @param passwordHash
+     *            the password hash of all generated users.
+     */
+    public SyntheticDataGenerator(final Supplier<SqlSession> sessions, final Scale scale, final long seed,
+            final String passwordHash) {
+        this.sessions = Objects.requireNonNull(sessions);
+        this.scale = Objects.requireNonNull(scale);
+        this.passwordHash = Objects.requireNonNull(passwordHash);
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @return the number of rows written per kind, in the order they have
+     *         been written.
+     * @throws IllegalStateException
+     *             if the database contains seasons already.
+     */
+    public Map<String, Integer> generate() {
+        try (SqlSession s = this.sessions.get()) {
+            this.session = s;
+            if (!s.getMapper(SeasonMapper.class).getAll().isEmpty()) {
+                throw new IllegalStateException("The database is not empty, synthetic data needs an empty schema");
+            }
+            this.generateMembers();
+            this.generatePlayers();
+            this.generateTeams();
+            this.generateSeasons();
+            this.generateRosters();
+            this.generateTournaments();
+            s.commit();
+            return Collections.unmodifiableMap(this.counts);
+        } finally {
+            this.session = null;
+        }
+    }
+
+    private void written(String kind) {
+        this.counts.merge(kind, 1, Integer::sum);
+        if (++this.uncommitted >= COMMIT_SIZE) {
+            this.session.commit();
+            this.uncommitted = 0;
+        }
+    }
+
+    private <T> T pick(T[] values) {
+        return values[this.random.nextInt(values.length)];
+    }
+
+    private <T> T pick(List<T> values) {
+        return values.get(this.random.nextInt(values.size()));
+    }
+
+    private void generateMembers() {
+        AssociationMapper associationMapper = this.session.getMapper(AssociationMapper.class);
+        List<Association> associations = new ArrayList<>();
+        for (int i = 1; i <= ASSOCIATIONS; i++) {
+            Association association = new Association();
+            association.setId(i);
+            association.setName("Landesverband " + i);
+            association.setAcronym("LV" + i);
+            associationMapper.insert(association);
+            associations.add(association);
+            this.written("associations");
+        }
+
+        ClubMapper clubMapper = this.session.getMapper(ClubMapper.class);
+        int clubCount = Math.max(1, this.scale.getMembers() / 100);
+        for (int i = 1; i <= clubCount; i++) {
+            Club club = new Club();
+            club.setId(i);
+            club.setName(this.pick(CITIES) + " Ultimate " + i);
+            club.setAssociation(associations.get(i % associations.size()));
+            clubMapper.insert(club);
+            this.clubs.add(club);
+            this.written("clubs");
+        }
+
+        LOGGER.info("Generating {} DFV members", this.scale.getMembers());
+        DfvMvNameMapper nameMapper = this.session.getMapper(DfvMvNameMapper.class);
+        LocalDateTime modified = LocalDateTime.of(CURRENT_YEAR - 5, 1, 1, 0, 0);
+        for (int i = 0; i < this.scale.getMembers(); i++) {
+            DfvMvName member = new DfvMvName();
+            // the DFV numbers are sparse
+            member.setDfvNumber(FIRST_DFV_NUMBER + i * 7 + this.random.nextInt(7));
+            member.setFirstName(this.pick(FIRST_NAMES));
+            member.setLastName(this.pick(LAST_NAMES));
+            member.setDse(this.random.nextInt(10) > 0);
+            member.setClub(this.pick(this.clubs));
+            member.setLastModified(modified.plusMinutes(this.random.nextInt(5 * 365 * 24 * 60)));
+            nameMapper.insertWithHash(member, DfvMvNameHash.contentHash(member));
+            this.written("dfv members");
+
+            if (this.random.nextDouble() < this.scale.getRegisteredShare()) {
+                this.players.add(this.toPlayer(member));
+            }
+        }
+    }
+
+    private DfvPlayer toPlayer(DfvMvName member) {
+        DfvPlayer player = new DfvPlayer();
+        player.setDfvNumber(member.getDfvNumber());
+        player.setFirstName(member.getFirstName());
+        player.setLastName(member.getLastName());
+        player.setGender(this.random.nextBoolean() ? Gender.FEMALE : Gender.MALE);
+        player.setBirthDate(LocalDate.of(CURRENT_YEAR - 12 - this.random.nextInt(50), 1, 1)
+                .plusDays(this.random.nextInt(365)));
+        player.setClub(member.getClub());
+        player.setLastModified(member.getLastModified());
+        player.setPaid(true);
+        return player;
+    }
+
+    private void generatePlayers() {
+        LOGGER.info("Generating {} players and users", this.players.size());
+        PlayerMapper playerMapper = this.session.getMapper(PlayerMapper.class);
+        DfvPlayerMapper dfvPlayerMapper = this.session.getMapper(DfvPlayerMapper.class);
+        UserMapper userMapper = this.session.getMapper(UserMapper.class);
+        for (DfvPlayer player : this.players) {
+            playerMapper.insertPlayer(player, true);
+            dfvPlayerMapper.insert(player);
+            this.written("players");
+
+            User user = new User();
+            user.setDfvPlayer(player);
+            user.setEmail("player" + player.getDfvNumber() + EMAIL_DOMAIN);
+            user.setPassword(this.passwordHash);
+            user.setEmailConfirmed(true);
+            user.setDfvEmailOptIn(true);
+            userMapper.insert(user);
+            this.users.add(user);
+            this.written("users");
+        }
+    }
+
+    private User pickAdmin() {
+        return this.users.isEmpty() ? null : this.pick(this.users);
+    }
+
+    private void generateTeams() {
+        TeamMapper teamMapper = this.session.getMapper(TeamMapper.class);
+        for (int i = 1; i <= this.scale.getTeams(); i++) {
+            Team team = new Team();
+            team.setName(this.pick(CITIES) + " Team " + i);
+            team.setClub(this.pick(this.clubs));
+            team.setFoundingDate(1990 + this.random.nextInt(CURRENT_YEAR - 1990));
+            teamMapper.insert(team);
+            this.teams.add(team);
+            this.written("teams");
+
+            User admin = this.pickAdmin();
+            if (admin != null) {
+                teamMapper.addAdmin(team, admin);
+                this.written("team admins");
+            }
+        }
+    }
+
+    private void generateSeasons() {
+        SeasonMapper seasonMapper = this.session.getMapper(SeasonMapper.class);
+        for (int i = 0; i < this.scale.getSeasons(); i++) {
+            // an outdoor and an indoor season per year, the latter spans the
+            // turn of the year
+            Season season = new Season();
+            season.setYear(CURRENT_YEAR - i / 2);
+            season.setSurface(i % 2 == 0 ? Surface.TURF : Surface.GYM);
+            season.setPlusOneYear(season.getSurface() == Surface.GYM);
+            seasonMapper.insert(season);
+            this.seasons.add(season);
+            this.written("seasons");
+        }
+    }
+
+    private static String divisionKey(Season season, DivisionType type, DivisionAge age) {
+        return season.getId() + "/" + type + "/" + age;
+    }
+
+    private void generateRosters() {
+        if (this.players.isEmpty()) {
+            return;
+        }
+        RosterMapper rosterMapper = this.session.getMapper(RosterMapper.class);
+        int playersPerRoster = Math.min(this.scale.getPlayersPerRoster(), this.players.size());
+        for (Team team : this.teams) {
+            // a team keeps its division across the seasons
+            DivisionType type = this.pick(DivisionType.values());
+            DivisionAge age = this.pick(TEAM_AGES);
+            boolean competing = this.random.nextDouble() < this.scale.getCompetingShare();
+            for (Season season : this.seasons) {
+                Roster roster = new Roster();
+                roster.setTeam(team);
+                roster.setSeason(season);
+                roster.setDivisionType(type);
+                roster.setDivisionAge(age);
+                roster.setNameAddition("");
+                rosterMapper.insert(roster);
+                if (competing) {
+                    this.rosters.computeIfAbsent(divisionKey(season, type, age), key -> new ArrayList<>()).add(roster);
+                }
+                this.written("rosters");
+
+                int first = this.random.nextInt(this.players.size());
+                for (int i = 0; i < playersPerRoster; i++) {
+                    rosterMapper.addPlayer(roster, this.players.get((first + i) % this.players.size()));
+                    this.written("roster players");
+                }
+            }
+        }
+    }
+
+    private void generateTournaments() {
+        LOGGER.info("Generating {} tournament formats", this.scale.getFormats());
+        TournamentFormatMapper formatMapper = this.session.getMapper(TournamentFormatMapper.class);
+        ContactMapper contactMapper = this.session.getMapper(ContactMapper.class);
+        for (int i = 1; i <= this.scale.getFormats(); i++) {
+            TournamentFormat format = new TournamentFormat();
+            format.setName("Synthetic Cup " + i);
+            format.setDescription("Generated tournament format " + i);
+            formatMapper.insert(format);
+            this.written("formats");
+
+            User admin = this.pickAdmin();
+            if (admin != null) {
+                formatMapper.insertAdmin(format, admin);
+                this.written("format admins");
+            }
+
+            Contact organizer = new Contact();
+            organizer.setName("Orga " + format.getName());
+            organizer.setEmail("orga" + i + EMAIL_DOMAIN);
+            contactMapper.insert(organizer);
+            this.written("contacts");
+
+            for (int e = 0; e < this.scale.getEditionsPerFormat() && !this.seasons.isEmpty(); e++) {
+                this.generateEdition(format, organizer, this.seasons.get(e % this.seasons.size()));
+            }
+        }
+    }
+
+    private void generateEdition(TournamentFormat format, Contact organizer, Season season) {
+        TournamentEdition edition = new TournamentEdition();
+        edition.setTournamentFormat(format);
+        edition.setSeason(season);
+        edition.setName(format.getName() + " " + season.getYear());
+        edition.setOrganizer(organizer);
+        LocalDate seasonStart = LocalDate.of(season.getYear(), season.isPlusOneYear() ? 10 : 3, 1);
+        edition.setRegistrationStart(seasonStart.minusMonths(2));
+        edition.setRegistrationEnd(seasonStart.minusDays(1));
+        this.session.getMapper(TournamentEditionMapper.class).insert(edition);
+        this.written("editions");
+
+        EventMapper eventMapper = this.session.getMapper(EventMapper.class);
+        int events = this.scale.getEventsPerEdition();
+        for (int i = 0; i < events; i++) {
+            Event event = new Event();
+            event.setTournamentEdition(edition);
+            event.setMatchdayNumber(events > 1 ? i + 1 : -1);
+            event.setName(events > 1 ? edition.getName() + " #" + (i + 1) : edition.getName());
+            event.setStartDate(seasonStart.plusWeeks(2 + 3 * i + this.random.nextInt(3)));
+            event.setEndDate(event.getStartDate().plusDays(1));
+            eventMapper.insert(event);
+            this.written("events");
+        }
+
+        DivisionRegistrationMapper divisionMapper = this.session.getMapper(DivisionRegistrationMapper.class);
+        TeamRegistrationMapper registrationMapper = this.session.getMapper(TeamRegistrationMapper.class);
+        DivisionType[] types = DivisionType.values();
+        int divisions = Math.min(this.scale.getDivisionsPerEdition(), EDITION_AGES.length * types.length);
+        for (int d = 0; d < divisions; d++) {
+            DivisionRegistrationTeams division = new DivisionRegistrationTeams();
+            division.setDivisionType(types[d % types.length]);
+            division.setDivisionAge(EDITION_AGES[d / types.length]);
+            division.setDivisionIdentifier("");
+            division.setNumberSpots(this.scale.getRegistrationsPerDivision());
+            divisionMapper.insert(division, edition, false);
+            this.written("divisions");
+
+            List<Roster> candidates = new ArrayList<>(this.rosters.getOrDefault(
+                    divisionKey(season, division.getDivisionType(), division.getDivisionAge()),
+                    Collections.emptyList()));
+            Collections.shuffle(candidates, this.random);
+            int registrations = Math.min(this.scale.getRegistrationsPerDivision(), candidates.size());
+            for (int r = 0; r < registrations; r++) {
+                TeamRegistration registration = new TeamRegistration();
+                registration.setRoster(candidates.get(r));
+                registration.setTeamName(candidates.get(r).getTeam().getName());
+                registration.setSequence(r + 1);
+                registration.setStatus(this.random.nextInt(10) > 0 ? DivisionRegistrationStatus.CONFIRMED
+                        : DivisionRegistrationStatus.WAITING_LIST);
+                registration.setPaid(this.random.nextBoolean());
+                registrationMapper.insert(division.getId(), registration);
+                // hands out the sequence of the next registration
+                divisionMapper.incrementRegistrationCounter(division.getId());
+                this.written("team registrations");
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package de.ultical.backend.data.mapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import de.ultical.backend.data.ChangeLogEntry;
+
+public interface ChangeLogMapper {
+
+    String TABLE = "CHANGE_LOG";
+
+    // INSERT
+    @Insert("INSERT INTO CHANGE_LOG (origin, table_name, changed_at) VALUES (#{origin}, #{table}, #{changedAt, jdbcType=TIMESTAMP})")
+    Integer insert(@Param("origin") String origin, @Param("table") String table,
+            @Param("changedAt") LocalDateTime changedAt);
+
+    // DELETE
+    @Delete("DELETE FROM CHANGE_LOG WHERE changed_at < #{before, jdbcType=TIMESTAMP}")
+    Integer deleteBefore(@Param("before") LocalDateTime before);
+
+    // SELECT
+    @Select({ "SELECT id, origin, table_name AS tableName, changed_at AS changedAt",
+            "FROM CHANGE_LOG WHERE id > #{after} ORDER BY id" })
+    List<ChangeLogEntry> getAfter(long after);
+
+    @Select("SELECT MAX(id) FROM CHANGE_LOG")
+    Long getLastId();
+}
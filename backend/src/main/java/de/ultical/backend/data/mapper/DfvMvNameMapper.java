@@ -1,16 +1,24 @@
 package de.ultical.backend.data.mapper;
 
 import de.ultical.backend.api.transferClasses.DfvMvName;
+import de.ultical.backend.data.DfvMvNameHash;
 import de.ultical.backend.model.Club;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.One;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.type.JdbcType;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface DfvMvNameMapper {
@@ -21,10 +29,28 @@ public interface DfvMvNameMapper {
     @Insert("INSERT INTO DFV_MV_NAME (dfv_number, first_name, last_name, dse, club, last_modified) VALUES (#{dfvNumber, jdbcType=INTEGER},#{firstName, jdbcType=VARCHAR},#{lastName, jdbcType=VARCHAR},#{dse},#{club.id, jdbcType=INTEGER},#{lastModified, jdbcType=TIMESTAMP})")
     Integer insert(DfvMvName entity);
 
+    @Insert("INSERT INTO DFV_MV_NAME (dfv_number, first_name, last_name, dse, club, last_modified, content_hash) VALUES (#{name.dfvNumber, jdbcType=INTEGER},#{name.firstName, jdbcType=VARCHAR},#{name.lastName, jdbcType=VARCHAR},#{name.dse},#{name.club.id, jdbcType=INTEGER},#{name.lastModified, jdbcType=TIMESTAMP},#{contentHash})")
+    Integer insertWithHash(@Param("name") DfvMvName entity, @Param("contentHash") long contentHash);
+
+    @Insert("INSERT INTO DFV_SYNC_STATE (name, payload_hash, synced_at) VALUES (#{name},#{payloadHash, jdbcType=VARCHAR},#{syncedAt, jdbcType=TIMESTAMP})")
+    Integer insertSyncState(@Param("name") String name, @Param("payloadHash") String payloadHash,
+            @Param("syncedAt") LocalDateTime syncedAt);
+
+    // UPDATE
+    @Update("UPDATE DFV_MV_NAME SET first_name=#{name.firstName, jdbcType=VARCHAR}, last_name=#{name.lastName, jdbcType=VARCHAR}, dse=#{name.dse}, club=#{name.club.id, jdbcType=INTEGER}, last_modified=#{name.lastModified, jdbcType=TIMESTAMP}, content_hash=#{contentHash} WHERE dfv_number=#{name.dfvNumber}")
+    Integer updateWithHash(@Param("name") DfvMvName entity, @Param("contentHash") long contentHash);
+
+    @Update("UPDATE DFV_SYNC_STATE SET payload_hash=#{payloadHash, jdbcType=VARCHAR}, synced_at=#{syncedAt, jdbcType=TIMESTAMP} WHERE name=#{name}")
+    Integer updateSyncState(@Param("name") String name, @Param("payloadHash") String payloadHash,
+            @Param("syncedAt") LocalDateTime syncedAt);
+
     // DELETE
     @Delete("DELETE FROM DFV_MV_NAME WHERE 1=1")
     void deleteAll();
 
+    @Delete("DELETE FROM DFV_MV_NAME WHERE dfv_number=#{dfvNumber}")
+    Integer delete(int dfvNumber);
+
     // SELECT
     @Select({ SELECT_STMT, "WHERE dfv_number = #{pk}" })
     @Results({ @Result(column = "dfv_number", property = "dfvNumber"),
@@ -42,6 +68,45 @@ public interface DfvMvNameMapper {
             @Result(column = "last_modified", property = "lastModified") })
     List<DfvMvName> getAll();
 
+    @Select({ "<script>", SELECT_STMT, "WHERE dfv_number IN",
+            "<foreach item='dfvNumber' collection='dfvNumbers' open='(' separator=',' close=')'>#{dfvNumber}</foreach>",
+            "</script>" })
+    @Results({ @Result(column = "dfv_number", property = "dfvNumber"),
+            @Result(column = "first_name", property = "firstName"),
+            @Result(column = "last_name", property = "lastName"), @Result(column = "dse", property = "dse"),
+            @Result(column = "club", property = "club", javaType = Club.class, jdbcType = JdbcType.BIGINT, one = @One(select = "de.ultical.backend.data.mapper.ClubMapper.get") ),
+            @Result(column = "last_modified", property = "lastModified") })
+    List<DfvMvName> getByNumbers(@Param("dfvNumbers") Collection<Integer> dfvNumbers);
+
+    /**
+     * all members with only the id of their club, for the registry
+     */
+    @Select(SELECT_STMT)
+    @Options(fetchSize = 1000)
+    @Results({ @Result(column = "dfv_number", property = "dfvNumber"),
+            @Result(column = "first_name", property = "firstName"),
+            @Result(column = "last_name", property = "lastName"), @Result(column = "dse", property = "dse"),
+            @Result(column = "club", property = "club.id"),
+            @Result(column = "last_modified", property = "lastModified") })
+    Cursor<DfvMvName> getAllFlat();
+
+    /**
+     * the content hashes of all members ordered by their number, to find the
+     * changed ones
+     */
+    @Select("SELECT dfv_number, content_hash FROM DFV_MV_NAME ORDER BY dfv_number")
+    @Options(fetchSize = 1000)
+    @Results({ @Result(column = "dfv_number", property = "dfvNumber"),
+            @Result(column = "content_hash", property = "contentHash") })
+    @ResultType(DfvMvNameHash.class)
+    void getContentHashes(ResultHandler<DfvMvNameHash> handler);
+
+    @Select("SELECT payload_hash FROM DFV_SYNC_STATE WHERE name = #{name}")
+    String getPayloadHash(String name);
+
+    @Select("SELECT COUNT(*) FROM DFV_SYNC_STATE WHERE name = #{name}")
+    int hasSyncState(String name);
+
     @Select({ SELECT_STMT, "WHERE first_name = #{firstname} AND last_name = #{lastname}" })
     @Results({ @Result(column = "dfv_number", property = "dfvNumber"),
             @Result(column = "first_name", property = "firstName"),
@@ -1,9 +1,11 @@
 package de.ultical.backend.data.mapper;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.One;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Result;
 import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
@@ -44,4 +46,12 @@ public interface DfvPlayerMapper extends BaseMapper<DfvPlayer> {
             @Result(column = "club", property = "club", one = @One(select = "de.ultical.backend.data.mapper.ClubMapper.get", fetchType = FetchType.EAGER)) })
     DfvPlayer getByDfvNumber(int dfvNumber);
 
+    @Select({ "<script>", SELECT_STMT, "WHERE <if test='registeredOnly'>is_registered=true AND</if> dfv_number IN",
+            "<foreach item='dfvNumber' collection='dfvNumbers' open='(' separator=',' close=')'>#{dfvNumber}</foreach>",
+            "</script>" })
+    @Results({
+            @Result(column = "club", property = "club", one = @One(select = "de.ultical.backend.data.mapper.ClubMapper.get", fetchType = FetchType.EAGER)) })
+    List<DfvPlayer> getByDfvNumbers(@Param("dfvNumbers") Collection<Integer> dfvNumbers,
+            @Param("registeredOnly") boolean registeredOnly);
+
 }
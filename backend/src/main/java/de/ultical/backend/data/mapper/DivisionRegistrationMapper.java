@@ -40,6 +40,17 @@ public interface DivisionRegistrationMapper extends BaseMapper<DivisionRegistrat
             "WHERE version=#{version} AND id=#{id}" })
     Integer update(DivisionRegistration entity);
 
+    /*
+     * The update locks the division's row until the end of the transaction,
+     * concurrent registrations for the same division therefore draw their
+     * numbers one after the other.
+     */
+    @Update("UPDATE DIVISION_REGISTRATION SET registration_counter=registration_counter+1 WHERE id=#{id}")
+    Integer incrementRegistrationCounter(int id);
+
+    @Select("SELECT registration_counter FROM DIVISION_REGISTRATION WHERE id=#{id}")
+    Integer getRegistrationCounter(int id);
+
     // DELETE
     @Override
     @Delete("DELETE FROM DIVISION_REGISTRATION WHERE id=#{id}")
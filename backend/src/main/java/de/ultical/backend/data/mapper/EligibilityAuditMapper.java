@@ -0,0 +1,54 @@
+package de.ultical.backend.data.mapper;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import de.ultical.backend.api.transferClasses.EligibilityAuditRow;
+import de.ultical.backend.data.DuplicateRoster;
+
+/**
+ * Reads everything needed to check the eligibility of all players registered
+ * for an edition with two queries, instead of loading the registrations,
+ * rosters and players one by one.
+ */
+public interface EligibilityAuditMapper {
+
+    /*
+     * declined and cancelled registrations do not play
+     */
+    @Select({ "SELECT tr.id AS teamRegistrationId, tr.status AS status, dr.id AS divisionRegistrationId,",
+            "dr.division_type AS divisionType, dr.division_age AS divisionAge, dr.division_identifier AS divisionIdentifier,",
+            "s.season_year AS seasonYear, r.id AS rosterId, t.name AS teamName, r.name_addition AS nameAddition,",
+            "p.id AS playerId, p.first_name AS firstName, p.last_name AS lastName, p.gender AS gender,",
+            "dp.dfv_number AS dfvNumber, dp.birth_date AS birthDate, dp.eligible_until AS eligibleUntil, dp.paid AS dfvPaid",
+            "FROM DIVISION_REGISTRATION dr JOIN TOURNAMENT_EDITION te ON te.id = dr.tournament_edition",
+            "JOIN SEASON s ON s.id = te.season JOIN TEAM_REGISTRATION tr ON tr.division_registration = dr.id",
+            "JOIN ROSTER r ON r.id = tr.roster JOIN TEAM t ON t.id = r.team",
+            "JOIN ROSTER_PLAYERS rp ON rp.roster = r.id JOIN PLAYER p ON p.id = rp.player",
+            "LEFT JOIN DFV_PLAYER dp ON dp.player_id = p.id",
+            "WHERE dr.tournament_edition = #{editionId} AND tr.status NOT IN ('DECLINED', 'CANCELLED')",
+            "ORDER BY dr.id, tr.sequence, tr.id, p.last_name, p.first_name, p.id" })
+    @Options(fetchSize = 500)
+    List<EligibilityAuditRow> getPlayers(@Param("editionId") int editionId);
+
+    /*
+     * the other rosters of the same season, division and context the players
+     * of the registered rosters are in. As by the DFV policy, rosters
+     * registered for a tournament they did not qualify for are released.
+     */
+    @Select({ "SELECT DISTINCT er.id AS registeredRosterId, rp.player AS playerId, r.id AS rosterId,",
+            "r.name_addition AS nameAddition, t.name AS teamName",
+            "FROM DIVISION_REGISTRATION dr JOIN TEAM_REGISTRATION tr ON tr.division_registration = dr.id",
+            "JOIN ROSTER er ON er.id = tr.roster JOIN ROSTER_PLAYERS erp ON erp.roster = er.id",
+            "JOIN ROSTER_PLAYERS rp ON rp.player = erp.player AND rp.roster <> er.id",
+            "JOIN ROSTER r ON r.id = rp.roster JOIN TEAM t ON t.id = r.team",
+            "WHERE dr.tournament_edition = #{editionId} AND tr.status NOT IN ('DECLINED', 'CANCELLED')",
+            "AND r.season = er.season AND r.division_age = er.division_age AND r.division_type = er.division_type",
+            "AND (r.context = er.context OR (r.context IS NULL AND er.context IS NULL))",
+            "AND NOT EXISTS (SELECT 1 FROM TEAM_REGISTRATION ntr WHERE ntr.roster = r.id AND ntr.not_qualified = TRUE)",
+            "ORDER BY registeredRosterId, playerId, rosterId" })
+    List<DuplicateRoster> getDuplicateRosters(@Param("editionId") int editionId);
+}
@@ -85,6 +85,7 @@ public interface EventMapper extends BaseMapper<Event> {
     List<Event> getAll();
 
     @Select("SELECT * FROM EVENT e WHERE ((start_date >= #{from} AND start_date <= #{to}) OR (end_date >= #{from} AND end_date <= #{to}))")
+    @Options(fetchSize = 100)
     @Results({ @Result(column = "matchday_number", property = "matchdayNumber"),
             @Result(column = "id", property = "id"), @Result(column = "version", property = "version"),
             @Result(column = "tournament_edition", property = "tournamentEdition", one = @One(select = "de.ultical.backend.data.mapper.TournamentEditionMapper.getForEvent")),
@@ -108,6 +109,20 @@ public interface EventMapper extends BaseMapper<Event> {
             @Result(column = "id", property = "divisionConfirmations", many = @Many(select = "de.ultical.backend.data.mapper.DivisionConfirmationMapper.getBasicsByEvent")) })
     List<Event> getBasics(@Param("from") String fromString, @Param("to") String toString);
 
+    @Select({ "<script>SELECT * FROM EVENT e WHERE e.id IN",
+            "<foreach item='id' collection='ids' open='(' separator=',' close=')'>#{id}</foreach>",
+            "AND ((start_date &gt;= #{from} AND start_date &lt;= #{to}) OR (end_date &gt;= #{from} AND end_date &lt;= #{to}))",
+            "</script>" })
+    @Results({ @Result(column = "matchday_number", property = "matchdayNumber"),
+            @Result(column = "id", property = "id"), @Result(column = "version", property = "version"),
+            @Result(column = "tournament_edition", property = "tournamentEdition", one = @One(select = "de.ultical.backend.data.mapper.TournamentEditionMapper.getBasicForEvent")),
+            @Result(column = "id", property = "locations", many = @Many(select = "de.ultical.backend.data.mapper.LocationMapper.getForEvent")),
+            @Result(column = "start_date", property = "startDate"), @Result(column = "end_date", property = "endDate"),
+            @Result(column = "info", property = "info"), @Result(column = "name", property = "name"),
+            @Result(column = "id", property = "divisionConfirmations", many = @Many(select = "de.ultical.backend.data.mapper.DivisionConfirmationMapper.getBasicsByEvent")) })
+    List<Event> getBasicsByIds(@Param("ids") List<Integer> ids, @Param("from") String fromString,
+            @Param("to") String toString);
+
     @Select("SELECT * FROM EVENT e WHERE tournament_edition=#{editionId}")
     @Results({ @Result(column = "matchday_number", property = "matchdayNumber"),
             @Result(column = "id", property = "id"), @Result(column = "version", property = "version"),
@@ -0,0 +1,80 @@
+package de.ultical.backend.data.mapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.session.RowBounds;
+
+import de.ultical.backend.jobs.JobLease;
+import de.ultical.backend.jobs.JobRun;
+
+public interface JobLeaseMapper {
+
+    // INSERT
+    @Insert("INSERT INTO JOB_LEASE (name, expires_at) VALUES (#{name}, #{now, jdbcType=TIMESTAMP})")
+    Integer insertLease(@Param("name") String name, @Param("now") LocalDateTime now);
+
+    @Insert({ "INSERT INTO JOB_RUN (job, owner, started_at, status)",
+            "VALUES (#{job}, #{owner}, #{startedAt, jdbcType=TIMESTAMP}, #{status, jdbcType=VARCHAR})" })
+    @Options(keyProperty = "id", useGeneratedKeys = true)
+    Integer insertRun(JobRun run);
+
+    // UPDATE
+    /*
+     * succeeds only if nobody holds the lease. The check and the update are a
+     * single statement, but the expiry is compared against the caller's now,
+     * so the clocks of the nodes have to be in sync, see LeaseManager
+     */
+    @Update({ "UPDATE JOB_LEASE SET owner = #{owner}, acquired_at = #{now, jdbcType=TIMESTAMP}, heartbeat_at = #{now, jdbcType=TIMESTAMP}, expires_at = #{expiresAt, jdbcType=TIMESTAMP}",
+            "WHERE name = #{name} AND (owner IS NULL OR expires_at <= #{now, jdbcType=TIMESTAMP})" })
+    Integer acquire(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    /*
+     * also takes over a lease that is only kept for the minimum interval, a
+     * released lease has no heartbeat
+     */
+    @Update({ "UPDATE JOB_LEASE SET owner = #{owner}, acquired_at = #{now, jdbcType=TIMESTAMP}, heartbeat_at = #{now, jdbcType=TIMESTAMP}, expires_at = #{expiresAt, jdbcType=TIMESTAMP}",
+            "WHERE name = #{name} AND (owner IS NULL OR expires_at <= #{now, jdbcType=TIMESTAMP} OR heartbeat_at IS NULL)" })
+    Integer acquireIdle(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Update({ "UPDATE JOB_LEASE SET heartbeat_at = #{now, jdbcType=TIMESTAMP}, expires_at = #{expiresAt, jdbcType=TIMESTAMP}",
+            "WHERE name = #{name} AND owner = #{owner}" })
+    Integer extend(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Update({ "UPDATE JOB_LEASE SET heartbeat_at = NULL, expires_at = #{until, jdbcType=TIMESTAMP}",
+            "WHERE name = #{name} AND owner = #{owner}" })
+    Integer release(@Param("name") String name, @Param("owner") String owner, @Param("until") LocalDateTime until);
+
+    @Update({ "UPDATE JOB_RUN SET finished_at = #{finishedAt, jdbcType=TIMESTAMP}, status = #{status, jdbcType=VARCHAR}, message = #{message, jdbcType=VARCHAR}",
+            "WHERE id = #{id}" })
+    Integer finishRun(JobRun run);
+
+    // DELETE
+    @Delete("DELETE FROM JOB_RUN WHERE started_at < #{before, jdbcType=TIMESTAMP}")
+    Integer deleteRunsBefore(@Param("before") LocalDateTime before);
+
+    // SELECT
+    @Select({ "SELECT name, owner, acquired_at AS acquiredAt, heartbeat_at AS heartbeatAt, expires_at AS expiresAt",
+            "FROM JOB_LEASE WHERE name = #{name}" })
+    JobLease getLease(String name);
+
+    @Select({ "SELECT name, owner, acquired_at AS acquiredAt, heartbeat_at AS heartbeatAt, expires_at AS expiresAt",
+            "FROM JOB_LEASE ORDER BY name" })
+    List<JobLease> getLeases();
+
+    /*
+     * use RowBounds to limit the number of runs
+     */
+    @Select({ "SELECT id, job, owner, started_at AS startedAt, finished_at AS finishedAt, status, message",
+            "FROM JOB_RUN ORDER BY started_at DESC, id DESC" })
+    List<JobRun> getRecentRuns(RowBounds rowBounds);
+}
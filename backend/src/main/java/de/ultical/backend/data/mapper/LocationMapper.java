@@ -9,6 +9,7 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import de.ultical.backend.data.GeoIndex;
 import de.ultical.backend.model.Location;
 
 public interface LocationMapper extends BaseMapper<Location> {
@@ -47,4 +48,13 @@ public interface LocationMapper extends BaseMapper<Location> {
     @Select({ SELECT_STMT, "FROM LOCATION" })
     List<Location> getAll();
 
+    // points for the geo index
+    @Select({ "SELECT el.event AS ownerId, l.id AS locationId, l.latitude, l.longitude",
+            "FROM EVENT_LOCATION el JOIN LOCATION l ON el.location = l.id" })
+    List<GeoIndex.Point> getEventPoints();
+
+    @Select({ "SELECT t.id AS ownerId, l.id AS locationId, l.latitude, l.longitude",
+            "FROM TEAM t JOIN LOCATION l ON t.location = l.id" })
+    List<GeoIndex.Point> getTeamPoints();
+
 }
@@ -0,0 +1,54 @@
+package de.ultical.backend.data.mapper;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * Answers whether a user administrates an entity without loading it. Each
+ * query returns <code>1</code> or <code>0</code>, the <code>EXISTS</code>
+ * subqueries are answered from the indexes on the admin tables.
+ */
+public interface PermissionMapper {
+
+    // SELECT
+    @Select({ "SELECT COUNT(*) FROM ULTICAL_USER u WHERE u.id = #{userId} AND EXISTS (",
+            "SELECT 1 FROM TEAM_ULTICAL_USERS tuu WHERE tuu.team = #{teamId} AND tuu.admin = u.id)" })
+    int isTeamAdmin(@Param("teamId") int teamId, @Param("userId") int userId);
+
+    @Select({ "SELECT COUNT(*) FROM ULTICAL_USER u WHERE u.id = #{userId} AND EXISTS (",
+            "SELECT 1 FROM ROSTER r JOIN TEAM_ULTICAL_USERS tuu ON tuu.team = r.team",
+            "WHERE r.id = #{rosterId} AND tuu.admin = u.id)" })
+    int isRosterAdmin(@Param("rosterId") int rosterId, @Param("userId") int userId);
+
+    /*
+     * the admins of the format are admins of all of its events, too
+     */
+    @Select({ "SELECT COUNT(*) FROM ULTICAL_USER u WHERE u.id = #{userId} AND (EXISTS (",
+            "SELECT 1 FROM EVENT_ULTICAL_USERS euu WHERE euu.event = #{eventId} AND euu.admin = u.id)",
+            "OR EXISTS (SELECT 1 FROM EVENT e JOIN TOURNAMENT_EDITION te ON te.id = e.tournament_edition",
+            "JOIN TOURNAMENT_FORMAT_ULTICAL_USERS tfuu ON tfuu.tournament_format = te.tournament_format",
+            "WHERE e.id = #{eventId} AND tfuu.admin = u.id))" })
+    int isEventAdmin(@Param("eventId") int eventId, @Param("userId") int userId);
+
+    @Select({ "SELECT COUNT(*) FROM ULTICAL_USER u WHERE u.id = #{userId} AND EXISTS (",
+            "SELECT 1 FROM TOURNAMENT_EDITION te",
+            "JOIN TOURNAMENT_FORMAT_ULTICAL_USERS tfuu ON tfuu.tournament_format = te.tournament_format",
+            "WHERE te.id = #{editionId} AND tfuu.admin = u.id)" })
+    int isEditionAdmin(@Param("editionId") int editionId, @Param("userId") int userId);
+
+    /*
+     * only asked for once a check failed, to tell a missing entity from a
+     * missing permission
+     */
+    @Select("SELECT COUNT(*) FROM TEAM WHERE id = #{id}")
+    int teamExists(int id);
+
+    @Select("SELECT COUNT(*) FROM ROSTER WHERE id = #{id}")
+    int rosterExists(int id);
+
+    @Select("SELECT COUNT(*) FROM EVENT WHERE id = #{id}")
+    int eventExists(int id);
+
+    @Select("SELECT COUNT(*) FROM TOURNAMENT_EDITION WHERE id = #{id}")
+    int editionExists(int id);
+}
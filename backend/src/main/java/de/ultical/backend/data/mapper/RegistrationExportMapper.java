@@ -0,0 +1,39 @@
+package de.ultical.backend.data.mapper;
+
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+
+import de.ultical.backend.api.transferClasses.RegistrationExportRow;
+
+/**
+ * Reads team registrations together with their rosters' players in a single
+ * query. The rows are flat and read through a cursor, so no object graph is
+ * built for the registrations.
+ */
+public interface RegistrationExportMapper {
+
+    final String EXPORT_SELECT = "SELECT te.name AS editionName, dr.id AS divisionRegistrationId, "
+            + "dr.division_type AS divisionType, dr.division_age AS divisionAge, dr.division_identifier AS divisionIdentifier, "
+            + "tr.id AS teamRegistrationId, tr.sequence AS sequence, tr.status AS status, tr.paid AS paid, "
+            + "tr.not_qualified AS notQualified, t.name AS teamName, r.name_addition AS nameAddition, "
+            + "p.id AS playerId, p.first_name AS firstName, p.last_name AS lastName, p.gender AS gender, "
+            + "dp.dfv_number AS dfvNumber, dp.eligible_until AS eligibleUntil, dp.paid AS dfvPaid, c.name AS clubName "
+            + "FROM DIVISION_REGISTRATION dr JOIN TOURNAMENT_EDITION te ON te.id = dr.tournament_edition "
+            + "JOIN TEAM_REGISTRATION tr ON tr.division_registration = dr.id "
+            + "LEFT JOIN ROSTER r ON r.id = tr.roster LEFT JOIN TEAM t ON t.id = r.team "
+            + "LEFT JOIN ROSTER_PLAYERS rp ON rp.roster = r.id LEFT JOIN PLAYER p ON p.id = rp.player "
+            + "LEFT JOIN DFV_PLAYER dp ON dp.player_id = p.id LEFT JOIN CLUB c ON c.id = dp.club";
+
+    final String EXPORT_ORDER = "ORDER BY dr.id, tr.sequence, tr.id, p.last_name, p.first_name, p.id";
+
+    @Select({ EXPORT_SELECT, "WHERE dr.tournament_edition = #{editionId}", EXPORT_ORDER })
+    @Options(fetchSize = 500)
+    Cursor<RegistrationExportRow> getForEdition(@Param("editionId") int editionId);
+
+    @Select({ EXPORT_SELECT, "WHERE dr.id = #{divisionRegistrationId}", EXPORT_ORDER })
+    @Options(fetchSize = 500)
+    Cursor<RegistrationExportRow> getForDivisionRegistration(
+            @Param("divisionRegistrationId") int divisionRegistrationId);
+}
@@ -1,5 +1,6 @@
 package de.ultical.backend.data.mapper;
 
+import de.ultical.backend.data.RosterConflict;
 import de.ultical.backend.model.DfvPlayer;
 import de.ultical.backend.model.Player;
 import de.ultical.backend.model.Roster;
@@ -15,6 +16,7 @@ import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface RosterMapper extends BaseMapper<Roster> {
@@ -87,20 +89,25 @@ public interface RosterMapper extends BaseMapper<Roster> {
     @Results({@Result(column = "id", property = "id"), @Result(column = "version", property = "version")})
     Roster getByTeamSeasonDivision(@Param("roster") Roster roster);
 
-    // get roster that contains specific player in one season/division/context
-    @Select({"<script>", SELECT_STMT, "r LEFT JOIN ROSTER_PLAYERS rp ON r.id = rp.roster",
-            "WHERE rp.player = #{playerId} AND r.season = #{roster.season.id} AND r.division_age = #{roster.divisionAge} AND r.division_type = #{roster.divisionType} AND ",
-            "<choose><when test='roster.context == null'>", "context IS NULL", "</when>", "<otherwise>",
-            "context = #{roster.context.id}", "</otherwise>", "</choose>", "</script>"})
-    @Results({@Result(column = "id", property = "id"), @Result(column = "version", property = "version"),
-            @Result(column = "division_age", property = "divisionAge"),
-            @Result(column = "division_type", property = "divisionType"),
-            @Result(column = "name_addition", property = "nameAddition"),
-            @Result(column = "context", property = "context", one = @One(select = "de.ultical.backend.data.mapper.ContextMapper.get")),
-            @Result(column = "team", property = "team", one = @One(select = "de.ultical.backend.data.mapper.TeamMapper.getForRoster")),
-            @Result(column = "season", property = "season", one = @One(select = "de.ultical.backend.data.mapper.SeasonMapper.get")),
-            @Result(column = "id", property = "players", many = @Many(select = "de.ultical.backend.data.mapper.RosterPlayerMapper.getByRoster"))})
-    List<Roster> getByPlayerSeasonDivision(@Param("playerId") Integer playerId, @Param("roster") Roster roster);
+    /*
+     * the rosters of the same season, division and context the players are
+     * already in, with nothing but the name addition and the team's name. If
+     * only qualified rosters are asked for, rosters registered for a
+     * tournament they did not qualify for are left out.
+     */
+    @Select({"<script>",
+            "SELECT rp.player AS playerId, r.id AS rosterId, r.name_addition AS nameAddition, t.name AS teamName FROM ROSTER r",
+            "JOIN ROSTER_PLAYERS rp ON rp.roster = r.id JOIN TEAM t ON t.id = r.team",
+            "WHERE rp.player IN",
+            "<foreach item='playerId' collection='playerIds' open='(' separator=',' close=')'>#{playerId}</foreach>",
+            "AND r.season = #{roster.season.id} AND r.division_age = #{roster.divisionAge} AND r.division_type = #{roster.divisionType} AND ",
+            "<choose><when test='roster.context == null'>", "r.context IS NULL", "</when>", "<otherwise>",
+            "r.context = #{roster.context.id}", "</otherwise>", "</choose>",
+            "<if test='qualifiedOnly'>",
+            "AND NOT EXISTS (SELECT 1 FROM TEAM_REGISTRATION tr WHERE tr.roster = r.id AND tr.not_qualified = TRUE)",
+            "</if>", "ORDER BY rp.player, r.id", "</script>"})
+    List<RosterConflict> getConflicting(@Param("playerIds") Collection<Integer> playerIds,
+            @Param("roster") Roster roster, @Param("qualifiedOnly") boolean qualifiedOnly);
 
     // get blocking date for roster
     @Select({"SELECT e.start_date AS blockingDate FROM EVENT e",
@@ -108,6 +108,7 @@ public interface TeamMapper extends BaseMapper<Team> {
 
     @Override
     @Select("SELECT * FROM TEAM")
+    @Options(fetchSize = 100)
     @Results({ @Result(column = "id", property = "id"), @Result(column = "version", property = "version"),
             @Result(column = "description", property = "description"), @Result(column = "name", property = "name"),
             @Result(column = "founding_date", property = "foundingDate"),
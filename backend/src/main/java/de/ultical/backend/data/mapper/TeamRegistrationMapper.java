@@ -82,15 +82,4 @@ public interface TeamRegistrationMapper extends BaseMapper<TeamRegistration> {
             @Result(column = "not_qualified", property = "notQualified"),
             @Result(column = "team_name", property = "teamName"), @Result(column = "comment", property = "comment") })
     List<TeamRegistration> getByRosters(@Param("rosters") List<Roster> rosters);
-
-    @Select({ SELECT_STMT, "FROM TEAM_REGISTRATION", "WHERE roster= #{roster.id}" })
-    @Results({ @Result(column = "id", property = "id"), @Result(column = "version", property = "version"),
-            @Result(column = "time_registered", property = "timeRegistered"),
-            @Result(column = "sequence", property = "sequence"), @Result(column = "standing", property = "standing"),
-            @Result(column = "spirit_score", property = "spiritScore"),
-            @Result(column = "own_spirit_score", property = "ownSpiritScore"),
-            @Result(column = "paid", property = "paid"), @Result(column = "status", property = "status"),
-            @Result(column = "not_qualified", property = "notQualified"),
-            @Result(column = "team_name", property = "teamName"), @Result(column = "comment", property = "comment") })
-    List<TeamRegistration> getByRoster(@Param("roster") Roster roster);
 }
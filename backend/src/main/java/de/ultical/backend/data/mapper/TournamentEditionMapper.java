@@ -132,6 +132,7 @@ public interface TournamentEditionMapper extends BaseMapper<TournamentEdition> {
 
     @Override
     @Select(editionSelectBase)
+    @Options(fetchSize = 100)
     @Results({ @Result(column = "alternative_matchday_name", property = "alternativeMatchdayName"),
             @Result(column = "id", property = "events", many = @Many(select = "de.ultical.backend.data.mapper.EventMapper.getEventsForEdition", fetchType = FetchType.EAGER)),
             @Result(column = "id", property = "id"), @Result(column = "version", property = "version"),
@@ -106,4 +106,17 @@ public interface TournamentFormatMapper extends BaseMapper<TournamentFormat> {
             @Result(column = "id", property = "admins", many = @Many(select = "de.ultical.backend.data.mapper.UserMapper.getAdminsForFormat") ) })
     public TournamentFormat getByEvent(@Param("eventId") int eventId);
 
+    /*
+     * get format by division registration id
+     */
+    @Select({ "SELECT tf.* FROM TOURNAMENT_FORMAT tf",
+            "JOIN TOURNAMENT_EDITION te ON te.tournament_format = tf.id JOIN DIVISION_REGISTRATION dr ON dr.tournament_edition = te.id",
+            "WHERE dr.id = #{divisionRegistrationId}" })
+    @Results({ @Result(column = "id", property = "id"), @Result(column = "version", property = "version"),
+            @Result(column = "name", property = "name"), @Result(column = "url", property = "url"),
+            @Result(column = "description", property = "description"),
+            @Result(column = "association", property = "association", one = @One(select = "de.ultical.backend.data.mapper.AssociationMapper.get") ),
+            @Result(column = "id", property = "admins", many = @Many(select = "de.ultical.backend.data.mapper.UserMapper.getAdminsForFormat") ) })
+    public TournamentFormat getByDivisionRegistration(@Param("divisionRegistrationId") int divisionRegistrationId);
+
 }
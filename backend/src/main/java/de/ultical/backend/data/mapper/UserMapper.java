@@ -25,7 +25,13 @@ public interface UserMapper extends BaseMapper<User> {
     // UPDATE
     @Override
     @Update({
-            "UPDATE ULTICAL_USER SET version = version + 1, password = #{password}, email = #{email}, dfv_player = #{dfvPlayer.id}, email_confirmed = #{emailConfirmed}, dfv_email_opt_in = #{dfvEmailOptIn}",
+            /*
+             * a new password revokes all session tokens. MySQL assigns from
+             * left to right, so the old password has to be compared before
+             * it is overwritten.
+             */
+            "UPDATE ULTICAL_USER SET token_version = CASE WHEN password = #{password} THEN token_version ELSE token_version + 1 END,",
+            "version = version + 1, password = #{password}, email = #{email}, dfv_player = #{dfvPlayer.id}, email_confirmed = #{emailConfirmed}, dfv_email_opt_in = #{dfvEmailOptIn}",
             "WHERE version = #{version} AND id = #{id}" })
     Integer update(User entity);
 
@@ -34,6 +40,9 @@ public interface UserMapper extends BaseMapper<User> {
             "WHERE version = #{version} AND id = #{id}" })
     Integer updateWithoutPassword(User entity);
 
+    @Update("UPDATE ULTICAL_USER SET token_version = token_version + 1 WHERE id = #{id}")
+    Integer incrementTokenVersion(int id);
+
     // DELETE
     @Override
     @Delete("DELETE FROM ULTICAL_USER WHERE id=#{id}")
@@ -43,7 +52,7 @@ public interface UserMapper extends BaseMapper<User> {
     // without password
     public static final String SELECT_STMT = "SELECT u.id, u.email, u.version, u.dfv_player, u.email_confirmed, u.dfv_email_opt_in";
     // with password
-    public static final String SELECT_STMT_FULL = "SELECT u.id, u.email, u.password, u.email_confirmed, u.dfv_email_opt_in, u.version, u.dfv_player";
+    public static final String SELECT_STMT_FULL = "SELECT u.id, u.email, u.password, u.email_confirmed, u.dfv_email_opt_in, u.version, u.dfv_player, u.token_version";
 
     @Override
     @Select({ SELECT_STMT, "FROM ULTICAL_USER u", "WHERE u.id = #{id}" })
@@ -103,11 +112,15 @@ public interface UserMapper extends BaseMapper<User> {
     @Select({ SELECT_STMT_FULL, "FROM ULTICAL_USER u", "WHERE u.email = #{eMail}" })
     @Results({ @Result(column = "id", property = "id"), @Result(column = "version", property = "version"),
             @Result(column = "email", property = "email"), @Result(column = "password", property = "password"),
+            @Result(column = "token_version", property = "tokenVersion"),
             @Result(column = "email_confirmed", property = "emailConfirmed"),
             @Result(column = "dfv_email_opt_in", property = "dfvEmailOptIn"),
             @Result(column = "dfv_player", property = "dfvPlayer", one = @One(select = "de.ultical.backend.data.mapper.DfvPlayerMapper.get") ) })
     User getByEmail(final String eMail);
 
+    @Select("SELECT token_version FROM ULTICAL_USER WHERE id = #{id}")
+    Integer getTokenVersion(int id);
+
     @Select({ SELECT_STMT, "FROM ULTICAL_USER u", "WHERE u.dfv_player = #{dfvPlayerId}" })
     @Results({ @Result(column = "id", property = "id"), @Result(column = "version", property = "version"),
             @Result(column = "email", property = "email"),
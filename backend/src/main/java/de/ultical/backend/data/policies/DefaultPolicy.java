@@ -6,6 +6,8 @@ import de.ultical.backend.model.DfvPlayer;
 import de.ultical.backend.model.Roster;
 import de.ultical.backend.model.TournamentEdition;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,23 +25,27 @@ public class DefaultPolicy implements Policy {
 
     @Override
     public int addPlayerToRoster(DfvPlayer player, Roster roster) {
-        // check if player is already in a roster of this season and division
-        List<Roster> rostersWithPlayer = this.dataStore.getRosterByPlayerSeasonDivision(player.getId(), roster);
+        String teamNames = this.getRosterConflicts(Collections.singleton(player), roster).get(player.getId());
 
-        if (rostersWithPlayer.size() > 0) {
-            List<String> qualifiedTeamNames = rostersWithPlayer.stream()
-                    .map(ro -> ro.getNameAddition().isEmpty()
-                            ? ro.getTeam().getName()
-                            : ro.getTeam().getName() + " " + ro.getNameAddition())
-                    .collect(Collectors.toList());
-
-            this.parameters.put("team_name", String.join(", ", qualifiedTeamNames));
+        if (teamNames != null) {
+            this.parameters.put("team_name", teamNames);
             return Policy.ALREADY_IN_DIFFERENT_ROSTER;
         }
 
         return Policy.OK;
     }
 
+    @Override
+    public Map<Integer, String> getRosterConflicts(Collection<? extends DfvPlayer> players, Roster roster) {
+        // check if players are already in a roster of this season and division
+        Map<Integer, List<String>> teamNamesWithPlayers = this.dataStore.getConflictingRosterNames(
+                players.stream().map(DfvPlayer::getId).collect(Collectors.toList()), roster, false);
+
+        Map<Integer, String> conflicts = new HashMap<>();
+        teamNamesWithPlayers.forEach((playerId, teamNames) -> conflicts.put(playerId, String.join(", ", teamNames)));
+        return conflicts;
+    }
+
     @Override
     public int registerRosterToEdition(Roster roster, TournamentEdition tournamentEdition) {
         // TODO Auto-generated method stub
@@ -4,13 +4,14 @@ import de.ultical.backend.api.transferClasses.DfvMvPlayer;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.model.DfvPlayer;
 import de.ultical.backend.model.Roster;
-import de.ultical.backend.model.TeamRegistration;
 import de.ultical.backend.model.TournamentEdition;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class DfvPolicy implements Policy {
 
@@ -24,40 +25,29 @@ public class DfvPolicy implements Policy {
 
     @Override
     public int addPlayerToRoster(DfvPlayer player, Roster roster) {
-        // check if player is already in a roster of this season and division
-        List<Roster> rostersWithPlayer = this.dataStore.getRosterByPlayerSeasonDivision(player.getId(), roster);
+        String teamNames = this.getRosterConflicts(Collections.singleton(player), roster).get(player.getId());
 
-        if (rostersWithPlayer.size() > 0) {
-            // we found this player already in rosters
-            // for each roster we check if it was registered for a tournament
-            // where the team did not qualify - this would release the roster
-            List<String> qualifiedTeamNamesWithPlayer = new ArrayList<>();
-
-            for (Roster rosterWithPlayer : rostersWithPlayer) {
-                List<TeamRegistration> teamRegistrations = this.dataStore
-                        .getTeamRegistrationsByRoster(rosterWithPlayer);
-
-                boolean didQualify = teamRegistrations.stream()
-                        .noneMatch(TeamRegistration::isNotQualified);
-
-                if (didQualify) {
-                    String teamName = rosterWithPlayer.getTeam().getName();
-                    if (!rosterWithPlayer.getNameAddition().isEmpty()) {
-                        teamName += " " + rosterWithPlayer.getNameAddition();
-                    }
-                    qualifiedTeamNamesWithPlayer.add(teamName);
-                }
-            }
-
-            if (qualifiedTeamNamesWithPlayer.size() > 0) {
-                this.parameters.put("team_name", String.join(", ", qualifiedTeamNamesWithPlayer));
-                return Policy.ALREADY_IN_DIFFERENT_ROSTER;
-            }
+        if (teamNames != null) {
+            this.parameters.put("team_name", teamNames);
+            return Policy.ALREADY_IN_DIFFERENT_ROSTER;
         }
 
         return Policy.OK;
     }
 
+    @Override
+    public Map<Integer, String> getRosterConflicts(Collection<? extends DfvPlayer> players, Roster roster) {
+        // check if players are already in a roster of this season and division
+        // - a roster registered for a tournament where the team did not
+        // qualify is released
+        Map<Integer, List<String>> teamNamesWithPlayers = this.dataStore.getConflictingRosterNames(
+                players.stream().map(DfvPlayer::getId).collect(Collectors.toList()), roster, true);
+
+        Map<Integer, String> conflicts = new HashMap<>();
+        teamNamesWithPlayers.forEach((playerId, teamNames) -> conflicts.put(playerId, String.join(", ", teamNames)));
+        return conflicts;
+    }
+
     @Override
     public int registerRosterToEdition(Roster roster, TournamentEdition tournamentEdition) {
         // TODO Auto-generated method stub
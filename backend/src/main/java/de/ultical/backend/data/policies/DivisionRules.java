@@ -0,0 +1,56 @@
+package de.ultical.backend.data.policies;
+
+import java.time.LocalDate;
+
+import de.ultical.backend.model.DivisionAge;
+import de.ultical.backend.model.DivisionType;
+import de.ultical.backend.model.Gender;
+
+/**
+ * The gender and age a player needs to play in a division, independent of
+ * the context.
+ */
+public final class DivisionRules {
+
+    private DivisionRules() {
+    }
+
+    /**
+     * @return whether a player of the given gender may play in the division.
+     */
+    public static boolean isGenderAllowed(Gender gender, DivisionType divisionType) {
+        if (Gender.MALE.equals(gender) || Gender.NA.equals(gender)) {
+            return !DivisionType.WOMEN.equals(divisionType);
+        }
+        return true;
+    }
+
+    /**
+     * @param birthDate
+     *            may only be null for the regular division
+     * @return whether a player born at the given date may play in the division
+     *         in a season of the given year.
+     */
+    public static boolean isAgeAllowed(LocalDate birthDate, Gender gender, DivisionAge divisionAge,
+            int seasonYear) {
+        if (divisionAge == DivisionAge.REGULAR) {
+            return true;
+        }
+        int age = seasonYear - birthDate.getYear();
+
+        if (divisionAge == DivisionAge.MASTERS && gender == Gender.FEMALE) {
+            // women masters can be 3 years younger than their male
+            // counterparts
+            age += 3;
+        } else if (divisionAge == DivisionAge.U17 && gender == Gender.FEMALE) {
+            // women are allowed to play U17 one year longer then male
+            // players.
+            // i.e. 18yo women are allowed to play U17
+            age -= 1;
+        }
+        if (divisionAge.isHasToBeOlder()) {
+            return age >= divisionAge.getAgeDifference();
+        }
+        return age <= divisionAge.getAgeDifference();
+    }
+}
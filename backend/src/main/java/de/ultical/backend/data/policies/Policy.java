@@ -7,6 +7,7 @@ import de.ultical.backend.model.DfvPlayer;
 import de.ultical.backend.model.Roster;
 import de.ultical.backend.model.TournamentEdition;
 
+import java.util.Collection;
 import java.util.Map;
 
 public interface Policy {
@@ -20,6 +21,14 @@ public interface Policy {
 
     public int addPlayerToRoster(DfvPlayer player, Roster roster);
 
+    /**
+     * Checks the addition of several players to a roster at once.
+     *
+     * @return the names of the rosters keeping a player from being added by
+     *         the id of the player, players that may be added are left out.
+     */
+    public Map<Integer, String> getRosterConflicts(Collection<? extends DfvPlayer> players, Roster roster);
+
     public int registerRosterToEdition(Roster roster, TournamentEdition tournamentEdition);
 
     public Eligibility getPlayerEligibility(DfvMvPlayer player);
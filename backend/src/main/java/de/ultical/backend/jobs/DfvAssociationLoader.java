@@ -9,6 +9,7 @@ import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.MediaType;
 
+import de.ultical.backend.app.CircuitBreaker;
 import de.ultical.backend.app.UltiCalConfig;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.model.Association;
@@ -24,10 +25,17 @@ public class DfvAssociationLoader {
     @Inject
     private DataStore dataStore;
 
-    public boolean getAssociations() {
+    @Inject
+    private CircuitBreaker dfvApiBreaker;
+
+    /**
+     * @return the number of associations written, <code>null</code> if the
+     *         sync is disabled.
+     */
+    public Integer getAssociations() {
 
         if (!this.config.getJobsConf().isDfvMvSyncEnabled()) {
-            return false;
+            return null;
         }
 
         try (DataStore.DataStoreCloseable c = this.dataStore.getClosable()) {
@@ -38,12 +46,11 @@ public class DfvAssociationLoader {
 
             Invocation.Builder invocationBuilder = target.request(MediaType.APPLICATION_JSON);
 
-            List<Association> response = invocationBuilder.get(new GenericType<List<Association>>() {
-            });
-
-            this.dataStore.refreshAssociations(response);
+            List<Association> response = this.dfvApiBreaker
+                    .call(() -> invocationBuilder.get(new GenericType<List<Association>>() {
+                    }));
 
-            return true;
+            return this.dataStore.refreshAssociations(response);
         }
     }
 
@@ -1,14 +1,16 @@
 package de.ultical.backend.jobs;
 
-import java.util.List;
+import java.io.InputStream;
 
 import javax.inject.Inject;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
-import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.MediaType;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.ultical.backend.app.CircuitBreaker;
 import de.ultical.backend.app.UltiCalConfig;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.model.Club;
@@ -24,10 +26,20 @@ public class DfvClubLoader {
     @Inject
     private DataStore dataStore;
 
-    public boolean getClubs() {
+    @Inject
+    private CircuitBreaker dfvApiBreaker;
+
+    @Inject
+    private ObjectMapper objectMapper;
+
+    /**
+     * @return the number of clubs written, <code>null</code> if the sync is
+     *         disabled.
+     */
+    public Integer getClubs() {
 
         if (!this.config.getJobsConf().isDfvMvSyncEnabled()) {
-            return false;
+            return null;
         }
 
         try (DataStore.DataStoreCloseable c = this.dataStore.getClosable()) {
@@ -38,12 +50,12 @@ public class DfvClubLoader {
 
             Invocation.Builder invocationBuilder = target.request(MediaType.APPLICATION_JSON);
 
-            List<Club> response = invocationBuilder.get(new GenericType<List<Club>>() {
+            return this.dfvApiBreaker.call(() -> {
+                try (JsonArrayReader<Club> reader = new JsonArrayReader<>(this.objectMapper, Club.class,
+                        invocationBuilder.get(InputStream.class))) {
+                    return this.dataStore.refreshClubs(reader);
+                }
             });
-
-            this.dataStore.refreshClubs(response);
-
-            return true;
         }
     }
 
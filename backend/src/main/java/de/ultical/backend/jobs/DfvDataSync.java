@@ -1,13 +1,19 @@
 package de.ultical.backend.jobs;
 
+import java.time.Duration;
+
 import org.glassfish.hk2.api.ServiceLocator;
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.JobExecutionContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
+
 import de.spinscale.dropwizard.jobs.Job;
 import de.spinscale.dropwizard.jobs.annotations.Every;
 import de.ultical.backend.app.ServiceLocatorProvider;
+import de.ultical.backend.app.UltiCalConfig;
 
 /**
  * Job to get profile-overview from dfv-mv.de's API every night at 3 a.m. and on
@@ -20,10 +26,19 @@ import de.ultical.backend.app.ServiceLocatorProvider;
 // available, when the scheduler starts!
 // @On("0 0 0/1 * * ?")
 @Every("1h")
+@DisallowConcurrentExecution
 public class DfvDataSync extends Job {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(DfvDataSync.class);
 
+    private final static Duration DEFAULT_INTERVAL = Duration.ofMinutes(55);
+
+    /*
+     * held while the phases run, so a run is skipped while the previous one
+     * is still in progress, on this or on any other node
+     */
+    static final String RUN_LEASE = "dfv-sync";
+
     @Override
     public void doJob(JobExecutionContext ctxt) {
 
@@ -31,36 +46,50 @@ public class DfvDataSync extends Job {
         ServiceLocator sl = ServiceLocatorProvider.getInstance().getServiceLocator();
 
         if (sl != null) {
+            LeaseManager leases = sl.getService(LeaseManager.class);
+            MetricRegistry metrics = sl.getService(MetricRegistry.class);
+            Duration interval = getInterval(sl.getService(UltiCalConfig.class));
 
-            // get the associations, because the clubs refer to it
-            DfvAssociationLoader dal = sl.createAndInitialize(DfvAssociationLoader.class);
-
-            try {
-                dal.getAssociations();
-            } catch (Exception pe) {
-                LOGGER.error("Updating DFV associations failed!", pe);
+            if (!leases.runExclusivelyAndReport(RUN_LEASE, Duration.ZERO,
+                    () -> this.runPhases(sl, leases, interval, metrics))) {
+                LOGGER.warn("Skipped the DFV sync, the previous run is still in progress");
             }
+        }
 
-            // get the clubs, because the profiles refer to it
-            DfvClubLoader dcl = sl.createAndInitialize(DfvClubLoader.class);
-
-            try {
-                dcl.getClubs();
-            } catch (Exception pe) {
-                LOGGER.error("Updating DFV clubs failed!", pe);
-            }
+        LOGGER.info("... Job finished!");
+    }
 
-            DfvProfileLoader diw = sl.createAndInitialize(DfvProfileLoader.class);
+    /**
+     * @return the minimum time between two runs of a phase.
+     */
+    public static Duration getInterval(UltiCalConfig config) {
+        return Duration.ofMillis(config.getJobsConf() != null
+                ? config.getJobsConf().getDfvMvSyncInterval().toMilliseconds()
+                : DEFAULT_INTERVAL.toMillis());
+    }
 
+    /*
+     * each phase runs on one node of the cluster only, the lease of a phase
+     * is kept until the next run is due
+     */
+    private String runPhases(ServiceLocator sl, LeaseManager leases, Duration interval, MetricRegistry metrics) {
+        StringBuilder outcome = new StringBuilder();
+        for (DfvSyncPhase phase : DfvSyncPhase.values()) {
+            if (outcome.length() > 0) {
+                outcome.append(", ");
+            }
+            outcome.append(phase.getLeaseName()).append(' ');
             try {
-                diw.getDfvMvNames();
+                boolean ran = leases.runExclusivelyAndReport(phase.getLeaseName(), interval,
+                        () -> phase.sync(sl, metrics));
+                outcome.append(ran ? "done" : "skipped");
             } catch (Exception pe) {
-                LOGGER.error("Updating DFV profiles failed!", pe);
+                // the other phases run nevertheless
+                LOGGER.error(phase.getFailure(), pe);
+                outcome.append("failed");
             }
-
         }
-
-        LOGGER.info("... Job finished!");
+        return outcome.toString();
     }
 
 }
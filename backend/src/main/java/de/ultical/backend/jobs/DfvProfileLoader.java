@@ -2,12 +2,17 @@ package de.ultical.backend.jobs;
 
 import de.ultical.backend.api.transferClasses.DfvMvName;
 import de.ultical.backend.api.transferClasses.DfvMvPlayer;
+import de.ultical.backend.app.CircuitBreaker;
 import de.ultical.backend.app.MailClient;
 import de.ultical.backend.app.UltiCalConfig;
 import de.ultical.backend.app.mail.SystemMessage;
 import de.ultical.backend.data.DataStore;
+import de.ultical.backend.data.DfvSyncStatistics;
 import de.ultical.backend.data.policies.Policy;
 import de.ultical.backend.model.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Iterators;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,13 +21,12 @@ import javax.ws.rs.NotFoundException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
-import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.MediaType;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 public class DfvProfileLoader {
@@ -41,12 +45,31 @@ public class DfvProfileLoader {
     @Inject
     MailClient mailClient;
 
+    @Inject
+    CircuitBreaker dfvApiBreaker;
+
+    @Inject
+    ObjectMapper objectMapper;
+
     public boolean getDfvMvNames() {
+        return this.syncDfvMvNames() != null;
+    }
+
+    /**
+     * Fetches the member list from the DFV and applies the changed members.
+     * Only the players whose members have changed are updated, if the list is
+     * the same as last time, nothing is done at all.
+     *
+     * @return the statistics of the sync, <code>null</code> if the sync is
+     *         disabled.
+     */
+    public DfvSyncStatistics syncDfvMvNames() {
 
         if (!this.config.getJobsConf().isDfvMvSyncEnabled()) {
-            return false;
+            return null;
         }
 
+        final long start = System.currentTimeMillis();
         try (DataStore.DataStoreCloseable c = this.dataStore.getClosable()) {
 
             WebTarget target = this.client.target(this.config.getDfvApi().getUrl()).path("profile/sparte/ultimate")
@@ -55,46 +78,63 @@ public class DfvProfileLoader {
 
             Invocation.Builder invocationBuilder = target.request(MediaType.APPLICATION_JSON);
 
-            List<DfvMvName> response = invocationBuilder.get(new GenericType<List<DfvMvName>>() {});
-
-            if (response != null) {
-                Set<DfvMvName> nullNames = new HashSet<>();
-
-                response.forEach(dfvMvName -> {
-                    if (dfvMvName.getFirstName() == null || dfvMvName.getLastName() == null) {
-                        nullNames.add(dfvMvName);
-                    } else {
+            // the members are written while they are read, a failure while
+            // reading counts for the breaker as well
+            List<Integer> nullNames = new ArrayList<>();
+            DfvSyncStatistics synced = this.dfvApiBreaker.call(() -> {
+                try (JsonArrayReader<DfvMvName> reader = new JsonArrayReader<>(this.objectMapper, DfvMvName.class,
+                        invocationBuilder.get(InputStream.class))) {
+                    if (!reader.isPresent()) {
+                        return null;
+                    }
+                    return this.dataStore.syncDfvNames(Iterators.filter(reader, dfvMvName -> {
+                        if (dfvMvName.getFirstName() == null || dfvMvName.getLastName() == null) {
+                            nullNames.add(dfvMvName.getDfvNumber());
+                            return false;
+                        }
                         dfvMvName.setFirstName(dfvMvName.getFirstName().trim());
                         dfvMvName.setLastName(dfvMvName.getLastName().trim());
-                    }
-                });
-
-                if (nullNames.size() > 0) {
-                    LOGGER.warn("Found null entries in dfv-mv data: " +
-                            nullNames.stream()
-                                    .map(DfvMvName::getDfvNumber)
-                                    .map(String::valueOf)
-                                    .sorted()
-                                    .collect(Collectors.joining(", ")));
+                        return true;
+                    }));
                 }
+            });
+
+            if (nullNames.size() > 0) {
+                LOGGER.warn("Found null entries in dfv-mv data: " +
+                        nullNames.stream()
+                                .map(String::valueOf)
+                                .sorted()
+                                .collect(Collectors.joining(", ")));
+            }
 
-                this.dataStore.refreshDfvNames(response);
-                List<DfvPlayer> playersToUpdate = this.dataStore.getPlayersToUpdate();
+            // nothing has been synced without a member list
+            DfvSyncStatistics statistics = synced != null ? synced : new DfvSyncStatistics();
+            if (synced != null && !statistics.isUnchanged()) {
+                // after an incomplete sync the changes are not known
+                List<DfvPlayer> playersToUpdate = statistics.isCheckAllPlayers()
+                        ? this.dataStore.getPlayersToUpdate()
+                        : this.dataStore.getPlayersToUpdate(statistics.getChangedDfvNumbers());
                 if (playersToUpdate != null) {
-                    // TODO: debug do remove
-                    LOGGER.info("Updating players " + playersToUpdate.stream()
-                            .map(DfvPlayer::getDfvNumber)
-                            .map(String::valueOf)
-                            .sorted()
-                            .collect(Collectors.joining(", ")));
+                    LOGGER.info("Updating {} players", playersToUpdate.size());
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Updating players " + playersToUpdate.stream()
+                                .map(DfvPlayer::getDfvNumber)
+                                .map(String::valueOf)
+                                .sorted()
+                                .collect(Collectors.joining(", ")));
+                    }
                     for (DfvPlayer player : playersToUpdate) {
                         this.updatePlayerData(player);
                         this.validateRosterParticipation(player);
                     }
+                    statistics.setPlayersUpdated(playersToUpdate.size());
                 }
+                this.dataStore.completeDfvNameSync(statistics.getPayloadHash());
             }
 
-            return true;
+            statistics.setDurationMillis(System.currentTimeMillis() - start);
+            LOGGER.info("DFV member sync: {}", statistics.getSummary());
+            return statistics;
         }
     }
 
@@ -227,7 +267,8 @@ public class DfvProfileLoader {
         DfvMvPlayer mvPlayer = null;
 
         try {
-            mvPlayer = playerInvocationBuilder.get(DfvMvPlayer.class);
+            // an open breaker ends the phase instead of failing for every player
+            mvPlayer = this.dfvApiBreaker.call(() -> playerInvocationBuilder.get(DfvMvPlayer.class));
         } catch (NotFoundException e) {
             LOGGER.error(String.format("failed to load player=%d", player.getDfvNumber()), e);
             return null;
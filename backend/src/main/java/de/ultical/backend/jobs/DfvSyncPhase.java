@@ -0,0 +1,105 @@
+package de.ultical.backend.jobs;
+
+import org.glassfish.hk2.api.ServiceLocator;
+
+import com.codahale.metrics.MetricRegistry;
+
+import de.ultical.backend.data.DfvSyncStatistics;
+
+/**
+ * The phases of the {@link DfvDataSync} in the order they run. Each phase runs
+ * under a lease of its own, its duration and failures are published by the
+ * {@link LeaseManager}, the rows it has written by the phase itself.
+ */
+public enum DfvSyncPhase {
+
+    // the clubs refer to the associations
+    ASSOCIATIONS("dfv-sync-associations", "Updating DFV associations failed!") {
+        @Override
+        String sync(ServiceLocator sl, MetricRegistry metrics) {
+            Integer written = sl.createAndInitialize(DfvAssociationLoader.class).getAssociations();
+            if (written == null) {
+                return DISABLED;
+            }
+            this.count(metrics, "written", written);
+            return written + " associations written";
+        }
+    },
+
+    // the profiles refer to the clubs
+    CLUBS("dfv-sync-clubs", "Updating DFV clubs failed!") {
+        @Override
+        String sync(ServiceLocator sl, MetricRegistry metrics) {
+            Integer written = sl.createAndInitialize(DfvClubLoader.class).getClubs();
+            if (written == null) {
+                return DISABLED;
+            }
+            this.count(metrics, "written", written);
+            return written + " clubs written";
+        }
+    },
+
+    PROFILES("dfv-sync-profiles", "Updating DFV profiles failed!") {
+        @Override
+        String sync(ServiceLocator sl, MetricRegistry metrics) {
+            DfvSyncStatistics statistics = sl.createAndInitialize(DfvProfileLoader.class).syncDfvMvNames();
+            if (statistics == null) {
+                return DISABLED;
+            }
+            this.count(metrics, "fetched", statistics.getFetched());
+            this.count(metrics, "inserted", statistics.getInserted());
+            this.count(metrics, "updated", statistics.getUpdated());
+            this.count(metrics, "deleted", statistics.getDeleted());
+            this.count(metrics, "players-updated", statistics.getPlayersUpdated());
+            this.count(metrics, "unchanged", statistics.isUnchanged() ? 1 : 0);
+            return statistics.getSummary();
+        }
+    };
+
+    private static final String DISABLED = "disabled";
+
+    private final String leaseName;
+    private final String failure;
+
+    private DfvSyncPhase(String leaseName, String failure) {
+        this.leaseName = leaseName;
+        this.failure = failure;
+    }
+
+    /**
+     * @return the name of the lease and of the runs in the run history.
+     */
+    public String getLeaseName() {
+        return this.leaseName;
+    }
+
+    public String getFailure() {
+        return this.failure;
+    }
+
+    /**
+     * Runs the phase.
+     *
+     * @return what has been done, for the run history.
+     */
+    abstract String sync(ServiceLocator sl, MetricRegistry metrics);
+
+    void count(MetricRegistry metrics, String rows, long count) {
+        if (metrics != null) {
+            metrics.counter(MetricRegistry.name(DfvSyncPhase.class, this.name().toLowerCase(), rows)).inc(count);
+        }
+    }
+
+    /**
+     * @return the phase with the given name, ignoring the case,
+     *         <code>null</code> if there is none.
+     */
+    public static DfvSyncPhase byName(String name) {
+        for (DfvSyncPhase phase : values()) {
+            if (phase.name().equalsIgnoreCase(name)) {
+                return phase;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,93 @@
+package de.ultical.backend.jobs;
+
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.glassfish.hk2.api.ServiceLocator;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMultimap;
+
+import de.ultical.backend.app.ServiceLocatorProvider;
+import io.dropwizard.servlets.tasks.Task;
+
+/**
+ * Admin task for the {@link DfvDataSync}. Without parameters it lists the
+ * recent runs of the sync and its phases, with one or more
+ * <code>phase</code> parameters, e.g. <code>phase=profiles</code>, it runs
+ * these phases right away, unless they are running already.
+ *
+ * <pre>
+ * curl -X POST http://localhost:8081/tasks/dfv-sync?phase=clubs&amp;phase=profiles
+ * </pre>
+ */
+public class DfvSyncTask extends Task {
+
+    static final int RUNS = 20;
+
+    private final LeaseManager leaseManager;
+    private final Duration interval;
+    private final MetricRegistry metrics;
+    private final Supplier<ServiceLocator> serviceLocator;
+
+    public DfvSyncTask(final LeaseManager leaseManager, final Duration interval, final MetricRegistry metrics) {
+        this(leaseManager, interval, metrics, () -> ServiceLocatorProvider.getInstance().getServiceLocator());
+    }
+
+    DfvSyncTask(final LeaseManager leaseManager, final Duration interval, final MetricRegistry metrics,
+            final Supplier<ServiceLocator> serviceLocator) {
+        super("dfv-sync");
+        this.leaseManager = Objects.requireNonNull(leaseManager);
+        this.interval = Objects.requireNonNull(interval);
+        this.metrics = metrics;
+        this.serviceLocator = Objects.requireNonNull(serviceLocator);
+    }
+
+    @Override
+    public void execute(ImmutableMultimap<String, String> parameters, PrintWriter output) throws Exception {
+        Collection<String> phases = parameters.get("phase");
+        if (phases.isEmpty()) {
+            this.printRuns(output);
+            return;
+        }
+        ServiceLocator sl = this.serviceLocator.get();
+        if (sl == null) {
+            output.println("The application has not been started yet");
+            return;
+        }
+        for (String name : phases) {
+            DfvSyncPhase phase = DfvSyncPhase.byName(name);
+            if (phase == null) {
+                output.println("Unknown phase " + name);
+                continue;
+            }
+            output.print(phase.getLeaseName() + ": ");
+            output.flush();
+            try {
+                boolean ran = this.leaseManager.runOnDemand(phase.getLeaseName(), this.interval,
+                        () -> phase.sync(sl, this.metrics));
+                output.println(ran ? "done" : "skipped, it is running already");
+            } catch (RuntimeException e) {
+                output.println("failed, " + e);
+            }
+        }
+    }
+
+    private void printRuns(PrintWriter output) {
+        for (DfvSyncPhase phase : DfvSyncPhase.values()) {
+            if (this.leaseManager.isRunning(phase.getLeaseName())) {
+                output.println(phase.getLeaseName() + " is running on this node");
+            }
+        }
+        this.leaseManager.getRecentRuns(RUNS * 4).stream()
+                .filter(run -> run.getJob().startsWith(DfvDataSync.RUN_LEASE))
+                .limit(RUNS)
+                .forEach(run -> output.println(String.format("%s %-22s %-9s %s %s", run.getStartedAt(),
+                        run.getJob(), run.getStatus(), run.getFinishedAt() != null ? Duration
+                                .between(run.getStartedAt(), run.getFinishedAt()).toMillis() + " ms" : "-",
+                        run.getMessage() != null ? run.getMessage() : "")));
+    }
+}
@@ -0,0 +1,18 @@
+package de.ultical.backend.jobs;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+/**
+ * State of a lease as stored in the database. The owner is the node holding
+ * the lease, or that held it last, until the lease expires.
+ */
+@Data
+public class JobLease {
+    private String name;
+    private String owner;
+    private LocalDateTime acquiredAt;
+    private LocalDateTime heartbeatAt;
+    private LocalDateTime expiresAt;
+}
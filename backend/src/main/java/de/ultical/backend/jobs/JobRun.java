@@ -0,0 +1,24 @@
+package de.ultical.backend.jobs;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+/**
+ * One run of a job, recorded by the {@link LeaseManager}.
+ */
+@Data
+public class JobRun {
+
+    public enum Status {
+        RUNNING, SUCCEEDED, FAILED
+    }
+
+    private int id;
+    private String job;
+    private String owner;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Status status;
+    private String message;
+}
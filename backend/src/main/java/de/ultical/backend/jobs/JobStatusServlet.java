@@ -0,0 +1,62 @@
+package de.ultical.backend.jobs;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.MediaType;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Shows the job leases and the recent runs on the admin port. The number of
+ * runs may be given by the <code>runs</code> parameter.
+ */
+public class JobStatusServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_RUNS = 50;
+    private static final int MAX_RUNS = 1000;
+
+    private final transient LeaseManager leaseManager;
+    private final transient ObjectMapper objectMapper;
+
+    public JobStatusServlet(final LeaseManager leaseManager, final ObjectMapper objectMapper) {
+        this.leaseManager = Objects.requireNonNull(leaseManager);
+        this.objectMapper = Objects.requireNonNull(objectMapper);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        int runs = DEFAULT_RUNS;
+        String runsParameter = req.getParameter("runs");
+        if (runsParameter != null) {
+            try {
+                runs = Math.max(0, Math.min(MAX_RUNS, Integer.parseInt(runsParameter)));
+            } catch (NumberFormatException e) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "runs has to be a number");
+                return;
+            }
+        }
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        try {
+            status.put("node", this.leaseManager.getOwner());
+            status.put("leases", this.leaseManager.getLeases());
+            status.put("runs", this.leaseManager.getRecentRuns(runs));
+        } catch (PersistenceException pe) {
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Accessing the database failed");
+            return;
+        }
+        resp.setContentType(MediaType.APPLICATION_JSON);
+        resp.setHeader("Cache-Control", "must-revalidate,no-cache,no-store");
+        this.objectMapper.writerWithDefaultPrettyPrinter().writeValue(resp.getOutputStream(), status);
+    }
+}
@@ -0,0 +1,99 @@
+package de.ultical.backend.jobs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.ws.rs.ProcessingException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Reads the elements of a JSON array from a stream one at a time, so only the
+ * element read last is held in memory instead of the whole array.
+ * <p>
+ * Reading errors are thrown as {@link ProcessingException}, like the errors
+ * Jersey throws when reading an entity, so a {@link
+ * de.ultical.backend.app.CircuitBreaker CircuitBreaker} counts them as
+ * failures of the service. <code>null</code> elements are skipped.
+ * </p>
+ */
+class JsonArrayReader<T> implements Iterator<T>, Closeable {
+
+    private final JsonParser parser;
+    private final ObjectReader reader;
+    private final boolean present;
+    private T next;
+    private boolean finished;
+
+    JsonArrayReader(ObjectMapper mapper, Class<T> type, InputStream in) {
+        this.reader = mapper.readerFor(type);
+        try {
+            this.parser = mapper.getFactory().createParser(in);
+            JsonToken first = this.parser.nextToken();
+            this.present = first != null && first != JsonToken.VALUE_NULL;
+            if (this.present && first != JsonToken.START_ARRAY) {
+                this.parser.close();
+                throw new ProcessingException("Expected a JSON array but found " + first);
+            }
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        }
+        this.finished = !this.present;
+    }
+
+    /**
+     * @return <code>false</code> if the stream has been empty or contained
+     *         <code>null</code> instead of an array.
+     */
+    boolean isPresent() {
+        return this.present;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (this.next == null && !this.finished) {
+                JsonToken token = this.parser.nextToken();
+                if (token == null) {
+                    throw new ProcessingException("The JSON array has not been closed");
+                }
+                if (token == JsonToken.END_ARRAY) {
+                    this.finished = true;
+                } else if (token != JsonToken.VALUE_NULL) {
+                    this.next = this.reader.readValue(this.parser);
+                }
+            }
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        }
+        return this.next != null;
+    }
+
+    @Override
+    public T next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T result = this.next;
+        this.next = null;
+        return result;
+    }
+
+    /**
+     * Closes the parser and the stream.
+     */
+    @Override
+    public void close() {
+        try {
+            this.parser.close();
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package de.ultical.backend.jobs;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import de.ultical.backend.data.mapper.JobLeaseMapper;
+import io.dropwizard.lifecycle.Managed;
+
+/**
+ * Lets exactly one node of a cluster run a job, using leases stored in the
+ * database.
+ * <p>
+ * A lease is acquired by a single conditional update, so of several nodes
+ * trying at the same time only one succeeds. While the job runs, the lease is
+ * extended by a heartbeat, a node that dies therefore blocks the job for at
+ * most one lease duration. Once the job is finished the lease is kept until
+ * the job's minimum interval has passed, so nodes whose schedules are shifted
+ * against each other do not run the job again right away. Runs on the same
+ * node never overlap.
+ * </p>
+ * <p>
+ * The times of a lease are taken from the clock of the node writing it, not
+ * from the database. The nodes therefore have to run in the same time zone
+ * with their clocks kept in sync, e.g. by NTP. A node whose clock is ahead
+ * takes over an expired lease early by the difference, so it has to stay
+ * well below the lease duration.
+ * </p>
+ * <p>
+ * Every run is recorded in the run history, runs older than
+ * {@value #HISTORY_DAYS} days are removed. The duration of the runs, the
+ * failed and the skipped runs of each job are published as metrics as well.
+ * </p>
+ */
+public class LeaseManager implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeaseManager.class);
+
+    static final int HISTORY_DAYS = 30;
+    private static final int MAX_MESSAGE_LENGTH = 1024;
+
+    private final Supplier<SqlSession> sessions;
+    private final Duration leaseDuration;
+    private final String owner;
+    private final Clock clock;
+
+    private final MetricRegistry metrics;
+
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService heartbeat;
+
+    /**
+     * @param sessions
+     *            provides the sessions to access the leases, e.g. the
+     *            {@link de.ultical.backend.app.MyBatisManager MyBatisManager}.
+     * @param leaseDuration
+     *            how long a lease is valid without a heartbeat.
+     */
+    public LeaseManager(final Supplier<SqlSession> sessions, final Duration leaseDuration,
+            final MetricRegistry metrics) {
+        this(sessions, leaseDuration, defaultOwner(), Clock.systemDefaultZone(), metrics);
+    }
+
+    LeaseManager(final Supplier<SqlSession> sessions, final Duration leaseDuration, final String owner,
+            final Clock clock) {
+        this(sessions, leaseDuration, owner, clock, null);
+    }
+
+    LeaseManager(final Supplier<SqlSession> sessions, final Duration leaseDuration, final String owner,
+            final Clock clock, final MetricRegistry metrics) {
+        this.sessions = Objects.requireNonNull(sessions);
+        this.leaseDuration = Objects.requireNonNull(leaseDuration);
+        this.owner = Objects.requireNonNull(owner);
+        this.clock = Objects.requireNonNull(clock);
+        this.metrics = metrics != null ? metrics : new MetricRegistry();
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /*
+     * pid@host plus a random part, so a restarted node does not take over the
+     * leases of its predecessor
+     */
+    private static String defaultOwner() {
+        return ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public String getOwner() {
+        return this.owner;
+    }
+
+    /**
+     * Runs the given job if no other node holds its lease and it does not run
+     * on this node already.
+     *
+     * @param name
+     *            the name of the lease and the job in the run history.
+     * @param minInterval
+     *            the minimum time between the start of two runs, regardless
+     *            of the node they run on.
+     * @return <code>true</code> if the job has been run, <code>false</code> if
+     *         it has been skipped.
+     */
+    public boolean runExclusively(String name, Duration minInterval, Runnable job) {
+        return this.runExclusivelyAndReport(name, minInterval, () -> {
+            job.run();
+            return null;
+        });
+    }
+
+    /**
+     * Like {@link #runExclusively(String, Duration, Runnable)}, the message
+     * returned by the job, e.g. statistics of the run, is stored in the run
+     * history.
+     */
+    public boolean runExclusivelyAndReport(String name, Duration minInterval, Supplier<String> job) {
+        return this.run(name, minInterval, job, false);
+    }
+
+    /**
+     * Runs the given job right away, e.g. when triggered by an admin, even if
+     * its minimum interval has not passed yet. It is still skipped if it runs
+     * on any node.
+     *
+     * @return <code>true</code> if the job has been run, <code>false</code> if
+     *         it has been skipped.
+     */
+    public boolean runOnDemand(String name, Duration minInterval, Supplier<String> job) {
+        return this.run(name, minInterval, job, true);
+    }
+
+    /**
+     * @return whether the job runs on this node at the moment.
+     */
+    public boolean isRunning(String name) {
+        return this.running.contains(name);
+    }
+
+    private boolean run(String name, Duration minInterval, Supplier<String> job, boolean onDemand) {
+        if (!this.running.add(name)) {
+            LOGGER.info("Skipping {}, it is still running on this node", name);
+            this.meter(name, "skipped").mark();
+            return false;
+        }
+        try {
+            final LocalDateTime start = this.now();
+            if (!(onDemand ? this.tryAcquireOnDemand(name, start) : this.tryAcquire(name, start))) {
+                LOGGER.info("Skipping {}, the lease is held by another node", name);
+                this.meter(name, "skipped").mark();
+                return false;
+            }
+            JobRun run = this.startRun(name, start);
+            long heartbeatMillis = Math.max(1, this.leaseDuration.toMillis() / 3);
+            ScheduledFuture<?> heartbeatTask = this.heartbeat.scheduleAtFixedRate(() -> this.renew(name),
+                    heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+            Timer.Context timer = this.metrics.timer(MetricRegistry.name(LeaseManager.class, name, "runs")).time();
+            try {
+                String message = job.get();
+                if (onDemand) {
+                    message = message != null ? "on demand: " + message : "on demand";
+                }
+                this.finishRun(run, JobRun.Status.SUCCEEDED, message);
+            } catch (RuntimeException e) {
+                this.meter(name, "failures").mark();
+                this.finishRun(run, JobRun.Status.FAILED, e.toString());
+                throw e;
+            } finally {
+                timer.stop();
+                heartbeatTask.cancel(false);
+                LocalDateTime until = start.plus(minInterval);
+                this.release(name, until.isAfter(this.now()) ? until : this.now());
+            }
+            return true;
+        } finally {
+            this.running.remove(name);
+        }
+    }
+
+    private Meter meter(String name, String kind) {
+        return this.metrics.meter(MetricRegistry.name(LeaseManager.class, name, kind));
+    }
+
+    boolean tryAcquire(String name, LocalDateTime now) {
+        try (SqlSession session = this.sessions.get()) {
+            JobLeaseMapper mapper = session.getMapper(JobLeaseMapper.class);
+            if (mapper.getLease(name) == null) {
+                try {
+                    mapper.insertLease(name, now);
+                    session.commit();
+                } catch (PersistenceException pe) {
+                    // another node has been faster, the update decides
+                    session.rollback();
+                }
+            }
+            boolean acquired = mapper.acquire(name, this.owner, now, now.plus(this.leaseDuration)) == 1;
+            session.commit();
+            return acquired;
+        }
+    }
+
+    /*
+     * takes over a lease that is only kept for the minimum interval, but not
+     * one whose job is running
+     */
+    boolean tryAcquireOnDemand(String name, LocalDateTime now) {
+        if (this.tryAcquire(name, now)) {
+            return true;
+        }
+        try (SqlSession session = this.sessions.get()) {
+            boolean acquired = session.getMapper(JobLeaseMapper.class).acquireIdle(name, this.owner, now,
+                    now.plus(this.leaseDuration)) == 1;
+            session.commit();
+            return acquired;
+        }
+    }
+
+    /**
+     * Extends a lease held by this node.
+     *
+     * @return <code>false</code> if the lease has been lost, e.g. because the
+     *         heartbeat has been delayed beyond the lease duration.
+     */
+    boolean renew(String name) {
+        try (SqlSession session = this.sessions.get()) {
+            LocalDateTime now = this.now();
+            boolean extended = session.getMapper(JobLeaseMapper.class).extend(name, this.owner, now,
+                    now.plus(this.leaseDuration)) == 1;
+            session.commit();
+            if (!extended) {
+                LOGGER.error("Lease {} has been lost by {}", name, this.owner);
+            }
+            return extended;
+        } catch (PersistenceException pe) {
+            LOGGER.error("Renewing lease " + name + " failed", pe);
+            return false;
+        }
+    }
+
+    void release(String name, LocalDateTime until) {
+        try (SqlSession session = this.sessions.get()) {
+            session.getMapper(JobLeaseMapper.class).release(name, this.owner, until);
+            session.commit();
+        } catch (PersistenceException pe) {
+            LOGGER.error("Releasing lease " + name + " failed, it expires on its own", pe);
+        }
+    }
+
+    private JobRun startRun(String name, LocalDateTime start) {
+        JobRun run = new JobRun();
+        run.setJob(name);
+        run.setOwner(this.owner);
+        run.setStartedAt(start);
+        run.setStatus(JobRun.Status.RUNNING);
+        try (SqlSession session = this.sessions.get()) {
+            JobLeaseMapper mapper = session.getMapper(JobLeaseMapper.class);
+            mapper.insertRun(run);
+            mapper.deleteRunsBefore(start.minusDays(HISTORY_DAYS));
+            session.commit();
+        } catch (PersistenceException pe) {
+            // the history must not keep the job from running
+            LOGGER.error("Recording the start of " + name + " failed", pe);
+        }
+        return run;
+    }
+
+    private void finishRun(JobRun run, JobRun.Status status, String message) {
+        run.setFinishedAt(this.now());
+        run.setStatus(status);
+        if (message != null && message.length() > MAX_MESSAGE_LENGTH) {
+            message = message.substring(0, MAX_MESSAGE_LENGTH);
+        }
+        run.setMessage(message);
+        if (run.getId() == 0) {
+            return;
+        }
+        try (SqlSession session = this.sessions.get()) {
+            session.getMapper(JobLeaseMapper.class).finishRun(run);
+            session.commit();
+        } catch (PersistenceException pe) {
+            LOGGER.error("Recording the end of " + run.getJob() + " failed", pe);
+        }
+    }
+
+    public List<JobLease> getLeases() {
+        try (SqlSession session = this.sessions.get()) {
+            return session.getMapper(JobLeaseMapper.class).getLeases();
+        }
+    }
+
+    public List<JobRun> getRecentRuns(int limit) {
+        try (SqlSession session = this.sessions.get()) {
+            return session.getMapper(JobLeaseMapper.class).getRecentRuns(new RowBounds(0, limit));
+        }
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(this.clock);
+    }
+
+    @Override
+    public void start() throws Exception {
+        // NOP, leases are acquired when jobs run
+    }
+
+    /**
+     * Stops the heartbeat and lets the leases of jobs still running on this
+     * node expire right away.
+     */
+    @Override
+    public void stop() throws Exception {
+        this.heartbeat.shutdownNow();
+        for (String name : this.running) {
+            this.release(name, this.now());
+        }
+    }
+}
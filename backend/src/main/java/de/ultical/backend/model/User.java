@@ -17,6 +17,11 @@ public class User extends Identifiable implements Principal {
     private DfvPlayer dfvPlayer;
     private boolean emailConfirmed;
     private boolean dfvEmailOptIn;
+    /*
+     * only known if the password is known as well
+     */
+    @JsonIgnore
+    private int tokenVersion;
 
     public String getFullName() {
         if (this.dfvPlayer != null) {
@@ -4,10 +4,17 @@ import org.junit.*;
 import org.mockito.*;
 
 import static org.mockito.Mockito.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
 
 import de.ultical.backend.api.transferClasses.AuthResponse;
 import de.ultical.backend.api.transferClasses.AuthResponse.AuthResponseStatus;
+import de.ultical.backend.app.PasswordHasher;
+import de.ultical.backend.app.TokenService;
+import de.ultical.backend.app.UltiCalConfig;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.model.User;
 import de.ultical.backend.model.DfvPlayer;
@@ -39,6 +46,7 @@ public class AuthResourceTest {
 	this.resourceUnderTest = new AuthResource();
 	this.resourceWithoutDS = new AuthResource();
 	this.resourceUnderTest.dataStore = ds;
+	this.resourceUnderTest.passwordHasher = new PasswordHasher(new UltiCalConfig.PasswordHashingConfig(), null);
 	this.input = new User();
 
 	/*
@@ -124,4 +132,37 @@ public class AuthResourceTest {
 	Assert.assertNull(response.getUser());
 	Assert.assertEquals(response.getStatus(), AuthResponseStatus.DFV_EMAIL_NOT_OPT_IN);
     }
+
+    @Test
+    public void testTokenIsIssued() throws Exception {
+	TokenService tokenService = new TokenService(
+		"0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8), Duration.ofHours(1), null);
+	this.resourceUnderTest.tokenService = tokenService;
+	when(this.registeredUser.getId()).thenReturn(7);
+	when(this.registeredUser.getEmail()).thenReturn(KNOWN_AND_COMPLETELY_REGISTERED_MAIL);
+	when(this.registeredUser.getTokenVersion()).thenReturn(2);
+	input.setEmail(KNOWN_AND_COMPLETELY_REGISTERED_MAIL);
+	input.setPassword("test");
+	AuthResponse response = this.resourceUnderTest.AuthRequest(input);
+	Assert.assertEquals(AuthResponseStatus.SUCCESS, response.getStatus());
+	Assert.assertEquals(3600, response.getTokenValidSeconds());
+	User tokenUser = tokenService.authenticate(response.getToken()).get();
+	Assert.assertEquals(7, tokenUser.getId());
+
+	// refreshing works as long as the version is current
+	when(this.ds.getTokenVersion(7)).thenReturn(2);
+	Assert.assertNotNull(this.resourceUnderTest.refresh(tokenUser).getToken());
+	when(this.ds.getTokenVersion(7)).thenReturn(3);
+	try {
+	    this.resourceUnderTest.refresh(tokenUser);
+	    Assert.fail("a revoked token must not be refreshed");
+	} catch (WebApplicationException e) {
+	    Assert.assertEquals(Status.UNAUTHORIZED.getStatusCode(), e.getResponse().getStatus());
+	}
+
+	// revoking on this node rejects the token right away
+	when(this.ds.revokeTokens(7)).thenReturn(3);
+	this.resourceUnderTest.revoke(tokenUser);
+	Assert.assertFalse(tokenService.authenticate(response.getToken()).isPresent());
+    }
 }
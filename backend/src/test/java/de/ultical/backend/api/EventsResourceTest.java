@@ -22,6 +22,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import de.ultical.backend.data.DataStore;
+import de.ultical.backend.data.PermissionCache.Scope;
 
 public class EventsResourceTest {
 
@@ -85,6 +86,9 @@ public class EventsResourceTest {
 
         when(this.event1.getAdmins()).thenReturn(Collections.singletonList(this.user));
         when(this.ds.getFormatByEdition(anyInt())).thenReturn(format);
+        when(this.ds.isAdmin(Scope.EVENT, KNOWN_EVENT_ID, this.user)).thenReturn(true);
+        when(this.ds.isAdmin(eq(Scope.EDITION), anyInt(), eq(this.user))).thenReturn(true);
+        when(this.ds.exists(Scope.EVENT, KNOWN_EVENT_ID)).thenReturn(true);
 
         when(this.updateDiv.getId()).thenReturn(UPDATEABLE_DIV_ID);
         when(this.nonUpdateDiv.getId()).thenReturn(NON_UPDATEABLE_DIV_ID);
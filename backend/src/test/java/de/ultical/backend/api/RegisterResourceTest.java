@@ -5,7 +5,9 @@ import de.ultical.backend.api.transferClasses.DfvMvPlayer;
 import de.ultical.backend.api.transferClasses.RegisterRequest;
 import de.ultical.backend.api.transferClasses.RegisterResponse;
 import de.ultical.backend.api.transferClasses.RegisterResponse.RegisterResponseStatus;
+import de.ultical.backend.app.CircuitBreaker;
 import de.ultical.backend.app.DfvApiConfig;
+import de.ultical.backend.app.PasswordHasher;
 import de.ultical.backend.app.UltiCalConfig;
 import de.ultical.backend.data.DataStore;
 import de.ultical.backend.model.DfvPlayer;
@@ -13,6 +15,7 @@ import de.ultical.backend.model.User;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
@@ -24,6 +27,7 @@ import org.mockito.MockitoAnnotations;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.eq;
@@ -68,6 +72,8 @@ public class RegisterResourceTest {
 		this.resource.config = this.config;
 
 		this.resource.dataStore = this.ds;
+		this.resource.passwordHasher = new PasswordHasher(new UltiCalConfig.PasswordHashingConfig(), null);
+		this.resource.dfvApiBreaker = new CircuitBreaker("dfvApi", new UltiCalConfig.CircuitBreakerConfig(), null);
 		when(this.ds.getClosable()).thenReturn(mock(DataStore.DataStoreCloseable.class));
 		when(this.ds.getDfvNames(eq("test"), eq("User"))).thenReturn(Collections.emptyList());
 		when(this.ds.getDfvNames(eq("known"), eq("User"))).thenReturn(Collections.singletonList(this.dfvName));
@@ -123,4 +129,32 @@ public class RegisterResourceTest {
 		assertEquals(RegisterResponseStatus.SUCCESS, response.getStatus());
 	}
 
+	@Test
+	public void testRegisterWhileDfvApiDown() throws Exception {
+		UltiCalConfig.CircuitBreakerConfig breakerConfig = new UltiCalConfig.CircuitBreakerConfig();
+		breakerConfig.setMinimumCalls(1);
+		this.resource.dfvApiBreaker = new CircuitBreaker("dfvApi", breakerConfig, null);
+		try {
+			this.resource.dfvApiBreaker.call(() -> {
+				throw new ProcessingException("connect timed out");
+			});
+		} catch (ProcessingException e) {
+			// opens the breaker
+		}
+
+		RegisterRequest req = mock(RegisterRequest.class);
+		when(req.getPassword()).thenReturn("PasswordLongEnough");
+		when(req.getFirstName()).thenReturn("known");
+		when(req.getLastName()).thenReturn("User");
+		when(req.getBirthDate()).thenReturn(this.birthDate);
+		try {
+			this.resource.registerRequest(req);
+			fail("the registration must fail without waiting for the DFV API");
+		} catch (CircuitBreaker.OpenException e) {
+			// expected
+		}
+		verify(this.client, never()).target(any(String.class));
+		verify(this.ds, never()).storeUser(any(User.class), any(Boolean.class));
+	}
+
 }
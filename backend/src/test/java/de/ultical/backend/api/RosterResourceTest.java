@@ -1,5 +1,9 @@
 package de.ultical.backend.api;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.never;
@@ -9,7 +13,13 @@ import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.Client;
@@ -26,11 +36,15 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import de.ultical.backend.api.transferClasses.AddPlayerResult;
 import de.ultical.backend.api.transferClasses.DfvMvName;
 import de.ultical.backend.api.transferClasses.DfvMvPlayer;
+import de.ultical.backend.app.CircuitBreaker;
 import de.ultical.backend.app.DfvApiConfig;
+import de.ultical.backend.app.OutboundCallExecutor;
 import de.ultical.backend.app.UltiCalConfig;
 import de.ultical.backend.data.DataStore;
+import de.ultical.backend.data.PermissionCache.Scope;
 import de.ultical.backend.model.Context;
 import de.ultical.backend.model.DfvPlayer;
 import de.ultical.backend.model.DivisionAge;
@@ -173,6 +187,8 @@ public class RosterResourceTest {
         when(this.dataStore.get(eq(ROSTER_ID_OPEN_REG_B), eq(Roster.class))).thenReturn(this.rosterOpenRegularB);
         when(this.dataStore.get(eq(TEAM_42), eq(Team.class))).thenReturn(this.teamA);
         when(this.dataStore.get(eq(TEAM_43), eq(Team.class))).thenReturn(this.teamB);
+        when(this.dataStore.isAdmin(Scope.TEAM, TEAM_42, this.currentUser)).thenReturn(true);
+        when(this.dataStore.isAdmin(Scope.TEAM, TEAM_43, this.currentUser)).thenReturn(true);
         when(this.rosterMaster.getTeam()).thenReturn(this.teamA);
         when(this.rosterJunior.getTeam()).thenReturn(this.teamA);
         when(this.dfvNameMaster.getDfvNumber()).thenReturn(Integer.valueOf(DFV_NUMBER_MASTER));
@@ -258,22 +274,26 @@ public class RosterResourceTest {
         this.resource.dataStore = this.dataStore;
         this.resource.client = client;
         this.resource.config = conf;
+        this.resource.dfvApiBreaker = new CircuitBreaker("dfvApi", new UltiCalConfig.CircuitBreakerConfig(), null);
+        this.resource.outboundCalls = new OutboundCallExecutor(new UltiCalConfig.OutboundCallsConfig(), null);
     }
 
     @After
-    public void tearDown() {
+    public void tearDown() throws Exception {
         // Mockito.reset(this.dataStore);
+        this.resource.outboundCalls.stop();
     }
 
     @Test
     public void testAddPlayerToTwoRosters() throws Exception {
         this.resource.addPlayerToRoster(this.currentUser, ROSTER_ID_OPEN_REG_A, this.dfvNameMaster);
         verify(this.dataStore).addPlayerToRoster(this.rosterOpenRegularA, this.playerMasters);
-        when(this.dataStore.getRosterByPlayerSeasonDivision(this.playerMasters.getId(), this.rosterOpenRegularB))
-                .thenReturn(Collections.singletonList(this.rosterOpenRegularA));
-        when(this.dataStore.getTeamRegistrationsByRoster(this.rosterOpenRegularA))
-                .thenReturn(Collections.singletonList(this.teamRegA));
+        // the player is a mock, reading its id inside the stubbing would nest it
+        int playerId = this.playerMasters.getId();
+        when(this.dataStore.getConflictingRosterNames(Collections.singletonList(playerId), this.rosterOpenRegularB,
+                true)).thenReturn(Collections.singletonMap(playerId, Collections.singletonList("Team A")));
         this.expected.expect(WebApplicationException.class);
+        this.expected.expectMessage("e101-Team A-");
         this.resource.addPlayerToRoster(this.currentUser, ROSTER_ID_OPEN_REG_B, this.dfvNameMaster);
         verify(this.dataStore, times(1)).addPlayerToRoster(any(), any());
     }
@@ -284,6 +304,21 @@ public class RosterResourceTest {
         verify(this.dataStore).addPlayerToRoster(this.rosterMaster, this.playerMasters);
     }
 
+    @Test
+    public void testAddPlayerCancelled() throws Exception {
+        // a timed out request does not add a known player either
+        Thread.currentThread().interrupt();
+        try {
+            this.resource.addPlayerToRoster(this.currentUser, ROSTER_ID_MASTER, this.dfvNameMaster);
+            fail("the request has timed out");
+        } catch (CancellationException e) {
+            // expected
+        } finally {
+            Thread.interrupted();
+        }
+        verify(this.dataStore, never()).addPlayerToRoster(any(), any());
+    }
+
     @Test
     public void testAddJuniorToMasters() throws Exception {
         this.expected.expect(WebApplicationException.class);
@@ -354,4 +389,57 @@ public class RosterResourceTest {
     public void testUnpaidPlayerCannotPlay() throws Exception {
     	this.resource.addPlayerToRoster(this.currentUser, ROSTER_ID_OPEN_REG_A, this.dfvUnpaidPlayer);
     }
+
+    @Test
+    public void testAddPlayersToMasters() throws Exception {
+        Map<Integer, DfvMvName> names = new HashMap<>();
+        names.put(DFV_NUMBER_MASTER, this.dfvNameMaster);
+        names.put(DFV_NUMBER_JUNIOR, this.dfvNameJunior);
+        when(this.dataStore.getDfvMvNames(any())).thenReturn(names);
+        Map<Integer, DfvPlayer> players = new HashMap<>();
+        players.put(DFV_NUMBER_MASTER, this.playerMasters);
+        players.put(DFV_NUMBER_JUNIOR, this.playerJuniors);
+        when(this.dataStore.getPlayersByDfvNumbers(any())).thenReturn(players);
+
+        List<AddPlayerResult> results = this.resource.addPlayersToRoster(this.currentUser, ROSTER_ID_MASTER,
+                Arrays.asList(DFV_NUMBER_MASTER, DFV_NUMBER_JUNIOR, DFV_NUMBER_MASTER, 4711));
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isAdded());
+        assertEquals(this.playerMasters, results.get(0).getPlayer());
+        assertFalse(results.get(1).isAdded());
+        assertTrue(results.get(1).getError().contains("age does not match"));
+        assertEquals(4711, results.get(2).getDfvNumber());
+        assertFalse(results.get(2).isAdded());
+        verify(this.dataStore).addPlayersToRoster(this.rosterMaster, Collections.singletonList(this.playerMasters));
+        verify(this.dataStore, times(1)).get(ROSTER_ID_MASTER, Roster.class);
+        verify(this.dataStore, never()).addPlayerToRoster(any(), any());
+    }
+
+    @Test
+    public void testAddPlayersFetchesNewPlayers() throws Exception {
+        when(this.dataStore.getDfvMvNames(any()))
+                .thenReturn(Collections.singletonMap(DFV_NUMBER_UNPAID_PLAYER, this.dfvUnpaidPlayer));
+        when(this.dataStore.getPlayersByDfvNumbers(any())).thenReturn(Collections.emptyMap());
+
+        List<AddPlayerResult> results = this.resource.addPlayersToRoster(this.currentUser, ROSTER_ID_OPEN_REG_A,
+                Collections.singletonList(DFV_NUMBER_UNPAID_PLAYER));
+
+        assertEquals(1, results.size());
+        assertFalse(results.get(0).isAdded());
+        assertTrue(results.get(0).getError().startsWith("e105"));
+        verify(this.dataStore).storeDfvPlayer(any());
+        verify(this.dataStore).addPlayersToRoster(this.rosterOpenRegularA, Collections.emptyList());
+    }
+
+    @Test
+    public void testAddTooManyPlayers() throws Exception {
+        List<Integer> dfvNumbers = new ArrayList<>();
+        for (int i = 0; i <= RosterResource.MAX_PLAYERS_PER_REQUEST; i++) {
+            dfvNumbers.add(i);
+        }
+        this.expected.expect(WebApplicationException.class);
+        this.expected.expectMessage("At most");
+        this.resource.addPlayersToRoster(this.currentUser, ROSTER_ID_MASTER, dfvNumbers);
+    }
 }
@@ -0,0 +1,214 @@
+package de.ultical.backend.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class CircuitBreakerTest {
+
+    private static class TestClock extends Clock {
+        private Instant now = Instant.parse("2026-10-19T12:00:00Z");
+
+        void advance(Duration duration) {
+            this.now = this.now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return this.now;
+        }
+    }
+
+    /**
+     * Stands in for the DFV API, failing as told.
+     */
+    private static class FaultyService {
+        enum Fault {
+            NONE, TIMEOUT, SERVER_ERROR, NOT_FOUND
+        }
+
+        Fault fault = Fault.NONE;
+        int calls;
+
+        String get() {
+            this.calls++;
+            switch (this.fault) {
+            case TIMEOUT:
+                throw new ProcessingException("Read timed out");
+            case SERVER_ERROR:
+                throw new InternalServerErrorException();
+            case NOT_FOUND:
+                throw new NotFoundException();
+            default:
+                return "profile";
+            }
+        }
+    }
+
+    private TestClock clock;
+    private FaultyService service;
+    private MetricRegistry metrics;
+    private CircuitBreaker breaker;
+
+    @Before
+    public void setUp() {
+        UltiCalConfig.CircuitBreakerConfig config = new UltiCalConfig.CircuitBreakerConfig();
+        config.setWindowSize(10);
+        config.setMinimumCalls(4);
+        config.setFailureRateThreshold(50);
+        config.setOpenDuration(io.dropwizard.util.Duration.seconds(30));
+        config.setHalfOpenProbes(2);
+        this.clock = new TestClock();
+        this.service = new FaultyService();
+        this.metrics = new MetricRegistry();
+        this.breaker = new CircuitBreaker("dfvApi", config, this.metrics, this.clock);
+    }
+
+    private boolean call() {
+        try {
+            this.breaker.call(this.service::get);
+            return true;
+        } catch (CircuitBreaker.OpenException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void assertRejected() {
+        int calls = this.service.calls;
+        try {
+            this.breaker.call(this.service::get);
+            fail("the breaker must reject the call");
+        } catch (CircuitBreaker.OpenException e) {
+            assertEquals(calls, this.service.calls);
+        }
+    }
+
+    @Test
+    public void testOpensOnFailureRate() {
+        this.call();
+        this.service.fault = FaultyService.Fault.TIMEOUT;
+        this.call();
+        this.call();
+        // below the minimum number of calls
+        assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+        this.service.fault = FaultyService.Fault.SERVER_ERROR;
+        this.call();
+        assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+        assertEquals(75, this.breaker.getFailureRate());
+
+        try {
+            this.breaker.call(this.service::get);
+            fail("the breaker must reject the call");
+        } catch (CircuitBreaker.OpenException e) {
+            assertEquals("30", e.getResponse().getHeaderString(HttpHeaders.RETRY_AFTER));
+        }
+        assertEquals(4, this.service.calls);
+        assertEquals(1, this.metrics.meter(MetricRegistry.name(CircuitBreaker.class, "dfvApi", "rejected")).getCount());
+        assertEquals(3, this.metrics.meter(MetricRegistry.name(CircuitBreaker.class, "dfvApi", "failures")).getCount());
+    }
+
+    @Test
+    public void testClientErrorsAreNoFailures() {
+        this.service.fault = FaultyService.Fault.NOT_FOUND;
+        for (int i = 0; i < 10; i++) {
+            this.call();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+        assertEquals(0, this.breaker.getFailureRate());
+    }
+
+    @Test
+    public void testExceptionsWithoutResponseAreFailures() {
+        // a mocked exception, like the ones of the client mocks, has no response
+        assertTrue(CircuitBreaker.isFailure(mock(WebApplicationException.class)));
+    }
+
+    @Test
+    public void testWindowSlides() {
+        this.service.fault = FaultyService.Fault.TIMEOUT;
+        this.call();
+        this.service.fault = FaultyService.Fault.NONE;
+        for (int i = 0; i < 10; i++) {
+            this.call();
+        }
+        // the failure has left the window
+        assertEquals(0, this.breaker.getFailureRate());
+        this.service.fault = FaultyService.Fault.TIMEOUT;
+        for (int i = 0; i < 4; i++) {
+            this.call();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+        this.call();
+        assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+    }
+
+    @Test
+    public void testHalfOpenProbes() {
+        this.service.fault = FaultyService.Fault.TIMEOUT;
+        for (int i = 0; i < 4; i++) {
+            this.call();
+        }
+        assertRejected();
+
+        this.clock.advance(Duration.ofSeconds(30));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, this.breaker.getState());
+        // a failing probe opens the breaker again
+        this.call();
+        assertEquals(CircuitBreaker.State.OPEN, this.breaker.getState());
+        assertRejected();
+
+        this.clock.advance(Duration.ofSeconds(30));
+        this.service.fault = FaultyService.Fault.NONE;
+        this.call();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, this.breaker.getState());
+        this.call();
+        assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+        assertEquals(0, this.breaker.getFailureRate());
+    }
+
+    @Test
+    public void testHalfOpenLimitsProbes() {
+        this.service.fault = FaultyService.Fault.TIMEOUT;
+        for (int i = 0; i < 4; i++) {
+            this.call();
+        }
+        this.clock.advance(Duration.ofSeconds(30));
+        this.service.fault = FaultyService.Fault.NONE;
+        // two probes under way, a third call has to wait
+        this.breaker.call(() -> this.breaker.call(() -> {
+            assertRejected();
+            return "probe";
+        }));
+        assertEquals(CircuitBreaker.State.CLOSED, this.breaker.getState());
+    }
+}
@@ -0,0 +1,31 @@
+package de.ultical.backend.app;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class CsvWriterTest {
+
+    @Test
+    public void testEscape() {
+        assertEquals("plain", CsvWriter.escape("plain"));
+        assertEquals("\"a, b\"", CsvWriter.escape("a, b"));
+        assertEquals("\"say \"\"hi\"\"\"", CsvWriter.escape("say \"hi\""));
+        assertEquals("\"two\nlines\"", CsvWriter.escape("two\nlines"));
+        // no formulas in spreadsheets
+        assertEquals("'=1+1", CsvWriter.escape("=1+1"));
+        assertEquals("\"'=HYPERLINK(\"\"x\"\", \"\"y\"\")\"", CsvWriter.escape("=HYPERLINK(\"x\", \"y\")"));
+    }
+
+    @Test
+    public void testWriteRow() throws Exception {
+        StringWriter output = new StringWriter();
+        try (CsvWriter csv = new CsvWriter(output)) {
+            csv.writeRow("name", 42, null, true, -1);
+            csv.writeRow("-1");
+        }
+        assertEquals("name,42,,true,-1\r\n'-1\r\n", output.toString());
+    }
+}
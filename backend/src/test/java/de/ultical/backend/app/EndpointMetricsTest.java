@@ -0,0 +1,137 @@
+package de.ultical.backend.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import de.ultical.backend.api.EventsResource;
+
+public class EndpointMetricsTest {
+
+    private static final String NAME = MetricRegistry.name(EventsResource.class, "getEvent");
+
+    private MetricRegistry metrics;
+    private EndpointMetrics.Filter filter;
+    // the properties of the request, shared with the writer interceptor
+    private Map<String, Object> properties;
+    private ContainerRequestContext request;
+
+    @Before
+    public void setUp() {
+        this.metrics = new MetricRegistry();
+        this.filter = new EndpointMetrics.Filter(this.metrics, NAME, Long.MAX_VALUE);
+        this.properties = new HashMap<>();
+        this.request = mock(ContainerRequestContext.class);
+        doAnswer(invocation -> this.properties.put((String) invocation.getArguments()[0],
+                invocation.getArguments()[1])).when(this.request).setProperty(anyString(), any());
+        doAnswer(invocation -> this.properties.remove(invocation.getArguments()[0])).when(this.request)
+                .removeProperty(anyString());
+        when(this.request.getProperty(anyString()))
+                .thenAnswer(invocation -> this.properties.get(invocation.getArguments()[0]));
+    }
+
+    private static ContainerResponseContext response(int status, boolean hasEntity) {
+        ContainerResponseContext response = mock(ContainerResponseContext.class);
+        when(response.getStatus()).thenReturn(status);
+        when(response.hasEntity()).thenReturn(hasEntity);
+        return response;
+    }
+
+    private WriterInterceptorContext writer(OutputStream out, byte[] entity) throws Exception {
+        WriterInterceptorContext context = mock(WriterInterceptorContext.class);
+        OutputStream[] current = { out };
+        when(context.getOutputStream()).thenAnswer(invocation -> current[0]);
+        doAnswer(invocation -> current[0] = (OutputStream) invocation.getArguments()[0]).when(context)
+                .setOutputStream(any(OutputStream.class));
+        doAnswer(invocation -> {
+            current[0].write(entity);
+            return null;
+        }).when(context).proceed();
+        when(context.getProperty(anyString()))
+                .thenAnswer(invocation -> this.properties.get(invocation.getArguments()[0]));
+        doAnswer(invocation -> this.properties.remove(invocation.getArguments()[0])).when(context)
+                .removeProperty(anyString());
+        return context;
+    }
+
+    @Test
+    public void testResponseWithEntity() throws Exception {
+        this.filter.filter(this.request);
+        this.filter.filter(this.request, response(200, true));
+        // not complete before the entity has been written
+        assertEquals(0, this.metrics.timer(MetricRegistry.name(NAME, "requests")).getCount());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.filter.aroundWriteTo(this.writer(out, new byte[1234]));
+        assertEquals(1234, out.size());
+        assertEquals(1, this.metrics.timer(MetricRegistry.name(NAME, "requests")).getCount());
+        assertEquals(1234, this.metrics.histogram(MetricRegistry.name(NAME, "response-size")).getSnapshot().getMax());
+        assertEquals(0, this.metrics.meter(MetricRegistry.name(NAME, "4xx-responses")).getCount());
+        assertEquals(0, this.metrics.meter(MetricRegistry.name(NAME, "5xx-responses")).getCount());
+    }
+
+    @Test
+    public void testErrorResponses() throws Exception {
+        this.filter.filter(this.request);
+        this.filter.filter(this.request, response(404, false));
+        this.filter.filter(this.request);
+        this.filter.filter(this.request, response(401, false));
+        this.filter.filter(this.request);
+        this.filter.filter(this.request, response(500, true));
+        this.filter.aroundWriteTo(this.writer(new ByteArrayOutputStream(), new byte[10]));
+
+        assertEquals(3, this.metrics.timer(MetricRegistry.name(NAME, "requests")).getCount());
+        assertEquals(2, this.metrics.meter(MetricRegistry.name(NAME, "4xx-responses")).getCount());
+        assertEquals(1, this.metrics.meter(MetricRegistry.name(NAME, "5xx-responses")).getCount());
+    }
+
+    @Test
+    public void testNotStarted() throws Exception {
+        // e.g. a request aborted by a filter running before this one
+        this.filter.filter(this.request, response(401, false));
+        this.filter.aroundWriteTo(this.writer(new ByteArrayOutputStream(), new byte[10]));
+        assertEquals(0, this.metrics.timer(MetricRegistry.name(NAME, "requests")).getCount());
+    }
+
+    @Test
+    public void testConfigure() throws Exception {
+        MetricRegistry registry = new MetricRegistry();
+        EndpointMetrics feature = new EndpointMetrics(registry, 1000);
+        ResourceInfo resourceInfo = mock(ResourceInfo.class);
+        doAnswer(invocation -> EventsResource.class).when(resourceInfo).getResourceClass();
+        when(resourceInfo.getResourceMethod()).thenReturn(EventsResource.class.getMethod("getEvent", int.class));
+        FeatureContext context = mock(FeatureContext.class);
+        feature.configure(resourceInfo, context);
+        verify(context).register(any(EndpointMetrics.Filter.class), eq(EndpointMetrics.PRIORITY));
+        assertEquals(1, registry.getTimers().size());
+        assertEquals(NAME + ".requests", registry.getTimers().firstKey());
+
+        // e.g. the OPTIONS handlers generated by Jersey
+        FeatureContext other = mock(FeatureContext.class);
+        feature.configure(mock(ResourceInfo.class), other);
+        verify(other, never()).register(any(Object.class), anyInt());
+    }
+}
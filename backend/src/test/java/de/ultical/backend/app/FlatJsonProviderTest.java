@@ -0,0 +1,79 @@
+package de.ultical.backend.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.ws.rs.core.MediaType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.ultical.backend.model.Club;
+import de.ultical.backend.model.Team;
+import io.dropwizard.jackson.Jackson;
+
+public class FlatJsonProviderTest {
+
+    private ObjectMapper objectMapper;
+    private FlatJsonProvider provider;
+    private List<Team> teams;
+
+    @Before
+    public void setUp() {
+        this.objectMapper = Jackson.newObjectMapper();
+        this.provider = new FlatJsonProvider(this.objectMapper);
+
+        Club club = new Club();
+        club.setId(42);
+        club.setName("Frisbee Club");
+        this.teams = Arrays.asList(this.buildTeam(1, "Goldfingers", club), this.buildTeam(2, "WallCity", club));
+    }
+
+    private Team buildTeam(int id, String name, Club club) {
+        Team team = new Team();
+        team.setId(id);
+        team.setName(name);
+        team.setClub(club);
+        return team;
+    }
+
+    @Test
+    public void testWritesWithoutIdentityInformation() throws Exception {
+        String jsog = this.objectMapper.writeValueAsString(this.teams);
+        assertTrue(jsog.contains("@id"));
+        assertTrue(jsog.contains("@ref"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.provider.writeTo(this.teams, List.class, new TypeReference<List<Team>>() {
+        }.getType(), new Annotation[0], FlatJsonProvider.FLAT_JSON_TYPE, null, out);
+        String flat = out.toString("UTF-8");
+        assertFalse(flat.contains("@id"));
+        assertFalse(flat.contains("@ref"));
+
+        // the shared club is written for both teams
+        JsonNode result = this.objectMapper.readTree(flat);
+        assertEquals(2, result.size());
+        for (JsonNode team : result) {
+            assertEquals("Frisbee Club", team.get("club").get("name").asText());
+        }
+        assertEquals("WallCity", result.get(1).get("name").asText());
+    }
+
+    @Test
+    public void testIsWriteableForFlatJsonOnly() {
+        assertTrue(this.provider.isWriteable(List.class, List.class, new Annotation[0],
+                FlatJsonProvider.FLAT_JSON_TYPE));
+        assertFalse(this.provider.isWriteable(List.class, List.class, new Annotation[0],
+                MediaType.APPLICATION_JSON_TYPE));
+    }
+}
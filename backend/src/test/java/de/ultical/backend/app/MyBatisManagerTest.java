@@ -0,0 +1,239 @@
+package de.ultical.backend.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import de.ultical.backend.api.transferClasses.DfvMvName;
+import de.ultical.backend.data.ChangeGenerations;
+import de.ultical.backend.data.ChangeLogEntry;
+import de.ultical.backend.data.mapper.ChangeLogMapper;
+import de.ultical.backend.data.mapper.DfvMvNameMapper;
+import de.ultical.backend.data.mapper.SeasonMapper;
+import de.ultical.backend.model.Season;
+import de.ultical.backend.model.Surface;
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.database.core.DerbyDatabase;
+import liquibase.database.jvm.DerbyConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+
+/**
+ * Uses two independent embedded databases to check that the sessions provided
+ * by the {@link MyBatisManager} read from the replica until they write, open
+ * their connections lazily, switch executor types and append to the change
+ * log.
+ */
+public class MyBatisManagerTest {
+
+    private static final String PRIMARY = "memory:primary";
+    private static final String REPLICA = "memory:replica";
+
+    private static EmbeddedDataSource primaryDs;
+    private static EmbeddedDataSource replicaDs;
+
+    @BeforeClass
+    public static void setUpDatabases() throws Exception {
+        primaryDs = createDatabase(PRIMARY);
+        replicaDs = createDatabase(REPLICA);
+    }
+
+    private static EmbeddedDataSource createDatabase(String name) throws Exception {
+        EmbeddedDataSource ds = new EmbeddedDataSource();
+        ds.setDatabaseName(name);
+        ds.setCreateDatabase("create");
+
+        DerbyDatabase derbyDatabase = new DerbyDatabase();
+        derbyDatabase.setConnection(new DerbyConnection(ds.getConnection()));
+        new Liquibase("database/db.changelog-1.0.xml", new ClassLoaderResourceAccessor(), derbyDatabase)
+                .update((Contexts) null);
+        return ds;
+    }
+
+    @AfterClass
+    public static void dropDatabases() throws Exception {
+        for (String name : new String[] { PRIMARY, REPLICA }) {
+            try {
+                DriverManager.getConnection("jdbc:derby:" + name + ";drop=true");
+            } catch (SQLException dropEx) {
+                // derby signals a successful drop with this SQLState
+                if (!"08006".equals(dropEx.getSQLState())) {
+                    throw dropEx;
+                }
+            }
+        }
+    }
+
+    private static Season buildSeason(int year) {
+        Season season = new Season();
+        season.setYear(year);
+        season.setSurface(Surface.TURF);
+        return season;
+    }
+
+    private static List<Integer> years(SqlSession session) {
+        return session.getMapper(SeasonMapper.class).getAll().stream().map(Season::getYear).sorted()
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testReadYourWrites() throws Exception {
+        MyBatisManager primaryOnly = new MyBatisManager(primaryDs);
+        primaryOnly.start();
+        MyBatisManager replicaOnly = new MyBatisManager(replicaDs);
+        replicaOnly.start();
+        // different content, so we can tell where a select went
+        try (SqlSession session = primaryOnly.provide()) {
+            session.getMapper(SeasonMapper.class).insert(buildSeason(2001));
+            session.commit();
+        }
+        try (SqlSession session = replicaOnly.provide()) {
+            session.getMapper(SeasonMapper.class).insert(buildSeason(1999));
+            session.commit();
+        }
+
+        MyBatisManager routing = new MyBatisManager(primaryDs, replicaDs, null);
+        routing.start();
+        try (SqlSession session = routing.provide()) {
+            assertTrue(session instanceof RoutingSqlSession);
+            RoutingSqlSession routingSession = (RoutingSqlSession) session;
+
+            assertEquals(1, years(session).size());
+            assertEquals(Integer.valueOf(1999), years(session).get(0));
+            assertFalse(routingSession.isReadingFromPrimary());
+
+            session.getMapper(SeasonMapper.class).insert(buildSeason(2002));
+            assertTrue(routingSession.isReadingFromPrimary());
+            // the uncommitted insert is visible
+            List<Integer> years = years(session);
+            assertEquals(2, years.size());
+            assertEquals(Integer.valueOf(2001), years.get(0));
+            assertEquals(Integer.valueOf(2002), years.get(1));
+            session.commit();
+        }
+
+        // a new session starts on the replica again, the write went to the
+        // primary only
+        try (SqlSession session = routing.provide()) {
+            assertEquals(1, years(session).size());
+        }
+        // unless it is asked to read from the primary right away
+        try (SqlSession session = routing.providePrimary()) {
+            assertEquals(2, years(session).size());
+        }
+        try (SqlSession session = primaryOnly.provide()) {
+            assertTrue(((RoutingSqlSession) session).isReadingFromPrimary());
+            assertEquals(2, years(session).size());
+        }
+    }
+
+    @Test
+    public void testConnectionIsHeldOnlyWhenUsed() throws Exception {
+        MetricRegistry metrics = new MetricRegistry();
+        MyBatisManager manager = new MyBatisManager(primaryDs, replicaDs, metrics);
+        manager.start();
+        Timer writeHold = metrics.timer(MetricRegistry.name(MyBatisManager.class, "connection-hold", "write"));
+        Timer readHold = metrics.timer(MetricRegistry.name(MyBatisManager.class, "connection-hold", "read"));
+
+        // a session that is never used does not touch the database
+        SqlSession unused = manager.provide();
+        unused.getMapper(SeasonMapper.class);
+        unused.close();
+        assertEquals(0, writeHold.getCount());
+        assertEquals(0, readHold.getCount());
+
+        SqlSession session = manager.provide();
+        years(session);
+        session.close();
+        assertEquals(0, writeHold.getCount());
+        assertEquals(1, readHold.getCount());
+
+        // the session may be used again after it has been closed
+        session.getMapper(SeasonMapper.class).insert(buildSeason(1980));
+        session.rollback();
+        session.close();
+        assertEquals(1, writeHold.getCount());
+    }
+
+    @Test
+    public void testChangeLog() throws Exception {
+        MyBatisManager manager = new MyBatisManager(primaryDs);
+        manager.start();
+        manager.setChangeGenerations(new ChangeGenerations());
+        manager.setChangeLogOrigin("node-a");
+        long lastId;
+        try (SqlSession session = manager.provide()) {
+            Long last = session.getMapper(ChangeLogMapper.class).getLastId();
+            lastId = last != null ? last : 0;
+
+            session.getMapper(SeasonMapper.class).insert(buildSeason(1970));
+            session.rollback();
+            Season season = buildSeason(1971);
+            session.getMapper(SeasonMapper.class).insert(season);
+            session.commit();
+
+            List<ChangeLogEntry> entries = session.getMapper(ChangeLogMapper.class).getAfter(lastId);
+            assertEquals(1, entries.size());
+            assertEquals("node-a", entries.get(0).getOrigin());
+            assertEquals("SEASON", entries.get(0).getTableName());
+
+            // the other tests count the seasons
+            session.getMapper(SeasonMapper.class).delete(season);
+            session.commit();
+        }
+    }
+
+    @Test
+    public void testExecutorType() throws Exception {
+        MyBatisManager manager = new MyBatisManager(primaryDs);
+        manager.start();
+        try (SqlSession session = manager.provide()) {
+            RoutingSqlSession routingSession = (RoutingSqlSession) session;
+            routingSession.setExecutorType(ExecutorType.BATCH);
+            DfvMvNameMapper mapper = session.getMapper(DfvMvNameMapper.class);
+            for (int dfvNumber = 1; dfvNumber <= 3; dfvNumber++) {
+                DfvMvName name = new DfvMvName();
+                name.setDfvnr(dfvNumber);
+                name.setFirstName("First");
+                name.setLastName("Last");
+                name.setLastModified(LocalDateTime.now());
+                mapper.insert(name);
+            }
+            try {
+                routingSession.setExecutorType(ExecutorType.SIMPLE);
+                fail("switching within a transaction must not be possible");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+
+            // all inserts have been sent as one batch
+            List<BatchResult> results = session.flushStatements();
+            assertEquals(1, results.size());
+            assertEquals(3, results.get(0).getUpdateCounts().length);
+            assertEquals(3, mapper.getAll().size());
+            session.rollback();
+
+            routingSession.setExecutorType(ExecutorType.SIMPLE);
+            assertEquals(ExecutorType.SIMPLE, routingSession.getExecutorType());
+            assertEquals(0, mapper.getAll().size());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package de.ultical.backend.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response.Status;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.MDC;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.dropwizard.util.Duration;
+
+public class OutboundCallExecutorTest {
+
+    private MetricRegistry metrics;
+    private OutboundCallExecutor executor;
+
+    @Before
+    public void setUp() {
+        UltiCalConfig.OutboundCallsConfig config = new UltiCalConfig.OutboundCallsConfig();
+        config.setThreads(1);
+        config.setQueueSize(1);
+        config.setTimeout(Duration.seconds(30));
+        config.setRetryAfter(Duration.seconds(7));
+        this.metrics = new MetricRegistry();
+        this.executor = new OutboundCallExecutor(config, this.metrics);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.executor.stop();
+    }
+
+    @Test
+    public void testResume() {
+        AsyncResponse response = mock(AsyncResponse.class);
+        this.executor.submit(response, () -> "result");
+        verify(response, timeout(5000)).resume("result");
+        verify(response).setTimeout(30000, TimeUnit.MILLISECONDS);
+
+        AsyncResponse failing = mock(AsyncResponse.class);
+        WebApplicationException notFound = new WebApplicationException(Status.NOT_FOUND);
+        this.executor.submit(failing, () -> {
+            throw notFound;
+        });
+        verify(failing, timeout(5000)).resume(notFound);
+    }
+
+    @Test
+    public void testLogContext() {
+        AsyncResponse response = mock(AsyncResponse.class);
+        MDC.put("requestId", "abc");
+        try {
+            this.executor.submit(response, () -> MDC.get("requestId"));
+        } finally {
+            MDC.remove("requestId");
+        }
+        verify(response, timeout(5000)).resume("abc");
+
+        // not left on the thread of the pool
+        AsyncResponse next = mock(AsyncResponse.class);
+        this.executor.submit(next, () -> String.valueOf(MDC.get("requestId")));
+        verify(next, timeout(5000)).resume("null");
+    }
+
+    @Test
+    public void testRejectWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        // occupy the only thread and the only queue slot
+        this.executor.submit(mock(AsyncResponse.class), () -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        this.executor.submit(mock(AsyncResponse.class), () -> true);
+
+        AsyncResponse rejected = mock(AsyncResponse.class);
+        this.executor.submit(rejected, () -> true);
+        ArgumentCaptor<Throwable> captor = ArgumentCaptor.forClass(Throwable.class);
+        verify(rejected).resume(captor.capture());
+        assertTrue(captor.getValue() instanceof ServiceUnavailableException);
+        assertEquals("7", ((ServiceUnavailableException) captor.getValue()).getResponse().getHeaderString(
+                HttpHeaders.RETRY_AFTER));
+        assertEquals(1, this.metrics.meter(MetricRegistry.name(OutboundCallExecutor.class, "rejected")).getCount());
+        release.countDown();
+    }
+
+    @Test
+    public void testTimeoutCancelsHandler() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AsyncResponse response = mock(AsyncResponse.class);
+        this.executor.submit(response, () -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled.set(true);
+                interrupted.countDown();
+            }
+            return true;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // what the container does once the timeout has passed
+        ArgumentCaptor<TimeoutHandler> handler = ArgumentCaptor.forClass(TimeoutHandler.class);
+        verify(response).setTimeoutHandler(handler.capture());
+        handler.getValue().handleTimeout(response);
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(cancelled.get());
+        ArgumentCaptor<Throwable> captor = ArgumentCaptor.forClass(Throwable.class);
+        verify(response).resume(captor.capture());
+        assertEquals(Status.GATEWAY_TIMEOUT.getStatusCode(),
+                ((WebApplicationException) captor.getValue()).getResponse().getStatus());
+        assertEquals(1, this.metrics.meter(MetricRegistry.name(OutboundCallExecutor.class, "timeouts")).getCount());
+    }
+
+    @Test
+    public void testSkipTimedOutInQueue() throws Exception {
+        AsyncResponse response = mock(AsyncResponse.class);
+        when(response.isDone()).thenReturn(true);
+        AtomicBoolean called = new AtomicBoolean();
+        this.executor.submit(response, () -> called.getAndSet(true));
+        // wait for the task by a second one behind it
+        CountDownLatch done = new CountDownLatch(1);
+        this.executor.submit(mock(AsyncResponse.class), () -> {
+            done.countDown();
+            return true;
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        verify(response, never()).resume(any(Object.class));
+        assertFalse(called.get());
+        verify(response).setTimeout(anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testInvokeAll() throws Exception {
+        // more calls than the pool has room for, the rest is run by the caller
+        List<Callable<Integer>> calls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final int value = i;
+            calls.add(() -> {
+                if (value == 3) {
+                    throw new IllegalStateException("failed");
+                }
+                return value * value;
+            });
+        }
+        List<Future<Integer>> results = this.executor.invokeAll(calls);
+        assertEquals(5, results.size());
+        assertEquals(Integer.valueOf(4), results.get(2).get());
+        assertEquals(Integer.valueOf(16), results.get(4).get());
+        try {
+            results.get(3).get();
+            fail("the failing call should not have a result");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(this.executor.invokeAll(Collections.<Callable<Integer>> emptyList()).isEmpty());
+    }
+}
@@ -0,0 +1,93 @@
+package de.ultical.backend.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.core.HttpHeaders;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.dropwizard.util.Duration;
+
+public class PasswordHasherTest {
+
+    private MetricRegistry metrics;
+    private PasswordHasher hasher;
+
+    @Before
+    public void setUp() {
+        UltiCalConfig.PasswordHashingConfig config = new UltiCalConfig.PasswordHashingConfig();
+        config.setThreads(1);
+        config.setQueueSize(1);
+        // the minimum, so the test is fast
+        config.setCost(4);
+        config.setRetryAfter(Duration.seconds(3));
+        this.metrics = new MetricRegistry();
+        this.hasher = new PasswordHasher(config, this.metrics);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.hasher.stop();
+    }
+
+    @Test
+    public void testHashAndCheck() {
+        String hash = this.hasher.hash("PasswordLongEnough");
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(this.hasher.check("PasswordLongEnough", hash));
+        assertFalse(this.hasher.check("wrong password", hash));
+        // hashes of a different cost can still be checked
+        assertTrue(this.hasher.check("test", BCrypt.hashpw("test", BCrypt.gensalt(5))));
+
+        assertEquals(1, this.metrics.timer(MetricRegistry.name(PasswordHasher.class, "hash")).getCount());
+        assertEquals(3, this.metrics.timer(MetricRegistry.name(PasswordHasher.class, "check")).getCount());
+        assertEquals(4, this.metrics.timer(MetricRegistry.name(PasswordHasher.class, "queue")).getCount());
+    }
+
+    @Test
+    public void testRejectWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        // occupy the only thread and the only queue slot
+        this.hasher.getExecutor().execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        this.hasher.getExecutor().execute(() -> {
+            // NOP
+        });
+
+        try {
+            this.hasher.hash("PasswordLongEnough");
+            fail("the request must be rejected right away");
+        } catch (ServiceUnavailableException e) {
+            assertEquals(503, e.getResponse().getStatus());
+            assertEquals("3", e.getResponse().getHeaderString(HttpHeaders.RETRY_AFTER));
+        } finally {
+            release.countDown();
+        }
+        assertEquals(1, this.metrics.meter(MetricRegistry.name(PasswordHasher.class, "rejected")).getCount());
+    }
+
+    @Test
+    public void testMeasure() {
+        assertTrue(PasswordHasher.measure(4, 3) >= 0);
+    }
+}
@@ -0,0 +1,56 @@
+package de.ultical.backend.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.Test;
+
+public class ResponseCacheTest {
+
+    @Test
+    public void testAcceptsGzip() {
+        assertTrue(ResponseCache.acceptsGzip("gzip, deflate, br"));
+        assertTrue(ResponseCache.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(ResponseCache.acceptsGzip("*"));
+        assertFalse(ResponseCache.acceptsGzip(null));
+        assertFalse(ResponseCache.acceptsGzip("deflate"));
+        assertFalse(ResponseCache.acceptsGzip("gzip;q=0, identity"));
+        assertFalse(ResponseCache.acceptsGzip("gzip; q=0.0"));
+    }
+
+    private static ContainerRequestContext request(String path, MultivaluedMap<String, String> query, String accept) {
+        UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getPath()).thenReturn(path);
+        when(uriInfo.getQueryParameters()).thenReturn(query);
+        ContainerRequestContext request = mock(ContainerRequestContext.class);
+        when(request.getUriInfo()).thenReturn(uriInfo);
+        when(request.getHeaderString(HttpHeaders.ACCEPT)).thenReturn(accept);
+        return request;
+    }
+
+    @Test
+    public void testBuildKey() {
+        MultivaluedMap<String, String> query = new MultivaluedHashMap<>();
+        query.add("to", "2026-12-31");
+        query.add("from", "2026-01-01");
+        MultivaluedMap<String, String> reordered = new MultivaluedHashMap<>();
+        reordered.add("from", "2026-01-01");
+        reordered.add("to", "2026-12-31");
+
+        String key = ResponseCache.buildKey(request("events/basics", query, "application/json"));
+        assertEquals("events/basics?from=2026-01-01&to=2026-12-31 application/json", key);
+        assertEquals(key, ResponseCache.buildKey(request("events/basics", reordered, "application/json")));
+        // the flat variant is a different response
+        assertFalse(key.equals(
+                ResponseCache.buildKey(request("events/basics", reordered, FlatJsonProvider.FLAT_JSON))));
+    }
+}
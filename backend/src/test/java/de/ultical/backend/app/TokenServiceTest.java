@@ -0,0 +1,98 @@
+package de.ultical.backend.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.ultical.backend.model.User;
+
+public class TokenServiceTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+    private TokenService tokenService;
+    private User user;
+
+    @Before
+    public void setUp() {
+        this.tokenService = new TokenService(SECRET, Duration.ofHours(1), null, Clock.fixed(NOW, ZoneOffset.UTC));
+        this.user = new User();
+        this.user.setId(42);
+        this.user.setEmail("test.user@ultical.de");
+        this.user.setTokenVersion(3);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        String token = this.tokenService.issue(this.user);
+        TokenService.Claims claims = this.tokenService.verify(token);
+        assertNotNull(claims);
+        assertEquals(42, claims.getUserId());
+        assertEquals("test.user@ultical.de", claims.getEmail());
+        assertEquals(3, claims.getVersion());
+        assertEquals(NOW.plus(Duration.ofHours(1)).getEpochSecond(), claims.getExpiresAt());
+
+        Optional<User> authenticated = this.tokenService.authenticate(token);
+        assertTrue(authenticated.isPresent());
+        assertEquals(42, authenticated.get().getId());
+        assertEquals("test.user@ultical.de", authenticated.get().getEmail());
+    }
+
+    @Test
+    public void testTamperedToken() {
+        String token = this.tokenService.issue(this.user);
+        // claim to be another user
+        String forged = token.replaceFirst("^v1\\.42\\.", "v1.1.");
+        assertNull(this.tokenService.verify(forged));
+        assertNull(this.tokenService.verify(token.substring(0, token.length() - 2)));
+        assertNull(this.tokenService.verify("garbage"));
+        assertNull(this.tokenService.verify("v1.x.y.z.!!!.???"));
+        assertNull(this.tokenService.verify(null));
+
+        TokenService otherSecret = new TokenService("another secret, at least 32 bytes".getBytes(StandardCharsets.UTF_8),
+                Duration.ofHours(1), null, Clock.fixed(NOW, ZoneOffset.UTC));
+        assertNull(otherSecret.verify(token));
+    }
+
+    @Test
+    public void testExpiry() {
+        String token = this.tokenService.issue(this.user);
+        TokenService later = new TokenService(SECRET, Duration.ofHours(1), null,
+                Clock.fixed(NOW.plus(Duration.ofHours(1)), ZoneOffset.UTC));
+        assertNull(later.verify(token));
+        assertFalse(later.authenticate(token).isPresent());
+    }
+
+    @Test
+    public void testRevocation() {
+        String token = this.tokenService.issue(this.user);
+        this.tokenService.revoke(42, 3);
+        assertNotNull(this.tokenService.verify(token));
+        this.tokenService.revoke(42, 4);
+        assertNull(this.tokenService.verify(token));
+        // an older revocation does not lift a newer one
+        this.tokenService.revoke(42, 2);
+        assertNull(this.tokenService.verify(token));
+
+        this.user.setTokenVersion(4);
+        assertNotNull(this.tokenService.verify(this.tokenService.issue(this.user)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShortSecret() {
+        new TokenService("too short".getBytes(StandardCharsets.UTF_8), Duration.ofHours(1), null);
+    }
+}
@@ -0,0 +1,56 @@
+package de.ultical.backend.app.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.slf4j.MDC;
+
+public class UlticalLoggingFilterTest {
+
+    @Test
+    public void testRequestId() {
+        assertEquals("4f1c2a-proxy.7", UlticalLoggingFilter.requestId("4f1c2a-proxy.7"));
+        // generated if missing or not fit for the log
+        UUID.fromString(UlticalLoggingFilter.requestId(null));
+        UUID.fromString(UlticalLoggingFilter.requestId(""));
+        UUID.fromString(UlticalLoggingFilter.requestId("abc\ninjected"));
+        assertFalse(UlticalLoggingFilter.requestId(null).equals(UlticalLoggingFilter.requestId(null)));
+    }
+
+    @Test
+    public void testDoFilter() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader(UlticalLoggingFilter.REQUEST_ID_HEADER)).thenReturn("abc");
+        when(request.getRemoteAddr()).thenReturn("192.0.2.1");
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        FilterChain chain = mock(FilterChain.class);
+        String[] seen = new String[2];
+        doAnswer(invocation -> {
+            seen[0] = MDC.get(UlticalLoggingFilter.MDC_KEY_REQUEST_ID);
+            seen[1] = MDC.get(UlticalLoggingFilter.MDC_KEY_REMOTE_IP);
+            return null;
+        }).when(chain).doFilter(request, response);
+
+        new UlticalLoggingFilter().doFilter((ServletRequest) request, (ServletResponse) response, chain);
+
+        assertEquals("abc", seen[0]);
+        assertEquals("192.0.2.1", seen[1]);
+        verify(response).setHeader(UlticalLoggingFilter.REQUEST_ID_HEADER, "abc");
+        assertNull(MDC.get(UlticalLoggingFilter.MDC_KEY_REQUEST_ID));
+        assertNull(MDC.get(UlticalLoggingFilter.MDC_KEY_REMOTE_IP));
+    }
+}
@@ -0,0 +1,143 @@
+package de.ultical.backend.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.CacheBuilderSpec;
+
+import de.ultical.backend.app.MyBatisManager;
+import de.ultical.backend.app.TokenService;
+import de.ultical.backend.data.mapper.UserMapper;
+import de.ultical.backend.model.User;
+import io.dropwizard.auth.AuthenticationException;
+import io.dropwizard.auth.Authenticator;
+import io.dropwizard.auth.CachingAuthenticator;
+import io.dropwizard.auth.basic.BasicCredentials;
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.database.core.DerbyDatabase;
+import liquibase.database.jvm.DerbyConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+
+/**
+ * Compares the authentication of a request by a session token with basic auth,
+ * once answered by the {@link CachingAuthenticator} and once looked up in the
+ * database as on a cache miss. The database is an embedded one, so a real
+ * database adds its network round trip to the uncached case.
+ * <p>
+ * Not run by surefire, start it using the main method.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+    private static final String DB_NAME = "memory:authbenchmark";
+    private static final String EMAIL = "benchmark@ultical.de";
+    // basic auth sends the stored hash as password
+    private static final String PASSWORD_HASH = "$2a$10$QdZ62bMi4Lktyj0gz3cayOMZmWEm4vq3bm4rRz5/T9/amD3tgI/nW";
+
+    private TokenService tokenService;
+    private String token;
+    private Authenticator<BasicCredentials, User> databaseAuthenticator;
+    private CachingAuthenticator<BasicCredentials, User> cachingAuthenticator;
+    private BasicCredentials credentials;
+
+    @Setup
+    public void setUp() throws Exception {
+        EmbeddedDataSource ds = new EmbeddedDataSource();
+        ds.setDatabaseName(DB_NAME);
+        ds.setCreateDatabase("create");
+        DerbyDatabase derbyDatabase = new DerbyDatabase();
+        derbyDatabase.setConnection(new DerbyConnection(ds.getConnection()));
+        new Liquibase("database/db.changelog-1.0.xml", new ClassLoaderResourceAccessor(), derbyDatabase)
+                .update((Contexts) null);
+        try (Connection connection = ds.getConnection();
+                PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO ULTICAL_USER (email, password, email_confirmed, dfv_email_opt_in) VALUES (?, ?, true, true)")) {
+            insert.setString(1, EMAIL);
+            insert.setString(2, PASSWORD_HASH);
+            insert.executeUpdate();
+        }
+
+        MyBatisManager mbm = new MyBatisManager(ds);
+        mbm.start();
+        // the same lookup as the authenticator of the application
+        this.databaseAuthenticator = basicCredentials -> {
+            try (SqlSession session = mbm.provide()) {
+                User user = session.getMapper(UserMapper.class).getByEmail(basicCredentials.getUsername());
+                if (user != null && user.getPassword().equals(basicCredentials.getPassword())) {
+                    return Optional.of(user);
+                }
+                return Optional.empty();
+            }
+        };
+        MetricRegistry metrics = new MetricRegistry();
+        this.cachingAuthenticator = new CachingAuthenticator<>(metrics, this.databaseAuthenticator,
+                CacheBuilderSpec.parse("maximumSize = 1000"));
+        this.credentials = new BasicCredentials(EMAIL, PASSWORD_HASH);
+
+        this.tokenService = new TokenService("benchmark secret of at least 32 bytes".getBytes(StandardCharsets.UTF_8),
+                Duration.ofHours(1), metrics);
+        User user = this.databaseAuthenticator.authenticate(this.credentials).get();
+        this.token = this.tokenService.issue(user);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try {
+            DriverManager.getConnection("jdbc:derby:" + DB_NAME + ";drop=true");
+        } catch (SQLException dropEx) {
+            // derby signals a successful drop with an exception
+        }
+    }
+
+    @Benchmark
+    public Optional<User> token() throws AuthenticationException {
+        return this.tokenService.authenticate(this.token);
+    }
+
+    @Benchmark
+    public Optional<User> basicCached() throws AuthenticationException {
+        return this.cachingAuthenticator.authenticate(this.credentials);
+    }
+
+    @Benchmark
+    public Optional<User> basicUncached() throws AuthenticationException {
+        return this.databaseAuthenticator.authenticate(this.credentials);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(AuthenticationBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
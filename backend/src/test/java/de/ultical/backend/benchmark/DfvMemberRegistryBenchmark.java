@@ -0,0 +1,168 @@
+package de.ultical.backend.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import de.ultical.backend.api.transferClasses.DfvMvName;
+import de.ultical.backend.data.DfvMemberRegistry;
+import de.ultical.backend.model.Club;
+
+/**
+ * Compares lookups by DFV number in the {@link DfvMemberRegistry} with a
+ * <code>HashMap&lt;Integer, DfvMvName&gt;</code> holding the same members.
+ * Both are answered in memory, a lookup in the database adds a round trip of
+ * about a millisecond to either.
+ * <p>
+ * Not run by surefire, start it using the main method, which prints the heap
+ * taken by both structures first.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DfvMemberRegistryBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    // keeps the measured structure reachable
+    private static volatile Object retained;
+
+    @Param({ "50000" })
+    public int memberCount;
+
+    private DfvMemberRegistry registry;
+    private Map<Integer, DfvMvName> hashMap;
+    private int[] dfvNumbers;
+    private int next;
+
+    static List<Club> buildClubs() {
+        List<Club> clubs = new ArrayList<>();
+        for (int i = 1; i <= 400; i++) {
+            Club club = new Club();
+            club.setId(i);
+            club.setName("Club " + i);
+            clubs.add(club);
+        }
+        return clubs;
+    }
+
+    static List<DfvMvName> buildMembers(int count) {
+        Random random = new Random(42);
+        LocalDateTime modified = LocalDateTime.of(2026, 1, 1, 0, 0);
+        List<DfvMvName> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DfvMvName member = new DfvMvName();
+            // the DFV numbers are sparse
+            member.setDfvNumber(100000 + i * 7 + random.nextInt(7));
+            member.setFirstName("Vorname" + random.nextInt(5000));
+            member.setLastName("Nachname" + random.nextInt(20000));
+            member.setDse(random.nextBoolean());
+            member.setVnr(1 + random.nextInt(400));
+            member.setLastModified(modified.plusMinutes(random.nextInt(500000)));
+            members.add(member);
+        }
+        return members;
+    }
+
+    @Setup
+    public void setUp() {
+        List<DfvMvName> members = buildMembers(this.memberCount);
+        this.registry = new DfvMemberRegistry(null);
+        this.registry.rebuild(members, buildClubs());
+        this.hashMap = new HashMap<>();
+        members.forEach(member -> this.hashMap.put(member.getDfvNumber(), member));
+
+        Random random = new Random(7);
+        this.dfvNumbers = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            // one in four is not a member
+            this.dfvNumbers[i] = i % 4 == 0 ? random.nextInt(100000)
+                    : members.get(random.nextInt(members.size())).getDfvNumber();
+        }
+    }
+
+    private int nextNumber() {
+        this.next = (this.next + 1) & (LOOKUPS - 1);
+        return this.dfvNumbers[this.next];
+    }
+
+    @Benchmark
+    public DfvMvName registryGet() {
+        return this.registry.get(this.nextNumber());
+    }
+
+    @Benchmark
+    public boolean registryContains() {
+        return this.registry.contains(this.nextNumber());
+    }
+
+    @Benchmark
+    public DfvMvName hashMapGet() {
+        return this.hashMap.get(this.nextNumber());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return the heap retained by the structure in bytes, measured by the
+     *         difference of the used heap, so it is only an estimate.
+     */
+    private static long footprint(Supplier<Object> structure) {
+        long before = usedHeap();
+        retained = structure.get();
+        long after = usedHeap();
+        retained = null;
+        return after - before;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int count = 50000;
+        long registryBytes = footprint(() -> {
+            DfvMemberRegistry registry = new DfvMemberRegistry(null);
+            registry.rebuild(buildMembers(count), Collections.emptyList());
+            return registry;
+        });
+        long hashMapBytes = footprint(() -> {
+            Map<Integer, DfvMvName> map = new HashMap<>();
+            buildMembers(count).forEach(member -> map.put(member.getDfvNumber(), member));
+            return map;
+        });
+        System.out.println(String.format("%d members: registry %,d bytes, HashMap %,d bytes", count, registryBytes,
+                hashMapBytes));
+
+        Options options = new OptionsBuilder().include(DfvMemberRegistryBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
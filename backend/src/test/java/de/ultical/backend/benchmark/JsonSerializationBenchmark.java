@@ -0,0 +1,132 @@
+package de.ultical.backend.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import de.ultical.backend.app.FlatJsonProvider;
+import de.ultical.backend.model.Association;
+import de.ultical.backend.model.Club;
+import de.ultical.backend.model.Location;
+import de.ultical.backend.model.Team;
+import io.dropwizard.jackson.Jackson;
+
+/**
+ * Compares the default JSOG serialization of the team basics listing with the
+ * flat variant written by {@link FlatJsonProvider}.
+ * <p>
+ * Not run by surefire, start it using the main method. The
+ * {@link GCProfiler} reports the allocation rate per operation
+ * (<code>gc.alloc.rate.norm</code>).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private static final OutputStream NULL_STREAM = new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+        }
+    };
+
+    @Param({ "100", "1000" })
+    public int teamCount;
+
+    private List<Team> teams;
+    private ObjectWriter jsogWriter;
+    private ObjectWriter flatWriter;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson.newObjectMapper();
+        TypeReference<List<Team>> listType = new TypeReference<List<Team>>() {
+        };
+        this.jsogWriter = objectMapper.writerFor(listType);
+        this.flatWriter = FlatJsonProvider.createFlatMapper(objectMapper).writerFor(listType);
+
+        Association association = new Association();
+        association.setId(1);
+        association.setName("Deutscher Frisbeesport-Verband");
+        association.setAcronym("DFV");
+
+        // like the mapper results, clubs are shared among teams
+        List<Club> clubs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Club club = new Club();
+            club.setId(i + 1);
+            club.setName("Club " + i);
+            club.setAssociation(association);
+            clubs.add(club);
+        }
+
+        this.teams = new ArrayList<>(this.teamCount);
+        for (int i = 0; i < this.teamCount; i++) {
+            Location location = new Location();
+            location.setId(i + 1);
+            location.setCity("City " + i);
+            location.setCountry("Germany");
+            location.setCountryCode("DE");
+            location.setLatitude(48 + i % 7);
+            location.setLongitude(7 + i % 8);
+
+            Team team = new Team();
+            team.setId(i + 1);
+            team.setVersion(1);
+            team.setName("Team " + i);
+            team.setFoundingDate(1990 + i % 30);
+            team.setUrl("https://team" + i + ".example.com");
+            team.setContactEmail("team" + i + "@example.com");
+            team.setLocation(location);
+            team.setClub(clubs.get(i % clubs.size()));
+            this.teams.add(team);
+        }
+    }
+
+    @Benchmark
+    public void jsog() throws IOException {
+        this.jsogWriter.writeValue(NULL_STREAM, this.teams);
+    }
+
+    @Benchmark
+    public void flat() throws IOException {
+        this.flatWriter.writeValue(NULL_STREAM, this.teams);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(JsonSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,68 @@
+package de.ultical.backend.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class ChangeGenerationsTest {
+
+    @Test
+    public void testModifiedTable() {
+        assertEquals("SEASON", ChangeGenerations.modifiedTable("INSERT INTO SEASON (year) VALUES (?)"));
+        assertEquals("TEAM", ChangeGenerations.modifiedTable("  update Team SET name=? WHERE id=?"));
+        assertEquals("TEAM_ULTICAL_USERS",
+                ChangeGenerations.modifiedTable("DELETE FROM TEAM_ULTICAL_USERS\n WHERE team = ?"));
+        assertNull(ChangeGenerations.modifiedTable("SELECT * FROM TEAM"));
+        assertNull(ChangeGenerations.modifiedTable(null));
+    }
+
+    @Test
+    public void testIncrement() {
+        ChangeGenerations generations = new ChangeGenerations();
+        assertEquals(0, generations.get());
+        assertEquals(0, generations.get("SEASON", "TEAM"));
+
+        generations.increment(Arrays.asList("season", "CLUB"));
+        assertEquals(1, generations.get());
+        assertEquals(1, generations.get("SEASON"));
+        assertEquals(1, generations.get("SEASON", "TEAM"));
+        assertEquals(0, generations.get("TEAM"));
+
+        generations.increment(Collections.singleton("TEAM"));
+        assertEquals(2, generations.get());
+        assertEquals(2, generations.get("SEASON", "TEAM"));
+
+        // nothing changed, nothing to increment
+        generations.increment(Collections.emptySet());
+        assertEquals(2, generations.get());
+    }
+
+    @Test
+    public void testUnknownTable() {
+        ChangeGenerations generations = new ChangeGenerations();
+        generations.increment(Collections.singleton("SEASON"));
+        generations.increment(Collections.singleton(ChangeGenerations.UNKNOWN_TABLE));
+        assertEquals(2, generations.get());
+        assertEquals(1, generations.get("TEAM"));
+        assertEquals(2, generations.get("SEASON"));
+        assertEquals(2, generations.get("SEASON", "TEAM"));
+        assertEquals(1, generations.get(ChangeGenerations.UNKNOWN_TABLE));
+    }
+
+    @Test
+    public void testBookkeepingTables() {
+        ChangeGenerations generations = new ChangeGenerations();
+        generations.increment(Arrays.asList("JOB_LEASE", "job_run", "CHANGE_LOG", "DFV_SYNC_STATE"));
+        assertEquals(0, generations.get());
+        assertEquals(0, generations.get("JOB_LEASE"));
+
+        generations.increment(Arrays.asList("JOB_RUN", "EVENT"));
+        assertEquals(1, generations.get());
+        assertEquals(1, generations.get("EVENT"));
+        assertEquals(0, generations.get("JOB_RUN"));
+    }
+}
@@ -0,0 +1,115 @@
+package de.ultical.backend.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.ibatis.session.SqlSession;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import de.ultical.backend.data.mapper.ChangeLogMapper;
+import de.ultical.backend.utils.test.PrepareDBRule;
+
+public class ChangeLogPollerTest {
+
+    @ClassRule
+    public static PrepareDBRule RULE = new PrepareDBRule();
+
+    private static final String SELF = "node-a";
+    private static final String OTHER = "node-b";
+
+    private ChangeGenerations generations;
+    private MetricRegistry metrics;
+    private ChangeLogPoller poller;
+    private List<Set<String>> notified;
+
+    @Before
+    public void setUp() {
+        this.generations = new ChangeGenerations();
+        this.metrics = new MetricRegistry();
+        this.poller = new ChangeLogPoller(RULE::openSession, this.generations, SELF, Duration.ofSeconds(1),
+                Duration.ofHours(1), this.metrics);
+        this.notified = new ArrayList<>();
+        this.poller.addListener(this.notified::add);
+    }
+
+    private static ChangeLogEntry entry(long id, String origin, String table) {
+        ChangeLogEntry entry = new ChangeLogEntry();
+        entry.setId(id);
+        entry.setOrigin(origin);
+        entry.setTableName(table);
+        entry.setChangedAt(LocalDateTime.now());
+        return entry;
+    }
+
+    @Test
+    public void testApplyChangesOfOtherNodes() {
+        Set<String> tables = this.poller.apply(
+                Arrays.asList(entry(1, OTHER, "TEAM"), entry(2, SELF, "CLUB"), entry(3, OTHER, "TEAM")), 0);
+        assertEquals(Collections.singleton("TEAM"), tables);
+        assertEquals(1, this.generations.get("TEAM"));
+        // our own change has been applied on commit
+        assertEquals(0, this.generations.get("CLUB"));
+        assertEquals(1, this.notified.size());
+        assertEquals(3, this.poller.getLastId());
+        assertEquals(2, this.metrics.timer(MetricRegistry.name(ChangeLogPoller.class, "invalidation-lag")).getCount());
+
+        // nothing new
+        assertTrue(this.poller.apply(Arrays.asList(entry(3, OTHER, "TEAM")), 0).isEmpty());
+        assertEquals(1, this.notified.size());
+    }
+
+    @Test
+    public void testLateCommitsAreNotMissed() {
+        this.poller.apply(Arrays.asList(entry(1, OTHER, "TEAM"), entry(4, OTHER, "TEAM")), 0);
+        assertEquals(new HashSet<>(Arrays.asList(2L, 3L)), this.poller.getGaps());
+
+        // the transaction that got id 3 commits late
+        Set<String> tables = this.poller.apply(Arrays.asList(entry(3, OTHER, "SEASON"), entry(4, OTHER, "TEAM")),
+                1000);
+        assertEquals(Collections.singleton("SEASON"), tables);
+        assertEquals(Collections.singleton(2L), this.poller.getGaps());
+
+        // id 2 has been rolled back and is given up eventually
+        this.poller.apply(Collections.emptyList(), ChangeLogPoller.GAP_TIMEOUT_MILLIS + 1);
+        assertTrue(this.poller.getGaps().isEmpty());
+    }
+
+    @Test
+    public void testJumpsAreNotTracked() {
+        this.poller.apply(Arrays.asList(entry(ChangeLogPoller.MAX_GAPS + 10, OTHER, "TEAM")), 0);
+        assertTrue(this.poller.getGaps().isEmpty());
+        assertEquals(ChangeLogPoller.MAX_GAPS + 10, this.poller.getLastId());
+    }
+
+    @Test
+    public void testPoll() throws Exception {
+        this.poller.start();
+        try {
+            assertTrue(this.poller.poll().isEmpty());
+            try (SqlSession session = RULE.openSession()) {
+                ChangeLogMapper mapper = session.getMapper(ChangeLogMapper.class);
+                mapper.insert(OTHER, "EVENT", LocalDateTime.now());
+                mapper.insert(SELF, "TEAM", LocalDateTime.now());
+                session.commit();
+            }
+            assertEquals(Collections.singleton("EVENT"), this.poller.poll());
+            assertEquals(1, this.generations.get("EVENT"));
+            assertTrue(this.poller.poll().isEmpty());
+        } finally {
+            this.poller.stop();
+        }
+    }
+}
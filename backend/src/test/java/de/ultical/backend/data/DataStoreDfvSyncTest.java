@@ -0,0 +1,129 @@
+package de.ultical.backend.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import de.ultical.backend.api.transferClasses.DfvMvName;
+import de.ultical.backend.data.mapper.DfvMvNameMapper;
+import de.ultical.backend.data.mapper.DfvPlayerMapper;
+import de.ultical.backend.data.mapper.PlayerMapper;
+import de.ultical.backend.model.DfvPlayer;
+import de.ultical.backend.model.Gender;
+import de.ultical.backend.utils.test.PrepareDBRule;
+
+public class DataStoreDfvSyncTest {
+
+    private static final LocalDateTime MODIFIED = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @ClassRule
+    public static PrepareDBRule dbRule = new PrepareDBRule();
+
+    private DataStore dataStore;
+
+    @Before
+    public void setUp() {
+        this.dataStore = new DataStore();
+        this.dataStore.sqlSession = dbRule.getSession();
+        // the rule closes the session
+        this.dataStore.getClosable();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dbRule.getSession().getMapper(DfvMvNameMapper.class).deleteAll();
+        dbRule.getSession().commit();
+        dbRule.closeSession();
+    }
+
+    private static DfvMvName name(int dfvNumber, String lastName) {
+        DfvMvName name = new DfvMvName();
+        name.setDfvNumber(dfvNumber);
+        name.setFirstName("Alex");
+        name.setLastName(lastName);
+        name.setDse(true);
+        name.setVnr(12);
+        name.setLastModified(MODIFIED);
+        return name;
+    }
+
+    private DfvSyncStatistics sync(DfvMvName... names) {
+        return this.dataStore.syncDfvNames(Arrays.asList(names).iterator());
+    }
+
+    @Test
+    public void testSyncAppliesOnlyChanges() throws Exception {
+        DfvSyncStatistics first = this.sync(name(1, "Eins"), name(2, "Zwei"));
+        assertFalse(first.isUnchanged());
+        // never synced before
+        assertTrue(first.isCheckAllPlayers());
+        assertEquals(2, first.getInserted());
+        this.dataStore.completeDfvNameSync(first.getPayloadHash());
+
+        // same members in another order
+        DfvSyncStatistics second = this.sync(name(2, "Zwei"), name(1, "Eins"));
+        assertTrue(second.isUnchanged());
+        assertEquals(first.getPayloadHash(), second.getPayloadHash());
+
+        DfvSyncStatistics third = this.sync(name(1, "Uno"), name(3, "Drei"));
+        assertFalse(third.isUnchanged());
+        assertFalse(third.isCheckAllPlayers());
+        assertEquals(1, third.getInserted());
+        assertEquals(1, third.getUpdated());
+        assertEquals(1, third.getDeleted());
+        assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)), third.getChangedDfvNumbers());
+
+        DfvMvNameMapper mapper = dbRule.getSession().getMapper(DfvMvNameMapper.class);
+        assertEquals("Uno", mapper.get(1).getLastName());
+        assertNull(mapper.get(2));
+        assertEquals("Drei", mapper.get(3).getLastName());
+
+        // not completed, so the next sync checks all players again
+        DfvSyncStatistics fourth = this.sync(name(1, "Uno"), name(3, "Drei"));
+        assertFalse(fourth.isUnchanged());
+        assertTrue(fourth.isCheckAllPlayers());
+        assertTrue(fourth.getChangedDfvNumbers().isEmpty());
+    }
+
+    @Test
+    public void testSkipsMembersWithoutName() throws Exception {
+        DfvMvName noName = name(4, null);
+        DfvSyncStatistics statistics = this.sync(name(5, "Fünf"), noName);
+        assertEquals(1, statistics.getFetched());
+        assertEquals(1, statistics.getInserted());
+        assertNull(dbRule.getSession().getMapper(DfvMvNameMapper.class).get(4));
+    }
+
+    @Test
+    public void testPlayersToUpdateOfChangedMembers() throws Exception {
+        DfvPlayer outdated = new DfvPlayer();
+        outdated.setFirstName("Alex");
+        outdated.setLastName("Alt");
+        outdated.setGender(Gender.FEMALE);
+        outdated.setDfvNumber(6);
+        outdated.setBirthDate(LocalDate.of(1990, 1, 1));
+        outdated.setLastModified(MODIFIED.minusDays(1));
+        dbRule.getSession().getMapper(PlayerMapper.class).insertPlayer(outdated, true);
+        dbRule.getSession().getMapper(DfvPlayerMapper.class).insert(outdated);
+        dbRule.getSession().getMapper(DfvMvNameMapper.class).insert(name(6, "Neu"));
+        dbRule.getSession().commit();
+
+        List<DfvPlayer> players = this.dataStore.getPlayersToUpdate(Arrays.asList(6, 7));
+        assertEquals(1, players.size());
+        assertEquals(outdated.getId(), players.get(0).getId());
+        // a member that did not change is not looked at
+        assertTrue(this.dataStore.getPlayersToUpdate(Arrays.asList(7)).isEmpty());
+    }
+}
@@ -0,0 +1,271 @@
+package de.ultical.backend.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.session.SqlSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import de.ultical.backend.api.transferClasses.DfvMvName;
+import de.ultical.backend.api.transferClasses.EligibilityAuditReport;
+import de.ultical.backend.api.transferClasses.EligibilityAuditRow;
+import de.ultical.backend.api.transferClasses.EligibilityAuditRow.Reason;
+import de.ultical.backend.data.mapper.ContactMapper;
+import de.ultical.backend.data.mapper.DfvMvNameMapper;
+import de.ultical.backend.data.mapper.DfvPlayerMapper;
+import de.ultical.backend.data.mapper.DivisionRegistrationMapper;
+import de.ultical.backend.data.mapper.PlayerMapper;
+import de.ultical.backend.data.mapper.RosterMapper;
+import de.ultical.backend.data.mapper.SeasonMapper;
+import de.ultical.backend.data.mapper.TeamMapper;
+import de.ultical.backend.data.mapper.TeamRegistrationMapper;
+import de.ultical.backend.data.mapper.TournamentEditionMapper;
+import de.ultical.backend.data.mapper.TournamentFormatMapper;
+import de.ultical.backend.model.Contact;
+import de.ultical.backend.model.DfvPlayer;
+import de.ultical.backend.model.DivisionAge;
+import de.ultical.backend.model.DivisionRegistration.DivisionRegistrationStatus;
+import de.ultical.backend.model.DivisionRegistrationTeams;
+import de.ultical.backend.model.DivisionType;
+import de.ultical.backend.model.Gender;
+import de.ultical.backend.model.Roster;
+import de.ultical.backend.model.Season;
+import de.ultical.backend.model.Surface;
+import de.ultical.backend.model.Team;
+import de.ultical.backend.model.TeamRegistration;
+import de.ultical.backend.model.TournamentEdition;
+import de.ultical.backend.model.TournamentFormat;
+import de.ultical.backend.utils.test.PrepareDBRule;
+
+/**
+ * Audits an edition with an open, a women and a masters division, and a
+ * player who is in a second roster of the season.
+ */
+public class DataStoreEligibilityAuditTest {
+
+    @ClassRule
+    public static PrepareDBRule dbRule = new PrepareDBRule();
+
+    private static int playerNumber = 5000;
+
+    private static TournamentEdition edition;
+
+    private DataStore dataStore;
+
+    @BeforeClass
+    public static void seed() throws Exception {
+        SqlSession session = dbRule.getSession();
+
+        TournamentFormat format = new TournamentFormat();
+        format.setName("DM");
+        session.getMapper(TournamentFormatMapper.class).insert(format);
+
+        Season season = new Season();
+        season.setYear(2026);
+        season.setSurface(Surface.TURF);
+        session.getMapper(SeasonMapper.class).insert(season);
+
+        Contact contact = new Contact();
+        contact.setName("Organizer");
+        session.getMapper(ContactMapper.class).insert(contact);
+
+        edition = new TournamentEdition();
+        edition.setName("DM 2026");
+        edition.setOrganizer(contact);
+        edition.setTournamentFormat(format);
+        edition.setSeason(season);
+        edition.setRegistrationStart(LocalDate.of(2026, 1, 1));
+        edition.setRegistrationEnd(LocalDate.of(2026, 2, 1));
+        session.getMapper(TournamentEditionMapper.class).insert(edition);
+
+        DivisionRegistrationTeams open = insertDivision(session, DivisionType.OPEN, DivisionAge.REGULAR);
+        DivisionRegistrationTeams women = insertDivision(session, DivisionType.WOMEN, DivisionAge.REGULAR);
+        DivisionRegistrationTeams masters = insertDivision(session, DivisionType.OPEN, DivisionAge.MASTERS);
+
+        Roster discs = insertRoster(session, season, "Discs", DivisionType.OPEN, DivisionAge.REGULAR);
+        addPlayer(session, discs, "Fine", Gender.MALE, 1990, null, true);
+        addPlayer(session, discs, "Passive", Gender.MALE, 1990, LocalDateTime.of(2026, 1, 1, 0, 0), true);
+        addPlayer(session, discs, "Unpaid", Gender.FEMALE, 1990, null, false);
+        DfvPlayer twice = addPlayer(session, discs, "Twice", Gender.MALE, 1990, null, true);
+        register(session, open, discs, DivisionRegistrationStatus.CONFIRMED);
+
+        // not registered, but the same season and division
+        Roster other = insertRoster(session, season, "Plastic", DivisionType.OPEN, DivisionAge.REGULAR);
+        session.getMapper(RosterMapper.class).addPlayer(other, twice);
+
+        Roster flyers = insertRoster(session, season, "Flyers", DivisionType.WOMEN, DivisionAge.REGULAR);
+        addPlayer(session, flyers, "Male", Gender.MALE, 1990, null, true);
+        register(session, women, flyers, DivisionRegistrationStatus.PENDING);
+
+        Roster oldies = insertRoster(session, season, "Oldies", DivisionType.OPEN, DivisionAge.MASTERS);
+        addPlayer(session, oldies, "Young", Gender.MALE, 2000, null, true);
+        addPlayer(session, oldies, "Old", Gender.MALE, 1980, null, true);
+        register(session, masters, oldies, DivisionRegistrationStatus.CONFIRMED);
+
+        // a declined registration is not checked
+        Roster declined = insertRoster(session, season, "Declined", DivisionType.WOMEN, DivisionAge.REGULAR);
+        addPlayer(session, declined, "Declined", Gender.MALE, 1990, null, true);
+        register(session, women, declined, DivisionRegistrationStatus.DECLINED);
+
+        session.commit();
+        dbRule.closeSession();
+    }
+
+    @Before
+    public void setUp() {
+        this.dataStore = new DataStore();
+        this.dataStore.sqlSession = dbRule.getSession();
+        // the rule closes the session
+        this.dataStore.getClosable();
+    }
+
+    private static DivisionRegistrationTeams insertDivision(SqlSession session, DivisionType type, DivisionAge age) {
+        DivisionRegistrationTeams division = new DivisionRegistrationTeams();
+        division.setDivisionAge(age);
+        division.setDivisionType(type);
+        division.setNumberSpots(12);
+        division.setDivisionIdentifier(type.name() + " " + age.name());
+        session.getMapper(DivisionRegistrationMapper.class).insert(division, edition, false);
+        return division;
+    }
+
+    private static Roster insertRoster(SqlSession session, Season season, String teamName, DivisionType type,
+            DivisionAge age) {
+        Team team = new Team();
+        team.setName(teamName);
+        session.getMapper(TeamMapper.class).insert(team);
+
+        Roster roster = new Roster();
+        roster.setDivisionAge(age);
+        roster.setDivisionType(type);
+        roster.setTeam(team);
+        roster.setSeason(season);
+        roster.setNameAddition("");
+        session.getMapper(RosterMapper.class).insert(roster);
+        return roster;
+    }
+
+    private static DfvPlayer addPlayer(SqlSession session, Roster roster, String lastName, Gender gender,
+            int birthYear, LocalDateTime eligibleUntil, boolean paid) {
+        DfvPlayer player = new DfvPlayer();
+        player.setFirstName("Kim");
+        player.setLastName(lastName);
+        player.setGender(gender);
+        player.setDfvNumber(playerNumber++);
+        player.setBirthDate(LocalDate.of(birthYear, 1, 1));
+        player.setLastModified(LocalDateTime.now());
+        player.setEligibleUntil(eligibleUntil);
+        player.setPaid(paid);
+        session.getMapper(PlayerMapper.class).insertPlayer(player, true);
+        session.getMapper(DfvPlayerMapper.class).insert(player);
+        session.getMapper(RosterMapper.class).addPlayer(roster, player);
+        return player;
+    }
+
+    private static void register(SqlSession session, DivisionRegistrationTeams division, Roster roster,
+            DivisionRegistrationStatus status) {
+        TeamRegistration registration = new TeamRegistration();
+        registration.setRoster(roster);
+        registration.setStatus(status);
+        registration.setSequence(1);
+        registration.setTeamName("");
+        session.getMapper(TeamRegistrationMapper.class).insert(division.getId(), registration);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dbRule.closeSession();
+    }
+
+    @Test
+    public void testAuditEdition() throws Exception {
+        EligibilityAuditReport report = this.dataStore.auditEdition(edition.getId());
+        assertEquals(edition.getId(), report.getEditionId());
+        assertEquals(3, report.getTeamRegistrations());
+        assertEquals(7, report.getPlayers());
+
+        Map<String, EligibilityAuditRow> ineligible = report.getIneligible().stream()
+                .collect(Collectors.toMap(EligibilityAuditRow::getLastName, Function.identity()));
+        assertEquals(5, ineligible.size());
+        assertEquals(Collections.singletonList(Reason.NOT_ELIGIBLE), ineligible.get("Passive").getReasons());
+        assertEquals(Collections.singletonList(Reason.NOT_PAID), ineligible.get("Unpaid").getReasons());
+        assertEquals(Collections.singletonList(Reason.DUPLICATE_ROSTER), ineligible.get("Twice").getReasons());
+        assertEquals(Collections.singletonList("Plastic"), ineligible.get("Twice").getOtherRosters());
+        assertEquals(Collections.singletonList(Reason.WRONG_GENDER), ineligible.get("Male").getReasons());
+        assertEquals("Flyers", ineligible.get("Male").getTeamName());
+        assertEquals(Collections.singletonList(Reason.WRONG_AGE), ineligible.get("Young").getReasons());
+        assertEquals(DivisionAge.MASTERS, ineligible.get("Young").getDivisionAge());
+    }
+
+    @Test
+    public void testAuditMembership() throws Exception {
+        EligibilityAuditRow noDse = row(4711);
+        EligibilityAuditRow unknown = row(4712);
+        EligibilityAuditRow fine = row(4713);
+        DfvMvName member = new DfvMvName();
+        member.setDfvNumber(4711);
+        member.setDse(false);
+        DfvMvName other = new DfvMvName();
+        other.setDfvNumber(4713);
+        other.setDse(true);
+        Map<Integer, DfvMvName> members = Arrays.asList(member, other).stream()
+                .collect(Collectors.toMap(DfvMvName::getDfvNumber, Function.identity()));
+
+        List<EligibilityAuditRow> rows = Arrays.asList(noDse, unknown, fine);
+        EligibilityAuditReport report = EligibilityAuditor.audit(1, rows, Collections.emptyList(), members, true);
+        assertEquals(2, report.getIneligible().size());
+        assertEquals(Collections.singletonList(Reason.NO_DSE), noDse.getReasons());
+        assertEquals(Collections.singletonList(Reason.NO_DFV_MEMBER), unknown.getReasons());
+        assertTrue(fine.isEligible());
+    }
+
+    @Test
+    public void testAuditMembershipNotSynced() throws Exception {
+        EligibilityAuditRow unknown = row(4712);
+        EligibilityAuditReport report = EligibilityAuditor.audit(1, Collections.singletonList(unknown),
+                Collections.emptyList(), Collections.emptyMap(), false);
+        assertTrue(report.getIneligible().isEmpty());
+
+        // none of the players being found does not mean the list is not synced
+        unknown = row(4712);
+        report = EligibilityAuditor.audit(1, Collections.singletonList(unknown), Collections.emptyList(),
+                Collections.emptyMap(), true);
+        assertEquals(Collections.singletonList(Reason.NO_DFV_MEMBER), unknown.getReasons());
+    }
+
+    @Test
+    public void testAuditEditionSynced() throws Exception {
+        // none of the players is in the synced member list, not committed
+        // so the state is rolled back when the session is closed
+        this.dataStore.sqlSession.getMapper(DfvMvNameMapper.class).insertSyncState(DataStore.DFV_NAMES_SYNC, null,
+                LocalDateTime.now());
+        EligibilityAuditReport report = this.dataStore.auditEdition(edition.getId());
+        assertEquals(7, report.getIneligible().size());
+        for (EligibilityAuditRow row : report.getIneligible()) {
+            assertTrue(row.getReasons().contains(Reason.NO_DFV_MEMBER));
+        }
+    }
+
+    private static EligibilityAuditRow row(int dfvNumber) {
+        EligibilityAuditRow row = new EligibilityAuditRow();
+        row.setDfvNumber(dfvNumber);
+        row.setDivisionType(DivisionType.OPEN);
+        row.setDivisionAge(DivisionAge.REGULAR);
+        row.setSeasonYear(2026);
+        row.setGender(Gender.FEMALE);
+        return row;
+    }
+}
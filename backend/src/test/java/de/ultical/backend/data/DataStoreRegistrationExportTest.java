@@ -0,0 +1,234 @@
+package de.ultical.backend.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.session.SqlSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import de.ultical.backend.api.RegistrationCsvOutput;
+import de.ultical.backend.api.transferClasses.RegistrationExportRow;
+import de.ultical.backend.data.mapper.ClubMapper;
+import de.ultical.backend.data.mapper.ContactMapper;
+import de.ultical.backend.data.mapper.DfvPlayerMapper;
+import de.ultical.backend.data.mapper.DivisionRegistrationMapper;
+import de.ultical.backend.data.mapper.PlayerMapper;
+import de.ultical.backend.data.mapper.RosterMapper;
+import de.ultical.backend.data.mapper.SeasonMapper;
+import de.ultical.backend.data.mapper.TeamMapper;
+import de.ultical.backend.data.mapper.TeamRegistrationMapper;
+import de.ultical.backend.data.mapper.TournamentEditionMapper;
+import de.ultical.backend.data.mapper.TournamentFormatMapper;
+import de.ultical.backend.model.Club;
+import de.ultical.backend.model.Contact;
+import de.ultical.backend.model.DfvPlayer;
+import de.ultical.backend.model.DivisionAge;
+import de.ultical.backend.model.DivisionRegistration.DivisionRegistrationStatus;
+import de.ultical.backend.model.DivisionRegistrationTeams;
+import de.ultical.backend.model.DivisionType;
+import de.ultical.backend.model.Gender;
+import de.ultical.backend.model.Roster;
+import de.ultical.backend.model.Season;
+import de.ultical.backend.model.Surface;
+import de.ultical.backend.model.Team;
+import de.ultical.backend.model.TeamRegistration;
+import de.ultical.backend.model.TournamentEdition;
+import de.ultical.backend.model.TournamentFormat;
+import de.ultical.backend.utils.test.PrepareDBRule;
+
+/**
+ * Exports the registrations of an edition with two divisions, one of them
+ * with a registered team without players.
+ */
+public class DataStoreRegistrationExportTest {
+
+    @ClassRule
+    public static PrepareDBRule dbRule = new PrepareDBRule();
+
+    private static TournamentEdition edition;
+    private static DivisionRegistrationTeams open;
+    private static DivisionRegistrationTeams women;
+
+    private DataStore dataStore;
+
+    @BeforeClass
+    public static void seed() throws Exception {
+        SqlSession session = dbRule.getSession();
+
+        TournamentFormat format = new TournamentFormat();
+        format.setName("DM");
+        format.setDescription("Deutsche Meisterschaft");
+        session.getMapper(TournamentFormatMapper.class).insert(format);
+
+        Season season = new Season();
+        season.setYear(2026);
+        season.setSurface(Surface.TURF);
+        session.getMapper(SeasonMapper.class).insert(season);
+
+        Contact contact = new Contact();
+        contact.setEmail("dm@example.org");
+        contact.setName("Organizer");
+        session.getMapper(ContactMapper.class).insert(contact);
+
+        edition = new TournamentEdition();
+        edition.setName("DM 2026");
+        edition.setOrganizer(contact);
+        edition.setTournamentFormat(format);
+        edition.setSeason(season);
+        edition.setRegistrationStart(LocalDate.of(2026, 1, 1));
+        edition.setRegistrationEnd(LocalDate.of(2026, 2, 1));
+        session.getMapper(TournamentEditionMapper.class).insert(edition);
+
+        open = insertDivision(session, DivisionType.OPEN);
+        women = insertDivision(session, DivisionType.WOMEN);
+
+        Club club = new Club();
+        club.setId(17);
+        club.setName("Frisbee, Club & Co");
+        session.getMapper(ClubMapper.class).insert(club);
+
+        Roster first = insertRoster(session, season, "Discs", DivisionType.OPEN);
+        addPlayer(session, first, 1001, "Zimmer", club, null);
+        addPlayer(session, first, 1000, "Abel", club, LocalDateTime.of(2026, 1, 1, 0, 0));
+        register(session, open, first, 1);
+
+        // no players yet
+        Roster second = insertRoster(session, season, "Plastic", DivisionType.OPEN);
+        register(session, open, second, 2);
+
+        Roster third = insertRoster(session, season, "Flyers", DivisionType.WOMEN);
+        addPlayer(session, third, 1002, "Meier", null, null);
+        register(session, women, third, 1);
+
+        session.commit();
+        dbRule.closeSession();
+    }
+
+    @Before
+    public void setUp() {
+        this.dataStore = new DataStore();
+        this.dataStore.sqlSession = dbRule.getSession();
+        // the rule closes the session
+        this.dataStore.getClosable();
+    }
+
+    private static DivisionRegistrationTeams insertDivision(SqlSession session, DivisionType type) {
+        DivisionRegistrationTeams division = new DivisionRegistrationTeams();
+        division.setDivisionAge(DivisionAge.REGULAR);
+        division.setDivisionType(type);
+        division.setNumberSpots(12);
+        division.setDivisionIdentifier(type.name());
+        session.getMapper(DivisionRegistrationMapper.class).insert(division, edition, false);
+        return division;
+    }
+
+    private static Roster insertRoster(SqlSession session, Season season, String teamName, DivisionType type) {
+        Team team = new Team();
+        team.setName(teamName);
+        session.getMapper(TeamMapper.class).insert(team);
+
+        Roster roster = new Roster();
+        roster.setDivisionAge(DivisionAge.REGULAR);
+        roster.setDivisionType(type);
+        roster.setTeam(team);
+        roster.setSeason(season);
+        roster.setNameAddition("");
+        session.getMapper(RosterMapper.class).insert(roster);
+        return roster;
+    }
+
+    private static void addPlayer(SqlSession session, Roster roster, int dfvNumber, String lastName, Club club,
+            LocalDateTime eligibleUntil) {
+        DfvPlayer player = new DfvPlayer();
+        player.setFirstName("Kim");
+        player.setLastName(lastName);
+        player.setGender(Gender.FEMALE);
+        player.setDfvNumber(dfvNumber);
+        player.setBirthDate(LocalDate.of(1990, 1, 1));
+        player.setLastModified(LocalDateTime.now());
+        player.setClub(club);
+        player.setEligibleUntil(eligibleUntil);
+        session.getMapper(PlayerMapper.class).insertPlayer(player, true);
+        session.getMapper(DfvPlayerMapper.class).insert(player);
+        session.getMapper(RosterMapper.class).addPlayer(roster, player);
+    }
+
+    private static void register(SqlSession session, DivisionRegistrationTeams division, Roster roster, int sequence) {
+        TeamRegistration registration = new TeamRegistration();
+        registration.setRoster(roster);
+        registration.setStatus(DivisionRegistrationStatus.CONFIRMED);
+        registration.setSequence(sequence);
+        registration.setTeamName("");
+        session.getMapper(TeamRegistrationMapper.class).insert(division.getId(), registration);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dbRule.closeSession();
+    }
+
+    private List<RegistrationExportRow> exportEdition() {
+        List<RegistrationExportRow> rows = new ArrayList<>();
+        this.dataStore.exportEditionRegistrations(edition.getId(), rows::add);
+        return rows;
+    }
+
+    @Test
+    public void testExportEdition() throws Exception {
+        List<RegistrationExportRow> rows = this.exportEdition();
+        assertEquals(4, rows.size());
+        // ordered by division, sequence and player name
+        RegistrationExportRow abel = rows.get(0);
+        assertEquals("DM 2026", abel.getEditionName());
+        assertEquals(open.getId(), abel.getDivisionRegistrationId());
+        assertEquals("Discs", abel.getTeamName());
+        assertEquals("Abel", abel.getLastName());
+        assertEquals("1000", abel.getDfvNumber());
+        assertEquals("Frisbee, Club & Co", abel.getClubName());
+        assertFalse(abel.getEligible());
+        assertEquals("CONFIRMED", abel.getStatus());
+
+        RegistrationExportRow zimmer = rows.get(1);
+        assertEquals("Zimmer", zimmer.getLastName());
+        assertTrue(zimmer.getEligible());
+
+        RegistrationExportRow empty = rows.get(2);
+        assertEquals("Plastic", empty.getTeamName());
+        assertNull(empty.getPlayerId());
+        assertNull(empty.getEligible());
+
+        assertEquals(women.getId(), rows.get(3).getDivisionRegistrationId());
+        assertNull(rows.get(3).getClubName());
+
+        rows.clear();
+        this.dataStore.exportDivisionRegistrations(women.getId(), rows::add);
+        assertEquals(1, rows.size());
+        assertEquals("Meier", rows.get(0).getLastName());
+    }
+
+    @Test
+    public void testCsvOutput() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new RegistrationCsvOutput(action -> this.dataStore.exportDivisionRegistrations(open.getId(), action))
+                .write(output);
+
+        String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].startsWith("\uFEFFedition,division_registration,"));
+        assertTrue(lines[1].startsWith("DM 2026," + open.getId() + ",OPEN,REGULAR,OPEN,"));
+        assertTrue(lines[1].endsWith(",1000,false,2026-01-01T00:00,false,\"Frisbee, Club & Co\""));
+    }
+}
@@ -0,0 +1,155 @@
+package de.ultical.backend.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.session.SqlSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.ultical.backend.app.JsonStreamingOutput;
+import de.ultical.backend.data.mapper.LocationMapper;
+import de.ultical.backend.data.mapper.TeamMapper;
+import de.ultical.backend.model.Location;
+import de.ultical.backend.model.Team;
+import de.ultical.backend.utils.test.PrepareDBRule;
+import io.dropwizard.jackson.Jackson;
+
+/**
+ * Streams a table that is much larger than the number of rows the
+ * {@link DataStore} keeps in MyBatis' session cache and checks that the
+ * objects already written do not stay reachable.
+ */
+public class DataStoreStreamingTest {
+
+    private static final int TEAMS = 1000;
+    private static final int CHECK_INTERVAL = 250;
+
+    @ClassRule
+    public static PrepareDBRule RULE = new PrepareDBRule();
+
+    private DataStore dataStore;
+    private SqlSession session;
+
+    @BeforeClass
+    public static void seed() throws Exception {
+        try (SqlSession session = RULE.openSession()) {
+            LocationMapper locationMapper = session.getMapper(LocationMapper.class);
+            TeamMapper teamMapper = session.getMapper(TeamMapper.class);
+            for (int i = 0; i < TEAMS; i++) {
+                Location location = new Location();
+                location.setCity("City " + i);
+                location.setCountry("Germany");
+                locationMapper.insert(location);
+
+                Team team = new Team();
+                team.setName("Team " + i);
+                team.setDescription("a team that has been created to fill the table");
+                team.setLocation(location);
+                teamMapper.insert(team);
+            }
+            session.commit();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        this.session = RULE.openSession();
+        this.dataStore = new DataStore();
+        this.dataStore.sqlSession = this.session;
+    }
+
+    @After
+    public void tearDown() {
+        this.session.close();
+    }
+
+    @Test
+    public void testForEachVisitsAllRows() {
+        List<Integer> ids = new ArrayList<>();
+        this.dataStore.forEach(Team.class, team -> {
+            assertNotNull(team.getLocation());
+            ids.add(team.getId());
+        });
+        assertEquals(TEAMS, ids.size());
+    }
+
+    @Test
+    public void testStreamedJsonIsComplete() throws Exception {
+        ObjectMapper mapper = Jackson.newObjectMapper();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new JsonStreamingOutput<>(mapper, Team.class, action -> this.dataStore.forEach(Team.class, action))
+                .write(output);
+
+        JsonNode teams = mapper.readTree(output.toByteArray());
+        assertTrue(teams.isArray());
+        assertEquals(TEAMS, teams.size());
+        assertTrue(teams.get(0).get("location").get("city").asText().startsWith("City "));
+    }
+
+    @Test
+    public void testRetainedObjectsAreBounded() throws Exception {
+        final List<WeakReference<Object>> written = new ArrayList<>();
+        final List<Integer> aliveCounts = new ArrayList<>();
+        OutputStream discard = new OutputStream() {
+
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+
+        JsonStreamingOutput.Source<Team> source = action -> this.dataStore.forEach(Team.class, team -> {
+            action.accept(team);
+            written.add(new WeakReference<>(team));
+            written.add(new WeakReference<>(team.getLocation()));
+            if (written.size() % (2 * CHECK_INTERVAL) == 0) {
+                aliveCounts.add(countAlive(written));
+            }
+        });
+        new JsonStreamingOutput<>(Jackson.newObjectMapper(), Team.class, source).write(discard);
+
+        assertEquals(TEAMS / CHECK_INTERVAL, aliveCounts.size());
+        for (int alive : aliveCounts) {
+            // the current team and the locations of the cached rows, however
+            // many rows have been written before
+            assertTrue("too many objects alive: " + alive, alive <= DataStore.STREAM_CACHE_ROWS + 2);
+        }
+    }
+
+    private static int countAlive(List<WeakReference<Object>> references) {
+        int alive = Integer.MAX_VALUE;
+        // weak references are cleared by a full collection, but that is only
+        // a request to the vm
+        for (int attempt = 0; attempt < 5; attempt++) {
+            System.gc();
+            int count = 0;
+            for (WeakReference<Object> reference : references) {
+                if (reference.get() != null) {
+                    count++;
+                }
+            }
+            if (count >= alive) {
+                return count;
+            }
+            alive = count;
+        }
+        return alive;
+    }
+}
@@ -0,0 +1,167 @@
+package de.ultical.backend.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.ultical.backend.data.mapper.ContactMapper;
+import de.ultical.backend.data.mapper.DivisionRegistrationMapper;
+import de.ultical.backend.data.mapper.TeamRegistrationMapper;
+import de.ultical.backend.model.Contact;
+import de.ultical.backend.model.DivisionAge;
+import de.ultical.backend.model.DivisionRegistration.DivisionRegistrationStatus;
+import de.ultical.backend.model.DivisionRegistrationTeams;
+import de.ultical.backend.model.DivisionType;
+import de.ultical.backend.model.Roster;
+import de.ultical.backend.model.Season;
+import de.ultical.backend.model.Surface;
+import de.ultical.backend.model.Team;
+import de.ultical.backend.model.TeamRegistration;
+import de.ultical.backend.model.TournamentEdition;
+import de.ultical.backend.model.TournamentFormat;
+import de.ultical.backend.utils.test.PrepareDBRule;
+
+/**
+ * Simulates the burst of registrations right after an edition opened its
+ * registration.
+ */
+public class DataStoreTeamRegistrationTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataStoreTeamRegistrationTest.class);
+
+    private static final int THREADS = 8;
+    private static final int REGISTRATIONS = 40;
+
+    @ClassRule
+    public static PrepareDBRule RULE = new PrepareDBRule();
+
+    private DivisionRegistrationTeams division;
+    private List<Roster> rosters;
+
+    @Before
+    public void setUp() throws Exception {
+        SqlSession session = RULE.getSession();
+
+        TournamentFormat format = new TournamentFormat();
+        format.setName("Burst Cup");
+        format.setDescription("everybody wants to play");
+        session.getMapper(format.getMapper()).insert(format);
+
+        Season season = new Season();
+        season.setYear(2026);
+        season.setSurface(Surface.TURF);
+        session.getMapper(season.getMapper()).insert(season);
+
+        Contact contact = new Contact();
+        contact.setEmail("burst@cup.de");
+        contact.setName("Organizer");
+        session.getMapper(ContactMapper.class).insert(contact);
+
+        TournamentEdition edition = new TournamentEdition();
+        edition.setName("Burst Cup 2026");
+        edition.setOrganizer(contact);
+        edition.setTournamentFormat(format);
+        edition.setSeason(season);
+        edition.setRegistrationStart(LocalDate.of(2026, 1, 1));
+        edition.setRegistrationEnd(LocalDate.of(2026, 2, 1));
+        session.getMapper(edition.getMapper()).insert(edition);
+
+        this.division = new DivisionRegistrationTeams();
+        this.division.setDivisionAge(DivisionAge.REGULAR);
+        this.division.setDivisionType(DivisionType.OPEN);
+        this.division.setNumberSpots(16);
+        this.division.setDivisionIdentifier("Open");
+        session.getMapper(DivisionRegistrationMapper.class).insert(this.division, edition, false);
+
+        this.rosters = new ArrayList<>();
+        for (int i = 0; i < REGISTRATIONS; i++) {
+            Team team = new Team();
+            team.setName("Team " + i);
+            session.getMapper(team.getMapper()).insert(team);
+
+            Roster roster = new Roster();
+            roster.setDivisionAge(DivisionAge.REGULAR);
+            roster.setDivisionType(DivisionType.OPEN);
+            roster.setTeam(team);
+            roster.setSeason(season);
+            roster.setNameAddition("");
+            session.getMapper(roster.getMapper()).insert(roster);
+            this.rosters.add(roster);
+        }
+        session.commit();
+        RULE.closeSession();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        RULE.closeSession();
+    }
+
+    @Test
+    public void testConcurrentRegistrationsGetUniqueSequence() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final List<Future<TeamRegistration>> futures = new ArrayList<>();
+        try {
+            for (final Roster roster : this.rosters) {
+                futures.add(executor.submit(new Callable<TeamRegistration>() {
+                    @Override
+                    public TeamRegistration call() throws Exception {
+                        TeamRegistration registration = new TeamRegistration();
+                        registration.setRoster(roster);
+                        registration.setStatus(DivisionRegistrationStatus.PENDING);
+                        registration.setTeamName(roster.getTeam().getName());
+
+                        DataStore dataStore = new DataStore();
+                        dataStore.sqlSession = RULE.openSession();
+                        start.await();
+                        return dataStore.registerTeamForEdition(DataStoreTeamRegistrationTest.this.division.getId(),
+                                registration);
+                    }
+                }));
+            }
+            long startTime = System.nanoTime();
+            start.countDown();
+
+            List<Integer> sequences = new ArrayList<>();
+            for (Future<TeamRegistration> future : futures) {
+                sequences.add(future.get(60, TimeUnit.SECONDS).getSequence());
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            LOG.info("{} registrations with {} threads took {} ms", REGISTRATIONS, THREADS, elapsedMillis);
+
+            // every registration got its own number and there are no gaps
+            Collections.sort(sequences);
+            for (int i = 0; i < REGISTRATIONS; i++) {
+                assertEquals(Integer.valueOf(i + 1), sequences.get(i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the stored order follows the sequence
+        List<TeamRegistration> stored = RULE.getSession().getMapper(TeamRegistrationMapper.class)
+                .getRegistrationsForDivision(this.division.getId());
+        assertEquals(REGISTRATIONS, stored.size());
+        for (int i = 0; i < REGISTRATIONS; i++) {
+            assertEquals(i + 1, stored.get(i).getSequence());
+        }
+    }
+}
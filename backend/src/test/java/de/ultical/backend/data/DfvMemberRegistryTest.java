@@ -0,0 +1,137 @@
+package de.ultical.backend.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.ultical.backend.api.transferClasses.DfvMvName;
+import de.ultical.backend.model.Association;
+import de.ultical.backend.model.Club;
+
+public class DfvMemberRegistryTest {
+
+    private static final LocalDateTime MODIFIED = LocalDateTime.of(2026, 10, 19, 3, 15, 42, 123000000);
+
+    private DfvMemberRegistry registry;
+    private Club club;
+
+    @Before
+    public void setUp() {
+        this.registry = new DfvMemberRegistry(null);
+        Association association = new Association();
+        association.setId(3);
+        association.setAcronym("LV");
+        this.club = new Club();
+        this.club.setId(77);
+        this.club.setName("Frisbee Club");
+        this.club.setAssociation(association);
+    }
+
+    private DfvMvName buildName(int dfvNumber, String firstName, String lastName, Integer clubId) {
+        DfvMvName name = new DfvMvName();
+        name.setDfvNumber(dfvNumber);
+        name.setFirstName(firstName);
+        name.setLastName(lastName);
+        name.setDse(dfvNumber % 2 == 0);
+        name.setLastModified(MODIFIED);
+        if (clubId != null) {
+            name.setVnr(clubId);
+        }
+        return name;
+    }
+
+    @Test
+    public void testNotLoaded() {
+        assertFalse(this.registry.isLoaded());
+        assertNull(this.registry.get(1));
+        assertEquals(0, this.registry.size());
+    }
+
+    @Test
+    public void testGet() {
+        DfvMvName withoutDate = this.buildName(43, "Björn", "Ängström", 99);
+        withoutDate.setLastModified(null);
+        this.registry.rebuild(Arrays.asList(this.buildName(42, "Anna", "Muster", 77), withoutDate),
+                Collections.singletonList(this.club));
+        assertTrue(this.registry.isLoaded());
+        assertEquals(2, this.registry.size());
+
+        DfvMvName found = this.registry.get(42);
+        assertNotNull(found);
+        assertEquals(42, found.getDfvNumber());
+        assertEquals("Anna", found.getFirstName());
+        assertEquals("Muster", found.getLastName());
+        assertTrue(found.isDse());
+        assertEquals(MODIFIED, found.getLastModified());
+        assertEquals(77, found.getClub().getId());
+        assertEquals("Frisbee Club", found.getClub().getName());
+        assertEquals(3, found.getClub().getAssociation().getId());
+        // callers may change what they get
+        assertNotSame(this.club, found.getClub());
+        assertNotSame(found, this.registry.get(42));
+
+        found = this.registry.get(43);
+        assertEquals("Björn", found.getFirstName());
+        assertEquals("Ängström", found.getLastName());
+        assertFalse(found.isDse());
+        assertNull(found.getLastModified());
+        // like the database, a club not known is left out
+        assertNull(found.getClub());
+
+        assertNull(this.registry.get(44));
+        assertFalse(this.registry.contains(0));
+    }
+
+    @Test
+    public void testIncompleteNamesAreLeftOut() {
+        this.registry.rebuild(Arrays.asList(this.buildName(1, null, "Muster", null),
+                this.buildName(2, "Anna", null, null), this.buildName(3, "", "", null)), Collections.emptyList());
+        assertFalse(this.registry.contains(1));
+        assertFalse(this.registry.contains(2));
+        assertTrue(this.registry.contains(3));
+        assertEquals("", this.registry.get(3).getFirstName());
+    }
+
+    @Test
+    public void testManyMembers() {
+        List<DfvMvName> names = new ArrayList<>();
+        // equal low bits, without mixing they would all share a slot
+        for (int i = 0; i < 50000; i++) {
+            names.add(this.buildName(i * 4096 + 1, "First" + i, "Last" + i, 77));
+        }
+        this.registry.rebuild(names, Collections.singletonList(this.club));
+        assertEquals(50000, this.registry.size());
+        for (int i = 0; i < 50000; i++) {
+            DfvMvName found = this.registry.get(i * 4096 + 1);
+            assertEquals(i * 4096 + 1, found.getDfvNumber());
+            assertEquals("First" + i, found.getFirstName());
+            assertEquals("Last" + i, found.getLastName());
+            assertFalse(this.registry.contains(i * 4096 + 2));
+        }
+    }
+
+    @Test
+    public void testRebuildReplaces() {
+        this.registry.rebuild(Collections.singletonList(this.buildName(42, "Anna", "Muster", 77)),
+                Collections.singletonList(this.club));
+        this.registry.rebuild(Collections.singletonList(this.buildName(43, "Bernd", "Muster", 77)),
+                Collections.singletonList(this.club));
+        assertNull(this.registry.get(42));
+        assertEquals("Bernd", this.registry.get(43).getFirstName());
+
+        this.registry.reloadIfChanged(Collections.singleton("TEAM"));
+        assertEquals(1, this.registry.size());
+    }
+}
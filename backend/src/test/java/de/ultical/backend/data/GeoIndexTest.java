@@ -0,0 +1,111 @@
+package de.ultical.backend.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.ultical.backend.data.GeoIndex.Hit;
+import de.ultical.backend.data.GeoIndex.Kind;
+import de.ultical.backend.model.Location;
+
+public class GeoIndexTest {
+
+    // Berlin, Potsdam, Hamburg, Munich
+    private static final double[] BERLIN = { 52.5200, 13.4050 };
+    private static final double[] POTSDAM = { 52.3906, 13.0645 };
+    private static final double[] HAMBURG = { 53.5511, 9.9937 };
+    private static final double[] MUNICH = { 48.1351, 11.5820 };
+
+    private GeoIndex index;
+
+    @Before
+    public void setUp() {
+        this.index = new GeoIndex(null);
+        this.index.add(Kind.EVENT, 1, this.buildLocation(10, POTSDAM));
+        this.index.add(Kind.EVENT, 2, this.buildLocation(20, HAMBURG));
+        this.index.add(Kind.EVENT, 3, this.buildLocation(30, MUNICH));
+        this.index.add(Kind.TEAM, 4, this.buildLocation(40, BERLIN));
+    }
+
+    private Location buildLocation(int id, double[] coordinates) {
+        Location location = new Location();
+        location.setId(id);
+        location.setLatitude(coordinates[0]);
+        location.setLongitude(coordinates[1]);
+        return location;
+    }
+
+    @Test
+    public void testHaversine() {
+        double distance = GeoIndex.haversine(BERLIN[0], BERLIN[1], HAMBURG[0], HAMBURG[1]);
+        assertEquals(255.0, distance, 2.0);
+        assertEquals(0.0, GeoIndex.haversine(MUNICH[0], MUNICH[1], MUNICH[0], MUNICH[1]), 1e-9);
+    }
+
+    @Test
+    public void testFindNearRanksByDistance() {
+        List<Hit> hits = this.index.findNear(Kind.EVENT, BERLIN[0], BERLIN[1], 300);
+        assertEquals(2, hits.size());
+        assertEquals(1, hits.get(0).getOwnerId());
+        assertEquals(2, hits.get(1).getOwnerId());
+        assertTrue(hits.get(0).getDistanceKm() < hits.get(1).getDistanceKm());
+
+        assertEquals(3, this.index.findNear(Kind.EVENT, BERLIN[0], BERLIN[1], 600).size());
+        assertTrue(this.index.findNear(Kind.EVENT, BERLIN[0], BERLIN[1], 10).isEmpty());
+    }
+
+    @Test
+    public void testKindsAreSeparated() {
+        List<Hit> hits = this.index.findNear(Kind.TEAM, BERLIN[0], BERLIN[1], 300);
+        assertEquals(1, hits.size());
+        assertEquals(4, hits.get(0).getOwnerId());
+    }
+
+    @Test
+    public void testUpdateLocation() {
+        // the location in Munich moves to Berlin
+        this.index.updateLocation(this.buildLocation(30, BERLIN));
+        List<Hit> hits = this.index.findNear(Kind.EVENT, BERLIN[0], BERLIN[1], 10);
+        assertEquals(1, hits.size());
+        assertEquals(3, hits.get(0).getOwnerId());
+        assertTrue(this.index.findNear(Kind.EVENT, MUNICH[0], MUNICH[1], 10).isEmpty());
+    }
+
+    @Test
+    public void testUngeocodedLocationIsPickedUpOnUpdate() {
+        this.index.add(Kind.EVENT, 5, this.buildLocation(50, new double[] { 0, 0 }));
+        assertTrue(this.index.findNear(Kind.EVENT, 0, 0, 10).isEmpty());
+
+        this.index.updateLocation(this.buildLocation(50, HAMBURG));
+        List<Hit> hits = this.index.findNear(Kind.EVENT, HAMBURG[0], HAMBURG[1], 10);
+        assertEquals(2, hits.size());
+    }
+
+    @Test
+    public void testRemove() {
+        this.index.removeOwner(Kind.EVENT, 1);
+        this.index.removeLocation(20);
+        assertTrue(this.index.findNear(Kind.EVENT, BERLIN[0], BERLIN[1], 300).isEmpty());
+        assertEquals(1, this.index.findNear(Kind.TEAM, BERLIN[0], BERLIN[1], 300).size());
+    }
+
+    @Test
+    public void testOwnerWithSeveralLocationsIsReturnedOnce() {
+        this.index.add(Kind.EVENT, 1, this.buildLocation(11, BERLIN));
+        List<Hit> hits = this.index.findNear(Kind.EVENT, BERLIN[0], BERLIN[1], 100);
+        assertEquals(1, hits.size());
+        assertEquals(0.0, hits.get(0).getDistanceKm(), 1e-9);
+    }
+
+    @Test
+    public void testDateLineWrap() {
+        this.index.add(Kind.EVENT, 6, this.buildLocation(60, new double[] { -17.0, 179.9 }));
+        List<Hit> hits = this.index.findNear(Kind.EVENT, -17.0, -179.9, 50);
+        assertEquals(1, hits.size());
+        assertEquals(6, hits.get(0).getOwnerId());
+    }
+}
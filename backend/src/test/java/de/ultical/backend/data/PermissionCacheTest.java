@@ -0,0 +1,68 @@
+package de.ultical.backend.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.cache.CacheBuilderSpec;
+
+import de.ultical.backend.data.PermissionCache.Scope;
+
+public class PermissionCacheTest {
+
+    private ChangeGenerations generations;
+    private PermissionCache cache;
+    private int lookups;
+
+    @Before
+    public void setUp() {
+        this.generations = new ChangeGenerations();
+        this.cache = new PermissionCache(this.generations, CacheBuilderSpec.parse("maximumSize = 100"));
+    }
+
+    private boolean isAdmin(int userId, Scope scope, int id, boolean answer) {
+        return this.cache.isAdmin(userId, scope, id, () -> {
+            this.lookups++;
+            return answer;
+        });
+    }
+
+    @Test
+    public void testCachesPerUserAndEntity() {
+        assertTrue(this.isAdmin(1, Scope.TEAM, 42, true));
+        assertTrue(this.isAdmin(1, Scope.TEAM, 42, false));
+        assertEquals(1, this.lookups);
+        // not an admin is remembered as well
+        assertFalse(this.isAdmin(2, Scope.TEAM, 42, false));
+        assertFalse(this.isAdmin(2, Scope.TEAM, 42, true));
+        assertEquals(2, this.lookups);
+        // same id, other scope
+        assertFalse(this.isAdmin(1, Scope.EVENT, 42, false));
+        assertEquals(3, this.lookups);
+    }
+
+    @Test
+    public void testAdminWritesInvalidate() {
+        assertFalse(this.isAdmin(1, Scope.EVENT, 7, false));
+        this.generations.increment(Collections.singleton("EVENT_ULTICAL_USERS"));
+        assertTrue(this.isAdmin(1, Scope.EVENT, 7, true));
+        assertEquals(2, this.lookups);
+
+        this.generations.increment(Collections.singleton("tournament_format_ultical_users"));
+        assertFalse(this.isAdmin(1, Scope.EVENT, 7, false));
+        assertEquals(3, this.lookups);
+    }
+
+    @Test
+    public void testOtherWritesKeepMemberships() {
+        assertTrue(this.isAdmin(1, Scope.ROSTER, 3, true));
+        this.generations.increment(Collections.singleton("ROSTER_PLAYERS"));
+        assertTrue(this.isAdmin(1, Scope.ROSTER, 3, false));
+        assertEquals(1, this.lookups);
+    }
+}
@@ -0,0 +1,84 @@
+package de.ultical.backend.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import de.ultical.backend.data.mapper.DfvMvNameMapper;
+import de.ultical.backend.data.mapper.RosterMapper;
+import de.ultical.backend.data.mapper.SeasonMapper;
+import de.ultical.backend.data.mapper.UserMapper;
+import de.ultical.backend.model.User;
+import de.ultical.backend.utils.test.PrepareDBRule;
+
+public class SyntheticDataGeneratorTest {
+
+    private static final String PASSWORD_HASH = "$2a$04$synthetic";
+
+    @ClassRule
+    public static PrepareDBRule DBRULE = new PrepareDBRule();
+
+    private static SyntheticDataGenerator.Scale scale;
+    private static Map<String, Integer> counts;
+
+    @BeforeClass
+    public static void generate() {
+        scale = SyntheticDataGenerator.Scale.of(0.1);
+        // more than fit into one commit
+        scale.setMembers(SyntheticDataGenerator.COMMIT_SIZE + 200);
+        counts = new SyntheticDataGenerator(DBRULE::openSession, scale, 42, PASSWORD_HASH).generate();
+    }
+
+    @Test
+    public void testScale() {
+        SyntheticDataGenerator.Scale tenth = SyntheticDataGenerator.Scale.of(0.1);
+        assertEquals(500, tenth.getMembers());
+        assertEquals(20, tenth.getTeams());
+        assertEquals(1, tenth.getFormats());
+        // the sizes per parent are kept
+        assertEquals(4, tenth.getSeasons());
+        assertEquals(2, tenth.getEventsPerEdition());
+    }
+
+    @Test
+    public void testRowsWritten() {
+        assertEquals(scale.getMembers(), counts.get("dfv members").intValue());
+        assertEquals(scale.getMembers(), DBRULE.getSession().getMapper(DfvMvNameMapper.class).getAll().size());
+        assertEquals(scale.getSeasons(), DBRULE.getSession().getMapper(SeasonMapper.class).getAll().size());
+        assertEquals(scale.getTeams() * scale.getSeasons(),
+                DBRULE.getSession().getMapper(RosterMapper.class).getAll().size());
+        assertEquals(scale.getTeams() * scale.getSeasons() * scale.getPlayersPerRoster(),
+                counts.get("roster players").intValue());
+        assertEquals(scale.getFormats() * scale.getEditionsPerFormat(), counts.get("editions").intValue());
+        assertEquals(scale.getFormats() * scale.getEditionsPerFormat() * scale.getEventsPerEdition(),
+                counts.get("events").intValue());
+        assertTrue(counts.get("team registrations") > 0);
+
+        // about the configured share of the members has registered
+        int players = counts.get("players");
+        assertTrue(players > scale.getMembers() * 0.3 && players < scale.getMembers() * 0.5);
+        List<User> users = DBRULE.getSession().getMapper(UserMapper.class).getAll();
+        assertEquals(players, users.size());
+        String email = users.get(0).getEmail();
+        assertEquals("player" + users.get(0).getDfvPlayer().getDfvNumber() + SyntheticDataGenerator.EMAIL_DOMAIN,
+                email);
+        assertEquals(PASSWORD_HASH, DBRULE.getSession().getMapper(UserMapper.class).getByEmail(email).getPassword());
+    }
+
+    @Test
+    public void testNeedsAnEmptyDatabase() {
+        try {
+            new SyntheticDataGenerator(DBRULE::openSession, scale, 42, PASSWORD_HASH).generate();
+            fail("the generator must not add to existing data");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
@@ -5,9 +5,13 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.exceptions.PersistenceException;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Test;
@@ -38,6 +42,11 @@ public class DfvMvMapperTest {
         this.mapper = DBRULE.getSession().getMapper(DfvMvNameMapper.class);
     }
 
+    @After
+    public void tearDown() throws Exception {
+        this.mapper.deleteAll();
+    }
+
     @Test
     public void test() {
         Integer id = this.mapper.insert(this.dfvMvName);
@@ -72,6 +81,33 @@ public class DfvMvMapperTest {
         assertNull(this.mapper.get(51234569));
     }
 
+    @Test
+    public void testGetAllFlat() throws Exception {
+        this.dfvMvName.setVnr(77);
+        this.mapper.insert(this.dfvMvName);
+        DfvMvName noClub = new DfvMvName();
+        noClub.setDfvnr(41234568);
+        noClub.setFirstName(VORNAME);
+        noClub.setLastName(NACHNAME);
+        noClub.setLastModified(LocalDateTime.now());
+        this.mapper.insert(noClub);
+
+        Map<Integer, DfvMvName> found = new HashMap<>();
+        try (Cursor<DfvMvName> cursor = this.mapper.getAllFlat()) {
+            cursor.forEach(name -> found.put(name.getDfvNumber(), name));
+        }
+        assertEquals(2, found.size());
+        DfvMvName withClub = found.get(3234567);
+        assertEquals(VORNAME, withClub.getFirstName());
+        assertEquals(NACHNAME, withClub.getLastName());
+        assertEquals(true, withClub.isDse());
+        assertNotNull(withClub.getLastModified());
+        // only the id, the club is not loaded
+        assertEquals(77, withClub.getClub().getId());
+        assertNull(withClub.getClub().getName());
+        assertNull(found.get(41234568).getClub());
+    }
+
     @Test(expected = PersistenceException.class)
     public void testPrimaryKeyConstraintViolation() throws Exception {
         try {
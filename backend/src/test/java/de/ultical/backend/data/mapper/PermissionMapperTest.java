@@ -0,0 +1,148 @@
+package de.ultical.backend.data.mapper;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import de.ultical.backend.model.Contact;
+import de.ultical.backend.model.DfvPlayer;
+import de.ultical.backend.model.DivisionAge;
+import de.ultical.backend.model.DivisionType;
+import de.ultical.backend.model.Event;
+import de.ultical.backend.model.Gender;
+import de.ultical.backend.model.Roster;
+import de.ultical.backend.model.Season;
+import de.ultical.backend.model.Surface;
+import de.ultical.backend.model.Team;
+import de.ultical.backend.model.TournamentEdition;
+import de.ultical.backend.model.TournamentFormat;
+import de.ultical.backend.model.User;
+import de.ultical.backend.utils.test.PrepareDBRule;
+
+public class PermissionMapperTest {
+
+    @ClassRule
+    public static PrepareDBRule DBRULE = new PrepareDBRule();
+
+    private static User teamAdmin;
+    private static User formatAdmin;
+    private static User eventAdmin;
+    private static Team team;
+    private static Roster roster;
+    private static TournamentEdition edition;
+    private static Event event;
+
+    private static User insertUser(int dfvNumber, String email) {
+        DfvPlayer player = new DfvPlayer();
+        player.setFirstName("Player " + dfvNumber);
+        player.setLastName("lastName");
+        player.setDfvNumber(dfvNumber);
+        player.setGender(Gender.FEMALE);
+        player.setBirthDate(LocalDate.of(1990, 4, 1));
+        player.setLastModified(LocalDateTime.now());
+        DBRULE.getSession().getMapper(PlayerMapper.class).insertPlayer(player, true);
+        DBRULE.getSession().getMapper(player.getMapper()).insert(player);
+
+        User user = new User();
+        user.setDfvPlayer(player);
+        user.setEmail(email);
+        user.setPassword("secret");
+        DBRULE.getSession().getMapper(user.getMapper()).insert(user);
+        return user;
+    }
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        teamAdmin = insertUser(1001, "team@admin.de");
+        formatAdmin = insertUser(1002, "format@admin.de");
+        eventAdmin = insertUser(1003, "event@admin.de");
+
+        team = new Team();
+        team.setName("Permission Team");
+        DBRULE.getSession().getMapper(team.getMapper()).insert(team);
+        DBRULE.getSession().getMapper(TeamMapper.class).addAdmin(team, teamAdmin);
+
+        Season season = new Season();
+        season.setSurface(Surface.TURF);
+        season.setYear(2026);
+        DBRULE.getSession().getMapper(season.getMapper()).insert(season);
+
+        roster = new Roster();
+        roster.setTeam(team);
+        roster.setSeason(season);
+        roster.setDivisionAge(DivisionAge.REGULAR);
+        roster.setDivisionType(DivisionType.OPEN);
+        roster.setNameAddition("");
+        DBRULE.getSession().getMapper(RosterMapper.class).insert(roster);
+
+        TournamentFormat format = new TournamentFormat();
+        format.setName("Permission Format");
+        DBRULE.getSession().getMapper(format.getMapper()).insert(format);
+        DBRULE.getSession().getMapper(TournamentFormatMapper.class).insertAdmin(format, formatAdmin);
+
+        Contact organizer = new Contact();
+        organizer.setName("Orga");
+        DBRULE.getSession().getMapper(ContactMapper.class).insert(organizer);
+
+        edition = new TournamentEdition();
+        edition.setTournamentFormat(format);
+        edition.setSeason(season);
+        edition.setOrganizer(organizer);
+        edition.setRegistrationStart(LocalDate.of(2026, 1, 1));
+        edition.setRegistrationEnd(LocalDate.of(2026, 5, 31));
+        DBRULE.getSession().getMapper(TournamentEditionMapper.class).insert(edition);
+
+        event = new Event();
+        event.setTournamentEdition(edition);
+        event.setStartDate(LocalDate.of(2026, 6, 6));
+        event.setEndDate(LocalDate.of(2026, 6, 7));
+        DBRULE.getSession().getMapper(EventMapper.class).insert(event);
+        DBRULE.getSession().getMapper(EventMapper.class).addAdmin(event, eventAdmin);
+        DBRULE.getSession().commit();
+    }
+
+    private PermissionMapper mapper() {
+        return DBRULE.getSession().getMapper(PermissionMapper.class);
+    }
+
+    @Test
+    public void testTeamAndRosterAdmin() {
+        assertEquals(1, this.mapper().isTeamAdmin(team.getId(), teamAdmin.getId()));
+        assertEquals(0, this.mapper().isTeamAdmin(team.getId(), formatAdmin.getId()));
+        assertEquals(0, this.mapper().isTeamAdmin(team.getId() + 1, teamAdmin.getId()));
+
+        assertEquals(1, this.mapper().isRosterAdmin(roster.getId(), teamAdmin.getId()));
+        assertEquals(0, this.mapper().isRosterAdmin(roster.getId(), eventAdmin.getId()));
+    }
+
+    @Test
+    public void testEventAdmin() {
+        assertEquals(1, this.mapper().isEventAdmin(event.getId(), eventAdmin.getId()));
+        // the admins of the format are admins of its events
+        assertEquals(1, this.mapper().isEventAdmin(event.getId(), formatAdmin.getId()));
+        assertEquals(0, this.mapper().isEventAdmin(event.getId(), teamAdmin.getId()));
+        assertEquals(0, this.mapper().isEventAdmin(event.getId() + 1, eventAdmin.getId()));
+    }
+
+    @Test
+    public void testEditionAdmin() {
+        assertEquals(1, this.mapper().isEditionAdmin(edition.getId(), formatAdmin.getId()));
+        // but not the other way round
+        assertEquals(0, this.mapper().isEditionAdmin(edition.getId(), eventAdmin.getId()));
+    }
+
+    @Test
+    public void testExists() {
+        assertEquals(1, this.mapper().teamExists(team.getId()));
+        assertEquals(0, this.mapper().teamExists(team.getId() + 1));
+        assertEquals(1, this.mapper().rosterExists(roster.getId()));
+        assertEquals(1, this.mapper().eventExists(event.getId()));
+        assertEquals(0, this.mapper().eventExists(event.getId() + 1));
+        assertEquals(1, this.mapper().editionExists(edition.getId()));
+    }
+}
@@ -8,6 +8,8 @@ import static org.junit.Assert.assertThat;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.After;
@@ -16,16 +18,23 @@ import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import de.ultical.backend.data.RosterConflict;
 import de.ultical.backend.model.Association;
 import de.ultical.backend.model.Club;
+import de.ultical.backend.model.Contact;
 import de.ultical.backend.model.DfvPlayer;
 import de.ultical.backend.model.DivisionAge;
+import de.ultical.backend.model.DivisionRegistration.DivisionRegistrationStatus;
+import de.ultical.backend.model.DivisionRegistrationTeams;
 import de.ultical.backend.model.DivisionType;
 import de.ultical.backend.model.Gender;
 import de.ultical.backend.model.Roster;
 import de.ultical.backend.model.Season;
 import de.ultical.backend.model.Surface;
 import de.ultical.backend.model.Team;
+import de.ultical.backend.model.TeamRegistration;
+import de.ultical.backend.model.TournamentEdition;
+import de.ultical.backend.model.TournamentFormat;
 import de.ultical.backend.utils.test.PrepareDBRule;
 
 public class RosterMapperTest {
@@ -187,4 +196,85 @@ public class RosterMapperTest {
         assertThat("roster's size doesn't match", rostersPlayer1.size(), equalTo(2));
     }
 
+    @Test
+    public void testGetConflicting() throws Exception {
+        rosterMapper.insert(this.roster);
+        rosterMapper.addPlayer(this.roster, player1);
+        Roster mixed = new Roster();
+        mixed.setSeason(season);
+        mixed.setTeam(team);
+        mixed.setDivisionAge(DivisionAge.REGULAR);
+        mixed.setDivisionType(DivisionType.MIXED);
+        mixed.setNameAddition("");
+        rosterMapper.insert(mixed);
+        rosterMapper.addPlayer(mixed, player1);
+
+        TournamentFormat format = new TournamentFormat();
+        Contact organizer = new Contact();
+        TournamentEdition edition = new TournamentEdition();
+        DivisionRegistrationTeams division = new DivisionRegistrationTeams();
+        try {
+            Roster newRoster = new Roster();
+            newRoster.setSeason(season);
+            newRoster.setDivisionAge(DivisionAge.REGULAR);
+            newRoster.setDivisionType(DivisionType.OPEN);
+
+            // both players are asked for at once, only the first one conflicts
+            List<RosterConflict> conflicting = rosterMapper
+                    .getConflicting(Arrays.asList(player1.getId(), player2.getId()), newRoster, true);
+            assertThat(conflicting.size(), equalTo(1));
+            assertThat(conflicting.get(0).getPlayerId(), equalTo(player1.getId()));
+            assertThat(conflicting.get(0).getRosterId(), equalTo(this.roster.getId()));
+            assertThat(conflicting.get(0).getNameAddition(), equalTo("test1"));
+            assertThat(conflicting.get(0).getTeamName(), equalTo("Test Team"));
+            assertThat(conflicting.get(0).getRosterName(), equalTo("Test Team test1"));
+            assertThat(rosterMapper.getConflicting(Collections.singleton(player2.getId()), newRoster, false).isEmpty(),
+                    is(true));
+
+            // a roster that did not qualify for a tournament is released
+            format.setName("Conflict Format");
+            DBRULE.getSession().getMapper(format.getMapper()).insert(format);
+            organizer.setName("Orga");
+            DBRULE.getSession().getMapper(ContactMapper.class).insert(organizer);
+            edition.setTournamentFormat(format);
+            edition.setSeason(season);
+            edition.setOrganizer(organizer);
+            edition.setRegistrationStart(LocalDate.of(2016, 1, 1));
+            edition.setRegistrationEnd(LocalDate.of(2016, 5, 31));
+            DBRULE.getSession().getMapper(TournamentEditionMapper.class).insert(edition);
+            division.setDivisionAge(DivisionAge.REGULAR);
+            division.setDivisionType(DivisionType.OPEN);
+            division.setDivisionIdentifier("Open");
+            division.setNumberSpots(8);
+            DBRULE.getSession().getMapper(DivisionRegistrationMapper.class).insert(division, edition, false);
+            TeamRegistration registration = new TeamRegistration();
+            registration.setRoster(this.roster);
+            registration.setTeamName("Test Team test1");
+            registration.setStatus(DivisionRegistrationStatus.PENDING);
+            registration.setNotQualified(true);
+            DBRULE.getSession().getMapper(TeamRegistrationMapper.class).insert(division.getId(), registration);
+
+            assertThat(rosterMapper.getConflicting(Collections.singleton(player1.getId()), newRoster, true).isEmpty(),
+                    is(true));
+            assertThat(rosterMapper.getConflicting(Collections.singleton(player1.getId()), newRoster, false).size(),
+                    equalTo(1));
+        } finally {
+            // the other tests expect player1 in no roster but their own
+            if (division.getId() != 0) {
+                DBRULE.getSession().getMapper(TeamRegistrationMapper.class).deleteAll(division);
+                DBRULE.getSession().getMapper(DivisionRegistrationMapper.class).delete(division);
+            }
+            if (edition.getId() != 0) {
+                DBRULE.getSession().getMapper(TournamentEditionMapper.class).delete(edition);
+            }
+            if (organizer.getId() != 0) {
+                DBRULE.getSession().getMapper(ContactMapper.class).delete(organizer.getId());
+            }
+            if (format.getId() != 0) {
+                DBRULE.getSession().getMapper(format.getMapper()).delete(format);
+            }
+            rosterMapper.delete(mixed.getId());
+        }
+    }
+
 }
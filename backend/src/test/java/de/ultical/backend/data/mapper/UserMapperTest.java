@@ -3,6 +3,7 @@ package de.ultical.backend.data.mapper;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -102,6 +103,21 @@ public class UserMapperTest {
         assertNotNull(foundUser);
         assertEquals(UPDATED_EMAIL, foundUser.getEmail());
         assertEquals(2, foundUser.getVersion());
+        assertEquals(Integer.valueOf(0), userMapper.getTokenVersion(1));
+
+        /*
+         * a new password or a revocation invalidates the session tokens
+         */
+        foundUser = userMapper.getByEmail(UPDATED_EMAIL);
+        foundUser.setPassword("new secret");
+        userMapper.update(foundUser);
+        assertEquals(Integer.valueOf(1), userMapper.getTokenVersion(1));
+        // the same password keeps the tokens
+        userMapper.update(userMapper.getByEmail(UPDATED_EMAIL));
+        assertEquals(Integer.valueOf(1), userMapper.getTokenVersion(1));
+        userMapper.incrementTokenVersion(1);
+        assertEquals(2, userMapper.getByEmail(UPDATED_EMAIL).getTokenVersion());
+        foundUser = userMapper.get(1);
 
         /*
          * test delete
@@ -110,6 +126,23 @@ public class UserMapperTest {
         assertNull(userMapper.get(1));
     }
 
+    /**
+     * Derby evaluates all assignments against the old row, MySQL assigns from
+     * left to right. The token version has to be computed before the password
+     * is overwritten to work on both.
+     */
+    @Test
+    public void testTokenVersionAssignedBeforePassword() {
+        User user = new User();
+        user.setDfvPlayer(player);
+        String sql = this.session.getConfiguration().getMappedStatement(UserMapper.class.getName() + ".update")
+                .getBoundSql(user).getSql();
+        int tokenVersion = sql.indexOf("token_version =");
+        int password = sql.indexOf("password = ?,");
+        assertTrue(tokenVersion >= 0 && password >= 0);
+        assertTrue("token_version has to be assigned first: " + sql, tokenVersion < password);
+    }
+
     @Test(expected = PersistenceException.class)
     public void violateForeignKey() {
         UserMapper userMapper = this.session.getMapper(UserMapper.class);
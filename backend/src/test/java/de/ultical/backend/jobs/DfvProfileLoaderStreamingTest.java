@@ -0,0 +1,146 @@
+package de.ultical.backend.jobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.sun.net.httpserver.HttpServer;
+
+import de.ultical.backend.api.transferClasses.DfvMvName;
+import de.ultical.backend.app.CircuitBreaker;
+import de.ultical.backend.app.DfvApiConfig;
+import de.ultical.backend.app.UltiCalConfig;
+import de.ultical.backend.app.UltiCalConfig.JobsConfig;
+import de.ultical.backend.data.DataStore;
+import de.ultical.backend.data.DfvSyncStatistics;
+import io.dropwizard.jackson.Jackson;
+
+/**
+ * Syncs a generated member list of {@value #MEMBERS} members served by a local
+ * stub and checks that the heap does not grow with the members read.
+ */
+public class DfvProfileLoaderStreamingTest {
+
+    private static final int MEMBERS = 200000;
+    // every one of these has no last name
+    private static final int NO_NAME_EVERY = 1000;
+    private static final int SAMPLE_EVERY = 25000;
+    // the members as list take about 50 MB
+    private static final long MAX_HEAP_GROWTH = 16L * 1024 * 1024;
+
+    private HttpServer server;
+    private Client client;
+    private DataStore dataStore;
+    private DfvProfileLoader profileLoader;
+
+    private int read;
+    private long maxGrowth;
+
+    private static void writeMembers(Writer writer) throws IOException {
+        writer.write('[');
+        for (int i = 0; i < MEMBERS; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String lastName = i % NO_NAME_EVERY == 0 ? "null" : "\"  Nachname" + i + " \"";
+            writer.write(String.format("{\"dfvnr\":%d,\"vorname\":\" Vorname%d\",\"nachname\":%s,", 100000 + i, i,
+                    lastName));
+            writer.write(String.format("\"dse\":true,\"vnr\":%d,\"mtime\":\"2026-01-01 10:00:00+01:00\"}",
+                    1 + i % 400));
+        }
+        writer.write(']');
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/api/profile/sparte/ultimate", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            // chunked, the payload is generated while it is sent
+            exchange.sendResponseHeaders(200, 0);
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+                writeMembers(writer);
+            }
+        });
+        this.server.start();
+        this.client = ClientBuilder.newClient();
+
+        UltiCalConfig config = mock(UltiCalConfig.class);
+        JobsConfig jobs = mock(JobsConfig.class);
+        DfvApiConfig apiConfig = mock(DfvApiConfig.class);
+        when(config.getJobsConf()).thenReturn(jobs);
+        when(jobs.isDfvMvSyncEnabled()).thenReturn(Boolean.TRUE);
+        when(config.getDfvApi()).thenReturn(apiConfig);
+        when(apiConfig.getUrl()).thenReturn("http://localhost:" + this.server.getAddress().getPort() + "/api");
+        when(apiConfig.getToken()).thenReturn("token");
+        when(apiConfig.getSecret()).thenReturn("secret");
+
+        this.dataStore = mock(DataStore.class);
+        when(this.dataStore.getClosable()).thenReturn(mock(DataStore.DataStoreCloseable.class));
+
+        this.profileLoader = new DfvProfileLoader();
+        this.profileLoader.client = this.client;
+        this.profileLoader.config = config;
+        this.profileLoader.dataStore = this.dataStore;
+        this.profileLoader.dfvApiBreaker = new CircuitBreaker("dfvApi", new UltiCalConfig.CircuitBreakerConfig(), null);
+        this.profileLoader.objectMapper = Jackson.newObjectMapper();
+    }
+
+    @After
+    public void tearDown() {
+        this.client.close();
+        this.server.stop(0);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    public void testHeapStaysFlat() throws Exception {
+        when(this.dataStore.syncDfvNames(Mockito.<Iterator<DfvMvName>> any())).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            Iterator<DfvMvName> names = (Iterator<DfvMvName>) invocation.getArguments()[0];
+            long baseline = usedHeap();
+            while (names.hasNext()) {
+                DfvMvName name = names.next();
+                assertEquals(name.getFirstName().trim(), name.getFirstName());
+                assertEquals(name.getLastName().trim(), name.getLastName());
+                if (++this.read % SAMPLE_EVERY == 0) {
+                    this.maxGrowth = Math.max(this.maxGrowth, usedHeap() - baseline);
+                }
+            }
+            DfvSyncStatistics statistics = new DfvSyncStatistics();
+            statistics.setUnchanged(true);
+            return statistics;
+        });
+
+        DfvSyncStatistics statistics = this.profileLoader.syncDfvMvNames();
+
+        assertTrue(statistics.isUnchanged());
+        assertEquals(MEMBERS - MEMBERS / NO_NAME_EVERY, this.read);
+        assertTrue(String.format("heap grew by %,d bytes", this.maxGrowth), this.maxGrowth < MAX_HEAP_GROWTH);
+    }
+}
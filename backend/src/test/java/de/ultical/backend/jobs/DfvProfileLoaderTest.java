@@ -1,5 +1,6 @@
 package de.ultical.backend.jobs;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
@@ -9,16 +10,18 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
+import java.util.Iterator;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
-import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.MediaType;
 
 import org.junit.Assert;
@@ -29,12 +32,14 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
 import de.ultical.backend.api.transferClasses.DfvMvName;
+import de.ultical.backend.app.CircuitBreaker;
 import de.ultical.backend.app.DfvApiConfig;
 import de.ultical.backend.app.MailClient;
 import de.ultical.backend.app.UltiCalConfig;
 import de.ultical.backend.app.UltiCalConfig.JobsConfig;
 import de.ultical.backend.app.mail.SystemMessage;
 import de.ultical.backend.data.DataStore;
+import de.ultical.backend.data.DfvSyncStatistics;
 import de.ultical.backend.model.DfvPlayer;
 import de.ultical.backend.model.DivisionAge;
 import de.ultical.backend.model.DivisionType;
@@ -43,6 +48,7 @@ import de.ultical.backend.model.Season;
 import de.ultical.backend.model.Surface;
 import de.ultical.backend.model.Team;
 import de.ultical.backend.model.User;
+import io.dropwizard.jackson.Jackson;
 
 public class DfvProfileLoaderTest {
 
@@ -72,7 +78,7 @@ public class DfvProfileLoaderTest {
     @Mock
     MailClient mailClient;
 
-    private List<DfvMvName> responseList = Collections.emptyList();
+    private DfvSyncStatistics statistics;
 
     private DfvProfileLoader profileLoader;
 
@@ -90,7 +96,8 @@ public class DfvProfileLoaderTest {
         when(this.target.queryParam(Mockito.anyString(), Mockito.any())).thenReturn(this.target);
         when(this.target.path(Mockito.anyString())).thenReturn(this.target);
         when(this.target.request(Mockito.anyString())).thenReturn(this.builder);
-        when(this.builder.get(Mockito.<GenericType<List<DfvMvName>>> any())).thenReturn(this.responseList);
+        when(this.builder.get(InputStream.class))
+                .thenAnswer(invocation -> new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8)));
         when(this.dataStore.getClosable()).thenReturn(this.closable);
 
         WebTarget exceptionThrowingTarget = Mockito.mock(WebTarget.class);
@@ -100,8 +107,7 @@ public class DfvProfileLoaderTest {
         when(exceptionThrowingTarget.path(Mockito.anyString())).thenReturn(exceptionThrowingTarget);
         Invocation.Builder exceptionThrowingBuilder = Mockito.mock(Invocation.Builder.class);
         when(exceptionThrowingTarget.request(Mockito.anyString())).thenReturn(exceptionThrowingBuilder);
-        when(exceptionThrowingBuilder.get(Mockito.<GenericType<List<DfvMvName>>> any()))
-                .thenThrow(WebApplicationException.class);
+        when(exceptionThrowingBuilder.get(InputStream.class)).thenThrow(WebApplicationException.class);
 
         JobsConfig noDfvSync = Mockito.mock(JobsConfig.class);
         when(noDfvSync.isDfvMvSyncEnabled()).thenReturn(Boolean.FALSE);
@@ -140,6 +146,12 @@ public class DfvProfileLoaderTest {
 
         when(this.dataStore.getRosterForPlayer(updatedPlayer)).thenReturn(Collections.singletonList(roster));
         when(this.dataStore.getPlayersToUpdate()).thenReturn(Collections.singletonList(updatedPlayer));
+        this.statistics = new DfvSyncStatistics();
+        this.statistics.setPayloadHash("payload");
+        this.statistics.getChangedDfvNumbers().add(123456);
+        when(this.dataStore.syncDfvNames(Mockito.<Iterator<DfvMvName>> any())).thenReturn(this.statistics);
+        when(this.dataStore.getPlayersToUpdate(this.statistics.getChangedDfvNumbers()))
+                .thenReturn(Collections.singletonList(updatedPlayer));
         /*
          * we return a list of blocking dates that are all in the future.
          */
@@ -151,6 +163,8 @@ public class DfvProfileLoaderTest {
         this.profileLoader.config = this.config;
         this.profileLoader.dataStore = this.dataStore;
         this.profileLoader.mailClient = this.mailClient;
+        this.profileLoader.dfvApiBreaker = new CircuitBreaker("dfvApi", new UltiCalConfig.CircuitBreakerConfig(), null);
+        this.profileLoader.objectMapper = Jackson.newObjectMapper();
     }
 
     @Test
@@ -170,14 +184,38 @@ public class DfvProfileLoaderTest {
         verify(this.target, times(2)).queryParam(eq("token"), eq(TOKEN));
         verify(this.target, times(1)).path("profile/sparte/ultimate");
         verify(this.target, times(2)).request(MediaType.APPLICATION_JSON);
-        verify(this.builder).get(any(GenericType.class));
-        verify(this.dataStore).refreshDfvNames(this.responseList);
+        verify(this.builder).get(InputStream.class);
+        verify(this.dataStore).syncDfvNames(Mockito.<Iterator<DfvMvName>> any());
 
         /*
          * verify the update part: Player is removed from roster and mail to
          * admins is sent
          */
         verify(this.mailClient).sendMail(any(SystemMessage.class));
+        // only the players of the changed members are checked
+        verify(this.dataStore, never()).getPlayersToUpdate();
+        verify(this.dataStore).completeDfvNameSync("payload");
+    }
+
+    @Test
+    public void testUnchangedRun() throws Exception {
+        this.statistics.setUnchanged(true);
+        DfvSyncStatistics result = this.profileLoader.syncDfvMvNames();
+        assertTrue(result.isUnchanged());
+        verify(this.dataStore, never()).getPlayersToUpdate();
+        verify(this.dataStore, never()).getPlayersToUpdate(Mockito.anyCollection());
+        verify(this.dataStore, never()).completeDfvNameSync(Mockito.anyString());
+        verify(this.mailClient, never()).sendMail(any(SystemMessage.class));
+    }
+
+    @Test
+    public void testIncompleteRunChecksAllPlayers() throws Exception {
+        this.statistics.setCheckAllPlayers(true);
+        DfvSyncStatistics result = this.profileLoader.syncDfvMvNames();
+        assertEquals(1, result.getPlayersUpdated());
+        verify(this.dataStore).getPlayersToUpdate();
+        verify(this.dataStore, never()).getPlayersToUpdate(Mockito.anyCollection());
+        verify(this.dataStore).completeDfvNameSync("payload");
     }
 
     @Test
@@ -217,7 +255,7 @@ public class DfvProfileLoaderTest {
         }
         verify(this.closable).close();
         verify(this.dataStore).getClosable();
-        verify(this.dataStore, Mockito.never()).refreshDfvNames(Mockito.anyList());
+        verify(this.dataStore, Mockito.never()).syncDfvNames(Mockito.<Iterator<DfvMvName>> any());
     }
 
 }
@@ -0,0 +1,116 @@
+package de.ultical.backend.jobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import org.glassfish.hk2.api.ServiceLocator;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMultimap;
+
+public class DfvSyncTaskTest {
+
+    private static final Duration INTERVAL = Duration.ofHours(1);
+
+    @Mock
+    LeaseManager leaseManager;
+    @Mock
+    ServiceLocator serviceLocator;
+    @Mock
+    DfvClubLoader clubLoader;
+
+    private MetricRegistry metrics;
+    private DfvSyncTask task;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        this.metrics = new MetricRegistry();
+        this.task = new DfvSyncTask(this.leaseManager, INTERVAL, this.metrics, () -> this.serviceLocator);
+    }
+
+    private String execute(ImmutableMultimap<String, String> parameters) throws Exception {
+        StringWriter output = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(output)) {
+            this.task.execute(parameters, writer);
+        }
+        return output.toString();
+    }
+
+    private static JobRun run(String job, JobRun.Status status, String message) {
+        JobRun run = new JobRun();
+        run.setJob(job);
+        run.setStatus(status);
+        run.setStartedAt(LocalDateTime.of(2026, 10, 19, 3, 0));
+        run.setFinishedAt(LocalDateTime.of(2026, 10, 19, 3, 0, 2));
+        run.setMessage(message);
+        return run;
+    }
+
+    @Test
+    public void testListsTheSyncRuns() throws Exception {
+        when(this.leaseManager.getRecentRuns(anyInt())).thenReturn(Arrays.asList(
+                run("dfv-sync-profiles", JobRun.Status.FAILED, "DFV is down"),
+                run("geo-index", JobRun.Status.SUCCEEDED, null),
+                run("dfv-sync-clubs", JobRun.Status.SUCCEEDED, "12 clubs written")));
+        when(this.leaseManager.isRunning("dfv-sync-associations")).thenReturn(true);
+
+        String output = this.execute(ImmutableMultimap.of());
+        assertTrue(output.contains("dfv-sync-associations is running"));
+        assertTrue(output.contains("DFV is down"));
+        assertTrue(output.contains("12 clubs written"));
+        assertTrue(output.contains("2000 ms"));
+        assertFalse(output.contains("geo-index"));
+        verify(this.leaseManager, never()).runOnDemand(anyString(), any(Duration.class), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRunsAPhase() throws Exception {
+        when(this.serviceLocator.createAndInitialize(DfvClubLoader.class)).thenReturn(this.clubLoader);
+        when(this.clubLoader.getClubs()).thenReturn(12);
+        when(this.leaseManager.runOnDemand(eq("dfv-sync-clubs"), eq(INTERVAL), any()))
+                .thenAnswer(invocation -> {
+                    assertEquals("12 clubs written", ((Supplier<String>) invocation.getArguments()[2]).get());
+                    return true;
+                });
+
+        String output = this.execute(ImmutableMultimap.of("phase", "Clubs"));
+        assertEquals("dfv-sync-clubs: done", output.trim());
+        assertEquals(12, this.metrics.counter(MetricRegistry.name(DfvSyncPhase.class, "clubs", "written")).getCount());
+    }
+
+    @Test
+    public void testSkipsARunningPhase() throws Exception {
+        when(this.leaseManager.runOnDemand(eq("dfv-sync-profiles"), eq(INTERVAL), any())).thenReturn(false);
+
+        String output = this.execute(ImmutableMultimap.of("phase", "profiles"));
+        assertTrue(output.contains("skipped"));
+    }
+
+    @Test
+    public void testUnknownPhase() throws Exception {
+        String output = this.execute(ImmutableMultimap.of("phase", "teams"));
+        assertEquals("Unknown phase teams", output.trim());
+        verify(this.leaseManager, never()).runOnDemand(anyString(), any(Duration.class), any());
+    }
+}
@@ -0,0 +1,58 @@
+package de.ultical.backend.jobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.ProcessingException;
+
+import org.junit.Test;
+
+import de.ultical.backend.model.Club;
+import io.dropwizard.jackson.Jackson;
+
+public class JsonArrayReaderTest {
+
+    private static JsonArrayReader<Club> reader(String json) {
+        return new JsonArrayReader<>(Jackson.newObjectMapper(), Club.class,
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testReadsElements() {
+        List<Club> clubs = new ArrayList<>();
+        String json = "[{\"vereinsnr\":\"1\",\"name\":\"Eins\"},null,{\"vereinsnr\":\"2\",\"name\":\"Zwei\"}]";
+        try (JsonArrayReader<Club> reader = reader(json)) {
+            assertTrue(reader.isPresent());
+            reader.forEachRemaining(clubs::add);
+        }
+        // null is skipped
+        assertEquals(2, clubs.size());
+        assertEquals("Eins", clubs.get(0).getName());
+        assertEquals(2, clubs.get(1).getId());
+    }
+
+    @Test
+    public void testNoArray() {
+        try (JsonArrayReader<Club> reader = reader("")) {
+            assertFalse(reader.isPresent());
+            assertFalse(reader.hasNext());
+        }
+        try (JsonArrayReader<Club> reader = reader("null")) {
+            assertFalse(reader.isPresent());
+        }
+    }
+
+    @Test(expected = ProcessingException.class)
+    public void testTruncated() {
+        try (JsonArrayReader<Club> reader = reader("[{\"vereinsnr\":\"1\",\"name\":\"Eins\"},")) {
+            reader.forEachRemaining(club -> {
+            });
+        }
+    }
+}
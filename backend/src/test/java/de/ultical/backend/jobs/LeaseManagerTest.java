@@ -0,0 +1,221 @@
+package de.ultical.backend.jobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import de.ultical.backend.utils.test.PrepareDBRule;
+
+/**
+ * Two nodes, represented by two managers with different owners, compete for
+ * the same leases.
+ */
+public class LeaseManagerTest {
+
+    @ClassRule
+    public static PrepareDBRule RULE = new PrepareDBRule();
+
+    private static final Duration LEASE = Duration.ofMinutes(10);
+    private static final Duration INTERVAL = Duration.ofMinutes(55);
+
+    /*
+     * a clock both nodes share and the test moves forward
+     */
+    private static class TestClock extends Clock {
+        private Instant now = LocalDateTime.of(2026, 10, 19, 3, 0).toInstant(ZoneOffset.UTC);
+
+        void advance(Duration duration) {
+            this.now = this.now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return this.now;
+        }
+    }
+
+    private TestClock clock;
+    private LeaseManager nodeA;
+    private LeaseManager nodeB;
+    private String job;
+
+    private static int jobCounter = 0;
+
+    @Before
+    public void setUp() {
+        this.clock = new TestClock();
+        this.nodeA = new LeaseManager(RULE::openSession, LEASE, "node-a", this.clock);
+        this.nodeB = new LeaseManager(RULE::openSession, LEASE, "node-b", this.clock);
+        // every test uses its own lease
+        this.job = "test-job-" + (++jobCounter);
+    }
+
+    @Test
+    public void testOnlyOneNodeAcquires() {
+        LocalDateTime now = LocalDateTime.now(this.clock);
+        assertTrue(this.nodeA.tryAcquire(this.job, now));
+        assertFalse(this.nodeB.tryAcquire(this.job, now));
+        // a lease is not re-entrant
+        assertFalse(this.nodeA.tryAcquire(this.job, now));
+
+        assertTrue(this.nodeA.renew(this.job));
+        assertFalse(this.nodeB.renew(this.job));
+
+        // node a died, its lease expires
+        this.clock.advance(LEASE.plusSeconds(1));
+        assertTrue(this.nodeB.tryAcquire(this.job, LocalDateTime.now(this.clock)));
+        assertFalse(this.nodeA.renew(this.job));
+    }
+
+    @Test
+    public void testLeaseIsKeptForTheMinimumInterval() {
+        AtomicInteger runs = new AtomicInteger();
+        assertTrue(this.nodeA.runExclusively(this.job, INTERVAL, runs::incrementAndGet));
+        assertEquals(1, runs.get());
+
+        // the other node is scheduled a little later
+        this.clock.advance(Duration.ofMinutes(5));
+        assertFalse(this.nodeB.runExclusively(this.job, INTERVAL, runs::incrementAndGet));
+        assertEquals(1, runs.get());
+
+        this.clock.advance(INTERVAL);
+        assertTrue(this.nodeB.runExclusively(this.job, INTERVAL, runs::incrementAndGet));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void testRunsDoNotOverlapOnOneNode() {
+        AtomicInteger runs = new AtomicInteger();
+        boolean ran = this.nodeA.runExclusively(this.job, Duration.ZERO, () -> {
+            runs.incrementAndGet();
+            // the lease is still held, but the node skips the job anyway
+            assertFalse(this.nodeA.runExclusively(this.job, Duration.ZERO, runs::incrementAndGet));
+        });
+        assertTrue(ran);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testRunHistory() {
+        this.nodeA.runExclusively(this.job, Duration.ZERO, () -> {
+            // NOP
+        });
+        this.clock.advance(Duration.ofMinutes(1));
+        try {
+            this.nodeB.runExclusively(this.job, Duration.ZERO, () -> {
+                throw new IllegalStateException("DFV is down");
+            });
+            fail("the failure must be passed on");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // other tests record runs as well
+        List<JobRun> runs = this.nodeA.getRecentRuns(100).stream().filter(r -> this.job.equals(r.getJob()))
+                .collect(Collectors.toList());
+        assertEquals(2, runs.size());
+        JobRun failed = runs.get(0);
+        assertEquals(this.job, failed.getJob());
+        assertEquals("node-b", failed.getOwner());
+        assertEquals(JobRun.Status.FAILED, failed.getStatus());
+        assertTrue(failed.getMessage().contains("DFV is down"));
+        JobRun succeeded = runs.get(1);
+        assertEquals("node-a", succeeded.getOwner());
+        assertEquals(JobRun.Status.SUCCEEDED, succeeded.getStatus());
+        assertEquals(succeeded.getStartedAt(), succeeded.getFinishedAt());
+
+        // the lease has been released right away, as there is no interval
+        JobLease lease = this.nodeA.getLeases().stream().filter(l -> this.job.equals(l.getName())).findAny()
+                .get();
+        assertEquals("node-b", lease.getOwner());
+        assertEquals(LocalDateTime.now(this.clock), lease.getExpiresAt());
+    }
+
+    @Test
+    public void testMetrics() {
+        MetricRegistry metrics = new MetricRegistry();
+        LeaseManager node = new LeaseManager(RULE::openSession, LEASE, "node-c", this.clock, metrics);
+        assertTrue(node.runExclusively(this.job, INTERVAL, () -> {
+            // NOP
+        }));
+        assertFalse(node.runExclusively(this.job, INTERVAL, () -> {
+            // NOP
+        }));
+        this.clock.advance(INTERVAL);
+        try {
+            node.runExclusively(this.job, INTERVAL, () -> {
+                throw new IllegalStateException("DFV is down");
+            });
+            fail("the failure must be passed on");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        assertEquals(2, metrics.timer(MetricRegistry.name(LeaseManager.class, this.job, "runs")).getCount());
+        assertEquals(1, metrics.meter(MetricRegistry.name(LeaseManager.class, this.job, "skipped")).getCount());
+        assertEquals(1, metrics.meter(MetricRegistry.name(LeaseManager.class, this.job, "failures")).getCount());
+    }
+
+    @Test
+    public void testRunOnDemandIgnoresTheInterval() {
+        AtomicInteger runs = new AtomicInteger();
+        assertTrue(this.nodeA.runExclusively(this.job, INTERVAL, runs::incrementAndGet));
+        this.clock.advance(Duration.ofMinutes(5));
+        assertFalse(this.nodeB.runExclusively(this.job, INTERVAL, runs::incrementAndGet));
+        assertTrue(this.nodeB.runOnDemand(this.job, INTERVAL, () -> {
+            runs.incrementAndGet();
+            return "3 rows";
+        }));
+        assertEquals(2, runs.get());
+
+        JobRun onDemand = this.nodeA.getRecentRuns(100).stream().filter(r -> this.job.equals(r.getJob()))
+                .findFirst().get();
+        assertEquals("node-b", onDemand.getOwner());
+        assertEquals("on demand: 3 rows", onDemand.getMessage());
+    }
+
+    @Test
+    public void testRunOnDemandSkipsRunningJobs() {
+        AtomicInteger runs = new AtomicInteger();
+        assertTrue(this.nodeA.runExclusively(this.job, INTERVAL, () -> {
+            runs.incrementAndGet();
+            // on another node and on this one
+            assertFalse(this.nodeB.runOnDemand(this.job, INTERVAL, () -> {
+                runs.incrementAndGet();
+                return null;
+            }));
+            assertFalse(this.nodeA.runOnDemand(this.job, INTERVAL, () -> {
+                runs.incrementAndGet();
+                return null;
+            }));
+        }));
+        assertEquals(1, runs.get());
+    }
+}
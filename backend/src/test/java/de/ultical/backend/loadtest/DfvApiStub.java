@@ -0,0 +1,70 @@
+package de.ultical.backend.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Answers the profile requests of the DFV API after the configured latency,
+ * each member is a female, active player who has paid their fee, so they are
+ * eligible for every division.
+ */
+public class DfvApiStub {
+
+    private static final String PROFILE_PATH = "/api/profil/";
+    private static final String PROFILE = "{\"dfvnr\":%s,\"geschlecht\":\"w\",\"geburtsdatum\":\"1995-05-05\","
+            + "\"verein\":1,\"aktiv\":true,\"ruht\":false,\"dse\":true,\"email\":\"player%s@example.org\","
+            + "\"beitrag_bezahlt\":true}";
+
+    private final Duration latency;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public DfvApiStub(Duration latency) {
+        this.latency = latency;
+    }
+
+    public void start() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.executor = Executors.newCachedThreadPool();
+        this.server.setExecutor(this.executor);
+        this.server.createContext(PROFILE_PATH, this::answer);
+        this.server.start();
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        try {
+            Thread.sleep(this.latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String dfvNumber = exchange.getRequestURI().getPath().substring(PROFILE_PATH.length());
+        byte[] body = String.format(PROFILE, dfvNumber, dfvNumber).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public void stop() {
+        if (this.server != null) {
+            this.server.stop(0);
+            this.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the URL to configure as <code>dfvApi.url</code>.
+     */
+    public String getUrl() {
+        return "http://localhost:" + this.server.getAddress().getPort() + "/api";
+    }
+}
@@ -0,0 +1,141 @@
+package de.ultical.backend.loadtest;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import lombok.Data;
+
+/**
+ * The ids and users of the generated data the scenarios work with, read from
+ * the database before the application is started.
+ */
+public class Fixtures {
+
+    // enough to spread the requests, few enough to read them quickly
+    private static final int MAX_ROWS = 5000;
+
+    /**
+     * A roster and a user administrating its team.
+     */
+    @Data
+    public static class AdminRoster {
+        private String email;
+        private int rosterId;
+    }
+
+    /**
+     * A roster that may be registered for a division it is not registered
+     * for yet, and a user administrating its team.
+     */
+    @Data
+    public static class OpenRegistration {
+        private String email;
+        private int divisionId;
+        private int rosterId;
+    }
+
+    private final List<Integer> eventIds = new ArrayList<>();
+    private final List<Integer> teamIds = new ArrayList<>();
+    private final List<String> emails = new ArrayList<>();
+    private final List<AdminRoster> adminRosters = new ArrayList<>();
+    private final List<OpenRegistration> openRegistrations = new ArrayList<>();
+    // DFV members that are not players yet
+    private final List<Integer> newMembers = new ArrayList<>();
+
+    private interface RowReader {
+        void read(ResultSet rs) throws SQLException;
+    }
+
+    private static void query(Connection connection, String sql, RowReader reader) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.setMaxRows(MAX_ROWS);
+            try (ResultSet rs = statement.executeQuery(sql)) {
+                while (rs.next()) {
+                    reader.read(rs);
+                }
+            }
+        }
+    }
+
+    public static Fixtures load(Connection connection) throws SQLException {
+        Fixtures fixtures = new Fixtures();
+        query(connection, "SELECT id FROM EVENT ORDER BY id", rs -> fixtures.eventIds.add(rs.getInt(1)));
+        query(connection, "SELECT id FROM TEAM ORDER BY id", rs -> fixtures.teamIds.add(rs.getInt(1)));
+        query(connection, "SELECT email FROM ULTICAL_USER ORDER BY id", rs -> fixtures.emails.add(rs.getString(1)));
+        /*
+         * players can be added to and removed from regular rosters that are
+         * not registered for any tournament, see RosterResource
+         */
+        query(connection,
+                "SELECT u.email, r.id FROM ROSTER r JOIN TEAM_ULTICAL_USERS tuu ON tuu.team = r.team "
+                        + "JOIN ULTICAL_USER u ON u.id = tuu.admin WHERE r.division_age = 'REGULAR' "
+                        + "AND NOT EXISTS (SELECT 1 FROM TEAM_REGISTRATION tr WHERE tr.roster = r.id) ORDER BY r.id",
+                rs -> {
+                    AdminRoster adminRoster = new AdminRoster();
+                    adminRoster.setEmail(rs.getString(1));
+                    adminRoster.setRosterId(rs.getInt(2));
+                    fixtures.adminRosters.add(adminRoster);
+                });
+        query(connection,
+                "SELECT u.email, d.id, r.id FROM DIVISION_REGISTRATION d "
+                        + "JOIN TOURNAMENT_EDITION te ON te.id = d.tournament_edition "
+                        + "JOIN ROSTER r ON r.season = te.season AND r.division_type = d.division_type "
+                        + "AND r.division_age = d.division_age "
+                        + "JOIN TEAM_ULTICAL_USERS tuu ON tuu.team = r.team JOIN ULTICAL_USER u ON u.id = tuu.admin "
+                        + "WHERE NOT EXISTS (SELECT 1 FROM TEAM_REGISTRATION tr "
+                        + "WHERE tr.division_registration = d.id AND tr.roster = r.id) ORDER BY d.id, r.id",
+                rs -> {
+                    OpenRegistration registration = new OpenRegistration();
+                    registration.setEmail(rs.getString(1));
+                    registration.setDivisionId(rs.getInt(2));
+                    registration.setRosterId(rs.getInt(3));
+                    fixtures.openRegistrations.add(registration);
+                });
+
+        Set<Integer> players = new HashSet<>();
+        query(connection, "SELECT dfv_number FROM DFV_PLAYER", rs -> players.add(Integer.valueOf(rs.getString(1))));
+        query(connection, "SELECT dfv_number, dse FROM DFV_MV_NAME ORDER BY dfv_number", rs -> {
+            if (rs.getBoolean(2) && !players.contains(rs.getInt(1))) {
+                fixtures.newMembers.add(rs.getInt(1));
+            }
+        });
+        return fixtures;
+    }
+
+    public List<Integer> getEventIds() {
+        return this.eventIds;
+    }
+
+    public List<Integer> getTeamIds() {
+        return this.teamIds;
+    }
+
+    public List<String> getEmails() {
+        return this.emails;
+    }
+
+    public List<AdminRoster> getAdminRosters() {
+        return this.adminRosters;
+    }
+
+    public List<OpenRegistration> getOpenRegistrations() {
+        return this.openRegistrations;
+    }
+
+    public List<Integer> getNewMembers() {
+        return this.newMembers;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d events, %d teams, %d users, %d rosters, %d open registrations, %d new members",
+                this.eventIds.size(), this.teamIds.size(), this.emails.size(), this.adminRosters.size(),
+                this.openRegistrations.size(), this.newMembers.size());
+    }
+}
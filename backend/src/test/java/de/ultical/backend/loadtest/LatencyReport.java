@@ -0,0 +1,139 @@
+package de.ultical.backend.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
+
+/**
+ * Collects the latencies and answers per endpoint once the warm-up is over
+ * and checks them against the thresholds of the run.
+ * <p>
+ * A <code>4xx</code> answer is counted as rejected, not as an error, as the
+ * application may refuse a request with synthetic data for good reasons, e.g.
+ * a player of the wrong gender for the division. Answers of
+ * <code>5xx</code> and requests that failed on the way count as errors.
+ * </p>
+ */
+public class LatencyReport {
+
+    // samples kept per endpoint, enough for stable percentiles
+    private static final int RESERVOIR_SIZE = 100000;
+
+    private static class Endpoint {
+        private final Timer latency = new Timer(new UniformReservoir(RESERVOIR_SIZE));
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+    }
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private volatile long recordFrom;
+    private volatile long recordUntil;
+
+    /**
+     * Starts recording after the warm-up, earlier requests are not recorded.
+     */
+    public void start(Duration warmup) {
+        this.recordFrom = System.nanoTime() + warmup.toNanos();
+        this.recordUntil = Long.MAX_VALUE;
+    }
+
+    public void stop() {
+        this.recordUntil = System.nanoTime();
+    }
+
+    private boolean isRecording(long now) {
+        return now >= this.recordFrom && now <= this.recordUntil;
+    }
+
+    /**
+     * @param status
+     *            the status of the answer, <code>0</code> if there has been
+     *            none.
+     */
+    public void record(String endpoint, long startNanos, int status) {
+        long now = System.nanoTime();
+        if (!this.isRecording(startNanos)) {
+            return;
+        }
+        Endpoint stats = this.endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        stats.latency.update(now - startNanos, TimeUnit.NANOSECONDS);
+        if (status >= 400 && status < 500) {
+            stats.rejected.increment();
+        } else if (status == 0 || status >= 500) {
+            stats.errors.increment();
+        }
+    }
+
+    private double seconds() {
+        return (this.recordUntil - this.recordFrom) / 1e9;
+    }
+
+    private static double millis(double nanos) {
+        return nanos / 1e6;
+    }
+
+    public long getRequests() {
+        return this.endpoints.values().stream().mapToLong(e -> e.latency.getCount()).sum();
+    }
+
+    public long getErrors() {
+        return this.endpoints.values().stream().mapToLong(e -> e.errors.sum()).sum();
+    }
+
+    public double getThroughput() {
+        return this.getRequests() / this.seconds();
+    }
+
+    public void print(PrintStream out) {
+        out.println(String.format("%-22s %9s %9s %9s %9s %9s %9s %9s %9s", "endpoint", "requests", "req/s",
+                "p50 ms", "p95 ms", "p99 ms", "max ms", "rejected", "errors"));
+        new TreeMap<>(this.endpoints).forEach((name, stats) -> {
+            Snapshot snapshot = stats.latency.getSnapshot();
+            out.println(String.format("%-22s %9d %9.1f %9.1f %9.1f %9.1f %9.1f %9d %9d", name,
+                    stats.latency.getCount(), stats.latency.getCount() / this.seconds(),
+                    millis(snapshot.getMedian()), millis(snapshot.get95thPercentile()),
+                    millis(snapshot.get99thPercentile()), millis(snapshot.getMax()), stats.rejected.sum(),
+                    stats.errors.sum()));
+        });
+        out.println(String.format("%-22s %9d %9.1f", "total", this.getRequests(), this.getThroughput()));
+    }
+
+    /**
+     * @return a description of each threshold the run has exceeded, empty if
+     *         it has passed.
+     */
+    public List<String> getViolations(LoadTestSettings settings) {
+        List<String> violations = new ArrayList<>();
+        new TreeMap<>(this.endpoints).forEach((name, stats) -> {
+            double p99 = millis(stats.latency.getSnapshot().get99thPercentile());
+            long max = settings.getMaxP99Millis(name);
+            if (p99 > max) {
+                violations.add(String.format("%s: p99 of %.1f ms exceeds %d ms", name, p99, max));
+            }
+        });
+        long requests = this.getRequests();
+        if (requests == 0) {
+            violations.add("No requests have been recorded");
+            return violations;
+        }
+        double errorRate = (double) this.getErrors() / requests;
+        if (errorRate > settings.getMaxErrorRate()) {
+            violations.add(String.format("error rate of %.3f exceeds %.3f", errorRate, settings.getMaxErrorRate()));
+        }
+        if (this.getThroughput() < settings.getMinThroughput()) {
+            violations.add(String.format("throughput of %.1f req/s is below %.1f req/s", this.getThroughput(),
+                    settings.getMinThroughput()));
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,208 @@
+package de.ultical.backend.loadtest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.ultical.backend.app.TokenService;
+
+/**
+ * Replays the {@link TrafficMix} against the application with a number of
+ * threads, each acting as one user after the other.
+ * <p>
+ * The fixtures changed by the scenarios are split between the workers, so two
+ * workers never edit the same roster or registration at the same time.
+ * </p>
+ */
+public class LoadRunner {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final LoadTestSettings settings;
+    private final WebTarget target;
+    private final Fixtures fixtures;
+    private final LatencyReport report;
+
+    public LoadRunner(LoadTestSettings settings, WebTarget target, Fixtures fixtures, LatencyReport report) {
+        this.settings = settings;
+        this.target = target;
+        this.fixtures = fixtures;
+        this.report = report;
+    }
+
+    /**
+     * Runs the warm-up and the measured part of the test, the answers are
+     * collected in the {@link LatencyReport}.
+     */
+    public void run() throws Exception {
+        int threads = this.settings.getThreads();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long end = System.nanoTime() + this.settings.getWarmup().plus(this.settings.getDuration()).toNanos();
+        this.report.start(this.settings.getWarmup());
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Worker worker = new Worker(i, new Random(this.settings.getSeed() + i));
+                workers.add(executor.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        this.settings.getMix().pick(worker.random).run(worker);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            this.report.stop();
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * The state of one thread, passed to the {@link Scenario}s it runs.
+     */
+    public class Worker {
+
+        private final int index;
+        private final Random random;
+        // a user logs in once per worker, like a browser keeping its token
+        private final Map<String, String> authorizations = new HashMap<>();
+        private final List<Integer> newMembers;
+        private int nextNewMember = 0;
+
+        Worker(int index, Random random) {
+            this.index = index;
+            this.random = random;
+            this.newMembers = this.own(LoadRunner.this.fixtures.getNewMembers());
+        }
+
+        public Fixtures getFixtures() {
+            return LoadRunner.this.fixtures;
+        }
+
+        public WebTarget target(String path) {
+            return LoadRunner.this.target.path(path);
+        }
+
+        /**
+         * @return the elements of the list this worker is the only one to
+         *         use.
+         */
+        public <T> List<T> own(List<T> list) {
+            List<T> own = new ArrayList<>();
+            for (int i = this.index; i < list.size(); i += LoadRunner.this.settings.getThreads()) {
+                own.add(list.get(i));
+            }
+            return own;
+        }
+
+        /**
+         * @return a random element of the list, <code>null</code> if it is
+         *         empty.
+         */
+        public <T> T pick(List<T> list) {
+            return list.isEmpty() ? null : list.get(this.random.nextInt(list.size()));
+        }
+
+        /**
+         * @return the next DFV member of this worker, the members are reused
+         *         once all of them have been added. They are known players by
+         *         then, so the DFV API is not called for them again.
+         *         <code>null</code> if there are no members for this worker.
+         */
+        public Integer nextNewMember() {
+            if (this.newMembers.isEmpty()) {
+                return null;
+            }
+            int dfvNumber = this.newMembers.get(this.nextNewMember);
+            this.nextNewMember = (this.nextNewMember + 1) % this.newMembers.size();
+            return dfvNumber;
+        }
+
+        /**
+         * Sends a request and records its latency and answer.
+         *
+         * @return the body of a successful answer, <code>null</code> if the
+         *         request has failed or has been rejected.
+         */
+        public String call(String endpoint, Supplier<Response> request) {
+            long start = System.nanoTime();
+            int status = 0;
+            String body = null;
+            try {
+                Response response = request.get();
+                try {
+                    status = response.getStatus();
+                    if (response.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL) {
+                        body = response.hasEntity() ? response.readEntity(String.class) : "";
+                    }
+                } finally {
+                    response.close();
+                }
+            } catch (RuntimeException e) {
+                // counted as an error by the report
+            }
+            LoadRunner.this.report.record(endpoint, start, status);
+            return body;
+        }
+
+        /**
+         * Logs the user in.
+         *
+         * @return the token, <code>null</code> if the login has failed.
+         */
+        public String login(String email) {
+            String body = this.call("auth.login",
+                    () -> this.target("command/auth").request().post(Entity.json(
+                            "{\"email\":\"" + email + "\",\"password\":\"" + LoadTestDatabase.PASSWORD + "\"}")));
+            if (body == null) {
+                return null;
+            }
+            // wrong credentials are answered with a status but without token
+            JsonNode token = this.readTree(body).path("token");
+            return token.isTextual() ? token.asText() : null;
+        }
+
+        /**
+         * @return the <code>Authorization</code> header of the user, who is
+         *         logged in the first time.
+         */
+        public String authorization(String email) {
+            String authorization = this.authorizations.get(email);
+            if (authorization == null) {
+                String token = this.login(email);
+                if (token == null) {
+                    return null;
+                }
+                authorization = TokenService.PREFIX + " " + token;
+                this.authorizations.put(email, authorization);
+            }
+            return authorization;
+        }
+
+        public JsonNode readTree(String json) {
+            try {
+                return MAPPER.readTree(json);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unexpected answer " + json, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.ultical.backend.loadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+
+import org.apache.derby.jdbc.EmbeddedDriver;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.junit.rules.ExternalResource;
+import org.mindrot.jbcrypt.BCrypt;
+
+import de.ultical.backend.app.MyBatisManager;
+import de.ultical.backend.data.SyntheticDataGenerator;
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.database.core.DerbyDatabase;
+import liquibase.database.jvm.DerbyConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+
+/**
+ * An in-memory database filled by the {@link SyntheticDataGenerator}, the
+ * application under test is configured to use the same database, see
+ * <code>loadTestConfig.yaml</code>.
+ */
+public class LoadTestDatabase extends ExternalResource {
+
+    static final String URL = "jdbc:derby:memory:loadtest";
+    /**
+     * the password of all generated users
+     */
+    static final String PASSWORD = "synthetic";
+
+    private static final String CHANGELOG = "database/db.changelog-1.0.xml";
+    private static final String DRIVER = "org.apache.derby.jdbc.EmbeddedDriver";
+    private static final String USER = "APP";
+    // the cost the application is configured with
+    private static final int BCRYPT_COST = 10;
+
+    private final LoadTestSettings settings;
+    private Fixtures fixtures;
+
+    public LoadTestDatabase(LoadTestSettings settings) {
+        this.settings = settings;
+    }
+
+    @Override
+    protected void before() throws Throwable {
+        DriverManager.registerDriver(new EmbeddedDriver());
+        try (Connection connection = DriverManager.getConnection(URL + ";create=true")) {
+            DerbyDatabase database = new DerbyDatabase();
+            database.setConnection(new DerbyConnection(connection));
+            new Liquibase(CHANGELOG, new ClassLoaderResourceAccessor(), database).update((Contexts) null);
+        }
+
+        PooledDataSource dataSource = new PooledDataSource(DRIVER, URL, USER, USER);
+        try {
+            MyBatisManager mbm = new MyBatisManager(dataSource);
+            mbm.start();
+            long start = System.currentTimeMillis();
+            Map<String, Integer> counts = new SyntheticDataGenerator(mbm::provide,
+                    SyntheticDataGenerator.Scale.of(this.settings.getScale()), this.settings.getSeed(),
+                    BCrypt.hashpw(PASSWORD, BCrypt.gensalt(BCRYPT_COST))).generate();
+            System.out.println(
+                    String.format("Generated %s in %d s", counts, (System.currentTimeMillis() - start) / 1000));
+        } finally {
+            dataSource.forceCloseAll();
+        }
+
+        try (Connection connection = DriverManager.getConnection(URL)) {
+            this.fixtures = Fixtures.load(connection);
+        }
+    }
+
+    @Override
+    protected void after() {
+        try {
+            DriverManager.getConnection(URL + ";drop=true");
+        } catch (SQLException dropEx) {
+            // derby signals a successful drop with this state
+            if (!"08006".equals(dropEx.getSQLState())) {
+                throw new IllegalStateException(dropEx);
+            }
+        }
+    }
+
+    public Fixtures getFixtures() {
+        return this.fixtures;
+    }
+}
@@ -0,0 +1,84 @@
+package de.ultical.backend.loadtest;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+
+import org.glassfish.jersey.client.ClientProperties;
+import org.junit.AfterClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import de.ultical.backend.app.Application;
+import de.ultical.backend.app.UltiCalConfig;
+import io.dropwizard.testing.ConfigOverride;
+import io.dropwizard.testing.ResourceHelpers;
+import io.dropwizard.testing.junit.DropwizardAppRule;
+
+/**
+ * Runs the application on a database filled with synthetic data and replays
+ * the {@link TrafficMix} against it, the DFV API is stubbed and the mails are
+ * dropped by a {@link MailSink}. The latencies per endpoint are printed and
+ * the test fails if a threshold of the {@link LoadTestSettings} is exceeded.
+ */
+public class LoadTestIT {
+
+    private static final LoadTestSettings SETTINGS = LoadTestSettings.fromSystemProperties();
+
+    private static final DfvApiStub DFV_API = new DfvApiStub(SETTINGS.getDfvApiLatency());
+
+    private static final MailSink MAIL = new MailSink("loadtest@example.org", "loadtest", "loadtest");
+
+    static {
+        // the URL of the stub and the port of the sink are part of the configuration
+        try {
+            DFV_API.start();
+            MAIL.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final LoadTestDatabase DATABASE = new LoadTestDatabase(SETTINGS);
+
+    private static final DropwizardAppRule<UltiCalConfig> APP = new DropwizardAppRule<>(Application.class,
+            ResourceHelpers.resourceFilePath("loadTestConfig.yaml"),
+            ConfigOverride.config("dfvApi.url", DFV_API.getUrl()),
+            ConfigOverride.config("mail.smtpPort", MAIL.getPort()));
+
+    @ClassRule
+    public static final RuleChain RULES = RuleChain.outerRule(DATABASE).around(APP);
+
+    @AfterClass
+    public static void stopStubs() {
+        DFV_API.stop();
+        MAIL.stop();
+    }
+
+    @Test
+    public void testTrafficMix() throws Exception {
+        System.out.println("Load test with " + SETTINGS);
+        System.out.println("Fixtures: " + DATABASE.getFixtures());
+
+        LatencyReport report = new LatencyReport();
+        Client client = ClientBuilder.newClient().property(ClientProperties.CONNECT_TIMEOUT, 5000)
+                .property(ClientProperties.READ_TIMEOUT, 60000);
+        try {
+            new LoadRunner(SETTINGS, client.target("http://localhost:" + APP.getLocalPort()), DATABASE.getFixtures(),
+                    report).run();
+        } finally {
+            client.close();
+        }
+
+        report.print(System.out);
+        System.out.println("Mails received: " + MAIL.getReceivedCount());
+        List<String> violations = report.getViolations(SETTINGS);
+        assertTrue("The load test has failed:\n" + String.join("\n", violations), violations.isEmpty());
+    }
+}
@@ -0,0 +1,66 @@
+package de.ultical.backend.loadtest;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+/**
+ * The parameters of a load test run, read from system properties so a run can
+ * be tuned from the command line, e.g.
+ *
+ * <pre>
+ * mvn verify -Dit.test=LoadTestIT -Dloadtest.scale=2 -Dloadtest.threads=32 \
+ *     -Dloadtest.mix=calendar=60,team=20,login=20 -Dloadtest.maxP99Ms.auth.login=400
+ * </pre>
+ */
+@Data
+public class LoadTestSettings {
+
+    static final String PREFIX = "loadtest.";
+
+    // the data set
+    private double scale;
+    private long seed;
+
+    // the load
+    private int threads;
+    private Duration warmup;
+    private Duration duration;
+    private TrafficMix mix;
+    // answer time of the stubbed DFV API
+    private Duration dfvApiLatency;
+
+    // the thresholds a run fails beyond
+    private long maxP99Millis;
+    private double maxErrorRate;
+    private double minThroughput;
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+
+    public static LoadTestSettings fromSystemProperties() {
+        LoadTestSettings settings = new LoadTestSettings();
+        settings.setScale(Double.parseDouble(property("scale", "0.2")));
+        settings.setSeed(Long.parseLong(property("seed", "42")));
+        settings.setThreads(Integer.parseInt(property("threads", "8")));
+        settings.setWarmup(Duration.ofSeconds(Long.parseLong(property("warmupSeconds", "5"))));
+        settings.setDuration(Duration.ofSeconds(Long.parseLong(property("durationSeconds", "20"))));
+        settings.setMix(TrafficMix.parse(property("mix", TrafficMix.DEFAULT)));
+        settings.setDfvApiLatency(Duration.ofMillis(Long.parseLong(property("dfvApiLatencyMs", "50"))));
+        settings.setMaxP99Millis(Long.parseLong(property("maxP99Ms", "2000")));
+        settings.setMaxErrorRate(Double.parseDouble(property("maxErrorRate", "0.01")));
+        settings.setMinThroughput(Double.parseDouble(property("minThroughput", "0")));
+        return settings;
+    }
+
+    /**
+     * @return the p99 latency the given endpoint must not exceed, set by
+     *         <code>loadtest.maxP99Ms.&lt;endpoint&gt;</code> or
+     *         <code>loadtest.maxP99Ms</code> for all endpoints.
+     */
+    public long getMaxP99Millis(String endpoint) {
+        String value = property("maxP99Ms." + endpoint, null);
+        return value != null ? Long.parseLong(value) : this.maxP99Millis;
+    }
+}
@@ -0,0 +1,64 @@
+package de.ultical.backend.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+
+/**
+ * Accepts the mails of the application on a free port and drops them, so
+ * neither a mail sent by an endpoint nor the mail health check has to wait for
+ * a connection timeout. The scenarios do not call endpoints sending mails, the
+ * number of received mails is reported nonetheless.
+ */
+public class MailSink {
+
+    private final String sender;
+    private final String user;
+    private final String password;
+    private GreenMail greenMail;
+    private int port;
+
+    /**
+     * @param sender
+     *            the <code>mail.smtpSender</code> of the configuration
+     * @param user
+     *            the <code>mail.smtpUser</code> of the configuration
+     * @param password
+     *            the <code>mail.smtpPassword</code> of the configuration
+     */
+    public MailSink(String sender, String user, String password) {
+        this.sender = sender;
+        this.user = user;
+        this.password = password;
+    }
+
+    public void start() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            this.port = socket.getLocalPort();
+        }
+        this.greenMail = new GreenMail(new ServerSetup(this.port, "localhost", ServerSetup.PROTOCOL_SMTP));
+        this.greenMail.withConfiguration(GreenMailConfiguration.aConfig().withUser(this.sender, this.user,
+                this.password));
+        this.greenMail.start();
+    }
+
+    public void stop() {
+        if (this.greenMail != null) {
+            this.greenMail.stop();
+        }
+    }
+
+    /**
+     * @return the port to configure as <code>mail.smtpPort</code>.
+     */
+    public String getPort() {
+        return String.valueOf(this.port);
+    }
+
+    public int getReceivedCount() {
+        return this.greenMail.getReceivedMessages().length;
+    }
+}
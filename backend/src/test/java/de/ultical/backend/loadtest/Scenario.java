@@ -0,0 +1,130 @@
+package de.ultical.backend.loadtest;
+
+import javax.ws.rs.client.Entity;
+
+import de.ultical.backend.loadtest.Fixtures.AdminRoster;
+import de.ultical.backend.loadtest.Fixtures.OpenRegistration;
+
+/**
+ * The steps a user takes in one visit of the site, each calling one or more
+ * endpoints. Requests that change data undo their change right away so a run
+ * does not wear out the fixtures.
+ */
+public enum Scenario {
+
+    /**
+     * Browses the calendar and opens one of the events.
+     */
+    CALENDAR("calendar") {
+        @Override
+        void run(LoadRunner.Worker worker) {
+            worker.call("events.basics", () -> worker.target("events/basics").request().get());
+            int eventId = worker.pick(worker.getFixtures().getEventIds());
+            worker.call("events.get", () -> worker.target("events/" + eventId).request().get());
+        }
+    },
+    /**
+     * Looks up the list of teams and opens one of them.
+     */
+    TEAM_PAGE("team") {
+        @Override
+        void run(LoadRunner.Worker worker) {
+            worker.call("teams.basics", () -> worker.target("teams/basics").request().get());
+            int teamId = worker.pick(worker.getFixtures().getTeamIds());
+            worker.call("teams.get", () -> worker.target("teams/" + teamId).request().get());
+        }
+    },
+    /**
+     * Logs a user in, the token is not reused.
+     */
+    LOGIN("login") {
+        @Override
+        void run(LoadRunner.Worker worker) {
+            worker.login(worker.pick(worker.getFixtures().getEmails()));
+        }
+    },
+    /**
+     * Adds a DFV member to a roster and removes them again, the first time a
+     * member is added they are looked up at the DFV API.
+     */
+    ROSTER_EDIT("roster") {
+        @Override
+        void run(LoadRunner.Worker worker) {
+            AdminRoster roster = worker.pick(worker.own(worker.getFixtures().getAdminRosters()));
+            if (roster == null) {
+                return;
+            }
+            String authorization = worker.authorization(roster.getEmail());
+            Integer dfvNumber = worker.nextNewMember();
+            if (authorization == null || dfvNumber == null) {
+                return;
+            }
+            String player = worker.call("roster.addPlayer",
+                    () -> worker.target("roster/" + roster.getRosterId()).request()
+                            .header("Authorization", authorization)
+                            .post(Entity.json("{\"dfvNumber\":" + dfvNumber + "}")));
+            if (player == null) {
+                return;
+            }
+            int playerId = worker.readTree(player).get("id").asInt();
+            worker.call("roster.deletePlayer",
+                    () -> worker.target("roster/" + roster.getRosterId() + "/player/" + playerId).request()
+                            .header("Authorization", authorization).delete());
+        }
+    },
+    /**
+     * Registers a roster for a division the way the registration page does and
+     * withdraws the registration again.
+     */
+    REGISTRATION("registration") {
+        @Override
+        void run(LoadRunner.Worker worker) {
+            OpenRegistration registration = worker.pick(worker.own(worker.getFixtures().getOpenRegistrations()));
+            if (registration == null) {
+                return;
+            }
+            String authorization = worker.authorization(registration.getEmail());
+            if (authorization == null) {
+                return;
+            }
+            // the payload the registration page sends
+            String payload = "{\"roster\":{\"id\":" + registration.getRosterId() + "},\"teamName\":\"Load Test "
+                    + registration.getRosterId() + "\"}";
+            if (worker.call("division.register",
+                    () -> worker.target("tournaments/division/" + registration.getDivisionId() + "/register/team")
+                            .request().header("Authorization", authorization).post(Entity.json(payload))) == null) {
+                return;
+            }
+            String path = "divisions/" + registration.getDivisionId() + "/registerTeam/"
+                    + registration.getRosterId();
+            worker.call("division.unregister",
+                    () -> worker.target(path).request().header("Authorization", authorization).delete());
+        }
+    };
+
+    private final String name;
+
+    private Scenario(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    abstract void run(LoadRunner.Worker worker);
+
+    public static Scenario byName(String name) {
+        for (Scenario scenario : values()) {
+            if (scenario.name.equals(name)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario " + name);
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
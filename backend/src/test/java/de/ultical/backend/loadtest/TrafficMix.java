@@ -0,0 +1,66 @@
+package de.ultical.backend.loadtest;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The share of each {@link Scenario} in the traffic, given as weights like
+ * <code>calendar=40,team=25,login=15,roster=10,registration=10</code>.
+ * Scenarios that are not listed are not run.
+ */
+public class TrafficMix {
+
+    static final String DEFAULT = "calendar=40,team=25,login=15,roster=10,registration=10";
+
+    private final Map<Scenario, Integer> weights;
+    private final int total;
+
+    TrafficMix(Map<Scenario, Integer> weights) {
+        this.weights = Collections.unmodifiableMap(new EnumMap<>(weights));
+        this.total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        if (this.total <= 0) {
+            throw new IllegalArgumentException("The traffic mix needs at least one scenario");
+        }
+    }
+
+    public static TrafficMix parse(String mix) {
+        Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected <scenario>=<weight>, got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + parts[0]);
+            }
+            weights.put(Scenario.byName(parts[0].trim()), weight);
+        }
+        return new TrafficMix(weights);
+    }
+
+    public Map<Scenario, Integer> getWeights() {
+        return this.weights;
+    }
+
+    /**
+     * @return a scenario, each with the probability of its share.
+     */
+    public Scenario pick(Random random) {
+        int value = random.nextInt(this.total);
+        for (Map.Entry<Scenario, Integer> weight : this.weights.entrySet()) {
+            value -= weight.getValue();
+            if (value < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    @Override
+    public String toString() {
+        return this.weights.toString();
+    }
+}
@@ -105,6 +105,14 @@ public class PrepareDBRule implements TestRule {
 		return session;
 	}
 
+	/**
+	 * opens an additional session, e.g. for tests that access the database
+	 * from several threads. The caller is responsible for closing it.
+	 */
+	public SqlSession openSession() {
+		return this.sessionFactory.openSession();
+	}
+
 	public void closeSession() {
 		if (session != null) {
 			session.close();